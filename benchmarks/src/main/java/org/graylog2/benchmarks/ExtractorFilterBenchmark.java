@@ -0,0 +1,137 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bson.types.ObjectId;
+import org.graylog2.filters.ExtractorFilter;
+import org.graylog2.inputs.Input;
+import org.graylog2.inputs.InputImpl;
+import org.graylog2.inputs.InputService;
+import org.graylog2.inputs.extractors.RegexExtractor;
+import org.graylog2.inputs.extractors.SplitAndIndexExtractor;
+import org.graylog2.inputs.extractors.SubstringExtractor;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.inputs.Extractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the extractors of an input on an access log line. The extractor set cycles through regex, split &amp; index
+ * and substring extractors, which are the most commonly used types. The score includes creating the message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class ExtractorFilterBenchmark {
+    private static final String INPUT_ID = "57e3d8ab4b900a0b0c36d4d5";
+    private static final String MESSAGE = "192.168.1.42 - frank [10/Oct/2016:13:55:36 +0200] " +
+            "\"GET /api/system/metrics?id=4711 HTTP/1.1\" 200 2326 \"-\" \"Mozilla/5.0\" request_time=0.042";
+
+    @Param({"1", "10", "50"})
+    public int extractorCount;
+
+    private ScheduledExecutorService scheduler;
+    private ExtractorFilter filter;
+
+    @Setup
+    public void setUp() throws Exception {
+        final MetricRegistry metricRegistry = new MetricRegistry();
+        final List<Extractor> extractors = new ArrayList<>(extractorCount);
+        for (int i = 0; i < extractorCount; i++) {
+            extractors.add(createExtractor(metricRegistry, i));
+        }
+
+        final Input input = new InputImpl(new ObjectId(INPUT_ID), new HashMap<>());
+        // the extractor filter only loads the extractors of all inputs
+        final InputService inputService = (InputService) Proxy.newProxyInstance(InputService.class.getClassLoader(),
+                new Class<?>[]{InputService.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "all":
+                            return Collections.singletonList(input);
+                        case "find":
+                            return input;
+                        case "getExtractors":
+                            return extractors;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("extractor-benchmark-scheduler-%d").setDaemon(true).build());
+        filter = new ExtractorFilter(inputService, new EventBus(), scheduler, metricRegistry);
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public Message filter() {
+        final Message message = new Message(MESSAGE, "benchmark", Tools.nowUTC());
+        message.setSourceInputId(INPUT_ID);
+        filter.filter(message);
+        return message;
+    }
+
+    private static Extractor createExtractor(MetricRegistry metricRegistry, int i) throws Exception {
+        final String id = "extractor-" + i;
+        final String targetField = "field_" + i;
+        switch (i % 3) {
+            case 0:
+                return new RegexExtractor(metricRegistry, id, id, i, Extractor.CursorStrategy.COPY, "message", targetField,
+                        ImmutableMap.of("regex_value", "request_time=(\\d+\\.\\d+)"), "benchmark",
+                        Collections.emptyList(), Extractor.ConditionType.NONE, null);
+            case 1:
+                return new SplitAndIndexExtractor(metricRegistry, id, id, i, Extractor.CursorStrategy.COPY, "message", targetField,
+                        ImmutableMap.of("split_by", " ", "index", 9), "benchmark",
+                        Collections.emptyList(), Extractor.ConditionType.STRING, "HTTP/1.1");
+            default:
+                return new SubstringExtractor(metricRegistry, id, id, i, Extractor.CursorStrategy.COPY, "message", targetField,
+                        ImmutableMap.of("begin_index", 0, "end_index", 12), "benchmark",
+                        Collections.emptyList(), Extractor.ConditionType.REGEX, "^\\d+\\.");
+        }
+    }
+}
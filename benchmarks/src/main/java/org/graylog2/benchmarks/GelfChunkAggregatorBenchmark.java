@@ -0,0 +1,114 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.graylog2.inputs.codecs.GelfChunkAggregator;
+import org.graylog2.plugin.inputs.codecs.CodecAggregator;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reassembly of chunked GELF messages. Every invocation adds all chunks of one message, so the score is the number
+ * of complete messages per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class GelfChunkAggregatorBenchmark {
+    private static final byte[] CHUNK_MAGIC_BYTES = new byte[]{0x1e, 0x0f};
+    private static final int CHUNK_SIZE = 1024;
+    // Message IDs are reused after this many messages, long after the previous message with the same ID completed.
+    private static final int DISTINCT_MESSAGES = 4096;
+
+    @Param({"2", "8", "32"})
+    public int chunkCount;
+
+    private ScheduledExecutorService scheduler;
+    private GelfChunkAggregator aggregator;
+    private ChannelBuffer[][] messages;
+    private int next = 0;
+
+    @Setup
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("gelf-chunk-benchmark-scheduler-%d").setDaemon(true).build());
+        aggregator = new GelfChunkAggregator(scheduler, new MetricRegistry());
+
+        final Random random = new Random(42L);
+        final byte[] payload = new byte[CHUNK_SIZE];
+        random.nextBytes(payload);
+
+        messages = new ChannelBuffer[DISTINCT_MESSAGES][];
+        for (int i = 0; i < DISTINCT_MESSAGES; i++) {
+            final byte[] messageId = ByteBuffer.allocate(8).putLong(random.nextLong()).array();
+            messages[i] = new ChannelBuffer[chunkCount];
+            for (int sequenceNumber = 0; sequenceNumber < chunkCount; sequenceNumber++) {
+                messages[i][sequenceNumber] = createChunk(messageId, (byte) sequenceNumber, (byte) chunkCount, payload);
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public void addChunks(Blackhole blackhole) {
+        final ChannelBuffer[] chunks = messages[next];
+        next = (next + 1) % DISTINCT_MESSAGES;
+
+        for (ChannelBuffer chunk : chunks) {
+            final CodecAggregator.Result result = aggregator.addChunk(chunk);
+            blackhole.consume(result);
+        }
+    }
+
+    private static ChannelBuffer createChunk(byte[] messageId, byte sequenceNumber, byte sequenceCount, byte[] payload) {
+        final ChannelBuffer channelBuffer = ChannelBuffers.buffer(payload.length + 12);
+        channelBuffer.writeBytes(CHUNK_MAGIC_BYTES);
+        channelBuffer.writeBytes(messageId);
+        channelBuffer.writeByte(sequenceNumber);
+        channelBuffer.writeByte(sequenceCount);
+        channelBuffer.writeBytes(payload);
+        return channelBuffer;
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.graylog2.inputs.codecs.GelfChunkAggregator;
+import org.graylog2.inputs.codecs.GelfCodec;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.journal.RawMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Decoding of single GELF messages, uncompressed and GZIP compressed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class GelfCodecBenchmark {
+    private static final String GELF_MESSAGE = "{" +
+            "\"version\":\"1.1\"," +
+            "\"host\":\"example.org\"," +
+            "\"short_message\":\"A short message that helps you identify what is going on\"," +
+            "\"full_message\":\"Backtrace here\\n\\nmore stuff\"," +
+            "\"timestamp\":1385053862.3072," +
+            "\"level\":1," +
+            "\"_user_id\":9001," +
+            "\"_some_info\":\"foo\"," +
+            "\"_some_env_var\":\"bar\"," +
+            "\"_request_time_ms\":123.45," +
+            "\"_http_status\":200" +
+            "}";
+
+    @Param({"uncompressed", "gzip"})
+    public String encoding;
+
+    private ScheduledExecutorService scheduler;
+    private GelfCodec codec;
+    private RawMessage rawMessage;
+
+    @Setup
+    public void setUp() throws IOException {
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("gelf-codec-benchmark-scheduler-%d").setDaemon(true).build());
+        codec = new GelfCodec(new Configuration(Collections.emptyMap()), new GelfChunkAggregator(scheduler, new MetricRegistry()));
+
+        final byte[] json = GELF_MESSAGE.getBytes(StandardCharsets.UTF_8);
+        final byte[] payload = "gzip".equals(encoding) ? gzip(json) : json;
+        rawMessage = new RawMessage(payload, new InetSocketAddress("127.0.0.1", 12201));
+    }
+
+    @TearDown
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Benchmark
+    public Message decode() {
+        return codec.decode(rawMessage);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.joschi.jadconfig.util.Size;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.io.FileUtils;
+import org.graylog2.Configuration;
+import org.graylog2.audit.NullAuditEventSender;
+import org.graylog2.plugin.ServerStatus;
+import org.graylog2.shared.journal.Journal;
+import org.graylog2.shared.journal.JournalReadEntry;
+import org.graylog2.shared.journal.KafkaJournal;
+import org.joda.time.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes and reads batches of 1 KB entries through the disk journal. Both benchmarks report messages per second.
+ * The read benchmark cycles over a journal that has been filled during setup, so it mostly measures the page cache
+ * and the entry decoding rather than the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class KafkaJournalBenchmark {
+    private static final int BATCH_SIZE = 500;
+    private static final int ENTRY_SIZE = 1024;
+    private static final int PREFILLED_ENTRIES = 100_000;
+
+    private File journalDirectory;
+    private File nodeIdFile;
+    private ScheduledExecutorService scheduler;
+    private KafkaJournal journal;
+    private List<Journal.Entry> entries;
+    private long readOffset;
+
+    @Setup
+    public void setUp() throws Exception {
+        final Path tempDirectory = Paths.get(System.getProperty("java.io.tmpdir"));
+        journalDirectory = Files.createTempDirectory(tempDirectory, "journal-benchmark").toFile();
+        nodeIdFile = Files.createTempFile(tempDirectory, "journal-benchmark", ".node-id").toFile();
+        final Configuration configuration = new Configuration() {
+            @Override
+            public String getNodeIdFile() {
+                return nodeIdFile.getAbsolutePath();
+            }
+        };
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("journal-benchmark-scheduler-%d").setDaemon(true).build());
+        journal = new KafkaJournal(journalDirectory,
+                scheduler,
+                Size.megabytes(100L),
+                Duration.standardHours(1),
+                Size.gigabytes(10L),
+                Duration.standardHours(1),
+                1_000_000,
+                Duration.standardMinutes(1),
+                100,
+                new MetricRegistry(),
+                new ServerStatus(configuration, Collections.emptySet(), new EventBus(), NullAuditEventSender::new));
+        journal.startAsync().awaitRunning();
+
+        final Random random = new Random(42L);
+        entries = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final byte[] idBytes = new byte[16];
+            final byte[] messageBytes = new byte[ENTRY_SIZE];
+            random.nextBytes(idBytes);
+            random.nextBytes(messageBytes);
+            entries.add(journal.createEntry(idBytes, messageBytes));
+        }
+
+        for (int written = 0; written < PREFILLED_ENTRIES; written += BATCH_SIZE) {
+            journal.write(entries);
+        }
+        readOffset = journal.getLogStartOffset();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        journal.stopAsync().awaitTerminated();
+        scheduler.shutdownNow();
+        FileUtils.deleteDirectory(journalDirectory);
+        FileUtils.deleteQuietly(nodeIdFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long write() {
+        return journal.write(entries);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public List<JournalReadEntry> read() {
+        List<JournalReadEntry> read = journal.read(readOffset, BATCH_SIZE);
+        if (read.isEmpty()) {
+            readOffset = journal.getLogStartOffset();
+            read = journal.read(readOffset, BATCH_SIZE);
+        }
+        readOffset += read.size();
+        return read;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.codahale.metrics.Meter;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.Tools;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds messages with a mix of string and numeric fields and converts them into the document that is sent to
+ * Elasticsearch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class MessageBenchmark {
+    @Param({"5", "25", "100"})
+    public int fieldCount;
+
+    private final Meter invalidTimestampMeter = new Meter();
+    private String[] keys;
+    private Object[] values;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        keys = new String[fieldCount];
+        values = new Object[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            keys[i] = "field_" + i;
+            values[i] = i % 2 == 0 ? "value-" + random.nextInt(100_000) : random.nextInt(100_000);
+        }
+    }
+
+    @Benchmark
+    public Message addFields() {
+        return createMessage();
+    }
+
+    @Benchmark
+    public Map<String, Object> toElasticSearchObject() {
+        return createMessage().toElasticSearchObject(invalidTimestampMeter);
+    }
+
+    private Message createMessage() {
+        final Message message = new Message("benchmark message", "benchmark", Tools.nowUTC());
+        for (int i = 0; i < fieldCount; i++) {
+            message.addField(keys[i], values[i]);
+        }
+        return message;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.FileUtils;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.journal.RawMessage;
+import org.graylog2.plugin.system.NodeId;
+import org.graylog2.shared.journal.JournalCodecConfigTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal serialization of raw messages in the protobuf format and the compact format. The message carries a typical
+ * GELF input configuration and one source node.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class RawMessageBenchmark {
+    @Param({"256", "4096"})
+    public int payloadSize;
+
+    private File directory;
+    private JournalCodecConfigTable codecConfigTable;
+    private RawMessage rawMessage;
+    private byte[] encoded;
+    private byte[] encodedCompact;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory(Paths.get(System.getProperty("java.io.tmpdir")), "raw-message-benchmark").toFile();
+        codecConfigTable = new JournalCodecConfigTable(directory);
+
+        final byte[] payload = new byte[payloadSize];
+        new Random(42L).nextBytes(payload);
+        rawMessage = new RawMessage(payload, new InetSocketAddress("127.0.0.1", 12201));
+        rawMessage.addSourceNode("57e3d8ab4b900a0b0c36d4d5", new NodeId(new File(directory, "node-id").getAbsolutePath()));
+        rawMessage.setCodecName("gelf");
+        rawMessage.setCodecConfig(new Configuration(ImmutableMap.<String, Object>builder()
+                .put("bind_address", "0.0.0.0")
+                .put("port", 12201)
+                .put("recv_buffer_size", 262144)
+                .put("override_source", "")
+                .put("decompress_size_limit", 8388608)
+                .put("throttling_allowed", false)
+                .build()));
+        encoded = rawMessage.encode();
+        encodedCompact = rawMessage.encode(codecConfigTable);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(directory);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return rawMessage.encode();
+    }
+
+    @Benchmark
+    public RawMessage decode() {
+        return RawMessage.decode(encoded, 1L);
+    }
+
+    @Benchmark
+    public byte[] encodeCompact() {
+        return rawMessage.encode(codecConfigTable);
+    }
+
+    @Benchmark
+    public RawMessage decodeCompact() {
+        return RawMessage.decode(encodedCompact, 1L, codecConfigTable);
+    }
+}
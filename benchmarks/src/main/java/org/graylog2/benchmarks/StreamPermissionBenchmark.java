@@ -0,0 +1,110 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.graylog2.security.WildcardPermissionIndex;
+import org.graylog2.shared.security.RestPermissions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filters a list of streams by the stream read permission of a user, like the stream list endpoint does. The user
+ * may read every other stream and edit every tenth one, and has a few unrelated permissions. The permission index of
+ * the authorization realm is compared with checking every permission of the user one by one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class StreamPermissionBenchmark {
+    @Param({"10", "100", "1000"})
+    public int streamCount;
+
+    private List<String> streamIds;
+    private WildcardPermissionIndex permissionIndex;
+    private List<WildcardPermission> permissions;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        streamIds = new ArrayList<>(streamCount);
+        final List<String> userPermissions = new ArrayList<>();
+        userPermissions.add("dashboards:read");
+        userPermissions.add("users:edit:benchmark");
+        userPermissions.add("savedsearches:*");
+        for (int i = 0; i < streamCount; i++) {
+            final String streamId = String.format(Locale.ENGLISH, "%08x%016x", random.nextInt(), random.nextLong());
+            streamIds.add(streamId);
+            if (i % 2 == 0) {
+                userPermissions.add(RestPermissions.STREAMS_READ + ":" + streamId);
+            }
+            if (i % 10 == 0) {
+                userPermissions.add(RestPermissions.STREAMS_EDIT + ":" + streamId);
+            }
+        }
+
+        permissionIndex = new WildcardPermissionIndex(userPermissions);
+        permissions = new ArrayList<>(userPermissions.size());
+        for (String permission : userPermissions) {
+            permissions.add(new WildcardPermission(permission));
+        }
+    }
+
+    @Benchmark
+    public List<String> permissionIndex() {
+        final List<String> permitted = new ArrayList<>();
+        for (String streamId : streamIds) {
+            if (permissionIndex.implies(RestPermissions.STREAMS_READ + ":" + streamId)) {
+                permitted.add(streamId);
+            }
+        }
+        return permitted;
+    }
+
+    @Benchmark
+    public List<String> wildcardPermissions() {
+        final List<String> permitted = new ArrayList<>();
+        for (String streamId : streamIds) {
+            final WildcardPermission permission = new WildcardPermission(RestPermissions.STREAMS_READ + ":" + streamId);
+            for (WildcardPermission userPermission : permissions) {
+                if (userPermission.implies(permission)) {
+                    permitted.add(streamId);
+                    break;
+                }
+            }
+        }
+        return permitted;
+    }
+}
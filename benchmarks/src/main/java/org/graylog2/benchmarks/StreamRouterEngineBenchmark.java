@@ -0,0 +1,132 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.benchmarks;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.bson.types.ObjectId;
+import org.graylog2.Configuration;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.streams.Stream;
+import org.graylog2.plugin.streams.StreamRule;
+import org.graylog2.plugin.streams.StreamRuleType;
+import org.graylog2.shared.metrics.EntityMetrics;
+import org.graylog2.streams.StreamFaultManager;
+import org.graylog2.streams.StreamImpl;
+import org.graylog2.streams.StreamMessageCounters;
+import org.graylog2.streams.StreamMetrics;
+import org.graylog2.streams.StreamRouterEngine;
+import org.graylog2.streams.StreamRuleImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matches a message against a growing number of streams. Every stream has an exact match rule and a regex rule on
+ * different fields, so both the cheap and the expensive rule types are exercised. About one in ten streams matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(2)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+public class StreamRouterEngineBenchmark {
+    @Param({"10", "100", "1000"})
+    public int streamCount;
+
+    private ExecutorService executorService;
+    private StreamRouterEngine engine;
+    private Message message;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(42L);
+        final List<Stream> streams = new ArrayList<>(streamCount);
+        for (int i = 0; i < streamCount; i++) {
+            final ObjectId streamId = objectId(random);
+            final String application = random.nextInt(10) == 0 ? "billing" : "app-" + i;
+            final List<StreamRule> rules = new ArrayList<>(2);
+            rules.add(rule(objectId(random), streamId, StreamRuleType.EXACT, "application", application));
+            rules.add(rule(objectId(random), streamId, StreamRuleType.REGEX, "message", "^.*(timeout|refused).*$"));
+            final Map<String, Object> fields = ImmutableMap.of(
+                    StreamImpl.FIELD_TITLE, "stream-" + i,
+                    StreamImpl.FIELD_MATCHING_TYPE, Stream.MatchingType.AND.toString());
+            streams.add(new StreamImpl(streamId, fields, rules, Collections.emptySet()));
+        }
+
+        final StreamMetrics streamMetrics = new StreamMetrics(new EntityMetrics(new MetricRegistry()));
+        // the notification and stream services are only needed to pause streams after too many timeouts
+        final StreamFaultManager streamFaultManager = new StreamFaultManager(new Configuration(), streamMetrics, null, null);
+
+        executorService = Executors.newCachedThreadPool(
+                new ThreadFactoryBuilder().setNameFormat("stream-router-benchmark-%d").setDaemon(true).build());
+        engine = new StreamRouterEngine(streams, executorService, streamFaultManager, streamMetrics, new StreamMessageCounters(false));
+
+        message = new Message("upstream connection refused while reading response header", "benchmark", Tools.nowUTC());
+        message.addField("application", "billing");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
+    @Benchmark
+    public List<Stream> match() {
+        return engine.match(message);
+    }
+
+    private static ObjectId objectId(Random random) {
+        final byte[] bytes = new byte[12];
+        random.nextBytes(bytes);
+        return new ObjectId(bytes);
+    }
+
+    private static StreamRule rule(ObjectId ruleId, ObjectId streamId, StreamRuleType type, String field, String value) {
+        final Map<String, Object> fields = new HashMap<>();
+        fields.put(StreamRuleImpl.FIELD_TYPE, type.toInteger());
+        fields.put(StreamRuleImpl.FIELD_FIELD, field);
+        fields.put(StreamRuleImpl.FIELD_VALUE, value);
+        fields.put(StreamRuleImpl.FIELD_STREAM_ID, streamId);
+        fields.put(StreamRuleImpl.FIELD_INVERTED, false);
+        // the constructor taking an ID is protected
+        return new StreamRuleImpl(ruleId, fields) {
+        };
+    }
+}
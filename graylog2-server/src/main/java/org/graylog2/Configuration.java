@@ -63,6 +63,9 @@ public class Configuration extends BaseConfiguration {
     @Parameter(value = "output_flush_interval", required = true, validator = PositiveIntegerValidator.class)
     private int outputFlushInterval = 1;
 
+    @Parameter(value = "message_latency_sample_rate", validator = PositiveIntegerValidator.class)
+    private int messageLatencySampleRate = 1000;
+
     @Parameter(value = "outputbuffer_processors", required = true, validator = PositiveIntegerValidator.class)
     private int outputBufferProcessors = 3;
 
@@ -92,6 +95,18 @@ public class Configuration extends BaseConfiguration {
 
     @Parameter(value = "root_email")
     private String rootEmail = "";
+
+    @Parameter(value = "authentication_cache_ttl", validator = PositiveDurationValidator.class)
+    private Duration authenticationCacheTtl = Duration.seconds(30L);
+
+    @Parameter(value = "last_access_flush_interval", validator = PositiveDurationValidator.class)
+    private Duration lastAccessFlushInterval = Duration.seconds(5L);
+
+    @Parameter(value = "authorization_cache_ttl", validator = PositiveDurationValidator.class)
+    private Duration authorizationCacheTtl = Duration.seconds(1L);
+
+    @Parameter(value = "cluster_config_cache_ttl", validator = PositiveDurationValidator.class)
+    private Duration clusterConfigCacheTtl = Duration.minutes(1L);
  
     @Parameter(value = "custom_username")
     private String customUsername = "Username";
@@ -132,6 +147,18 @@ public class Configuration extends BaseConfiguration {
     @Parameter(value = "alert_check_interval", validator = PositiveIntegerValidator.class)
     private int alertCheckInterval = 60;
 
+    @Parameter(value = "alert_check_concurrency", validator = PositiveIntegerValidator.class)
+    private int alertCheckConcurrency = 4;
+
+    @Parameter(value = "stream_message_counts_enabled")
+    private boolean streamMessageCountsEnabled = false;
+
+    @Parameter(value = "stream_message_counts_interval", validator = PositiveDurationValidator.class)
+    private Duration streamMessageCountsInterval = Duration.seconds(5L);
+
+    @Parameter(value = "stream_message_counts_retention", validator = PositiveDurationValidator.class)
+    private Duration streamMessageCountsRetention = Duration.hours(1L);
+
     @Parameter(value = "gc_warning_threshold")
     private Duration gcWarningThreshold = Duration.seconds(1L);
 
@@ -141,6 +168,15 @@ public class Configuration extends BaseConfiguration {
     @Parameter(value = "dashboard_widget_default_cache_time", validator = PositiveDurationValidator.class)
     private Duration dashboardWidgetDefaultCacheTime = Duration.seconds(10L);
 
+    @Parameter(value = "dashboard_widget_refresh_threads", validator = PositiveIntegerValidator.class)
+    private int dashboardWidgetRefreshThreads = 4;
+
+    @Parameter(value = "proxied_requests_thread_pool_size", validator = PositiveIntegerValidator.class)
+    private int proxiedRequestsThreadPoolSize = 32;
+
+    @Parameter(value = "proxied_requests_default_call_timeout", validator = PositiveDurationValidator.class)
+    private Duration proxiedRequestsDefaultCallTimeout = Duration.seconds(5L);
+
     @Parameter(value = "user_password_default_algorithm")
     private String userPasswordDefaultAlgorithm = "bcrypt";
 
@@ -159,6 +195,33 @@ public class Configuration extends BaseConfiguration {
     @Parameter(value = "index_ranges_cleanup_interval", validator = PositiveDurationValidator.class)
     private Duration indexRangesCleanupInterval = Duration.hours(1L);
 
+    @Parameter(value = "index_ranges_rebuild_concurrency", validator = PositiveIntegerValidator.class)
+    private int indexRangesRebuildConcurrency = 4;
+
+    @Parameter(value = "index_ranges_rebuild_batch_size", validator = PositiveIntegerValidator.class)
+    private int indexRangesRebuildBatchSize = 10;
+
+    @Parameter(value = "search_result_cache_enabled")
+    private boolean searchResultCacheEnabled = true;
+
+    @Parameter(value = "search_result_cache_max_size", validator = PositiveIntegerValidator.class)
+    private int searchResultCacheMaxSize = 1000;
+
+    @Parameter(value = "search_result_cache_live_ttl", validator = PositiveDurationValidator.class)
+    private Duration searchResultCacheLiveTtl = Duration.seconds(5L);
+
+    @Parameter(value = "search_histogram_cache_max_buckets", validator = PositiveIntegerValidator.class)
+    private int searchHistogramCacheMaxBuckets = 100000;
+
+    @Parameter(value = "search_time_ordered_planning")
+    private boolean searchTimeOrderedPlanning = true;
+
+    @Parameter(value = "search_export_batch_size", validator = PositiveIntegerValidator.class)
+    private int searchExportBatchSize = 500;
+
+    @Parameter(value = "search_export_scroll_keepalive", validator = PositiveDurationValidator.class)
+    private Duration searchExportScrollKeepalive = Duration.minutes(5L);
+
     @Parameter(value = "trusted_proxies", converter = IPSubnetConverter.class)
     private Set<IpSubnet> trustedProxies = Collections.emptySet();
 
@@ -182,6 +245,10 @@ public class Configuration extends BaseConfiguration {
         return outputFlushInterval;
     }
 
+    public int getMessageLatencySampleRate() {
+        return messageLatencySampleRate;
+    }
+
     public int getOutputBufferProcessors() {
         return outputBufferProcessors;
     }
@@ -281,6 +348,38 @@ public class Configuration extends BaseConfiguration {
         return alertCheckInterval;
     }
 
+    public int getAlertCheckConcurrency() {
+        return alertCheckConcurrency;
+    }
+
+    public boolean isStreamMessageCountsEnabled() {
+        return streamMessageCountsEnabled;
+    }
+
+    public Duration getStreamMessageCountsInterval() {
+        return streamMessageCountsInterval;
+    }
+
+    public Duration getStreamMessageCountsRetention() {
+        return streamMessageCountsRetention;
+    }
+
+    public Duration getAuthenticationCacheTtl() {
+        return authenticationCacheTtl;
+    }
+
+    public Duration getLastAccessFlushInterval() {
+        return lastAccessFlushInterval;
+    }
+
+    public Duration getAuthorizationCacheTtl() {
+        return authorizationCacheTtl;
+    }
+
+    public Duration getClusterConfigCacheTtl() {
+        return clusterConfigCacheTtl;
+    }
+
     public Duration getGcWarningThreshold() {
         return gcWarningThreshold;
     }
@@ -293,6 +392,18 @@ public class Configuration extends BaseConfiguration {
         return dashboardWidgetDefaultCacheTime;
     }
 
+    public int getDashboardWidgetRefreshThreads() {
+        return dashboardWidgetRefreshThreads;
+    }
+
+    public int getProxiedRequestsThreadPoolSize() {
+        return proxiedRequestsThreadPoolSize;
+    }
+
+    public Duration getProxiedRequestsDefaultCallTimeout() {
+        return proxiedRequestsDefaultCallTimeout;
+    }
+
     public String getUserPasswordDefaultAlgorithm() {
         return userPasswordDefaultAlgorithm;
     }
@@ -317,6 +428,42 @@ public class Configuration extends BaseConfiguration {
         return indexRangesCleanupInterval;
     }
 
+    public int getIndexRangesRebuildConcurrency() {
+        return indexRangesRebuildConcurrency;
+    }
+
+    public int getIndexRangesRebuildBatchSize() {
+        return indexRangesRebuildBatchSize;
+    }
+
+    public boolean isSearchResultCacheEnabled() {
+        return searchResultCacheEnabled;
+    }
+
+    public int getSearchResultCacheMaxSize() {
+        return searchResultCacheMaxSize;
+    }
+
+    public Duration getSearchResultCacheLiveTtl() {
+        return searchResultCacheLiveTtl;
+    }
+
+    public int getSearchHistogramCacheMaxBuckets() {
+        return searchHistogramCacheMaxBuckets;
+    }
+
+    public boolean isSearchTimeOrderedPlanning() {
+        return searchTimeOrderedPlanning;
+    }
+
+    public int getSearchExportBatchSize() {
+        return searchExportBatchSize;
+    }
+
+    public Duration getSearchExportScrollKeepalive() {
+        return searchExportScrollKeepalive;
+    }
+
     public Set<IpSubnet> getTrustedProxies() {
         return trustedProxies;
     }
@@ -0,0 +1,149 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.alerts;
+
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableMap;
+import org.graylog2.alerts.types.MessageCountAlertCondition;
+import org.graylog2.indexer.searches.Searches;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.alarms.AlertCondition;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.streams.StreamMessageCountService;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Message counts of all streams with {@link MessageCountAlertCondition message count alert conditions}, fetched with
+ * one request per time range before an alert scan instead of one request per condition. The alert scanner creates
+ * a new batch for every scan and hands it to the conditions of that scan.
+ * <p>
+ * If stream message counts are enabled, time ranges within their retention are counted from the stored counts of
+ * all nodes instead of querying Elasticsearch. Time ranges which start before all nodes have been counting, e. g.
+ * right after enabling the counts or restarting a node, are still counted by Elasticsearch, because the stored counts
+ * would be too low and could trigger conditions which alert on too few messages.
+ */
+public class MessageCountBatch {
+    private static final Logger LOG = LoggerFactory.getLogger(MessageCountBatch.class);
+
+    private final Searches searches;
+    private final StreamMessageCountService streamMessageCountService;
+    private final boolean streamMessageCountsEnabled;
+    private final Duration streamMessageCountsRetention;
+    private final ConcurrentMap<Integer, Counts> countsByMinutes = new ConcurrentHashMap<>();
+
+    @Inject
+    public MessageCountBatch(Searches searches,
+                             StreamMessageCountService streamMessageCountService,
+                             @Named("stream_message_counts_enabled") boolean streamMessageCountsEnabled,
+                             @Named("stream_message_counts_retention") Duration streamMessageCountsRetention) {
+        this.searches = searches;
+        this.streamMessageCountService = streamMessageCountService;
+        this.streamMessageCountsEnabled = streamMessageCountsEnabled;
+        this.streamMessageCountsRetention = streamMessageCountsRetention;
+    }
+
+    /**
+     * Fetches the message counts needed by the given alert conditions.
+     */
+    public void prefetch(Collection<? extends AlertCondition> alertConditions) {
+        final Map<Integer, Set<String>> streamIdsByMinutes = new HashMap<>();
+        for (AlertCondition alertCondition : alertConditions) {
+            if (alertCondition instanceof MessageCountAlertCondition) {
+                final int minutes = ((MessageCountAlertCondition) alertCondition).getTime();
+                streamIdsByMinutes.computeIfAbsent(minutes, k -> new HashSet<>()).add(alertCondition.getStream().getId());
+            }
+        }
+
+        final DateTime now = Tools.nowUTC();
+        final DateTime countingSince = streamMessageCountsEnabled ? countingSince() : null;
+        for (Map.Entry<Integer, Set<String>> entry : streamIdsByMinutes.entrySet()) {
+            final int minutes = entry.getKey();
+            final AbsoluteRange range = AbsoluteRange.create(now.minusMinutes(minutes), now);
+            try {
+                final Map<String, Long> counts;
+                if (countingSince != null && !range.from().isBefore(countingSince)
+                        && minutes * 60_000L <= streamMessageCountsRetention.toMilliseconds()) {
+                    counts = streamMessageCountService.sum(entry.getValue(), range.from());
+                } else {
+                    counts = searches.streamCounts(entry.getValue(), range);
+                }
+                countsByMinutes.put(minutes, Counts.create(range, counts));
+            } catch (Exception e) {
+                // the conditions will run their own count request
+                LOG.warn("Unable to count messages of {} streams in the last {} minutes.", entry.getValue().size(), minutes, e);
+            }
+        }
+    }
+
+    @Nullable
+    private DateTime countingSince() {
+        try {
+            return streamMessageCountService.countingSince();
+        } catch (Exception e) {
+            LOG.warn("Unable to load the stream message counting state, counting messages with Elasticsearch.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return the prefetched message count of the stream in the last {@code minutes} minutes, if available
+     */
+    public Optional<Count> get(String streamId, int minutes) {
+        final Counts counts = countsByMinutes.get(minutes);
+        if (counts == null || !counts.counts().containsKey(streamId)) {
+            return Optional.empty();
+        }
+        return Optional.of(Count.create(counts.range(), counts.counts().get(streamId)));
+    }
+
+    @AutoValue
+    abstract static class Counts {
+        abstract AbsoluteRange range();
+
+        abstract ImmutableMap<String, Long> counts();
+
+        static Counts create(AbsoluteRange range, Map<String, Long> counts) {
+            return new AutoValue_MessageCountBatch_Counts(range, ImmutableMap.copyOf(counts));
+        }
+    }
+
+    @AutoValue
+    public abstract static class Count {
+        public abstract AbsoluteRange range();
+
+        public abstract long count();
+
+        static Count create(AbsoluteRange range, long count) {
+            return new AutoValue_MessageCountBatch_Count(range, count);
+        }
+    }
+}
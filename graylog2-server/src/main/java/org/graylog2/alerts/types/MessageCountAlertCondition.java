@@ -20,6 +20,7 @@ import com.google.common.collect.Lists;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import org.graylog2.alerts.AbstractAlertCondition;
+import org.graylog2.alerts.MessageCountBatch;
 import org.graylog2.indexer.InvalidRangeFormatException;
 import org.graylog2.indexer.results.CountResult;
 import org.graylog2.indexer.results.ResultMessage;
@@ -41,6 +42,7 @@ import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 
 public class MessageCountAlertCondition extends AbstractAlertCondition {
     private static final Logger LOG = LoggerFactory.getLogger(MessageCountAlertCondition.class);
@@ -62,6 +64,7 @@ public class MessageCountAlertCondition extends AbstractAlertCondition {
     private final ThresholdType thresholdType;
     private final int threshold;
     private final Searches searches;
+    private volatile MessageCountBatch messageCountBatch;
 
     @AssistedInject
     public MessageCountAlertCondition(Searches searches,
@@ -87,20 +90,41 @@ public class MessageCountAlertCondition extends AbstractAlertCondition {
                 + ", grace: " + grace;
     }
 
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * Sets the message counts which the alert scanner has prefetched for all conditions of the current scan.
+     */
+    public void setMessageCountBatch(@Nullable MessageCountBatch messageCountBatch) {
+        this.messageCountBatch = messageCountBatch;
+    }
+
     @Override
     protected CheckResult runCheck() {
         try {
-            // Create an absolute range from the relative range to make sure it doesn't change during the two
-            // search requests. (count and find messages)
-            // This is needed because the RelativeRange computes the range from NOW on every invocation of getFrom() and
-            // getTo().
-            // See: https://github.com/Graylog2/graylog2-server/issues/2382
-            final RelativeRange relativeRange = RelativeRange.create(time * 60);
-            final AbsoluteRange range = AbsoluteRange.create(relativeRange.getFrom(), relativeRange.getTo());
-
             final String filter = "streams:" + stream.getId();
-            final CountResult result = searches.count("*", range, filter);
-            final long count = result.count();
+            final AbsoluteRange range;
+            final long count;
+
+            // The alert scanner counts the messages of all streams with a single request before running the checks.
+            final MessageCountBatch batch = messageCountBatch;
+            final Optional<MessageCountBatch.Count> batchCount = batch == null ? Optional.empty() : batch.get(stream.getId(), time);
+            if (batchCount.isPresent()) {
+                range = batchCount.get().range();
+                count = batchCount.get().count();
+            } else {
+                // Create an absolute range from the relative range to make sure it doesn't change during the two
+                // search requests. (count and find messages)
+                // This is needed because the RelativeRange computes the range from NOW on every invocation of getFrom() and
+                // getTo().
+                // See: https://github.com/Graylog2/graylog2-server/issues/2382
+                final RelativeRange relativeRange = RelativeRange.create(time * 60);
+                range = AbsoluteRange.create(relativeRange.getFrom(), relativeRange.getTo());
+                final CountResult result = searches.count("*", range, filter);
+                count = result.count();
+            }
 
             LOG.debug("Alert check <{}> result: [{}]", id, count);
 
@@ -36,6 +36,7 @@ import org.graylog2.bindings.providers.DefaultSecurityManagerProvider;
 import org.graylog2.bindings.providers.EsClientProvider;
 import org.graylog2.bindings.providers.EsNodeProvider;
 import org.graylog2.bindings.providers.MongoConnectionProvider;
+import org.graylog2.bindings.providers.ProxiedRequestsExecutorServiceProvider;
 import org.graylog2.bindings.providers.RulesEngineProvider;
 import org.graylog2.bindings.providers.SystemJobFactoryProvider;
 import org.graylog2.bindings.providers.SystemJobManagerProvider;
@@ -64,7 +65,6 @@ import org.graylog2.plugin.cluster.ClusterConfigService;
 import org.graylog2.plugin.decorators.SearchResponseDecorator;
 import org.graylog2.plugin.inject.Graylog2Module;
 import org.graylog2.rest.NotFoundExceptionMapper;
-import org.graylog2.rest.ScrollChunkWriter;
 import org.graylog2.rest.ValidationExceptionMapper;
 import org.graylog2.security.ldap.LdapConnector;
 import org.graylog2.security.ldap.LdapSettingsImpl;
@@ -78,6 +78,7 @@ import org.graylog2.shared.journal.NoopJournalModule;
 import org.graylog2.shared.metrics.jersey2.MetricsDynamicBinding;
 import org.graylog2.shared.security.RestrictToMasterFeature;
 import org.graylog2.shared.system.activities.ActivityWriter;
+import org.graylog2.streams.StreamMetricsCleanupListener;
 import org.graylog2.streams.StreamRouter;
 import org.graylog2.streams.StreamRouterEngine;
 import org.graylog2.system.activities.SystemMessageActivityWriter;
@@ -94,6 +95,7 @@ import org.graylog2.users.UserImpl;
 
 import javax.ws.rs.container.DynamicFeature;
 import javax.ws.rs.ext.ExceptionMapper;
+import java.util.concurrent.ExecutorService;
 
 import static com.google.inject.name.Names.named;
 
@@ -112,7 +114,6 @@ public class ServerBindings extends Graylog2Module {
         bindFactoryModules();
         bindDynamicFeatures();
         bindExceptionMappers();
-        bindAdditionalJerseyComponents();
         bindEventBusListeners();
         install(new AuthenticatingRealmModule());
         bindSearchResponseDecorators();
@@ -120,6 +121,7 @@ public class ServerBindings extends Graylog2Module {
 
     private void bindProviders() {
         bind(ClusterEventBus.class).toProvider(ClusterEventBusProvider.class).asEagerSingleton();
+        bind(ExecutorService.class).annotatedWith(named("proxiedRequestsExecutorService")).toProvider(ProxiedRequestsExecutorServiceProvider.class).asEagerSingleton();
     }
 
     private void bindFactoryModules() {
@@ -196,16 +198,13 @@ public class ServerBindings extends Graylog2Module {
         exceptionMappers.addBinding().toInstance(ValidationExceptionMapper.class);
     }
 
-    private void bindAdditionalJerseyComponents() {
-        jerseyAdditionalComponentsBinder().addBinding().toInstance(ScrollChunkWriter.class);
-    }
-
     private void bindEventBusListeners() {
         bind(InputStateListener.class).asEagerSingleton();
         bind(InputEventListener.class).asEagerSingleton();
         bind(LocalDebugEventListener.class).asEagerSingleton();
         bind(ClusterDebugEventListener.class).asEagerSingleton();
         bind(StartPageCleanupListener.class).asEagerSingleton();
+        bind(StreamMetricsCleanupListener.class).asEagerSingleton();
         bind(WidgetEventsListener.class).asEagerSingleton();
     }
 
@@ -0,0 +1,51 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.bindings.providers;
+
+import com.codahale.metrics.InstrumentedExecutorService;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+public class ProxiedRequestsExecutorServiceProvider implements Provider<ExecutorService> {
+    private final int threadPoolSize;
+    private final MetricRegistry metricRegistry;
+
+    @Inject
+    public ProxiedRequestsExecutorServiceProvider(@Named("proxied_requests_thread_pool_size") final int threadPoolSize,
+                                                  final MetricRegistry metricRegistry) {
+        this.threadPoolSize = threadPoolSize;
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public ExecutorService get() {
+        final ThreadFactory threadFactory = new ThreadFactoryBuilder().setDaemon(true).setNameFormat("proxied-requests-pool-%d").build();
+        return new InstrumentedExecutorService(
+                Executors.newFixedThreadPool(threadPoolSize, threadFactory),
+                metricRegistry,
+                name("proxied-requests", "executor-service"));
+    }
+}
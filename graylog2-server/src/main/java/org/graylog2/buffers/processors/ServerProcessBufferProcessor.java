@@ -23,6 +23,7 @@ import org.graylog2.plugin.Message;
 import org.graylog2.plugin.Messages;
 import org.graylog2.plugin.messageprocessors.MessageProcessor;
 import org.graylog2.shared.buffers.processors.ProcessBufferProcessor;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,14 +39,17 @@ public class ServerProcessBufferProcessor extends ProcessBufferProcessor {
 
     private final OrderedMessageProcessors orderedMessageProcessors;
     private final OutputBuffer outputBuffer;
+    private final PipelineLatencies pipelineLatencies;
 
     @Inject
     public ServerProcessBufferProcessor(MetricRegistry metricRegistry,
                                         OrderedMessageProcessors orderedMessageProcessors,
-                                        OutputBuffer outputBuffer) {
+                                        OutputBuffer outputBuffer,
+                                        PipelineLatencies pipelineLatencies) {
         super(metricRegistry);
         this.orderedMessageProcessors = orderedMessageProcessors;
         this.outputBuffer = outputBuffer;
+        this.pipelineLatencies = pipelineLatencies;
     }
 
     @Override
@@ -57,6 +61,7 @@ public class ServerProcessBufferProcessor extends ProcessBufferProcessor {
         }
         for (Message message : messages) {
             LOG.debug("Finished processing message. Writing to output buffer.");
+            pipelineLatencies.processed(message);
             outputBuffer.insertBlocking(message);
         }
     }
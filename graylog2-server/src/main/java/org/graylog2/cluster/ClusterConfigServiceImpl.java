@@ -16,8 +16,12 @@
  */
 package org.graylog2.cluster;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.joschi.jadconfig.util.Duration;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.eventbus.EventBus;
 import com.mongodb.DBCollection;
@@ -25,8 +29,10 @@ import com.mongodb.WriteConcern;
 import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.events.ClusterEventBus;
+import org.graylog2.metrics.CacheStatsSet;
 import org.graylog2.plugin.cluster.ClusterConfigService;
 import org.graylog2.plugin.system.NodeId;
+import org.graylog2.shared.metrics.MetricUtils;
 import org.graylog2.shared.plugins.ChainingClassLoader;
 import org.graylog2.shared.utilities.AutoValueUtils;
 import org.joda.time.DateTime;
@@ -40,11 +46,23 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Cluster config entries are cached for the configured TTL. Cached entries are invalidated whenever they are written or
+ * removed on this node, and by the {@link org.graylog2.events.ClusterEventPeriodical} before it publishes a
+ * {@link ClusterConfigChangedEvent} from another node.
+ *
+ * The returned config objects are shared between all callers and must not be modified.
+ */
+@Singleton
 public class ClusterConfigServiceImpl implements ClusterConfigService {
     private static final Logger LOG = LoggerFactory.getLogger(ClusterConfigServiceImpl.class);
 
@@ -56,6 +74,9 @@ public class ClusterConfigServiceImpl implements ClusterConfigService {
     private final ObjectMapper objectMapper;
     private final ChainingClassLoader chainingClassLoader;
     private final EventBus clusterEventBus;
+    private final Cache<String, Optional<Object>> cache;
+    // incremented on every invalidation to detect configs which changed while they were loaded
+    private final AtomicLong generation = new AtomicLong();
 
     @Inject
     public ClusterConfigServiceImpl(final MongoJackObjectMapperProvider mapperProvider,
@@ -63,21 +84,31 @@ public class ClusterConfigServiceImpl implements ClusterConfigService {
                                     final NodeId nodeId,
                                     final ObjectMapper objectMapper,
                                     final ChainingClassLoader chainingClassLoader,
-                                    final ClusterEventBus clusterEventBus) {
+                                    final ClusterEventBus clusterEventBus,
+                                    final MetricRegistry metricRegistry,
+                                    @Named("cluster_config_cache_ttl") final Duration cacheTtl) {
         this(JacksonDBCollection.wrap(prepareCollection(mongoConnection), ClusterConfig.class, String.class, mapperProvider.get()),
-                nodeId, objectMapper, chainingClassLoader, clusterEventBus);
+                nodeId, objectMapper, chainingClassLoader, clusterEventBus, metricRegistry, cacheTtl);
     }
 
     ClusterConfigServiceImpl(final JacksonDBCollection<ClusterConfig, String> dbCollection,
                              final NodeId nodeId,
                              final ObjectMapper objectMapper,
                              final ChainingClassLoader chainingClassLoader,
-                             final EventBus clusterEventBus) {
+                             final EventBus clusterEventBus,
+                             final MetricRegistry metricRegistry,
+                             final Duration cacheTtl) {
         this.nodeId = checkNotNull(nodeId);
         this.dbCollection = checkNotNull(dbCollection);
         this.objectMapper = checkNotNull(objectMapper);
         this.chainingClassLoader = chainingClassLoader;
         this.clusterEventBus = checkNotNull(clusterEventBus);
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheTtl.getQuantity(), cacheTtl.getUnit())
+                .recordStats()
+                .build();
+
+        MetricUtils.safelyRegisterAll(metricRegistry, new CacheStatsSet(MetricRegistry.name(ClusterConfigServiceImpl.class, "cache"), cache));
     }
 
     @VisibleForTesting
@@ -100,6 +131,24 @@ public class ClusterConfigServiceImpl implements ClusterConfigService {
 
     @Override
     public <T> T get(Class<T> type) {
+        final String canonicalName = type.getCanonicalName();
+        final Optional<Object> cachedConfig = cache.getIfPresent(canonicalName);
+        if (cachedConfig != null && (!cachedConfig.isPresent() || type.isInstance(cachedConfig.get()))) {
+            return type.cast(cachedConfig.orElse(null));
+        }
+
+        final long loadGeneration = generation.get();
+        final T result = load(type);
+        cache.put(canonicalName, Optional.ofNullable(result));
+        if (generation.get() != loadGeneration) {
+            // the config might have changed while it was loaded
+            cache.invalidate(canonicalName);
+        }
+
+        return result;
+    }
+
+    private <T> T load(Class<T> type) {
         ClusterConfig config = dbCollection.findOne(DBQuery.is("type", type.getCanonicalName()));
 
         if (config == null) {
@@ -131,6 +180,7 @@ public class ClusterConfigServiceImpl implements ClusterConfigService {
         ClusterConfig clusterConfig = ClusterConfig.create(canonicalClassName, payload, nodeId.toString());
 
         dbCollection.update(DBQuery.is("type", canonicalClassName), clusterConfig, true, false, WriteConcern.JOURNALED);
+        invalidate(canonicalClassName);
 
         ClusterConfigChangedEvent event = ClusterConfigChangedEvent.create(
                 DateTime.now(DateTimeZone.UTC), nodeId.toString(), canonicalClassName);
@@ -141,9 +191,25 @@ public class ClusterConfigServiceImpl implements ClusterConfigService {
     public <T> int remove(Class<T> type) {
         final String canonicalName = type.getCanonicalName();
         final WriteResult<ClusterConfig, String> result = dbCollection.remove(DBQuery.is("type", canonicalName));
+        invalidate(canonicalName);
+
+        if (result.getN() > 0) {
+            clusterEventBus.post(ClusterConfigChangedEvent.create(DateTime.now(DateTimeZone.UTC), nodeId.toString(), canonicalName));
+        }
+
         return result.getN();
     }
 
+    /**
+     * Discards the cached config of the given type.
+     *
+     * @param type the canonical class name of the config type
+     */
+    public void invalidate(String type) {
+        generation.incrementAndGet();
+        cache.invalidate(type);
+    }
+
     @Override
     public Set<Class<?>> list() {
         final DBCursor<ClusterConfig> clusterConfigs = dbCollection.find();
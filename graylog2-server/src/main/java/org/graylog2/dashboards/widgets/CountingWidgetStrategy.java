@@ -0,0 +1,41 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.dashboards.widgets;
+
+import org.graylog2.indexer.results.CountResult;
+import org.graylog2.indexer.searches.CountQuery;
+import org.graylog2.plugin.dashboards.widgets.ComputationResult;
+import org.graylog2.plugin.dashboards.widgets.WidgetStrategy;
+
+import java.util.List;
+
+/**
+ * A {@link WidgetStrategy} whose result only depends on message counts. The counts of several such widgets can be
+ * requested with a single multi search request.
+ */
+public interface CountingWidgetStrategy extends WidgetStrategy {
+    /**
+     * @return the count queries the result of this widget is computed from
+     */
+    List<CountQuery> countQueries();
+
+    /**
+     * @param countResults the results of the {@link #countQueries() count queries} in the same order
+     * @return the result of the widget
+     */
+    ComputationResult compute(List<CountResult> countResults);
+}
@@ -0,0 +1,45 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.dashboards.widgets;
+
+import com.google.auto.value.AutoValue;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Identifies the computation of a widget. Widgets of the same type with the same configuration and time range,
+ * possibly on different dashboards, share their computation results.
+ */
+@AutoValue
+abstract class WidgetComputationKey {
+    abstract String type();
+
+    abstract Map<String, Object> config();
+
+    abstract TimeRange timeRange();
+
+    static WidgetComputationKey create(String type, Map<String, Object> config, TimeRange timeRange) {
+        return new AutoValue_WidgetComputationKey(type, Collections.unmodifiableMap(new HashMap<>(config)), timeRange);
+    }
+
+    static WidgetComputationKey of(DashboardWidget widget) {
+        return create(widget.getType(), widget.getConfig(), widget.getTimeRange());
+    }
+}
@@ -16,88 +16,326 @@
  */
 package org.graylog2.dashboards.widgets;
 
-import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
-import com.google.common.base.Supplier;
-import com.google.common.base.Suppliers;
-import com.google.common.collect.Maps;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.graylog2.indexer.results.CountResult;
+import org.graylog2.indexer.searches.CountQuery;
+import org.graylog2.indexer.searches.Searches;
+import org.graylog2.metrics.CacheStatsSet;
 import org.graylog2.plugin.dashboards.widgets.ComputationResult;
 import org.graylog2.plugin.dashboards.widgets.WidgetStrategy;
+import org.graylog2.shared.metrics.MetricUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
+/**
+ * Caches the computation results of dashboard widgets.
+ *
+ * Results are shared between all widgets with the same {@link WidgetComputationKey}, and concurrent requests for the
+ * same computation wait for a single computation. A result which is older than the cache time of the widget is still
+ * served for another cache time while it is recomputed in the background, and results of frequently requested widgets
+ * are recomputed shortly before they expire, so viewers of a dashboard usually do not wait for a computation.
+ *
+ * The counts of all {@link CountingWidgetStrategy counting widgets} of a dashboard which have to be computed are
+ * requested with a single multi search request.
+ */
 public class WidgetResultCache {
-    private final ConcurrentMap<String, Supplier<ComputationResult>> cache;
-    private final MetricRegistry metricRegistry;
+    private static final Logger LOG = LoggerFactory.getLogger(WidgetResultCache.class);
+
+    // results are recomputed in the background once they reached this share of the widget cache time
+    private static final double REFRESH_AHEAD_FACTOR = 0.8;
+    // results are served while being recomputed until they reached this multiple of the widget cache time
+    private static final int MAX_STALE_FACTOR = 2;
+    private static final int REFRESH_QUEUE_SIZE = 100;
+
     private final WidgetStrategyFactory widgetStrategyFactory;
-    private final Counter counter;
+    private final Searches searches;
+    private final Cache<WidgetComputationKey, CachedResult> cache;
+    private final ConcurrentMap<WidgetComputationKey, CompletableFuture<ComputationResult>> computations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, WidgetComputationKey> widgetKeys = new ConcurrentHashMap<>();
+    private final ExecutorService refreshExecutor;
+    private final Timer calculationTimer;
+    private final Meter calculationMeter;
+    private final Meter backgroundRefreshMeter;
 
     @Inject
-    public WidgetResultCache(MetricRegistry metricRegistry, WidgetStrategyFactory widgetStrategyFactory) {
-        this.metricRegistry = metricRegistry;
+    public WidgetResultCache(MetricRegistry metricRegistry,
+                             WidgetStrategyFactory widgetStrategyFactory,
+                             Searches searches,
+                             @Named("dashboard_widget_refresh_threads") int refreshThreads) {
         this.widgetStrategyFactory = widgetStrategyFactory;
-        this.cache = Maps.newConcurrentMap();
-        this.counter = metricRegistry.counter(name(getClass(), "cacheEntries"));
+        this.searches = searches;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterAccess(1, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+        this.refreshExecutor = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(REFRESH_QUEUE_SIZE),
+                new ThreadFactoryBuilder().setNameFormat("widget-refresh-%d").setDaemon(true).build());
+
+        this.calculationTimer = metricRegistry.timer(name(getClass(), "calculationTime"));
+        this.calculationMeter = metricRegistry.meter(name(getClass(), "calculations"));
+        this.backgroundRefreshMeter = metricRegistry.meter(name(getClass(), "backgroundRefreshes"));
+        MetricUtils.safelyRegisterAll(metricRegistry, new CacheStatsSet(name(getClass(), "cache"), cache));
+        MetricUtils.safelyRegister(metricRegistry, name(getClass(), "cacheEntries"), (Gauge<Long>) cache::size);
     }
 
     public ComputationResult getComputationResultForDashboardWidget(final DashboardWidget dashboardWidget) throws InvalidWidgetConfigurationException {
-        final String widgetId = dashboardWidget.getId();
-        if (!this.cache.containsKey(widgetId)) {
-            final WidgetStrategy widgetStrategy = this.widgetStrategyFactory.getWidgetForType(dashboardWidget.getType(),
-                    dashboardWidget.getConfig(), dashboardWidget.getTimeRange(), widgetId);
-            final Supplier<ComputationResult> supplier = this.cache.putIfAbsent(widgetId, Suppliers.memoizeWithExpiration(
-                    new ComputationResultSupplier(metricRegistry, dashboardWidget, widgetStrategy),
-                    dashboardWidget.getCacheTime(),
-                    TimeUnit.SECONDS
-            ));
-
-            if (supplier == null) {
-                // Only increment the counter if there has been no value for the widget ID before.
-                counter.inc();
+        final WidgetComputationKey key = WidgetComputationKey.of(dashboardWidget);
+        widgetKeys.put(dashboardWidget.getId(), key);
+
+        final ComputationResult cachedResult = usableCachedResult(key, dashboardWidget);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        return compute(key, dashboardWidget);
+    }
+
+    /**
+     * Returns the computation results of the given widgets, computing all missing results at once.
+     *
+     * @param dashboardWidgets the widgets to return the results for
+     * @return the computation results by widget ID, widgets which could not be computed are omitted
+     */
+    public Map<String, ComputationResult> getComputationResultsForDashboardWidgets(final Collection<DashboardWidget> dashboardWidgets) {
+        final Map<String, CompletableFuture<ComputationResult>> futures = new LinkedHashMap<>(dashboardWidgets.size());
+        final List<Computation> countComputations = new ArrayList<>();
+        for (DashboardWidget dashboardWidget : dashboardWidgets) {
+            final WidgetComputationKey key = WidgetComputationKey.of(dashboardWidget);
+            widgetKeys.put(dashboardWidget.getId(), key);
+
+            try {
+                final ComputationResult cachedResult = usableCachedResult(key, dashboardWidget);
+                if (cachedResult != null) {
+                    futures.put(dashboardWidget.getId(), CompletableFuture.completedFuture(cachedResult));
+                    continue;
+                }
+
+                final WidgetStrategy widgetStrategy = createWidgetStrategy(dashboardWidget);
+                final CompletableFuture<ComputationResult> future = new CompletableFuture<>();
+                final CompletableFuture<ComputationResult> runningComputation = computations.putIfAbsent(key, future);
+                if (runningComputation != null) {
+                    futures.put(dashboardWidget.getId(), runningComputation);
+                    continue;
+                }
+                futures.put(dashboardWidget.getId(), future);
+
+                final Computation computation = new Computation(key, widgetStrategy, future);
+                if (widgetStrategy instanceof CountingWidgetStrategy) {
+                    countComputations.add(computation);
+                } else {
+                    try {
+                        refreshExecutor.execute(computation);
+                    } catch (RejectedExecutionException e) {
+                        computation.run();
+                    }
+                }
+            } catch (InvalidWidgetConfigurationException e) {
+                LOG.warn("Invalid configuration of widget <{}>: {}", dashboardWidget.getId(), e.getMessage());
             }
         }
-        return this.cache.get(widgetId).get();
+
+        computeCounts(countComputations);
+
+        final Map<String, ComputationResult> results = new LinkedHashMap<>(futures.size());
+        for (Map.Entry<String, CompletableFuture<ComputationResult>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                LOG.warn("Could not compute widget <{}>: {}", entry.getKey(), e.getCause().getMessage());
+            }
+        }
+
+        return results;
     }
 
     public void invalidate(final String widgetId) {
-        this.cache.remove(widgetId);
-        this.counter.dec();
+        final WidgetComputationKey key = widgetKeys.remove(widgetId);
+        if (key != null) {
+            cache.invalidate(key);
+        }
+    }
+
+    private ComputationResult usableCachedResult(WidgetComputationKey key, DashboardWidget dashboardWidget) throws InvalidWidgetConfigurationException {
+        final long cacheTimeNanos = TimeUnit.SECONDS.toNanos(dashboardWidget.getCacheTime());
+        final CachedResult cachedResult = cache.getIfPresent(key);
+        if (cachedResult != null) {
+            final long age = cachedResult.ageNanos();
+            if (age < cacheTimeNanos * REFRESH_AHEAD_FACTOR) {
+                return cachedResult.result();
+            }
+            if (age < cacheTimeNanos * MAX_STALE_FACTOR) {
+                refreshInBackground(key, dashboardWidget);
+                return cachedResult.result();
+            }
+        }
+
+        return null;
+    }
+
+    private ComputationResult compute(WidgetComputationKey key, DashboardWidget dashboardWidget) throws InvalidWidgetConfigurationException {
+        final WidgetStrategy widgetStrategy = createWidgetStrategy(dashboardWidget);
+        final CompletableFuture<ComputationResult> future = new CompletableFuture<>();
+        final CompletableFuture<ComputationResult> runningComputation = computations.putIfAbsent(key, future);
+        if (runningComputation == null) {
+            // compute in the calling thread
+            new Computation(key, widgetStrategy, future).run();
+        }
+
+        try {
+            return (runningComputation == null ? future : runningComputation).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private void refreshInBackground(WidgetComputationKey key, DashboardWidget dashboardWidget) throws InvalidWidgetConfigurationException {
+        if (computations.containsKey(key)) {
+            return;
+        }
+
+        final WidgetStrategy widgetStrategy = createWidgetStrategy(dashboardWidget);
+        final CompletableFuture<ComputationResult> future = new CompletableFuture<>();
+        if (computations.putIfAbsent(key, future) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(new Computation(key, widgetStrategy, future));
+            backgroundRefreshMeter.mark();
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Too many widget computations queued, not refreshing widget <{}>.", dashboardWidget.getId());
+            computations.remove(key, future);
+            future.cancel(false);
+        }
     }
 
-    private static class ComputationResultSupplier implements Supplier<ComputationResult> {
-        private final MetricRegistry metricRegistry;
-        private final DashboardWidget dashboardWidget;
+    private void computeCounts(List<Computation> countComputations) {
+        if (countComputations.isEmpty()) {
+            return;
+        }
+
+        final List<List<CountQuery>> queriesPerComputation = new ArrayList<>(countComputations.size());
+        final List<CountQuery> queries = new ArrayList<>();
+        for (Computation computation : countComputations) {
+            final List<CountQuery> countQueries = ((CountingWidgetStrategy) computation.widgetStrategy).countQueries();
+            queriesPerComputation.add(countQueries);
+            queries.addAll(countQueries);
+        }
+
+        final List<CountResult> countResults;
+        try (Timer.Context ignored = calculationTimer.time()) {
+            countResults = searches.count(queries);
+        } catch (Throwable t) {
+            countComputations.forEach(computation -> computation.fail(t));
+            return;
+        }
+
+        int offset = 0;
+        for (int i = 0; i < countComputations.size(); i++) {
+            final Computation computation = countComputations.get(i);
+            final int queryCount = queriesPerComputation.get(i).size();
+            try {
+                final CountingWidgetStrategy widgetStrategy = (CountingWidgetStrategy) computation.widgetStrategy;
+                computation.complete(widgetStrategy.compute(countResults.subList(offset, offset + queryCount)));
+            } catch (Throwable t) {
+                computation.fail(t);
+            }
+            offset += queryCount;
+        }
+    }
+
+    private WidgetStrategy createWidgetStrategy(DashboardWidget dashboardWidget) throws InvalidWidgetConfigurationException {
+        return widgetStrategyFactory.getWidgetForType(dashboardWidget.getType(), dashboardWidget.getConfig(),
+                dashboardWidget.getTimeRange(), dashboardWidget.getId());
+    }
+
+    @VisibleForTesting
+    long size() {
+        return cache.size();
+    }
+
+    private class Computation implements Runnable {
+        private final WidgetComputationKey key;
         private final WidgetStrategy widgetStrategy;
+        private final CompletableFuture<ComputationResult> future;
 
-        public ComputationResultSupplier(MetricRegistry metricRegistry,
-                                         DashboardWidget dashboardWidget,
-                                         WidgetStrategy widgetStrategy) {
-            this.metricRegistry = metricRegistry;
-            this.dashboardWidget = dashboardWidget;
+        Computation(WidgetComputationKey key, WidgetStrategy widgetStrategy, CompletableFuture<ComputationResult> future) {
+            this.key = key;
             this.widgetStrategy = widgetStrategy;
+            this.future = future;
         }
 
         @Override
-        public ComputationResult get() {
-            try (Timer.Context timer = getCalculationTimer().time()) {
-                return this.widgetStrategy.compute();
-            } finally {
-                getCalculationMeter().mark();
+        public void run() {
+            final ComputationResult result;
+            try (Timer.Context ignored = calculationTimer.time()) {
+                result = widgetStrategy.compute();
+            } catch (Throwable t) {
+                fail(t);
+                return;
             }
+            complete(result);
+        }
+
+        void complete(ComputationResult result) {
+            cache.put(key, new CachedResult(result));
+            calculationMeter.mark();
+            computations.remove(key, future);
+            future.complete(result);
+        }
+
+        void fail(Throwable t) {
+            LOG.debug("Widget computation failed.", t);
+            calculationMeter.mark();
+            computations.remove(key, future);
+            future.completeExceptionally(t);
+        }
+    }
+
+    private static class CachedResult {
+        private final ComputationResult result;
+        private final long computedAt = System.nanoTime();
+
+        CachedResult(ComputationResult result) {
+            this.result = result;
         }
 
-        private Timer getCalculationTimer() {
-            return metricRegistry.timer(name(this.getClass(), this.dashboardWidget.getId(), "calculationTime"));
+        ComputationResult result() {
+            return result;
         }
 
-        private Meter getCalculationMeter() {
-            return metricRegistry.meter(name(this.getClass(), this.dashboardWidget.getId(), "calculations"));
+        long ageNanos() {
+            return System.nanoTime() - computedAt;
         }
     }
 }
@@ -16,10 +16,13 @@
  */
 package org.graylog2.dashboards.widgets.strategies;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import org.graylog2.dashboards.widgets.CountingWidgetStrategy;
 import org.graylog2.indexer.results.CountResult;
+import org.graylog2.indexer.searches.CountQuery;
 import org.graylog2.indexer.searches.Searches;
 import org.graylog2.plugin.dashboards.widgets.ComputationResult;
 import org.graylog2.plugin.dashboards.widgets.WidgetStrategy;
@@ -29,9 +32,11 @@ import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
 import org.joda.time.DateTime;
 import org.joda.time.Seconds;
 
+import javax.annotation.Nullable;
+import java.util.List;
 import java.util.Map;
 
-public class SearchResultCountWidgetStrategy implements WidgetStrategy {
+public class SearchResultCountWidgetStrategy implements CountingWidgetStrategy {
 
     public interface Factory extends WidgetStrategy.Factory<SearchResultCountWidgetStrategy> {
         @Override
@@ -60,17 +65,35 @@ public class SearchResultCountWidgetStrategy implements WidgetStrategy {
 
     @Override
     public ComputationResult compute() {
-        return computeInternal(null);
+        return compute(searches.count(countQueries()));
     }
 
-    protected ComputationResult computeInternal(String filter) {
-        final TimeRange timeRange = this.timeRange;
-        CountResult cr = searches.count(query, timeRange, filter);
+    /**
+     * @return the filter which is applied to the current count
+     */
+    @Nullable
+    protected String filter() {
+        return null;
+    }
+
+    @Override
+    public List<CountQuery> countQueries() {
+        final CountQuery current = CountQuery.create(query, timeRange, filter());
         if (trend && timeRange instanceof RelativeRange) {
             DateTime toPrevious = timeRange.getFrom();
             DateTime fromPrevious = toPrevious.minus(Seconds.seconds(((RelativeRange) timeRange).getRange()));
             TimeRange previousTimeRange = AbsoluteRange.create(fromPrevious, toPrevious);
-            CountResult previousCr = searches.count(query, previousTimeRange);
+            return ImmutableList.of(current, CountQuery.create(query, previousTimeRange));
+        } else {
+            return ImmutableList.of(current);
+        }
+    }
+
+    @Override
+    public ComputationResult compute(List<CountResult> countResults) {
+        final CountResult cr = countResults.get(0);
+        if (countResults.size() > 1) {
+            final CountResult previousCr = countResults.get(1);
 
             Map<String, Object> results = Maps.newHashMap();
             results.put("now", cr.count());
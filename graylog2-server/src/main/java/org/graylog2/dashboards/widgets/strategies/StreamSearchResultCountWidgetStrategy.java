@@ -19,10 +19,10 @@ package org.graylog2.dashboards.widgets.strategies;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import org.graylog2.indexer.searches.Searches;
-import org.graylog2.plugin.dashboards.widgets.ComputationResult;
 import org.graylog2.plugin.dashboards.widgets.WidgetStrategy;
 import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
 
+import javax.annotation.Nullable;
 import java.util.Map;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -42,11 +42,12 @@ public class StreamSearchResultCountWidgetStrategy extends SearchResultCountWidg
     }
 
     @Override
-    public ComputationResult compute() {
+    @Nullable
+    protected String filter() {
         String filter = null;
         if (!isNullOrEmpty(streamId)) {
             filter = "streams:" + streamId;
         }
-        return computeInternal(filter);
+        return filter;
     }
 }
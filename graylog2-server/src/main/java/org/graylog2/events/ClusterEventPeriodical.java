@@ -21,42 +21,85 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.eventbus.DeadEvent;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
-import com.mongodb.BasicDBList;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.CommandResult;
+import com.mongodb.CursorType;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
 import com.mongodb.DBObject;
 import com.mongodb.MongoException;
 import com.mongodb.WriteConcern;
+import org.bson.types.ObjectId;
 import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
+import org.graylog2.cluster.ClusterConfigChangedEvent;
+import org.graylog2.cluster.ClusterConfigServiceImpl;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.plugin.periodical.Periodical;
 import org.graylog2.plugin.system.NodeId;
 import org.graylog2.shared.plugins.ChainingClassLoader;
 import org.graylog2.shared.utilities.AutoValueUtils;
-import org.mongojack.DBCursor;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.mongojack.DBSort;
-import org.mongojack.DBUpdate;
 import org.mongojack.JacksonDBCollection;
-import org.mongojack.WriteResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+/**
+ * Publishes the events of the {@link ClusterEventBus} on all nodes.
+ *
+ * Events are stored in a capped collection, which every node follows with a tailable cursor. The position of each node
+ * in the collection is stored in a separate collection, so a restarted node resumes with the events it missed.
+ * <p>
+ * Event timestamps are taken from the clock of the publishing node, so they are not strictly increasing in insertion
+ * order. A reopened cursor therefore starts {@link #CLOCK_SKEW_MILLIS} before the newest consumed event and skips the
+ * events which have already been consumed since then.
+ */
 public class ClusterEventPeriodical extends Periodical {
     private static final Logger LOG = LoggerFactory.getLogger(ClusterEventPeriodical.class);
 
     @VisibleForTesting
     static final String COLLECTION_NAME = "cluster_events";
+    @VisibleForTesting
+    static final String OFFSETS_COLLECTION_NAME = "cluster_event_offsets";
+    @VisibleForTesting
+    static final long COLLECTION_SIZE = 10L * 1024L * 1024L; // 10MB max size.
+
+    @VisibleForTesting
+    static final long CLOCK_SKEW_MILLIS = TimeUnit.MINUTES.toMillis(1L);
+    private static final int MAX_RECENT_EVENTS = 1000;
+
+    private static final DBObject NATURAL_ORDER = new BasicDBObject("$natural", 1);
 
     private final JacksonDBCollection<ClusterEvent, String> dbCollection;
+    private final DBCollection offsetsCollection;
     private final NodeId nodeId;
     private final ObjectMapper objectMapper;
     private final EventBus serverEventBus;
     private final ChainingClassLoader chainingClassLoader;
+    private final ClusterConfigServiceImpl clusterConfigService;
+
+    // only accessed by the periodical thread
+    private DBCursor cursor;
+    private ObjectId lastEventId;
+    private long lastEventTimestamp;
+    // events older than this are never consumed (again)
+    private long minEventTimestamp;
+    // the consumed events which are not older than minEventTimestamp, by event id
+    private final LinkedHashMap<ObjectId, Long> recentEvents = new LinkedHashMap<>();
+    private ObjectId persistedEventId;
 
     @Inject
     public ClusterEventPeriodical(final MongoJackObjectMapperProvider mapperProvider,
@@ -65,23 +108,30 @@ public class ClusterEventPeriodical extends Periodical {
                                   final ObjectMapper objectMapper,
                                   final ChainingClassLoader chainingClassLoader,
                                   final EventBus serverEventBus,
-                                  final ClusterEventBus clusterEventBus) {
+                                  final ClusterEventBus clusterEventBus,
+                                  final ClusterConfigServiceImpl clusterConfigService) {
         this(JacksonDBCollection.wrap(prepareCollection(mongoConnection), ClusterEvent.class, String.class, mapperProvider.get()),
-                nodeId, objectMapper, chainingClassLoader, serverEventBus, clusterEventBus);
+                mongoConnection.getDatabase().getCollection(OFFSETS_COLLECTION_NAME),
+                nodeId, objectMapper, chainingClassLoader, serverEventBus, clusterEventBus, clusterConfigService);
     }
 
     ClusterEventPeriodical(final JacksonDBCollection<ClusterEvent, String> dbCollection,
+                           final DBCollection offsetsCollection,
                            final NodeId nodeId,
                            final ObjectMapper objectMapper,
                            final ChainingClassLoader chainingClassLoader,
                            final EventBus serverEventBus,
-                           final ClusterEventBus clusterEventBus) {
+                           final ClusterEventBus clusterEventBus,
+                           final ClusterConfigServiceImpl clusterConfigService) {
         this.nodeId = checkNotNull(nodeId);
         this.dbCollection = checkNotNull(dbCollection);
+        this.offsetsCollection = checkNotNull(offsetsCollection);
         this.objectMapper = checkNotNull(objectMapper);
         this.chainingClassLoader = chainingClassLoader;
         this.serverEventBus = checkNotNull(serverEventBus);
+        this.clusterConfigService = checkNotNull(clusterConfigService);
 
+        loadOffset();
         checkNotNull(clusterEventBus).registerClusterEventSubscriber(this);
     }
 
@@ -89,13 +139,37 @@ public class ClusterEventPeriodical extends Periodical {
     static DBCollection prepareCollection(final MongoConnection mongoConnection) {
         final DB db = mongoConnection.getDatabase();
 
-        DBCollection coll = db.getCollection(COLLECTION_NAME);
+        if (db.collectionExists(COLLECTION_NAME) && !db.getCollection(COLLECTION_NAME).isCapped()) {
+            // Cluster events used to be stored in a regular collection. Converting it keeps the newest events and,
+            // unlike dropping it, cannot remove a capped collection another node has just created.
+            LOG.info("Converting MongoDB collection \"{}\" into a capped collection.", COLLECTION_NAME);
+            final CommandResult result = db.command(BasicDBObjectBuilder.start()
+                    .add("convertToCapped", COLLECTION_NAME)
+                    .add("size", COLLECTION_SIZE)
+                    .get());
+            // Another node might have converted the collection in the meantime.
+            if (!result.ok() && !db.getCollection(COLLECTION_NAME).isCapped()) {
+                result.throwOnError();
+            }
+        }
 
-        coll.createIndex(DBSort
-                .asc("timestamp")
-                .asc("producer")
-                .asc("consumers"));
+        if (!db.collectionExists(COLLECTION_NAME)) {
+            final DBObject options = BasicDBObjectBuilder.start()
+                    .add("capped", true)
+                    .add("size", COLLECTION_SIZE)
+                    .get();
+            try {
+                db.createCollection(COLLECTION_NAME, options);
+            } catch (MongoException e) {
+                // Another node might have created the collection in the meantime.
+                if (!db.collectionExists(COLLECTION_NAME)) {
+                    throw e;
+                }
+            }
+        }
 
+        final DBCollection coll = db.getCollection(COLLECTION_NAME);
+        coll.createIndex(DBSort.asc("timestamp"));
         coll.setWriteConcern(WriteConcern.JOURNALED);
 
         return coll;
@@ -141,33 +215,151 @@ public class ClusterEventPeriodical extends Periodical {
         return LOG;
     }
 
+    /**
+     * Follows the cluster events for one period. New events are published as soon as the tailable cursor returns them,
+     * and the next run starts right away, so the cursor is followed continuously until the periodical is stopped.
+     */
     @Override
     public void doRun() {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(getPeriodSeconds());
         try {
-            LOG.debug("Opening MongoDB cursor on \"{}\"", COLLECTION_NAME);
+            do {
+                if (!consumeEvents()) {
+                    // Tailable cursors on empty collections are closed immediately, try again in the next run.
+                    return;
+                }
+            } while (System.nanoTime() < deadline);
+        } catch (Exception e) {
+            LOG.warn("Error while reading cluster events from MongoDB, retrying.", e);
+            closeCursor();
+        }
+    }
+
+    /**
+     * Publishes all events which are currently available and stores the position of this node afterwards.
+     *
+     * @return {@code false} if the cursor has been closed by the server, {@code true} otherwise
+     */
+    @VisibleForTesting
+    boolean consumeEvents() {
+        if (cursor == null) {
+            cursor = openCursor();
+        }
+
+        DBObject event;
+        while ((event = cursor.tryNext()) != null) {
+            handleEvent(event);
+        }
+        persistOffset();
+
+        if (cursor.getServerCursor() == null) {
+            closeCursor();
+            return false;
+        }
+
+        return true;
+    }
+
+    private DBCursor openCursor() {
+        LOG.debug("Opening tailable MongoDB cursor on \"{}\"", COLLECTION_NAME);
 
-            final DBCursor<ClusterEvent> cursor = eventCursor(nodeId);
-            if (LOG.isTraceEnabled()) {
-                LOG.trace("MongoDB query plan: {}", cursor.explain());
+        // The natural order of a capped collection is the insertion order. Tailable cursors cannot use indices, but the
+        // server only returns the events which might not have been consumed yet. The cursor dies immediately if its
+        // query does not match any event, it is reopened in the next run then.
+        return dbCollection.getDbCollection()
+                .find(new BasicDBObject("timestamp", new BasicDBObject("$gte", minEventTimestamp)))
+                .sort(NATURAL_ORDER)
+                .cursorType(CursorType.TailableAwait);
+    }
+
+    private void closeCursor() {
+        if (cursor != null) {
+            cursor.close();
+            cursor = null;
+        }
+    }
+
+    private void handleEvent(DBObject clusterEvent) {
+        final ObjectId eventId = (ObjectId) clusterEvent.get("_id");
+        if (recentEvents.containsKey(eventId)) {
+            // already consumed before the cursor has been reopened
+            return;
+        }
+
+        LOG.trace("Processing cluster event: {}", clusterEvent);
+        final Object timestamp = clusterEvent.get("timestamp");
+        rememberEvent(eventId, timestamp instanceof Number ? ((Number) timestamp).longValue() : minEventTimestamp);
+
+        final Object eventClass = clusterEvent.get("event_class");
+        final Object payload = eventClass instanceof String ? extractPayload(clusterEvent.get("payload"), (String) eventClass) : null;
+        if (payload != null) {
+            if (payload instanceof ClusterConfigChangedEvent) {
+                // subscribers read the changed config, so it must not be served from the cache anymore
+                clusterConfigService.invalidate(((ClusterConfigChangedEvent) payload).type());
             }
+            serverEventBus.post(payload);
+        } else {
+            LOG.warn("Couldn't extract payload of cluster event with ID <{}>", eventId);
+            LOG.debug("Invalid payload in cluster event: {}", clusterEvent);
+        }
+    }
 
-            while (cursor.hasNext()) {
-                ClusterEvent clusterEvent = cursor.next();
-                LOG.trace("Processing cluster event: {}", clusterEvent);
+    private void rememberEvent(ObjectId eventId, long timestamp) {
+        lastEventId = eventId;
+        lastEventTimestamp = Math.max(lastEventTimestamp, timestamp);
+        minEventTimestamp = Math.max(minEventTimestamp, lastEventTimestamp - CLOCK_SKEW_MILLIS);
+
+        recentEvents.put(eventId, timestamp);
+        final Iterator<Long> timestamps = recentEvents.values().iterator();
+        while (timestamps.hasNext()) {
+            final long recentTimestamp = timestamps.next();
+            if (recentTimestamp < minEventTimestamp || recentEvents.size() > MAX_RECENT_EVENTS) {
+                timestamps.remove();
+            }
+        }
+    }
 
-                Object payload = extractPayload(clusterEvent.payload(), clusterEvent.eventClass());
-                if (payload != null) {
-                    serverEventBus.post(payload);
-                } else {
-                    LOG.warn("Couldn't extract payload of cluster event with ID <{}>", clusterEvent.id());
-                    LOG.debug("Invalid payload in cluster event: {}", clusterEvent);
+    private void loadOffset() {
+        final DBObject offset = offsetsCollection.findOne(new BasicDBObject("_id", nodeId.toString()));
+        if (offset != null && offset.get("event_id") instanceof ObjectId && offset.get("timestamp") instanceof Number) {
+            lastEventId = (ObjectId) offset.get("event_id");
+            lastEventTimestamp = ((Number) offset.get("timestamp")).longValue();
+            minEventTimestamp = lastEventTimestamp - CLOCK_SKEW_MILLIS;
+            persistedEventId = lastEventId;
+
+            final Object storedRecentEvents = offset.get("recent_events");
+            if (storedRecentEvents instanceof List) {
+                for (Object recentEvent : (List<?>) storedRecentEvents) {
+                    if (recentEvent instanceof DBObject) {
+                        final Object eventId = ((DBObject) recentEvent).get("event_id");
+                        final Object timestamp = ((DBObject) recentEvent).get("timestamp");
+                        if (eventId instanceof ObjectId && timestamp instanceof Number) {
+                            recentEvents.put((ObjectId) eventId, ((Number) timestamp).longValue());
+                        }
+                    }
                 }
-
-                updateConsumers(clusterEvent.id(), nodeId);
             }
-        } catch (Exception e) {
-            LOG.warn("Error while reading cluster events from MongoDB, retrying.", e);
+        } else {
+            // only consume events published after the start of this node
+            lastEventTimestamp = DateTime.now(DateTimeZone.UTC).getMillis();
+            minEventTimestamp = lastEventTimestamp;
+        }
+    }
+
+    private void persistOffset() {
+        if (lastEventId == null || lastEventId.equals(persistedEventId)) {
+            return;
         }
+
+        final List<DBObject> storedRecentEvents = new ArrayList<>(recentEvents.size());
+        for (Map.Entry<ObjectId, Long> recentEvent : recentEvents.entrySet()) {
+            storedRecentEvents.add(new BasicDBObject("event_id", recentEvent.getKey()).append("timestamp", recentEvent.getValue()));
+        }
+        final DBObject offset = new BasicDBObject("event_id", lastEventId)
+                .append("timestamp", lastEventTimestamp)
+                .append("recent_events", storedRecentEvents);
+        offsetsCollection.update(new BasicDBObject("_id", nodeId.toString()), new BasicDBObject("$set", offset), true, false);
+        persistedEventId = lastEventId;
     }
 
     @Subscribe
@@ -188,19 +380,6 @@ public class ClusterEventPeriodical extends Periodical {
         }
     }
 
-    private DBCursor<ClusterEvent> eventCursor(NodeId nodeId) {
-        // Resorting to ugly MongoDB Java Client because of https://github.com/devbliss/mongojack/issues/88
-        final BasicDBList consumersList = new BasicDBList();
-        consumersList.add(nodeId.toString());
-        final DBObject query = new BasicDBObject("consumers", new BasicDBObject("$nin", consumersList));
-
-        return dbCollection.find(query).sort(DBSort.asc("timestamp"));
-    }
-
-    private void updateConsumers(final String eventId, final NodeId nodeId) {
-        final WriteResult<ClusterEvent, String> writeResult = dbCollection.updateById(eventId, DBUpdate.addToSet("consumers", nodeId.toString()));
-    }
-
     private Object extractPayload(Object payload, String eventClass) {
         try {
             final Class<?> clazz = chainingClassLoader.loadClass(eventClass);
@@ -16,6 +16,7 @@
  */
 package org.graylog2.filters;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
@@ -31,10 +32,12 @@ import org.graylog2.rest.models.system.inputs.responses.InputUpdated;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -48,13 +51,16 @@ public class ExtractorFilter implements MessageFilter {
 
     private final InputService inputService;
     private final ScheduledExecutorService scheduler;
+    private final MetricRegistry metricRegistry;
 
     @Inject
     public ExtractorFilter(InputService inputService,
                            EventBus serverEventBus,
-                           @Named("daemonScheduler") ScheduledExecutorService scheduler) {
+                           @Named("daemonScheduler") ScheduledExecutorService scheduler,
+                           MetricRegistry metricRegistry) {
         this.inputService = inputService;
         this.scheduler = scheduler;
+        this.metricRegistry = metricRegistry;
 
         loadAllExtractors();
 
@@ -92,7 +98,7 @@ public class ExtractorFilter implements MessageFilter {
     @SuppressWarnings("unused")
     public void handleInputDelete(final InputDeleted event) {
         LOG.debug("Removing input from extractors cache <{}>", event.id());
-        extractors.remove(event.id());
+        removeMetrics(extractors.remove(event.id()), Collections.emptyList());
     }
 
     @Subscribe
@@ -119,12 +125,29 @@ public class ExtractorFilter implements MessageFilter {
                     .sorted((e1, e2) -> e1.getOrder().intValue() - e2.getOrder().intValue())
                     .collect(Collectors.toList());
 
-            extractors.put(inputId, ImmutableList.copyOf(sortedExtractors));
+            final List<Extractor> previousExtractors = extractors.put(inputId, ImmutableList.copyOf(sortedExtractors));
+            removeMetrics(previousExtractors, sortedExtractors);
         } catch (NotFoundException e) {
             LOG.warn("Unable to load input <{}>: {}", inputId, e.getMessage());
         }
     }
 
+    /**
+     * Removes the timers of all extractors which have been deleted, so they do not pile up in the metric registry.
+     */
+    private void removeMetrics(@Nullable List<Extractor> previousExtractors, List<Extractor> currentExtractors) {
+        if (previousExtractors == null) {
+            return;
+        }
+        final Set<String> currentIds = currentExtractors.stream().map(Extractor::getId).collect(Collectors.toSet());
+        for (Extractor extractor : previousExtractors) {
+            if (!currentIds.contains(extractor.getId())) {
+                metricRegistry.remove(extractor.getTotalTimerName());
+                metricRegistry.remove(extractor.getConverterTimerName());
+            }
+        }
+    }
+
     @Override
     public String getName() {
         return NAME;
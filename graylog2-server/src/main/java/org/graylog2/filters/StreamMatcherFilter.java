@@ -19,6 +19,7 @@ package org.graylog2.filters;
 import org.graylog2.plugin.Message;
 import org.graylog2.plugin.filters.MessageFilter;
 import org.graylog2.plugin.streams.Stream;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.graylog2.streams.StreamRouter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -31,15 +32,21 @@ public class StreamMatcherFilter implements MessageFilter {
     private static final Logger LOG = LoggerFactory.getLogger(StreamMatcherFilter.class);
 
     private final StreamRouter streamRouter;
+    private final PipelineLatencies pipelineLatencies;
 
     @Inject
-    public StreamMatcherFilter(StreamRouter streamRouter) {
+    public StreamMatcherFilter(StreamRouter streamRouter, PipelineLatencies pipelineLatencies) {
         this.streamRouter = streamRouter;
+        this.pipelineLatencies = pipelineLatencies;
     }
 
     @Override
     public boolean filter(Message msg) {
+        final long start = msg.isLatencyTraced() ? System.nanoTime() : 0L;
         List<Stream> streams = streamRouter.route(msg);
+        if (msg.isLatencyTraced()) {
+            pipelineLatencies.streamsRouted(msg, System.nanoTime() - start);
+        }
         msg.addStreams(streams);
 
         LOG.debug("Routed message <{}> to {} streams.", msg.getId(), streams.size());
@@ -51,6 +51,8 @@ import org.elasticsearch.action.admin.indices.stats.ShardStats;
 import org.elasticsearch.action.admin.indices.template.put.PutIndexTemplateRequest;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.SearchType;
@@ -449,6 +451,32 @@ public class Indices {
         return reopenedIndices;
     }
 
+    public Set<String> getReadOnlyIndices() {
+        final Set<String> readOnlyIndices = Sets.newHashSet();
+
+        ClusterStateRequest csr = new ClusterStateRequest()
+                .nodes(false)
+                .routingTable(false)
+                .blocks(false)
+                .metaData(true);
+
+        ClusterState state = c.admin().cluster().state(csr).actionGet().getState();
+
+        UnmodifiableIterator<IndexMetaData> it = state.getMetaData().getIndices().valuesIt();
+
+        while (it.hasNext()) {
+            IndexMetaData indexMeta = it.next();
+            // Only search in our indices.
+            if (!indexMeta.getIndex().startsWith(configuration.getIndexPrefix())) {
+                continue;
+            }
+            if (indexMeta.getSettings().getAsBoolean("index.blocks.write", false)) {
+                readOnlyIndices.add(indexMeta.getIndex());
+            }
+        }
+        return readOnlyIndices;
+    }
+
     @Nullable
     public IndexStatistics getIndexStats(String index) {
         if (!index.startsWith(configuration.getIndexPrefix())) {
@@ -575,15 +603,7 @@ public class Indices {
      * @see org.elasticsearch.search.aggregations.metrics.stats.Stats
      */
     public TimestampStats timestampStatsOfIndex(String index) {
-        final FilterAggregationBuilder builder = AggregationBuilders.filter("agg")
-                .filter(QueryBuilders.existsQuery("timestamp"))
-                .subAggregation(AggregationBuilders.min("ts_min").field("timestamp"))
-                .subAggregation(AggregationBuilders.max("ts_max").field("timestamp"));
-        final SearchRequestBuilder srb = c.prepareSearch()
-                .setIndices(index)
-                .setSearchType(SearchType.QUERY_THEN_FETCH)
-                .setSize(0)
-                .addAggregation(builder);
+        final SearchRequestBuilder srb = timestampStatsRequest(index);
 
         final SearchResponse response;
         try {
@@ -598,6 +618,55 @@ public class Indices {
             throw new org.elasticsearch.index.IndexNotFoundException("Index " + index + " not found", e);
         }
 
+        return timestampStatsFromResponse(index, response);
+    }
+
+    /**
+     * Calculates the timestamp stats of several indices with a single multi search request.
+     * Indices for which the calculation failed are not contained in the returned map.
+     *
+     * @param indexNames the names of the indices to calculate the timestamp stats for
+     * @return a map of index names to their timestamp stats
+     */
+    public Map<String, TimestampStats> timestampStatsOfIndices(List<String> indexNames) {
+        if (indexNames.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final MultiSearchRequestBuilder msrb = c.prepareMultiSearch();
+        for (String index : indexNames) {
+            msrb.add(timestampStatsRequest(index));
+        }
+
+        final MultiSearchResponse.Item[] items = c.multiSearch(msrb.request()).actionGet().getResponses();
+        final ImmutableMap.Builder<String, TimestampStats> result = ImmutableMap.builder();
+        for (int i = 0; i < items.length; i++) {
+            final String index = indexNames.get(i);
+            final MultiSearchResponse.Item item = items[i];
+            if (item.isFailure()) {
+                LOG.warn("Error while calculating timestamp stats in index <{}>: {}", index, item.getFailureMessage());
+                continue;
+            }
+
+            result.put(index, timestampStatsFromResponse(index, item.getResponse()));
+        }
+
+        return result.build();
+    }
+
+    private SearchRequestBuilder timestampStatsRequest(String index) {
+        final FilterAggregationBuilder builder = AggregationBuilders.filter("agg")
+                .filter(QueryBuilders.existsQuery("timestamp"))
+                .subAggregation(AggregationBuilders.min("ts_min").field("timestamp"))
+                .subAggregation(AggregationBuilders.max("ts_max").field("timestamp"));
+        return c.prepareSearch()
+                .setIndices(index)
+                .setSearchType(SearchType.QUERY_THEN_FETCH)
+                .setSize(0)
+                .addAggregation(builder);
+    }
+
+    private TimestampStats timestampStatsFromResponse(String index, SearchResponse response) {
         final Filter f = response.getAggregations().get("agg");
         if (f.getDocCount() == 0L) {
             LOG.debug("No documents with attribute \"timestamp\" found in index <{}>", index);
@@ -19,6 +19,7 @@ package org.graylog2.indexer.ranges;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import org.graylog2.indexer.Deflector;
+import org.graylog2.indexer.indices.Indices;
 import org.graylog2.shared.system.activities.ActivityWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -37,8 +38,9 @@ public class CreateNewSingleIndexRangeJob extends RebuildIndexRangesJob {
     public CreateNewSingleIndexRangeJob(@Assisted Deflector deflector,
                                         @Assisted String indexName,
                                         ActivityWriter activityWriter,
-                                        IndexRangeService indexRangeService) {
-        super(deflector, activityWriter, indexRangeService);
+                                        IndexRangeService indexRangeService,
+                                        Indices indices) {
+        super(deflector, activityWriter, indexRangeService, indices, 1, 1);
         this.indexName = checkNotNull(indexName);
     }
 
@@ -16,9 +16,12 @@
  */
 package org.graylog2.indexer.ranges;
 
+import com.google.common.collect.ImmutableMap;
 import org.graylog2.database.NotFoundException;
 import org.joda.time.DateTime;
 
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 
 public interface IndexRangeService {
@@ -31,5 +34,14 @@ public interface IndexRangeService {
     void save(IndexRange indexRange);
 
     IndexRange calculateRange(String index);
+
+    default Map<String, IndexRange> calculateRanges(List<String> indices) {
+        final ImmutableMap.Builder<String, IndexRange> ranges = ImmutableMap.builder();
+        for (String index : indices) {
+            ranges.put(index, calculateRange(index));
+        }
+        return ranges.build();
+    }
+
     IndexRange createUnknownRange(String index);
 }
@@ -54,6 +54,8 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.SortedSet;
 import java.util.concurrent.TimeUnit;
 
@@ -146,6 +148,26 @@ public class MongoIndexRangeService implements IndexRangeService {
         return MongoIndexRange.create(index, stats.min(), stats.max(), now, duration);
     }
 
+    @Override
+    public Map<String, IndexRange> calculateRanges(List<String> indexNames) {
+        for (String index : indexNames) {
+            indices.waitForRecovery(index);
+        }
+        final DateTime now = DateTime.now(DateTimeZone.UTC);
+        final Stopwatch sw = Stopwatch.createStarted();
+        final Map<String, TimestampStats> stats = indices.timestampStatsOfIndices(indexNames);
+        // The indices are calculated in one request, so each of them is attributed the duration of the whole batch.
+        final int duration = Ints.saturatedCast(sw.stop().elapsed(TimeUnit.MILLISECONDS));
+
+        LOG.info("Calculated range of {} indices in [{}ms].", stats.size(), duration);
+        final ImmutableMap.Builder<String, IndexRange> ranges = ImmutableMap.builder();
+        for (Map.Entry<String, TimestampStats> entry : stats.entrySet()) {
+            final TimestampStats indexStats = entry.getValue();
+            ranges.put(entry.getKey(), MongoIndexRange.create(entry.getKey(), indexStats.min(), indexStats.max(), now, duration));
+        }
+        return ranges.build();
+    }
+
     @Override
     public IndexRange createUnknownRange(String index) {
         final DateTime begin = new DateTime(0L, DateTimeZone.UTC);
@@ -16,18 +16,34 @@
  */
 package org.graylog2.indexer.ranges;
 
+import com.google.common.base.Joiner;
 import com.google.common.base.Stopwatch;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import org.graylog2.indexer.Deflector;
+import org.graylog2.indexer.indices.Indices;
 import org.graylog2.shared.system.activities.Activity;
 import org.graylog2.shared.system.activities.ActivityWriter;
 import org.graylog2.system.jobs.SystemJob;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Arrays;
+import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class RebuildIndexRangesJob extends SystemJob {
     public interface Factory {
@@ -39,19 +55,29 @@ public class RebuildIndexRangesJob extends SystemJob {
 
     private volatile boolean cancelRequested = false;
     private volatile int indicesToCalculate = 0;
-    private volatile int indicesCalculated = 0;
+    private final AtomicInteger indicesCalculated = new AtomicInteger(0);
+    private final Set<String> indicesInProgress = Collections.newSetFromMap(new ConcurrentHashMap<>());
 
     protected final Deflector deflector;
     private final ActivityWriter activityWriter;
     protected final IndexRangeService indexRangeService;
+    private final Indices indices;
+    private final int concurrency;
+    private final int batchSize;
 
     @AssistedInject
     public RebuildIndexRangesJob(@Assisted Deflector deflector,
                                  ActivityWriter activityWriter,
-                                 IndexRangeService indexRangeService) {
+                                 IndexRangeService indexRangeService,
+                                 Indices indices,
+                                 @Named("index_ranges_rebuild_concurrency") int concurrency,
+                                 @Named("index_ranges_rebuild_batch_size") int batchSize) {
         this.deflector = deflector;
         this.activityWriter = activityWriter;
         this.indexRangeService = indexRangeService;
+        this.indices = indices;
+        this.concurrency = concurrency;
+        this.batchSize = batchSize;
     }
 
     @Override
@@ -66,7 +92,7 @@ public class RebuildIndexRangesJob extends SystemJob {
         }
 
         // lolwtfbbqcasting
-        return (int) Math.floor(((float) indicesCalculated / (float) indicesToCalculate) * 100);
+        return (int) Math.floor(((float) indicesCalculated.get() / (float) indicesToCalculate) * 100);
     }
 
     @Override
@@ -74,41 +100,126 @@ public class RebuildIndexRangesJob extends SystemJob {
         return "Rebuilds index range information.";
     }
 
+    @Override
+    public String getInfo() {
+        final List<String> inProgress = new ArrayList<>(indicesInProgress);
+        if (inProgress.isEmpty()) {
+            return "Calculated " + indicesCalculated.get() + " of " + indicesToCalculate + " index ranges.";
+        }
+
+        Collections.sort(inProgress);
+        return "Calculated " + indicesCalculated.get() + " of " + indicesToCalculate + " index ranges. " +
+                "Currently calculating: " + Joiner.on(", ").join(inProgress) + ".";
+    }
+
     @Override
     public void execute() {
         info("Re-calculating index ranges.");
 
-        String[] indices = deflector.getAllGraylogIndexNames();
-        if (indices == null || indices.length == 0) {
+        String[] allIndices = deflector.getAllGraylogIndexNames();
+        if (allIndices == null || allIndices.length == 0) {
             info("No indices, nothing to calculate.");
             return;
         }
-        indicesToCalculate = indices.length;
 
         Stopwatch sw = Stopwatch.createStarted();
+        final List<String> indexNames = selectIndicesToCalculate(allIndices);
+        indicesToCalculate = indexNames.size();
+        if (indexNames.isEmpty()) {
+            info("All index ranges are up to date, nothing to calculate.");
+            return;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(concurrency,
+                new ThreadFactoryBuilder().setNameFormat("rebuild-index-ranges-%d").setDaemon(true).build());
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (List<String> batch : Lists.partition(indexNames, batchSize)) {
+                futures.add(executor.submit(() -> calculateBatch(batch)));
+            }
+
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Error while calculating index ranges.", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            info("Interrupted while calculating index ranges.");
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (cancelRequested) {
+            info("Stop requested. Calculated " + indicesCalculated.get() + " of " + indicesToCalculate + " index ranges.");
+            return;
+        }
+
+        info("Done calculating index ranges for " + indexNames.size() + " indices. Took " + sw.stop().elapsed(TimeUnit.MILLISECONDS) + "ms.");
+    }
+
+    /**
+     * Skips the deflector target and all read-only indices which already have a known index range,
+     * because their contents (and thus their ranges) cannot change anymore.
+     */
+    private List<String> selectIndicesToCalculate(String[] allIndices) {
+        final Set<String> readOnlyIndices = indices.getReadOnlyIndices();
+        final Set<String> knownRanges = new HashSet<>();
+        for (IndexRange indexRange : indexRangeService.findAll()) {
+            if (indexRange.begin().getMillis() != 0L || indexRange.end().getMillis() != 0L) {
+                knownRanges.add(indexRange.indexName());
+            }
+        }
+
         final String deflectorIndexName = deflector.getName();
-        for (String index : indices) {
+        final List<String> indexNames = new ArrayList<>(allIndices.length);
+        for (String index : allIndices) {
             if (deflectorIndexName.equals(index)) {
                 continue;
             }
-            if (cancelRequested) {
-                info("Stop requested. Not calculating next index range, not updating ranges.");
-                sw.stop();
-                return;
+            if (readOnlyIndices.contains(index) && knownRanges.contains(index)) {
+                LOG.debug("Index {} is read-only and already has a known range. Skipping.", index);
+                continue;
             }
+            indexNames.add(index);
+        }
 
+        return indexNames;
+    }
+
+    private void calculateBatch(List<String> batch) {
+        if (cancelRequested) {
+            return;
+        }
+
+        indicesInProgress.addAll(batch);
+        try {
+            Map<String, IndexRange> indexRanges;
             try {
-                final IndexRange indexRange = indexRangeService.calculateRange(index);
-                indexRangeService.save(indexRange);
-                LOG.debug("Created ranges for index {}: {}", index, indexRange);
+                indexRanges = indexRangeService.calculateRanges(batch);
             } catch (Exception e) {
-                LOG.info("Could not calculate range of index [" + index + "]. Skipping.", e);
-            } finally {
-                indicesCalculated++;
+                LOG.debug("Could not calculate ranges of indices " + batch + " at once. Falling back to single indices.", e);
+                indexRanges = Collections.emptyMap();
             }
-        }
 
-        info("Done calculating index ranges for " + indices.length + " indices. Took " + sw.stop().elapsed(TimeUnit.MILLISECONDS) + "ms.");
+            for (String index : batch) {
+                try {
+                    final IndexRange indexRange = indexRanges.containsKey(index) ? indexRanges.get(index) : indexRangeService.calculateRange(index);
+                    indexRangeService.save(indexRange);
+                    LOG.debug("Created ranges for index {}: {}", index, indexRange);
+                } catch (Exception e) {
+                    LOG.info("Could not calculate range of index [" + index + "]. Skipping.", e);
+                } finally {
+                    indicesInProgress.remove(index);
+                    indicesCalculated.incrementAndGet();
+                }
+            }
+        } finally {
+            indicesInProgress.removeAll(batch);
+        }
     }
 
     protected void info(String what) {
@@ -21,7 +21,6 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.search.SearchHit;
-import org.elasticsearch.search.SearchHits;
 
 import java.io.IOException;
 import java.util.List;
@@ -57,7 +56,7 @@ public class IndexQueryResult {
         return took;
     }
 
-    protected List<ResultMessage> buildResults(SearchHits hits) {
+    protected List<ResultMessage> buildResults(Iterable<SearchHit> hits) {
         List<ResultMessage> r = Lists.newArrayList();
 
         for (SearchHit hit : hits) {
@@ -0,0 +1,64 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.results;
+
+import com.google.common.collect.ImmutableSortedMap;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.unit.TimeValue;
+import org.graylog2.indexer.searches.Searches;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+
+import java.util.Map;
+
+/**
+ * A date histogram which has been assembled from cached buckets and the result of a query for the remaining buckets.
+ */
+public class MergedHistogramResult extends HistogramResult {
+    private final Map<Long, Long> results;
+    private final Searches.DateHistogramInterval interval;
+    private final AbsoluteRange boundaries;
+
+    public MergedHistogramResult(Map<Long, Long> results,
+                                 String originalQuery,
+                                 BytesReference builtQuery,
+                                 Searches.DateHistogramInterval interval,
+                                 TimeValue took,
+                                 AbsoluteRange boundaries) {
+        super(originalQuery, builtQuery, took);
+        this.results = ImmutableSortedMap.copyOf(results);
+        this.interval = interval;
+        this.boundaries = boundaries;
+    }
+
+    @Override
+    public Searches.DateHistogramInterval getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the bucket counts, keyed by bucket start in seconds
+     */
+    @Override
+    public Map<Long, Long> getResults() {
+        return results;
+    }
+
+    @Override
+    public AbsoluteRange getHistogramBoundaries() {
+        return boundaries;
+    }
+}
@@ -16,16 +16,21 @@
  */
 package org.graylog2.indexer.results;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
 import org.apache.shiro.crypto.hash.Md5Hash;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionFuture;
 import org.elasticsearch.action.search.ClearScrollResponse;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
-import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchHit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.util.List;
 
 public class ScrollResult extends IndexQueryResult {
@@ -35,7 +40,11 @@ public class ScrollResult extends IndexQueryResult {
     private final List<String> fields;
     private final String queryHash; // used in log output only
     private final long totalHits;
+    private final TimeValue keepAlive;
+    private final Meter scrolledMessages;
+    private final Timer scrollWaitTimer;
     private SearchResponse firstResponse;
+    private ActionFuture<SearchResponse> nextResponse;
 
     private String scrollId;
     private int chunkId = 0;
@@ -44,9 +53,23 @@ public class ScrollResult extends IndexQueryResult {
                         String originalQuery,
                         BytesReference builtQuery,
                         SearchResponse response, List<String> fields) {
+        this(client, originalQuery, builtQuery, response, fields, TimeValue.timeValueMinutes(1), new Meter(), new Timer());
+    }
+
+    public ScrollResult(Client client,
+                        String originalQuery,
+                        BytesReference builtQuery,
+                        SearchResponse response,
+                        List<String> fields,
+                        TimeValue keepAlive,
+                        Meter scrolledMessages,
+                        Timer scrollWaitTimer) {
         super(originalQuery, builtQuery, response.getTook());
         this.client = client;
         this.fields = fields;
+        this.keepAlive = keepAlive;
+        this.scrolledMessages = scrolledMessages;
+        this.scrollWaitTimer = scrollWaitTimer;
         totalHits = response.getHits().totalHits();
         scrollId = response.getScrollId();
         firstResponse = response;
@@ -57,30 +80,50 @@ public class ScrollResult extends IndexQueryResult {
         LOG.debug("[{}] Starting scroll request for query {}", queryHash, getOriginalQuery());
     }
 
-    public ScrollChunk nextChunk() {
-
+    /**
+     * Returns the raw hits of the next page of the scroll, or {@code null} once the scroll is exhausted.
+     * <p>
+     * The request for the following page is sent before returning, so at most one page is fetched ahead of the
+     * caller. Callers which stop calling this method (e. g. because their client is slow) thereby pause the scroll
+     * instead of buffering results; the scroll context is kept alive for the configured keep alive in the meantime.
+     */
+    @Nullable
+    public SearchHit[] nextHits() {
         final SearchResponse search;
         // make sure to return the initial hits, see https://github.com/Graylog2/graylog2-server/issues/2126
-        if (firstResponse == null) {
-            search = client.prepareSearchScroll(scrollId)
-                    .setScroll(TimeValue.timeValueMinutes(1))
-                    .execute()
-                    .actionGet();
-        } else {
+        if (firstResponse != null) {
             search = firstResponse;
             firstResponse = null;
+        } else if (nextResponse != null) {
+            try (Timer.Context ignored = scrollWaitTimer.time()) {
+                search = nextResponse.actionGet();
+            } finally {
+                nextResponse = null;
+            }
+        } else {
+            return null;
         }
 
-        final SearchHits hits = search.getHits();
-        if (hits.getHits().length == 0) {
+        scrollId = search.getScrollId(); // save the id for the next request.
+        final SearchHit[] hits = search.getHits().getHits();
+        if (hits.length == 0) {
             // scroll exhausted
-            LOG.debug("[{}] Reached end of scroll results.", queryHash, getOriginalQuery());
+            LOG.debug("[{}] Reached end of scroll results.", queryHash);
             return null;
         }
-        LOG.debug("[{}][{}] New scroll id {}, number of hits in chunk: {}", queryHash, chunkId, search.getScrollId(), hits.getHits().length);
-        scrollId = search.getScrollId(); // save the id for the next request.
+        LOG.debug("[{}][{}] New scroll id {}, number of hits in chunk: {}", queryHash, chunkId, scrollId, hits.length);
+        chunkId++;
+        scrolledMessages.mark(hits.length);
+
+        nextResponse = client.prepareSearchScroll(scrollId)
+                .setScroll(keepAlive)
+                .execute();
+
+        return hits;
+    }
 
-        return new ScrollChunk(hits, fields, chunkId++);
+    public List<String> getFields() {
+        return fields;
     }
 
     public String getQueryHash() {
@@ -92,36 +135,18 @@ public class ScrollResult extends IndexQueryResult {
     }
 
     public void cancel() {
+        firstResponse = null;
+        if (nextResponse != null) {
+            // the pending request might have handed out a new scroll id which has to be cleared instead
+            try {
+                scrollId = nextResponse.actionGet().getScrollId();
+            } catch (ElasticsearchException e) {
+                LOG.debug("[{}] Pending scroll request failed.", queryHash, e);
+            } finally {
+                nextResponse = null;
+            }
+        }
         final ClearScrollResponse clearScrollResponse = client.prepareClearScroll().addScrollId(scrollId).execute().actionGet();
         LOG.debug("[{}] clearScroll for query successful: {}", queryHash, clearScrollResponse.isSucceeded());
     }
-
-    public class ScrollChunk {
-
-        private final List<ResultMessage> resultMessages;
-        private List<String> fields;
-        private int chunkNumber;
-
-        public ScrollChunk(SearchHits hits, List<String> fields, int chunkId) {
-            this.fields = fields;
-            this.chunkNumber = chunkId;
-            resultMessages = buildResults(hits);
-        }
-
-        public List<String> getFields() {
-            return fields;
-        }
-
-        public int getChunkNumber() {
-            return chunkNumber;
-        }
-
-        public boolean isFirstChunk() {
-            return getChunkNumber() == 0;
-        }
-
-        public List<ResultMessage> getMessages() {
-            return resultMessages;
-        }
-    }
 }
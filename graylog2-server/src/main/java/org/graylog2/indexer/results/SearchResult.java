@@ -19,6 +19,7 @@ package org.graylog2.indexer.results;
 import com.google.common.collect.Sets;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHits;
 import org.graylog2.indexer.ranges.IndexRange;
 import org.graylog2.plugin.Message;
@@ -45,6 +46,15 @@ public class SearchResult extends IndexQueryResult {
 		this.totalResults = searchHits.getTotalHits();
         this.usedIndices = usedIndices;
 	}
+
+    public SearchResult(List<SearchHit> searchHits, long totalResults, Set<IndexRange> usedIndices, String originalQuery, BytesReference builtQuery, TimeValue took) {
+        super(originalQuery, builtQuery, took);
+
+        this.results = buildResults(searchHits);
+        this.fields = extractFields(results);
+        this.totalResults = totalResults;
+        this.usedIndices = usedIndices;
+    }
 	
 	public long getTotalResults() {
 		return totalResults;
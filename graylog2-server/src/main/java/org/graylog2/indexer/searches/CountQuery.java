@@ -0,0 +1,44 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.google.auto.value.AutoValue;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+
+import javax.annotation.Nullable;
+
+/**
+ * A count query which can be run together with other count queries by {@link Searches#count(java.util.List)}.
+ */
+@AutoValue
+public abstract class CountQuery {
+    @Nullable
+    public abstract String query();
+
+    public abstract TimeRange range();
+
+    @Nullable
+    public abstract String filter();
+
+    public static CountQuery create(@Nullable String query, TimeRange range, @Nullable String filter) {
+        return new AutoValue_CountQuery(query, range, filter);
+    }
+
+    public static CountQuery create(@Nullable String query, TimeRange range) {
+        return create(query, range, null);
+    }
+}
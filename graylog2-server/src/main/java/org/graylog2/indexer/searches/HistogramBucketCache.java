@@ -0,0 +1,257 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedMap;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.metrics.CacheStatsSet;
+import org.graylog2.shared.metrics.MetricUtils;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the completed buckets of date histograms over relative time ranges, so that refreshing such a histogram
+ * only has to query the buckets which might still change.
+ * <p>
+ * Only the counts of indices which are not written to anymore (i. e. whose index range has been calculated) are
+ * cached, because messages with arbitrarily old timestamps can still arrive in the current write target. The cached
+ * buckets remember the index ranges they were computed from and are discarded once the closed indices covering them
+ * change, for example after an index rotation or when retention deleted an index.
+ */
+@Singleton
+public class HistogramBucketCache {
+    private final boolean enabled;
+    private final Cache<Key, Buckets> cache;
+
+    @Inject
+    public HistogramBucketCache(@Named("search_result_cache_enabled") boolean enabled,
+                                @Named("search_histogram_cache_max_buckets") int maxBuckets,
+                                MetricRegistry metricRegistry) {
+        this.enabled = enabled;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxBuckets)
+                .weigher((Key key, Buckets buckets) -> buckets.counts().size() + 1)
+                .expireAfterAccess(1L, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+
+        MetricUtils.safelyRegisterAll(metricRegistry, new CacheStatsSet(MetricRegistry.name(HistogramBucketCache.class, "cache"), cache));
+    }
+
+    public static HistogramBucketCache disabled() {
+        return new HistogramBucketCache(false, 1, new MetricRegistry());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Index ranges are only calculated when an index is not being written to anymore, so an index with an unknown
+     * range can still receive messages for any time range.
+     */
+    public static boolean isClosed(IndexRange indexRange) {
+        return indexRange.begin().getMillis() != 0L || indexRange.end().getMillis() != 0L;
+    }
+
+    /**
+     * Returns the cached buckets of the given histogram if they start at or before {@code firstFullBucket}, end after
+     * it and have been computed from the same closed indices which currently cover them, otherwise {@code null}.
+     *
+     * @param closedIndexRanges the ranges of the closed indices covering the time range of the histogram
+     */
+    @Nullable
+    public Buckets get(String query,
+                       @Nullable String filter,
+                       Searches.DateHistogramInterval interval,
+                       long firstFullBucket,
+                       Set<IndexRange> closedIndexRanges) {
+        if (!enabled) {
+            return null;
+        }
+
+        final Buckets buckets = cache.getIfPresent(key(query, filter, interval));
+        if (buckets == null || buckets.from() > firstFullBucket || buckets.until() <= firstFullBucket) {
+            return null;
+        }
+
+        final Set<String> cachedIndices = indexNames(buckets.indexRanges(), firstFullBucket, buckets.until());
+        final Set<String> currentIndices = indexNames(closedIndexRanges, firstFullBucket, buckets.until());
+        if (!cachedIndices.equals(currentIndices)) {
+            return null;
+        }
+        return buckets;
+    }
+
+    /**
+     * Stores the buckets of a histogram.
+     */
+    public void put(String query, @Nullable String filter, Searches.DateHistogramInterval interval, Buckets buckets) {
+        if (!enabled || buckets.until() <= buckets.from()) {
+            return;
+        }
+
+        cache.put(key(query, filter, interval), buckets);
+    }
+
+    private static Set<String> indexNames(Set<IndexRange> indexRanges, long from, long until) {
+        final ImmutableSet.Builder<String> names = ImmutableSet.builder();
+        for (IndexRange indexRange : indexRanges) {
+            if (indexRange.begin().getMillis() < until && indexRange.end().getMillis() >= from) {
+                names.add(indexRange.indexName());
+            }
+        }
+        return names.build();
+    }
+
+    private static Key key(String query, @Nullable String filter, Searches.DateHistogramInterval interval) {
+        return Key.create(SearchResultCache.normalizeQuery(query), SearchResultCache.normalizeFilter(filter), interval);
+    }
+
+    /**
+     * Returns the start of the (UTC-aligned) histogram bucket containing the given timestamp.
+     */
+    public static DateTime bucketStart(DateTime timestamp, Searches.DateHistogramInterval interval) {
+        final DateTime dateTime = timestamp.withZone(DateTimeZone.UTC);
+        switch (interval) {
+            case MINUTE:
+                return dateTime.minuteOfHour().roundFloorCopy();
+            case HOUR:
+                return dateTime.hourOfDay().roundFloorCopy();
+            case DAY:
+                return dateTime.dayOfMonth().roundFloorCopy();
+            case WEEK:
+                return dateTime.weekOfWeekyear().roundFloorCopy();
+            case MONTH:
+                return dateTime.monthOfYear().roundFloorCopy();
+            case QUARTER:
+                final DateTime month = dateTime.monthOfYear().roundFloorCopy();
+                return month.withMonthOfYear(((month.getMonthOfYear() - 1) / 3) * 3 + 1);
+            default:
+                return dateTime.year().roundFloorCopy();
+        }
+    }
+
+    /**
+     * Returns the start of the first bucket which starts at or after the given timestamp.
+     */
+    public static long firstFullBucketStart(DateTime timestamp, Searches.DateHistogramInterval interval) {
+        final DateTime bucketStart = bucketStart(timestamp, interval);
+        if (bucketStart.getMillis() == timestamp.getMillis()) {
+            return bucketStart.getMillis();
+        }
+        return bucketStart.plus(interval.getPeriod()).getMillis();
+    }
+
+    /**
+     * Adds empty buckets between the first and the last bucket of the given counts, like Elasticsearch does.
+     */
+    public static NavigableMap<Long, Long> fillGaps(NavigableMap<Long, Long> counts, Searches.DateHistogramInterval interval) {
+        if (counts.isEmpty()) {
+            return counts;
+        }
+
+        final NavigableMap<Long, Long> result = new TreeMap<>(counts);
+        final long last = counts.lastKey();
+        DateTime bucket = new DateTime(counts.firstKey(), DateTimeZone.UTC);
+        while (bucket.getMillis() < last) {
+            result.putIfAbsent(bucket.getMillis(), 0L);
+            bucket = bucket.plus(interval.getPeriod());
+        }
+        return result;
+    }
+
+    @AutoValue
+    abstract static class Key {
+        abstract String query();
+
+        abstract String filter();
+
+        abstract Searches.DateHistogramInterval interval();
+
+        static Key create(String query, String filter, Searches.DateHistogramInterval interval) {
+            return new AutoValue_HistogramBucketCache_Key(query, filter, interval);
+        }
+    }
+
+    @AutoValue
+    public abstract static class Buckets {
+        /**
+         * @return the start of the first cached bucket in milliseconds
+         */
+        public abstract long from();
+
+        /**
+         * @return the end of the last cached bucket in milliseconds (exclusive)
+         */
+        public abstract long until();
+
+        /**
+         * @return the counts of the closed indices in all non-empty cached buckets, keyed by bucket start in milliseconds
+         */
+        public abstract ImmutableSortedMap<Long, Long> counts();
+
+        /**
+         * @return the ranges of the closed indices the counts have been computed from
+         */
+        public abstract ImmutableSet<IndexRange> indexRanges();
+
+        static Buckets create(long from, long until, ImmutableSortedMap<Long, Long> counts, ImmutableSet<IndexRange> indexRanges) {
+            return new AutoValue_HistogramBucketCache_Buckets(from, until, counts, indexRanges);
+        }
+
+        /**
+         * @return empty buckets starting and ending at {@code firstFullBucket}
+         */
+        public static Buckets empty(long firstFullBucket) {
+            return create(firstFullBucket, firstFullBucket, ImmutableSortedMap.of(), ImmutableSet.of());
+        }
+
+        /**
+         * Returns a copy of these buckets starting at {@code firstFullBucket} and extended up to {@code newUntil}
+         * by the given counts.
+         *
+         * @param newCounts         the counts of the closed indices after the cached buckets, keyed by bucket start in milliseconds
+         * @param closedIndexRanges the ranges of the closed indices the counts have been computed from
+         */
+        public Buckets extend(long firstFullBucket, long newUntil, Map<Long, Long> newCounts, Set<IndexRange> closedIndexRanges) {
+            final TreeMap<Long, Long> merged = new TreeMap<>(counts().tailMap(firstFullBucket));
+            for (Map.Entry<Long, Long> entry : newCounts.entrySet()) {
+                if (entry.getKey() >= until() && entry.getKey() < newUntil) {
+                    merged.put(entry.getKey(), entry.getValue());
+                }
+            }
+            return create(firstFullBucket, Math.max(until(), newUntil), ImmutableSortedMap.copyOfSorted(merged),
+                    ImmutableSet.copyOf(closedIndexRanges));
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.graylog2.indexer.esplugin.IndicesClosedEvent;
+import org.graylog2.indexer.esplugin.IndicesDeletedEvent;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.metrics.CacheStatsSet;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.graylog2.shared.metrics.MetricUtils;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+
+/**
+ * Caches the results of aggregating searches (counts, terms, statistics and histograms).
+ * <p>
+ * Results which only touch indices with a known index range (i. e. indices which are not written to anymore)
+ * cannot change and are kept until they are evicted. The current write target has an unknown range and is part of
+ * every search, but it only receives messages newer than the indices written to before it. So results whose time
+ * range ends before the end of the newest known index range they touch are treated as unchangeable as well. Only
+ * results whose time range reaches beyond that into the write target (or any other index with an unknown range)
+ * are kept for a short time.
+ * Time ranges which are relative to the current time are rounded to that time, so that frequent refreshes of
+ * the same relative search hit the cache.
+ */
+@Singleton
+public class SearchResultCache {
+    private final boolean enabled;
+    private final long liveTtlMillis;
+    private final Cache<Key, Object> immutableResults;
+    private final Cache<Key, Object> liveResults;
+
+    @Inject
+    public SearchResultCache(@Named("search_result_cache_enabled") boolean enabled,
+                             @Named("search_result_cache_max_size") int maxSize,
+                             @Named("search_result_cache_live_ttl") Duration liveTtl,
+                             EventBus eventBus,
+                             MetricRegistry metricRegistry) {
+        this.enabled = enabled;
+        this.liveTtlMillis = Math.max(1L, liveTtl.toMilliseconds());
+        this.immutableResults = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(1L, TimeUnit.HOURS)
+                .recordStats()
+                .build();
+        this.liveResults = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(liveTtlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+
+        MetricUtils.safelyRegisterAll(metricRegistry, new CacheStatsSet(MetricRegistry.name(SearchResultCache.class, "immutable"), immutableResults));
+        MetricUtils.safelyRegisterAll(metricRegistry, new CacheStatsSet(MetricRegistry.name(SearchResultCache.class, "live"), liveResults));
+
+        eventBus.register(this);
+    }
+
+    public static SearchResultCache disabled() {
+        return new SearchResultCache(false, 1, Duration.seconds(1L), new EventBus(), new MetricRegistry());
+    }
+
+    /**
+     * Builds the cache key of a search.
+     *
+     * @param operation   the kind of search, e. g. {@code "count"}
+     * @param query       the search query
+     * @param filter      the (optional) search filter
+     * @param range       the time range of the search
+     * @param indexRanges the ranges of all indices affected by the search
+     * @param parameters  additional parameters of the search which influence the result
+     * @return the cache key
+     */
+    public Key key(String operation,
+                   @Nullable String query,
+                   @Nullable String filter,
+                   TimeRange range,
+                   Set<IndexRange> indexRanges,
+                   Object... parameters) {
+        final ImmutableSortedSet.Builder<String> indexNames = ImmutableSortedSet.naturalOrder();
+        boolean unknownRange = false;
+        long knownRangesEnd = Long.MIN_VALUE;
+        for (IndexRange indexRange : indexRanges) {
+            indexNames.add(indexRange.indexName());
+            // Index ranges are only calculated when an index is not being written to anymore.
+            if (indexRange.begin().getMillis() == 0L && indexRange.end().getMillis() == 0L) {
+                unknownRange = true;
+            } else {
+                knownRangesEnd = Math.max(knownRangesEnd, indexRange.end().getMillis());
+            }
+        }
+        // Indices with an unknown range only contain messages newer than the known ones.
+        final boolean live = unknownRange && range.getTo().getMillis() > knownRangesEnd;
+
+        final long from;
+        final long to;
+        if (range instanceof AbsoluteRange) {
+            from = range.getFrom().getMillis();
+            to = range.getTo().getMillis();
+        } else {
+            from = roundDown(range.getFrom().getMillis());
+            to = roundDown(range.getTo().getMillis());
+        }
+
+        return Key.create(operation, normalizeQuery(query), normalizeFilter(filter), indexNames.build(),
+                from, to, Collections.unmodifiableList(Arrays.asList(parameters.clone())), live);
+    }
+
+    @Nullable
+    public <T> T get(Key key, Class<T> resultClass) {
+        if (!enabled) {
+            return null;
+        }
+
+        final Object result = cacheFor(key).getIfPresent(key);
+        return resultClass.isInstance(result) ? resultClass.cast(result) : null;
+    }
+
+    public void put(Key key, Object result) {
+        if (enabled && result != null) {
+            cacheFor(key).put(key, result);
+        }
+    }
+
+    public void invalidateAll() {
+        immutableResults.invalidateAll();
+        liveResults.invalidateAll();
+    }
+
+    @Subscribe
+    public void handleIndexDeletion(IndicesDeletedEvent event) {
+        immutableResults.invalidateAll();
+    }
+
+    @Subscribe
+    public void handleIndexClosing(IndicesClosedEvent event) {
+        immutableResults.invalidateAll();
+    }
+
+    private Cache<Key, Object> cacheFor(Key key) {
+        return key.live() ? liveResults : immutableResults;
+    }
+
+    private long roundDown(long millis) {
+        return millis - (millis % liveTtlMillis);
+    }
+
+    static String normalizeQuery(@Nullable String query) {
+        if (query == null || query.trim().isEmpty()) {
+            return "*";
+        }
+        return query.trim();
+    }
+
+    static String normalizeFilter(@Nullable String filter) {
+        // An empty filter and "*" are treated the same as no filter at all.
+        if (isNullOrEmpty(filter) || filter.trim().equals("*")) {
+            return "";
+        }
+        return filter.trim();
+    }
+
+    @AutoValue
+    public abstract static class Key {
+        public abstract String operation();
+
+        public abstract String query();
+
+        public abstract String filter();
+
+        public abstract ImmutableSortedSet<String> indices();
+
+        public abstract long from();
+
+        public abstract long to();
+
+        public abstract List<Object> parameters();
+
+        public abstract boolean live();
+
+        static Key create(String operation,
+                          String query,
+                          String filter,
+                          ImmutableSortedSet<String> indices,
+                          long from,
+                          long to,
+                          List<Object> parameters,
+                          boolean live) {
+            return new AutoValue_SearchResultCache_Key(operation, query, filter, indices, from, to, parameters, live);
+        }
+    }
+}
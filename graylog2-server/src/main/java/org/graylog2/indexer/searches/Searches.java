@@ -17,26 +17,34 @@
 package org.graylog2.indexer.searches;
 
 import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.Sets;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionFuture;
+import org.elasticsearch.action.search.MultiSearchRequestBuilder;
+import org.elasticsearch.action.search.MultiSearchResponse;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.index.query.BoolQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.query.QueryStringQueryBuilder;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.bucket.filter.Filter;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.search.sort.SortParseElement;
 import org.graylog2.Configuration;
 import org.graylog2.indexer.Deflector;
@@ -48,12 +56,18 @@ import org.graylog2.indexer.results.DateHistogramResult;
 import org.graylog2.indexer.results.FieldHistogramResult;
 import org.graylog2.indexer.results.FieldStatsResult;
 import org.graylog2.indexer.results.HistogramResult;
+import org.graylog2.indexer.results.MergedHistogramResult;
 import org.graylog2.indexer.results.ScrollResult;
 import org.graylog2.indexer.results.SearchResult;
 import org.graylog2.indexer.results.TermsResult;
 import org.graylog2.indexer.results.TermsStatsResult;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
 import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
 import org.graylog2.indexer.searches.timeranges.TimeRanges;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
 import org.joda.time.Period;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,8 +76,16 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 
 import static com.codahale.metrics.MetricRegistry.name;
@@ -81,6 +103,8 @@ public class Searches {
     public final static String AGG_TERMS_STATS = "gl2_termsstats";
     public static final String AGG_FILTER = "gl2_filter";
     public static final String AGG_HISTOGRAM = "gl2_histogram";
+    private static final String AGG_CLOSED_INDICES = "gl2_closed_indices";
+    private static final String AGG_WRITE_INDICES = "gl2_write_indices";
     public static final String AGG_EXTENDED_STATS = "gl2_extended_stats";
     public static final String AGG_CARDINALITY = "gl2_field_cardinality";
     public static final String AGG_VALUE_COUNT = "gl2_value_count";
@@ -140,26 +164,38 @@ public class Searches {
     }
 
 
+    private static final Comparator<SearchHit> SEARCH_HIT_TIMESTAMP_ORDER = Comparator.comparingLong(Searches::sortTimestamp);
+
     private final Configuration configuration;
     private final Deflector deflector;
     private final IndexRangeService indexRangeService;
     private final Client c;
+    private final SearchResultCache searchResultCache;
+    private final HistogramBucketCache histogramBucketCache;
     private final Timer esRequestTimer;
     private final Histogram esTimeRangeHistogram;
+    private final Meter scrolledMessagesMeter;
+    private final Timer scrollWaitTimer;
 
     @Inject
     public Searches(Configuration configuration,
                     Deflector deflector,
                     IndexRangeService indexRangeService,
                     Client client,
+                    SearchResultCache searchResultCache,
+                    HistogramBucketCache histogramBucketCache,
                     MetricRegistry metricRegistry) {
         this.configuration = checkNotNull(configuration);
         this.deflector = checkNotNull(deflector);
         this.indexRangeService = checkNotNull(indexRangeService);
         this.c = checkNotNull(client);
+        this.searchResultCache = checkNotNull(searchResultCache);
+        this.histogramBucketCache = checkNotNull(histogramBucketCache);
 
         this.esRequestTimer = metricRegistry.timer(name(Searches.class, "elasticsearch", "requests"));
         this.esTimeRangeHistogram = metricRegistry.histogram(name(Searches.class, "elasticsearch", "ranges"));
+        this.scrolledMessagesMeter = metricRegistry.meter(name(Searches.class, "scroll", "messages"));
+        this.scrollWaitTimer = metricRegistry.timer(name(Searches.class, "scroll", "wait"));
     }
 
     public CountResult count(String query, TimeRange range) {
@@ -167,7 +203,14 @@ public class Searches {
     }
 
     public CountResult count(String query, TimeRange range, String filter) {
-        Set<String> indices = IndexHelper.determineAffectedIndices(indexRangeService, deflector, range);
+        final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, range);
+        final SearchResultCache.Key cacheKey = searchResultCache.key("count", query, filter, range, indexRanges);
+        final CountResult cachedResult = searchResultCache.get(cacheKey, CountResult.class);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        final Set<String> indices = indexNames(indexRanges);
 
         final SearchRequestBuilder srb;
         if (filter == null) {
@@ -179,7 +222,97 @@ public class Searches {
 
         final SearchResponse r = c.search(srb.request()).actionGet();
         recordEsMetrics(r, range);
-        return CountResult.create(r.getHits().getTotalHits(), r.getTookInMillis());
+
+        final CountResult result = CountResult.create(r.getHits().getTotalHits(), r.getTookInMillis());
+        searchResultCache.put(cacheKey, result);
+        return result;
+    }
+
+    /**
+     * Runs several count queries with a single multi search request. Cached results are not requested again.
+     *
+     * @param queries the count queries
+     * @return the results of the count queries in the same order as the queries
+     */
+    public List<CountResult> count(List<CountQuery> queries) {
+        final CountResult[] results = new CountResult[queries.size()];
+        final List<Integer> requestedQueries = new ArrayList<>(queries.size());
+        final List<SearchResultCache.Key> cacheKeys = new ArrayList<>(queries.size());
+        final MultiSearchRequestBuilder msrb = c.prepareMultiSearch();
+
+        for (int i = 0; i < queries.size(); i++) {
+            final CountQuery countQuery = queries.get(i);
+            final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, countQuery.range());
+            final SearchResultCache.Key cacheKey = searchResultCache.key("count", countQuery.query(), countQuery.filter(), countQuery.range(), indexRanges);
+            final CountResult cachedResult = searchResultCache.get(cacheKey, CountResult.class);
+            if (cachedResult != null) {
+                results[i] = cachedResult;
+                continue;
+            }
+
+            final Set<String> indices = indexNames(indexRanges);
+            final SearchRequestBuilder srb;
+            if (countQuery.filter() == null) {
+                srb = standardSearchRequest(countQuery.query(), indices, countQuery.range());
+            } else {
+                srb = filteredSearchRequest(countQuery.query(), countQuery.filter(), indices, countQuery.range());
+            }
+            srb.setSize(0);
+            msrb.add(srb);
+            requestedQueries.add(i);
+            cacheKeys.add(cacheKey);
+        }
+
+        if (!requestedQueries.isEmpty()) {
+            final MultiSearchResponse.Item[] items = c.multiSearch(msrb.request()).actionGet().getResponses();
+            for (int i = 0; i < items.length; i++) {
+                final MultiSearchResponse.Item item = items[i];
+                if (item.isFailure()) {
+                    if (item.getFailure() instanceof RuntimeException) {
+                        throw (RuntimeException) item.getFailure();
+                    }
+                    throw new ElasticsearchException(item.getFailureMessage(), item.getFailure());
+                }
+
+                final SearchResponse r = item.getResponse();
+                final int queryIndex = requestedQueries.get(i);
+                recordEsMetrics(r, queries.get(queryIndex).range());
+
+                final CountResult result = CountResult.create(r.getHits().getTotalHits(), r.getTookInMillis());
+                searchResultCache.put(cacheKeys.get(i), result);
+                results[queryIndex] = result;
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Counts the messages of each of the given streams in the time range with a single request.
+     *
+     * @return the number of messages by stream ID, streams without any messages are included with a count of 0
+     */
+    public Map<String, Long> streamCounts(Set<String> streamIds, TimeRange range) {
+        final Set<String> indices = IndexHelper.determineAffectedIndices(indexRangeService, deflector, range);
+        final SearchRequestBuilder srb = standardSearchRequest("*", indices, 0, 0, range, null, null, false)
+                .setSize(0)
+                .addAggregation(AggregationBuilders.terms(AGG_TERMS)
+                        .field(Message.FIELD_STREAMS)
+                        .include(streamIds.toArray(new String[streamIds.size()]))
+                        .size(streamIds.size()));
+
+        final SearchResponse r = c.search(srb.request()).actionGet();
+        recordEsMetrics(r, range);
+
+        final Map<String, Long> counts = new HashMap<>(streamIds.size());
+        for (String streamId : streamIds) {
+            counts.put(streamId, 0L);
+        }
+        final Terms terms = r.getAggregations().get(AGG_TERMS);
+        for (Terms.Bucket bucket : terms.getBuckets()) {
+            counts.put(bucket.getKeyAsString(), bucket.getDocCount());
+        }
+        return counts;
     }
 
     public ScrollResult scroll(String query, TimeRange range, int limit, int offset, List<String> fields, String filter) {
@@ -192,9 +325,10 @@ public class Searches {
         // "For backwards compatibility, if the fields parameter specifies fields which are not stored , it will
         // load the _source and extract it from it. This functionality has been replaced by the source filtering
         // parameter." -- So we should look at the source filtering parameter once we switched to ES 1.x.
+        final TimeValue keepAlive = new TimeValue(configuration.getSearchExportScrollKeepalive().toMilliseconds());
         final SearchRequest request = standardSearchRequest(query, indices, limit, offset, range, filter, null, false)
-                .setScroll(new TimeValue(1, TimeUnit.MINUTES))
-                .setSize(500) // TODO magic numbers
+                .setScroll(keepAlive)
+                .setSize(configuration.getSearchExportBatchSize())
                 .addSort(SortBuilders.fieldSort(SortParseElement.DOC_FIELD_NAME))
                 .addFields(fields.toArray(new String[fields.size()]))
                 .addField("_source") // always request the _source field because otherwise we can't access non-stored values
@@ -209,7 +343,7 @@ public class Searches {
         final SearchResponse r = c.search(request).actionGet();
         recordEsMetrics(r, range);
 
-        return new ScrollResult(c, query, request.source(), r, fields);
+        return new ScrollResult(c, query, request.source(), r, fields, keepAlive, scrolledMessagesMeter, scrollWaitTimer);
     }
 
     public SearchResult search(String query, TimeRange range, int limit, int offset, Sorting sorting) {
@@ -234,6 +368,10 @@ public class Searches {
                 deflector,
                 config.range());
 
+        if (isTimeOrderedSearch(config, indices)) {
+            return timeOrderedSearch(config, indices);
+        }
+
         Set<String> indexNames = Sets.newHashSet();
         for (IndexRange index : indices) {
             indexNames.add(index.indexName());
@@ -247,16 +385,90 @@ public class Searches {
         return new SearchResult(r.getHits(), indices, config.query(), request.source(), r.getTook());
     }
 
+    private boolean isTimeOrderedSearch(SearchesConfig config, Set<IndexRange> indices) {
+        return configuration.isSearchTimeOrderedPlanning()
+                && config.limit() > 0
+                && indices.size() > 1
+                && config.sorting() != null
+                && "timestamp".equals(config.sorting().getField());
+    }
+
+    /**
+     * Runs a search sorted by timestamp index by index in the order of their time ranges and stops as soon as the
+     * remaining indices cannot contain any message of the requested page. The total number of results is counted
+     * with a separate request which runs concurrently.
+     */
+    private SearchResult timeOrderedSearch(SearchesConfig config, Set<IndexRange> indices) {
+        final Set<String> allIndexNames = indexNames(indices);
+        final SearchRequestBuilder countRequest;
+        if (config.filter() == null) {
+            countRequest = standardSearchRequest(config.query(), allIndexNames, config.range());
+        } else {
+            countRequest = filteredSearchRequest(config.query(), config.filter(), allIndexNames, config.range());
+        }
+        final ActionFuture<SearchResponse> countFuture = c.search(countRequest.setSize(0).request());
+
+        final SortOrder order = config.sorting().asElastic();
+        final TimeOrderedSearchPlan plan = TimeOrderedSearchPlan.create(indices, order);
+        final int needed = config.offset() + config.limit();
+        final Comparator<SearchHit> comparator = order == SortOrder.DESC ? SEARCH_HIT_TIMESTAMP_ORDER.reversed() : SEARCH_HIT_TIMESTAMP_ORDER;
+        final SearchesConfig stepConfig = config.toBuilder().offset(0).limit(needed).build();
+
+        List<SearchHit> hits = new ArrayList<>();
+        BytesReference builtQuery = null;
+        long tookMillis = 0L;
+        for (TimeOrderedSearchPlan.Step step : plan.steps()) {
+            if (hits.size() >= needed && plan.canSkip(step, sortTimestamp(hits.get(needed - 1)))) {
+                break;
+            }
+
+            final SearchRequest request = searchRequest(stepConfig, step.indices()).request();
+            final SearchResponse r = c.search(request).actionGet();
+            recordEsMetrics(r, config.range());
+            if (builtQuery == null) {
+                builtQuery = request.source();
+            }
+            tookMillis += r.getTookInMillis();
+
+            hits.addAll(Arrays.asList(r.getHits().getHits()));
+            hits.sort(comparator);
+            if (hits.size() > needed) {
+                hits = new ArrayList<>(hits.subList(0, needed));
+            }
+        }
+
+        final SearchResponse countResponse = countFuture.actionGet();
+        final List<SearchHit> page = hits.size() > config.offset() ? hits.subList(config.offset(), hits.size()) : Collections.emptyList();
+        return new SearchResult(page,
+                countResponse.getHits().getTotalHits(),
+                indices,
+                config.query(),
+                builtQuery,
+                new TimeValue(Math.max(tookMillis, countResponse.getTookInMillis())));
+    }
+
+    private static long sortTimestamp(SearchHit hit) {
+        final Object[] sortValues = hit.getSortValues();
+        return sortValues.length == 0 ? 0L : ((Number) sortValues[0]).longValue();
+    }
+
     public TermsResult terms(String field, int size, String query, String filter, TimeRange range) {
         if (size == 0) {
             size = 50;
         }
 
+        final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, range);
+        final SearchResultCache.Key cacheKey = searchResultCache.key("terms", query, filter, range, indexRanges, field, size);
+        final TermsResult cachedResult = searchResultCache.get(cacheKey, TermsResult.class);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         SearchRequestBuilder srb;
         if (filter == null) {
-            srb = standardSearchRequest(query, IndexHelper.determineAffectedIndices(indexRangeService, deflector, range), range);
+            srb = standardSearchRequest(query, indexNames(indexRanges), range);
         } else {
-            srb = filteredSearchRequest(query, filter, IndexHelper.determineAffectedIndices(indexRangeService, deflector, range), range);
+            srb = filteredSearchRequest(query, filter, indexNames(indexRanges), range);
         }
 
         FilterAggregationBuilder builder = AggregationBuilders.filter(AGG_FILTER)
@@ -276,7 +488,7 @@ public class Searches {
         recordEsMetrics(r, range);
 
         final Filter f = r.getAggregations().get(AGG_FILTER);
-        return new TermsResult(
+        final TermsResult result = new TermsResult(
                 f.getAggregations().get(AGG_TERMS),
                 f.getAggregations().get("missing"),
                 f.getDocCount(),
@@ -284,6 +496,8 @@ public class Searches {
                 request.source(),
                 r.getTook()
         );
+        searchResultCache.put(cacheKey, result);
+        return result;
     }
 
     public TermsResult terms(String field, int size, String query, TimeRange range) {
@@ -295,11 +509,18 @@ public class Searches {
             size = 50;
         }
 
+        final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, range);
+        final SearchResultCache.Key cacheKey = searchResultCache.key("termsStats", query, filter, range, indexRanges, keyField, valueField, order, size);
+        final TermsStatsResult cachedResult = searchResultCache.get(cacheKey, TermsStatsResult.class);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         SearchRequestBuilder srb;
         if (filter == null) {
-            srb = standardSearchRequest(query, IndexHelper.determineAffectedIndices(indexRangeService, deflector, range), range);
+            srb = standardSearchRequest(query, indexNames(indexRanges), range);
         } else {
-            srb = filteredSearchRequest(query, filter, IndexHelper.determineAffectedIndices(indexRangeService, deflector, range), range);
+            srb = filteredSearchRequest(query, filter, indexNames(indexRanges), range);
         }
 
 
@@ -361,12 +582,14 @@ public class Searches {
         recordEsMetrics(r, range);
 
         final Filter f = r.getAggregations().get(AGG_FILTER);
-        return new TermsStatsResult(
+        final TermsStatsResult result = new TermsStatsResult(
                 f.getAggregations().get(AGG_TERMS_STATS),
                 query,
                 request.source(),
                 r.getTook()
         );
+        searchResultCache.put(cacheKey, result);
+        return result;
     }
 
     public TermsStatsResult termsStats(String keyField, String valueField, TermsStatsOrder order, int size, String query, TimeRange range) {
@@ -390,12 +613,20 @@ public class Searches {
                                        boolean includeStats,
                                        boolean includeCount)
             throws FieldTypeException {
+        final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, range);
+        final SearchResultCache.Key cacheKey = searchResultCache.key("fieldStats", query, filter, range, indexRanges,
+                field, includeCardinality, includeStats, includeCount);
+        final FieldStatsResult cachedResult = searchResultCache.get(cacheKey, FieldStatsResult.class);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         SearchRequestBuilder srb;
 
         if (filter == null) {
-            srb = standardSearchRequest(query, IndexHelper.determineAffectedIndices(indexRangeService, deflector, range), range);
+            srb = standardSearchRequest(query, indexNames(indexRanges), range);
         } else {
-            srb = filteredSearchRequest(query, filter, IndexHelper.determineAffectedIndices(indexRangeService, deflector, range), range);
+            srb = filteredSearchRequest(query, filter, indexNames(indexRanges), range);
         }
 
         FilterAggregationBuilder builder = AggregationBuilders.filter(AGG_FILTER)
@@ -423,7 +654,7 @@ public class Searches {
         recordEsMetrics(r, range);
 
         final Filter f = r.getAggregations().get(AGG_FILTER);
-        return new FieldStatsResult(
+        final FieldStatsResult result = new FieldStatsResult(
                 f.getAggregations().get(AGG_VALUE_COUNT),
                 f.getAggregations().get(AGG_EXTENDED_STATS),
                 f.getAggregations().get(AGG_CARDINALITY),
@@ -432,6 +663,8 @@ public class Searches {
                 request.source(),
                 r.getTook()
         );
+        searchResultCache.put(cacheKey, result);
+        return result;
     }
 
     public HistogramResult histogram(String query, DateHistogramInterval interval, TimeRange range) {
@@ -439,33 +672,144 @@ public class Searches {
     }
 
     public HistogramResult histogram(String query, DateHistogramInterval interval, String filter, TimeRange range) {
-        FilterAggregationBuilder builder = AggregationBuilders.filter(AGG_FILTER)
+        final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, range);
+        final SearchResultCache.Key cacheKey = searchResultCache.key("histogram", query, filter, range, indexRanges, interval);
+        final HistogramResult cachedResult = searchResultCache.get(cacheKey, HistogramResult.class);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
+        final HistogramResult result;
+        if (histogramBucketCache.isEnabled() && !(range instanceof AbsoluteRange)) {
+            result = incrementalHistogram(query, interval, filter, AbsoluteRange.create(range.getFrom(), range.getTo()), indexRanges);
+        } else {
+            result = fullHistogram(query, interval, filter, range, indexNames(indexRanges));
+        }
+        searchResultCache.put(cacheKey, result);
+        return result;
+    }
+
+    private HistogramResult fullHistogram(String query, DateHistogramInterval interval, String filter, TimeRange range, Set<String> affectedIndices) {
+        final SearchRequest request = histogramRequest(query, interval, standardAggregationFilters(range, filter), affectedIndices);
+        SearchResponse r = c.search(request).actionGet();
+        recordEsMetrics(r, range);
+
+        final Filter f = r.getAggregations().get(AGG_FILTER);
+        return new DateHistogramResult(
+                f.getAggregations().get(AGG_HISTOGRAM),
+                query,
+                request.source(),
+                interval,
+                r.getTook());
+    }
+
+    /**
+     * Computes a histogram over a range relative to the current time by only querying the buckets which are not
+     * contained in the {@link HistogramBucketCache}: the write target (and other indices without a calculated range)
+     * for the whole range, and the closed indices for the partial bucket at the beginning of the range and all buckets
+     * after the cached ones.
+     */
+    private HistogramResult incrementalHistogram(String query, DateHistogramInterval interval, String filter, AbsoluteRange range, Set<IndexRange> indexRanges) {
+        final long firstFullBucket = HistogramBucketCache.firstFullBucketStart(range.getFrom(), interval);
+        // The last bucket is only partially covered by the range, so it is never cached.
+        final long lastBucket = HistogramBucketCache.bucketStart(range.getTo(), interval).getMillis();
+        if (firstFullBucket >= lastBucket) {
+            return fullHistogram(query, interval, filter, range, indexNames(indexRanges));
+        }
+
+        final Set<IndexRange> closedIndexRanges = Sets.newHashSet();
+        final Set<String> writeIndices = Sets.newHashSet();
+        for (IndexRange indexRange : indexRanges) {
+            if (HistogramBucketCache.isClosed(indexRange)) {
+                closedIndexRanges.add(indexRange);
+            } else {
+                writeIndices.add(indexRange.indexName());
+            }
+        }
+
+        HistogramBucketCache.Buckets cachedBuckets = histogramBucketCache.get(query, filter, interval, firstFullBucket, closedIndexRanges);
+        if (cachedBuckets == null || cachedBuckets.until() > lastBucket) {
+            cachedBuckets = HistogramBucketCache.Buckets.empty(firstFullBucket);
+        }
+
+        final DateTime headEnd = new DateTime(firstFullBucket, DateTimeZone.UTC);
+        final DateTime tailStart = new DateTime(cachedBuckets.until(), DateTimeZone.UTC);
+        final QueryBuilder writeIndicesFilter = writeIndices.isEmpty()
+                ? QueryBuilders.boolQuery().mustNot(matchAllQuery())
+                : QueryBuilders.termsQuery("_index", writeIndices);
+        final QueryBuilder closedIndicesFilter = QueryBuilders.boolQuery()
+                .must(standardAggregationFilters(range, filter))
+                .mustNot(writeIndicesFilter)
+                .must(QueryBuilders.boolQuery()
+                        .should(QueryBuilders.rangeQuery("timestamp").lt(Tools.buildElasticSearchTimeFormat(headEnd)))
+                        .should(QueryBuilders.rangeQuery("timestamp").gte(Tools.buildElasticSearchTimeFormat(tailStart))));
+        final QueryBuilder openIndicesFilter = QueryBuilders.boolQuery()
+                .must(standardAggregationFilters(range, filter))
+                .must(writeIndicesFilter);
+
+        final QueryStringQueryBuilder qs = queryStringQuery(query);
+        qs.allowLeadingWildcard(configuration.isAllowLeadingWildcardSearches());
+        final Set<String> affectedIndices = indexNames(indexRanges);
+        final SearchRequest request = c.prepareSearch(affectedIndices.toArray(new String[affectedIndices.size()]))
+                .setIndicesOptions(IndicesOptions.lenientExpandOpen())
+                .setQuery(qs)
+                .addAggregation(histogramAggregation(AGG_CLOSED_INDICES, interval, closedIndicesFilter))
+                .addAggregation(histogramAggregation(AGG_WRITE_INDICES, interval, openIndicesFilter))
+                .request();
+        final SearchResponse r = c.search(request).actionGet();
+        recordEsMetrics(r, range);
+
+        final NavigableMap<Long, Long> closedCounts = bucketCounts(r.getAggregations().get(AGG_CLOSED_INDICES));
+        final NavigableMap<Long, Long> writeCounts = bucketCounts(r.getAggregations().get(AGG_WRITE_INDICES));
+        histogramBucketCache.put(query, filter, interval, cachedBuckets.extend(firstFullBucket, lastBucket, closedCounts, closedIndexRanges));
+
+        // The cached buckets replace the empty buckets Elasticsearch returns for the closed indices between the head and the tail.
+        final NavigableMap<Long, Long> counts = new TreeMap<>(closedCounts);
+        counts.putAll(cachedBuckets.counts().subMap(firstFullBucket, cachedBuckets.until()));
+        for (Map.Entry<Long, Long> entry : writeCounts.entrySet()) {
+            counts.merge(entry.getKey(), entry.getValue(), Long::sum);
+        }
+        // Elasticsearch returns empty buckets between the first and the last non-empty bucket, drop them again.
+        counts.values().removeIf(count -> count == 0L);
+
+        final Map<Long, Long> results = new TreeMap<>();
+        for (Map.Entry<Long, Long> entry : HistogramBucketCache.fillGaps(counts, interval).entrySet()) {
+            results.put(entry.getKey() / 1000L, entry.getValue());
+        }
+
+        return new MergedHistogramResult(results, query, request.source(), interval, r.getTook(), range);
+    }
+
+    private static FilterAggregationBuilder histogramAggregation(String name, DateHistogramInterval interval, QueryBuilder filter) {
+        return AggregationBuilders.filter(name)
                 .subAggregation(
                         AggregationBuilders.dateHistogram(AGG_HISTOGRAM)
                                 .field("timestamp")
                                 .interval(interval.toESInterval()))
-                .filter(standardAggregationFilters(range, filter));
+                .filter(filter);
+    }
+
+    private static NavigableMap<Long, Long> bucketCounts(Filter filterAggregation) {
+        final org.elasticsearch.search.aggregations.bucket.histogram.Histogram histogram = filterAggregation.getAggregations().get(AGG_HISTOGRAM);
+        final NavigableMap<Long, Long> counts = new TreeMap<>();
+        for (org.elasticsearch.search.aggregations.bucket.histogram.Histogram.Bucket bucket : histogram.getBuckets()) {
+            counts.put(((DateTime) bucket.getKey()).getMillis(), bucket.getDocCount());
+        }
+        return counts;
+    }
+
+    private SearchRequest histogramRequest(String query, DateHistogramInterval interval, QueryBuilder aggregationFilter, Set<String> affectedIndices) {
+        final FilterAggregationBuilder builder = histogramAggregation(AGG_FILTER, interval, aggregationFilter);
 
         QueryStringQueryBuilder qs = queryStringQuery(query);
         qs.allowLeadingWildcard(configuration.isAllowLeadingWildcardSearches());
 
-        final Set<String> affectedIndices = IndexHelper.determineAffectedIndices(indexRangeService, deflector, range);
         final SearchRequestBuilder srb = c.prepareSearch(affectedIndices.toArray(new String[affectedIndices.size()]))
                 .setIndicesOptions(IndicesOptions.lenientExpandOpen())
                 .setQuery(qs)
                 .addAggregation(builder);
 
-        final SearchRequest request = srb.request();
-        SearchResponse r = c.search(request).actionGet();
-        recordEsMetrics(r, range);
-
-        final Filter f = r.getAggregations().get(AGG_FILTER);
-        return new DateHistogramResult(
-                f.getAggregations().get(AGG_HISTOGRAM),
-                query,
-                request.source(),
-                interval,
-                r.getTook());
+        return srb.request();
     }
 
     public HistogramResult fieldHistogram(String query,
@@ -474,6 +818,14 @@ public class Searches {
                                           String filter,
                                           TimeRange range,
                                           boolean includeCardinality) throws FieldTypeException {
+        final Set<IndexRange> indexRanges = IndexHelper.determineAffectedIndicesWithRanges(indexRangeService, deflector, range);
+        final SearchResultCache.Key cacheKey = searchResultCache.key("fieldHistogram", query, filter, range, indexRanges,
+                field, interval, includeCardinality);
+        final HistogramResult cachedResult = searchResultCache.get(cacheKey, HistogramResult.class);
+        if (cachedResult != null) {
+            return cachedResult;
+        }
+
         final DateHistogramBuilder dateHistogramBuilder = AggregationBuilders.dateHistogram(AGG_HISTOGRAM)
                 .field("timestamp")
                 .subAggregation(AggregationBuilders.stats(AGG_STATS).field(field))
@@ -491,7 +843,7 @@ public class Searches {
         qs.allowLeadingWildcard(configuration.isAllowLeadingWildcardSearches());
 
         SearchRequestBuilder srb = c.prepareSearch();
-        final Set<String> affectedIndices = IndexHelper.determineAffectedIndices(indexRangeService, deflector, range);
+        final Set<String> affectedIndices = indexNames(indexRanges);
         srb.setIndices(affectedIndices.toArray(new String[affectedIndices.size()]));
         srb.setQuery(qs);
         srb.addAggregation(builder);
@@ -506,12 +858,22 @@ public class Searches {
         recordEsMetrics(r, range);
 
         final Filter f = r.getAggregations().get(AGG_FILTER);
-        return new FieldHistogramResult(
+        final HistogramResult result = new FieldHistogramResult(
                 f.getAggregations().get(AGG_HISTOGRAM),
                 query,
                 request.source(),
                 interval,
                 r.getTook());
+        searchResultCache.put(cacheKey, result);
+        return result;
+    }
+
+    private Set<String> indexNames(Set<IndexRange> indexRanges) {
+        final Set<String> indexNames = Sets.newHashSetWithExpectedSize(indexRanges.size());
+        for (IndexRange indexRange : indexRanges) {
+            indexNames.add(indexRange.indexName());
+        }
+        return indexNames;
     }
 
     private SearchRequestBuilder searchRequest(SearchesConfig config, Set<String> indices) {
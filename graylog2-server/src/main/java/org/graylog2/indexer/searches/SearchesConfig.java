@@ -75,6 +75,8 @@ public abstract class SearchesConfig {
         return new AutoValue_SearchesConfig.Builder();
     }
 
+    public abstract Builder toBuilder();
+
     @AutoValue.Builder
     public abstract static class Builder {
         public abstract Builder query(String query);
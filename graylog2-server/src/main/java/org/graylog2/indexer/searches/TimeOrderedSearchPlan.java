@@ -0,0 +1,111 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.elasticsearch.search.sort.SortOrder;
+import org.graylog2.indexer.ranges.IndexRange;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Orders the indices affected by a search which is sorted by timestamp, so that they can be queried one after
+ * another until enough messages have been collected.
+ * <p>
+ * Indices without a known index range (like the current write target) might contain messages of any time and are
+ * always queried first. All other indices are queried newest first (or oldest first for ascending sort orders).
+ */
+class TimeOrderedSearchPlan {
+    private final SortOrder order;
+    private final List<Step> steps;
+
+    private TimeOrderedSearchPlan(SortOrder order, List<Step> steps) {
+        this.order = order;
+        this.steps = steps;
+    }
+
+    static TimeOrderedSearchPlan create(Set<IndexRange> indexRanges, SortOrder order) {
+        final ImmutableSet.Builder<String> unknownRanges = ImmutableSet.builder();
+        final List<IndexRange> knownRanges = new ArrayList<>(indexRanges.size());
+        for (IndexRange indexRange : indexRanges) {
+            if (indexRange.begin().getMillis() == 0L && indexRange.end().getMillis() == 0L) {
+                unknownRanges.add(indexRange.indexName());
+            } else {
+                knownRanges.add(indexRange);
+            }
+        }
+
+        final ImmutableList.Builder<Step> steps = ImmutableList.builder();
+        final Set<String> unknown = unknownRanges.build();
+        if (!unknown.isEmpty()) {
+            steps.add(Step.create(unknown, order == SortOrder.DESC ? Long.MAX_VALUE : Long.MIN_VALUE));
+        }
+
+        if (order == SortOrder.DESC) {
+            knownRanges.sort(Comparator.comparing((IndexRange indexRange) -> indexRange.end().getMillis()).reversed());
+            for (IndexRange indexRange : knownRanges) {
+                steps.add(Step.create(ImmutableSet.of(indexRange.indexName()), indexRange.end().getMillis()));
+            }
+        } else {
+            knownRanges.sort(Comparator.comparing((IndexRange indexRange) -> indexRange.begin().getMillis()));
+            for (IndexRange indexRange : knownRanges) {
+                steps.add(Step.create(ImmutableSet.of(indexRange.indexName()), indexRange.begin().getMillis()));
+            }
+        }
+
+        return new TimeOrderedSearchPlan(order, steps.build());
+    }
+
+    List<Step> steps() {
+        return steps;
+    }
+
+    /**
+     * Checks if the given step (and all following steps) can be skipped because they cannot contain any message
+     * which would be sorted before the last collected message.
+     *
+     * @param step           the next step of this plan
+     * @param lastCollected  the timestamp of the last message needed for the result page
+     * @return {@code true} if the step and all following steps can be skipped, {@code false} otherwise
+     */
+    boolean canSkip(Step step, long lastCollected) {
+        if (order == SortOrder.DESC) {
+            return lastCollected > step.boundary();
+        } else {
+            return lastCollected < step.boundary();
+        }
+    }
+
+    @AutoValue
+    abstract static class Step {
+        abstract Set<String> indices();
+
+        /**
+         * @return the newest (descending order) or oldest (ascending order) timestamp the indices might contain
+         */
+        abstract long boundary();
+
+        static Step create(Set<String> indices, long boundary) {
+            return new AutoValue_TimeOrderedSearchPlan_Step(indices, boundary);
+        }
+    }
+}
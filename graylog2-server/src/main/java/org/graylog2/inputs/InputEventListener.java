@@ -25,10 +25,13 @@ import org.graylog2.plugin.inputs.MessageInput;
 import org.graylog2.plugin.system.NodeId;
 import org.graylog2.rest.models.system.inputs.responses.InputCreated;
 import org.graylog2.rest.models.system.inputs.responses.InputDeleted;
+import org.graylog2.shared.buffers.processors.DecodingProcessor;
 import org.graylog2.shared.inputs.InputLauncher;
 import org.graylog2.shared.inputs.InputRegistry;
 import org.graylog2.shared.inputs.MessageInputFactory;
 import org.graylog2.shared.inputs.NoSuchInputTypeException;
+import org.graylog2.shared.metrics.EntityMetricGroups;
+import org.graylog2.shared.metrics.EntityMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,6 +44,7 @@ public class InputEventListener {
     private final InputService inputService;
     private final MessageInputFactory messageInputFactory;
     private final NodeId nodeId;
+    private final EntityMetricGroups inputMetricGroups;
 
     @Inject
     public InputEventListener(EventBus eventBus,
@@ -48,12 +52,14 @@ public class InputEventListener {
                               InputRegistry inputRegistry,
                               InputService inputService,
                               MessageInputFactory messageInputFactory,
-                              NodeId nodeId) {
+                              NodeId nodeId,
+                              EntityMetrics entityMetrics) {
         this.inputLauncher = inputLauncher;
         this.inputRegistry = inputRegistry;
         this.inputService = inputService;
         this.messageInputFactory = messageInputFactory;
         this.nodeId = nodeId;
+        this.inputMetricGroups = entityMetrics.groups(DecodingProcessor.INPUT_METRICS);
         eventBus.register(this);
     }
 
@@ -94,5 +100,13 @@ public class InputEventListener {
         if (inputState != null) {
             inputRegistry.remove(inputState);
         }
+
+        // the event is also posted when an input is only stopped on this node
+        try {
+            inputService.find(inputDeletedEvent.id());
+        } catch (NotFoundException e) {
+            // journaled messages of the deleted input must not register its metrics again
+            inputMetricGroups.remove(inputDeletedEvent.id());
+        }
     }
 }
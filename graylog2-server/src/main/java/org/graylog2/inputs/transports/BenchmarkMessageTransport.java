@@ -0,0 +1,161 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.inputs.transports;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.configuration.ConfigurationRequest;
+import org.graylog2.plugin.configuration.fields.ConfigurationField;
+import org.graylog2.plugin.configuration.fields.NumberField;
+import org.graylog2.plugin.configuration.fields.TextField;
+import org.graylog2.plugin.inputs.MessageInput;
+import org.graylog2.plugin.inputs.annotations.ConfigClass;
+import org.graylog2.plugin.inputs.annotations.FactoryClass;
+import org.graylog2.plugin.inputs.transports.GeneratorTransport;
+import org.graylog2.plugin.inputs.transports.Transport;
+import org.graylog2.plugin.journal.RawMessage;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generates GELF messages at a fixed rate for end-to-end load tests. The payloads are built up front from a fixed
+ * seed, so every run feeds the same messages into the pipeline and the generator itself costs next to nothing.
+ */
+public class BenchmarkMessageTransport extends GeneratorTransport {
+    public static final String CK_SOURCE = "source";
+    public static final String CK_RATE = "rate";
+    public static final String CK_MESSAGE_SIZE = "message_size";
+
+    private static final int PAYLOAD_COUNT = 1024;
+    private static final long SEED = 42L;
+    private static final String[] PATHS = {"/", "/login", "/api/search", "/api/system/metrics", "/static/app.js"};
+    private static final int[] STATUS_CODES = {200, 200, 200, 201, 301, 404, 500};
+
+    private final byte[][] payloads;
+    private final RateLimiter rateLimiter;
+    private int next = 0;
+
+    @AssistedInject
+    public BenchmarkMessageTransport(@Assisted Configuration configuration, EventBus eventBus, ObjectMapper objectMapper) {
+        super(eventBus, configuration);
+
+        final String source = configuration.getString(CK_SOURCE, "benchmark.example.org");
+        final int rate = configuration.getInt(CK_RATE, 0);
+        final int messageSize = configuration.getInt(CK_MESSAGE_SIZE, 256);
+
+        this.payloads = buildPayloads(objectMapper, source, Math.max(1, messageSize));
+        this.rateLimiter = rate > 0 ? RateLimiter.create(rate) : null;
+    }
+
+    private static byte[][] buildPayloads(ObjectMapper objectMapper, String source, int messageSize) {
+        final Random random = new Random(SEED);
+        final byte[][] payloads = new byte[PAYLOAD_COUNT][];
+        for (int i = 0; i < PAYLOAD_COUNT; i++) {
+            final Map<String, Object> gelf = new LinkedHashMap<>();
+            gelf.put("version", "1.1");
+            gelf.put("host", source);
+            gelf.put("short_message", randomText(random, messageSize));
+            gelf.put("level", 6);
+            gelf.put("_http_method", random.nextBoolean() ? "GET" : "POST");
+            gelf.put("_http_path", PATHS[random.nextInt(PATHS.length)]);
+            gelf.put("_http_status", STATUS_CODES[random.nextInt(STATUS_CODES.length)]);
+            gelf.put("_request_time_ms", random.nextInt(2000));
+            gelf.put("_user_id", random.nextInt(100_000));
+            try {
+                payloads[i] = objectMapper.writeValueAsBytes(gelf);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Unable to serialize benchmark message", e);
+            }
+        }
+        return payloads;
+    }
+
+    private static String randomText(Random random, int length) {
+        final StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            final int wordLength = 2 + random.nextInt(8);
+            for (int i = 0; i < wordLength; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+        }
+        sb.setLength(length);
+        return sb.toString();
+    }
+
+    @Override
+    protected RawMessage produceRawMessage(MessageInput input) {
+        if (rateLimiter != null) {
+            rateLimiter.acquire();
+        }
+        final byte[] payload = payloads[next];
+        next = (next + 1) % payloads.length;
+        return new RawMessage(payload);
+    }
+
+    @FactoryClass
+    public interface Factory extends Transport.Factory<BenchmarkMessageTransport> {
+        @Override
+        BenchmarkMessageTransport create(Configuration configuration);
+
+        @Override
+        Config getConfig();
+    }
+
+    @ConfigClass
+    public static class Config extends GeneratorTransport.Config {
+        @Override
+        public ConfigurationRequest getRequestedConfiguration() {
+            final ConfigurationRequest c = super.getRequestedConfiguration();
+            c.addField(new NumberField(
+                    CK_RATE,
+                    "Message rate",
+                    10000,
+                    "How many messages to generate per second. Set to 0 to generate as fast as the pipeline accepts them.",
+                    ConfigurationField.Optional.NOT_OPTIONAL
+            ));
+
+            c.addField(new NumberField(
+                    CK_MESSAGE_SIZE,
+                    "Message size",
+                    256,
+                    "Length of the short_message field of the generated messages in characters.",
+                    ConfigurationField.Optional.NOT_OPTIONAL,
+                    NumberField.Attribute.ONLY_POSITIVE
+            ));
+
+            c.addField(new TextField(
+                    CK_SOURCE,
+                    "Source name",
+                    "benchmark.example.org",
+                    "What to use as source of the generated messages.",
+                    ConfigurationField.Optional.NOT_OPTIONAL
+            ));
+
+            return c;
+        }
+    }
+}
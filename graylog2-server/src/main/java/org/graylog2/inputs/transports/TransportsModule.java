@@ -34,6 +34,7 @@ public class TransportsModule extends Graylog2Module {
         installTransport(mapBinder, "tcp", TcpTransport.class);
         installTransport(mapBinder, "http", HttpTransport.class);
         installTransport(mapBinder, "randomhttp", RandomMessageTransport.class);
+        installTransport(mapBinder, "benchmark", BenchmarkMessageTransport.class);
         installTransport(mapBinder, "kafka", KafkaTransport.class);
         installTransport(mapBinder, "amqp", AmqpTransport.class);
         installTransport(mapBinder, "httppoll", HttpPollTransport.class);
@@ -18,8 +18,10 @@
 package org.graylog2.outputs;
 
 import com.codahale.metrics.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import javax.inject.Inject;
+import javax.inject.Named;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import org.graylog2.plugin.Message;
@@ -28,35 +30,70 @@ import org.graylog2.plugin.configuration.ConfigurationRequest;
 import org.graylog2.plugin.outputs.MessageOutput;
 import org.graylog2.plugin.streams.Stream;
 import org.graylog2.shared.journal.Journal;
+import org.graylog2.shared.metrics.PipelineLatencies;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.codahale.metrics.MetricRegistry.name;
 
+/**
+ * Stand-in for the Elasticsearch output in end-to-end load tests. Configure it with
+ * {@code default_message_output_class = org.graylog2.outputs.BenchmarkOutput} and feed the server with the
+ * "Benchmark GELF message generator" input.
+ * <p>
+ * Every message is converted into its Elasticsearch document and serialized like a bulk request would be, but the
+ * bytes are discarded. Throughput, end-to-end latency, GC pause time and per-stage allocation rates are written to
+ * {@code benchmark-csv/} every second and logged every ten seconds.
+ */
 public class BenchmarkOutput implements MessageOutput {
     private static final List<String> SKIPPED_METRIC_PREFIXES = ImmutableList.of("org.graylog2.rest.resources");
 
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
     private final Meter messagesWritten;
+    private final Meter bytesWritten;
+    private final Meter invalidTimestamps;
     private final CsvReporter csvReporter;
+    private final BenchmarkStats stats;
+    private final ScheduledFuture<?> statsFuture;
     private final Journal journal;
+    private final PipelineLatencies pipelineLatencies;
+    private final ObjectMapper objectMapper;
 
     @AssistedInject
     public BenchmarkOutput(final MetricRegistry metricRegistry,
                            final Journal journal,
+                           final PipelineLatencies pipelineLatencies,
+                           final ObjectMapper objectMapper,
+                           @Named("daemonScheduler") final ScheduledExecutorService scheduler,
                            @Assisted Stream stream,
                            @Assisted Configuration configuration) {
-        this(metricRegistry, journal);
+        this(metricRegistry, journal, pipelineLatencies, objectMapper, scheduler);
     }
 
     @Inject
-    public BenchmarkOutput(final MetricRegistry metricRegistry, final Journal journal) {
+    public BenchmarkOutput(final MetricRegistry metricRegistry,
+                           final Journal journal,
+                           final PipelineLatencies pipelineLatencies,
+                           final ObjectMapper objectMapper,
+                           @Named("daemonScheduler") final ScheduledExecutorService scheduler) {
         this.journal = journal;
+        this.pipelineLatencies = pipelineLatencies;
+        this.objectMapper = objectMapper;
         this.messagesWritten = metricRegistry.meter(name(this.getClass(), "messagesWritten"));
+        this.bytesWritten = metricRegistry.meter(name(this.getClass(), "bytesWritten"));
+        this.invalidTimestamps = metricRegistry.meter(name(this.getClass(), "invalidTimestamps"));
+
+        this.stats = new BenchmarkStats(metricRegistry, messagesWritten,
+                pipelineLatencies.getTimers().get(PipelineLatencies.Stage.END_TO_END));
+        statsFuture = scheduler.scheduleAtFixedRate(stats, 1, 1, TimeUnit.SECONDS);
 
         final File directory = new File("benchmark-csv");
         //noinspection ResultOfMethodCallIgnored
@@ -76,6 +113,8 @@ public class BenchmarkOutput implements MessageOutput {
 
     @Override
     public void stop() {
+        statsFuture.cancel(false);
+        stats.removeMetrics();
         csvReporter.stop();
         isRunning.set(false);
     }
@@ -87,7 +126,9 @@ public class BenchmarkOutput implements MessageOutput {
 
     @Override
     public void write(Message message) throws Exception {
+        serialize(message);
         journal.markJournalOffsetCommitted(message.getJournalOffset());
+        pipelineLatencies.written(Collections.singletonList(message));
         messagesWritten.mark();
     }
 
@@ -96,14 +137,21 @@ public class BenchmarkOutput implements MessageOutput {
         long maxOffset = Long.MIN_VALUE;
 
         for (final Message message : messages) {
+            serialize(message);
             maxOffset = Math.max(message.getJournalOffset(), maxOffset);
         }
 
         journal.markJournalOffsetCommitted(maxOffset);
+        pipelineLatencies.written(messages);
 
         messagesWritten.mark(messages.size());
     }
 
+    private void serialize(Message message) throws IOException {
+        final byte[] document = objectMapper.writeValueAsBytes(message.toElasticSearchObject(invalidTimestamps));
+        bytesWritten.mark(document.length);
+    }
+
     public interface Factory extends MessageOutput.Factory<GelfOutput> {
         @Override
         GelfOutput create(Stream stream, Configuration configuration);
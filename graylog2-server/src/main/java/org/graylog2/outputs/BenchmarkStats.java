@@ -0,0 +1,219 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.outputs;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableMap;
+import org.graylog2.shared.metrics.MetricUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Samples the figures an end-to-end benchmark run is judged by: sustained output throughput, the 99th percentile of
+ * the end-to-end latency, GC pause time and the allocation rate of each pipeline stage. Allocations are attributed to
+ * a stage by the name of the allocating thread.
+ * <p>
+ * All rates are computed over the interval between two samples, the latency percentile covers all sampled messages
+ * since the server started.
+ */
+class BenchmarkStats implements Runnable {
+    private static final Logger LOG = LoggerFactory.getLogger(BenchmarkStats.class);
+
+    // Thread name prefix per stage, see the thread factories of the buffers and the journal reader.
+    private static final Map<String, String> STAGE_THREAD_PREFIXES = ImmutableMap.<String, String>builder()
+            .put("generator", "generatortransport-")
+            .put("input_buffer", "inputbufferprocessor-")
+            .put("journal_reader", "JournalReader")
+            .put("process_buffer", "processbufferprocessor-")
+            .put("output_buffer", "outputbuffer")
+            .build();
+    private static final int LOG_EVERY_SAMPLES = 10;
+
+    private final MetricRegistry metricRegistry;
+    private final List<String> gaugeNames = new ArrayList<>();
+    private final Meter messagesWritten;
+    private final Timer endToEndLatency;
+    private final List<GarbageCollectorMXBean> garbageCollectors = ManagementFactory.getGarbageCollectorMXBeans();
+    private final com.sun.management.ThreadMXBean threadMXBean;
+    private final Map<Long, Long> allocatedBytesByThread = new HashMap<>();
+    private final Map<String, Double> allocationRates = new ConcurrentHashMap<>();
+
+    private long lastSampleNanos = System.nanoTime();
+    private long lastMessageCount;
+    private long lastGcTimeMillis;
+    private long samples = 0L;
+    private volatile double throughput = 0.0d;
+    private volatile double gcPauseMillisPerSecond = 0.0d;
+
+    BenchmarkStats(MetricRegistry metricRegistry, Meter messagesWritten, Timer endToEndLatency) {
+        this.metricRegistry = metricRegistry;
+        this.messagesWritten = messagesWritten;
+        this.endToEndLatency = endToEndLatency;
+        this.threadMXBean = allocationTrackingThreadMXBean();
+        this.lastMessageCount = messagesWritten.getCount();
+        this.lastGcTimeMillis = totalGcTimeMillis();
+
+        registerGauge(name(BenchmarkOutput.class, "throughput"), () -> throughput);
+        registerGauge(name(BenchmarkOutput.class, "latency", "p99-ms"), this::latencyP99Millis);
+        registerGauge(name(BenchmarkOutput.class, "gc", "pause-ms-per-second"), () -> gcPauseMillisPerSecond);
+        for (String stage : STAGE_THREAD_PREFIXES.keySet()) {
+            allocationRates.put(stage, 0.0d);
+            registerGauge(name(BenchmarkOutput.class, "allocation", stage, "bytes-per-second"),
+                    () -> allocationRates.get(stage));
+        }
+    }
+
+    private void registerGauge(String name, Gauge<Double> gauge) {
+        MetricUtils.safelyRegister(metricRegistry, name, gauge);
+        gaugeNames.add(name);
+    }
+
+    /**
+     * Removes the gauges of these statistics, so the gauges of a restarted output do not report stale values.
+     */
+    void removeMetrics() {
+        for (String gaugeName : gaugeNames) {
+            metricRegistry.remove(gaugeName);
+        }
+    }
+
+    private static com.sun.management.ThreadMXBean allocationTrackingThreadMXBean() {
+        final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+            final com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (sunThreadMXBean.isThreadAllocatedMemorySupported()) {
+                sunThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+                return sunThreadMXBean;
+            }
+        }
+        LOG.warn("This JVM does not support measuring per-thread allocations, allocation rates will not be reported.");
+        return null;
+    }
+
+    @Override
+    public void run() {
+        try {
+            sample();
+        } catch (Exception e) {
+            LOG.warn("Unable to sample benchmark statistics", e);
+        }
+    }
+
+    private void sample() {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = (now - lastSampleNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        if (elapsedSeconds <= 0.0d) {
+            return;
+        }
+        lastSampleNanos = now;
+
+        final long messageCount = messagesWritten.getCount();
+        throughput = (messageCount - lastMessageCount) / elapsedSeconds;
+        lastMessageCount = messageCount;
+
+        final long gcTimeMillis = totalGcTimeMillis();
+        gcPauseMillisPerSecond = (gcTimeMillis - lastGcTimeMillis) / elapsedSeconds;
+        lastGcTimeMillis = gcTimeMillis;
+
+        if (threadMXBean != null) {
+            sampleAllocations(elapsedSeconds);
+        }
+
+        if (++samples % LOG_EVERY_SAMPLES == 0) {
+            LOG.info("Benchmark: {} msg/s, end-to-end p99 {} ms, GC pauses {} ms/s, allocations (MB/s) {}",
+                    String.format(Locale.ENGLISH, "%.0f", throughput),
+                    String.format(Locale.ENGLISH, "%.2f", latencyP99Millis()),
+                    String.format(Locale.ENGLISH, "%.1f", gcPauseMillisPerSecond),
+                    allocationRatesInMegabytes());
+        }
+    }
+
+    private void sampleAllocations(double elapsedSeconds) {
+        final long[] threadIds = threadMXBean.getAllThreadIds();
+        final ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds);
+        final long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes(threadIds);
+
+        final Map<String, Long> allocatedByStage = new HashMap<>();
+        final Map<Long, Long> currentAllocations = new HashMap<>(threadIds.length);
+        for (int i = 0; i < threadIds.length; i++) {
+            final ThreadInfo threadInfo = threadInfos[i];
+            if (threadInfo == null || allocatedBytes[i] < 0) {
+                // the thread terminated in the meantime
+                continue;
+            }
+            final String stage = stageOf(threadInfo.getThreadName());
+            if (stage == null) {
+                continue;
+            }
+            final long previous = allocatedBytesByThread.getOrDefault(threadIds[i], 0L);
+            currentAllocations.put(threadIds[i], allocatedBytes[i]);
+            allocatedByStage.merge(stage, allocatedBytes[i] - previous, Long::sum);
+        }
+        allocatedBytesByThread.clear();
+        allocatedBytesByThread.putAll(currentAllocations);
+
+        for (String stage : STAGE_THREAD_PREFIXES.keySet()) {
+            allocationRates.put(stage, allocatedByStage.getOrDefault(stage, 0L) / elapsedSeconds);
+        }
+    }
+
+    private static String stageOf(String threadName) {
+        for (Map.Entry<String, String> entry : STAGE_THREAD_PREFIXES.entrySet()) {
+            if (threadName.startsWith(entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    private Map<String, String> allocationRatesInMegabytes() {
+        final ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+        for (String stage : STAGE_THREAD_PREFIXES.keySet()) {
+            builder.put(stage, String.format(Locale.ENGLISH, "%.1f", allocationRates.get(stage) / (1024 * 1024)));
+        }
+        return builder.build();
+    }
+
+    private double latencyP99Millis() {
+        return endToEndLatency.getSnapshot().get99thPercentile() / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    private long totalGcTimeMillis() {
+        long total = 0L;
+        for (GarbageCollectorMXBean garbageCollector : garbageCollectors) {
+            total += Math.max(0L, garbageCollector.getCollectionTime());
+        }
+        return total;
+    }
+}
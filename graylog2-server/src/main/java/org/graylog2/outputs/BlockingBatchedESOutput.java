@@ -29,6 +29,7 @@ import org.graylog2.plugin.Message;
 import org.graylog2.plugin.configuration.Configuration;
 import org.graylog2.plugin.streams.Stream;
 import org.graylog2.shared.journal.Journal;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,6 +51,7 @@ public class BlockingBatchedESOutput extends ElasticSearchOutput {
     private final Histogram batchSize;
     private final Meter bufferFlushes;
     private final Meter bufferFlushesRequested;
+    private final PipelineLatencies pipelineLatencies;
 
     private volatile List<Message> buffer;
 
@@ -63,9 +65,10 @@ public class BlockingBatchedESOutput extends ElasticSearchOutput {
                                    Cluster cluster,
                                    org.graylog2.Configuration serverConfiguration,
                                    Journal journal,
+                                   PipelineLatencies pipelineLatencies,
                                    @Assisted Stream stream,
                                    @Assisted Configuration configuration) {
-        this(metricRegistry, messages, cluster, serverConfiguration, journal);
+        this(metricRegistry, messages, cluster, serverConfiguration, journal, pipelineLatencies);
     }
 
     @Inject
@@ -73,9 +76,11 @@ public class BlockingBatchedESOutput extends ElasticSearchOutput {
                                    Messages messages,
                                    Cluster cluster,
                                    org.graylog2.Configuration serverConfiguration,
-                                   Journal journal) {
+                                   Journal journal,
+                                   PipelineLatencies pipelineLatencies) {
         super(metricRegistry, messages, journal);
         this.cluster = cluster;
+        this.pipelineLatencies = pipelineLatencies;
         this.maxBufferSize = serverConfiguration.getOutputBatchSize();
         outputFlushInterval = serverConfiguration.getOutputFlushInterval();
         this.processTime = metricRegistry.timer(name(this.getClass(), "processTime"));
@@ -126,6 +131,7 @@ public class BlockingBatchedESOutput extends ElasticSearchOutput {
         try (Timer.Context ignored = processTime.time()) {
             lastFlushTime.set(System.nanoTime());
             write(messages);
+            pipelineLatencies.written(messages);
             batchSize.update(messages.size());
             bufferFlushes.mark();
         } catch (Exception e) {
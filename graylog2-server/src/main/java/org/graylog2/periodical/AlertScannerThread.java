@@ -16,6 +16,9 @@
  */
 package org.graylog2.periodical;
 
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.graylog2.Configuration;
 import org.graylog2.alarmcallbacks.AlarmCallbackConfiguration;
 import org.graylog2.alarmcallbacks.AlarmCallbackConfigurationService;
@@ -25,6 +28,8 @@ import org.graylog2.alarmcallbacks.AlarmCallbackHistoryService;
 import org.graylog2.alarmcallbacks.EmailAlarmCallback;
 import org.graylog2.alerts.Alert;
 import org.graylog2.alerts.AlertService;
+import org.graylog2.alerts.MessageCountBatch;
+import org.graylog2.alerts.types.MessageCountAlertCondition;
 import org.graylog2.initializers.IndexerSetupService;
 import org.graylog2.plugin.alarms.AlertCondition;
 import org.graylog2.plugin.alarms.callbacks.AlarmCallback;
@@ -35,7 +40,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Provider;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.codahale.metrics.MetricRegistry.name;
 
 public class AlertScannerThread extends Periodical {
     private static final Logger LOG = LoggerFactory.getLogger(AlertScannerThread.class);
@@ -48,6 +61,10 @@ public class AlertScannerThread extends Periodical {
     private final AlertService alertService;
     private final Configuration configuration;
     private final AlarmCallbackHistoryService alarmCallbackHistoryService;
+    private final Provider<MessageCountBatch> messageCountBatchProvider;
+    private volatile ExecutorService executor;
+    private final Timer scanTimer;
+    private final Timer conditionCheckTimer;
 
     @Inject
     public AlertScannerThread(final AlertService alertService,
@@ -57,7 +74,9 @@ public class AlertScannerThread extends Periodical {
                               final EmailAlarmCallback emailAlarmCallback,
                               final IndexerSetupService indexerSetupService,
                               final Configuration configuration,
-                              final AlarmCallbackHistoryService alarmCallbackHistoryService) {
+                              final AlarmCallbackHistoryService alarmCallbackHistoryService,
+                              final Provider<MessageCountBatch> messageCountBatchProvider,
+                              final MetricRegistry metricRegistry) {
         this.alertService = alertService;
         this.streamService = streamService;
         this.alarmCallbackConfigurationService = alarmCallbackConfigurationService;
@@ -66,6 +85,9 @@ public class AlertScannerThread extends Periodical {
         this.indexerSetupService = indexerSetupService;
         this.configuration = configuration;
         this.alarmCallbackHistoryService = alarmCallbackHistoryService;
+        this.messageCountBatchProvider = messageCountBatchProvider;
+        this.scanTimer = metricRegistry.timer(name(AlertScannerThread.class, "scan"));
+        this.conditionCheckTimer = metricRegistry.timer(name(AlertScannerThread.class, "condition-checks"));
     }
 
     @Override
@@ -80,68 +102,115 @@ public class AlertScannerThread extends Periodical {
 
         LOG.debug("There are {} streams with configured alert conditions.", alertedStreams.size());
 
-        // Load all streams that have configured alert conditions.
-        for (Stream stream : alertedStreams) {
-            LOG.debug("Stream [{}] has [{}] configured alert conditions.", stream, streamService.getAlertConditions(stream).size());
+        try (Timer.Context ignored = scanTimer.time()) {
+            final List<StreamAlertCondition> alertConditions = new ArrayList<>();
+            for (Stream stream : alertedStreams) {
+                final List<AlertCondition> streamAlertConditions = streamService.getAlertConditions(stream);
+                LOG.debug("Stream [{}] has [{}] configured alert conditions.", stream, streamAlertConditions.size());
+
+                if(stream.isPaused()) {
+                    LOG.debug("Stream [{}] has been paused. Skipping alert check.", stream);
+                    continue;
+                }
 
-            if(stream.isPaused()) {
-                LOG.debug("Stream [{}] has been paused. Skipping alert check.", stream);
-                continue;
+                for (AlertCondition alertCondition : streamAlertConditions) {
+                    alertConditions.add(new StreamAlertCondition(stream, alertCondition));
+                }
+            }
+
+            // Count messages for all message count conditions with one request per time range.
+            final List<AlertCondition> conditions = new ArrayList<>(alertConditions.size());
+            for (StreamAlertCondition streamAlertCondition : alertConditions) {
+                conditions.add(streamAlertCondition.alertCondition);
+            }
+            final MessageCountBatch messageCountBatch = messageCountBatchProvider.get();
+            messageCountBatch.prefetch(conditions);
+            for (AlertCondition condition : conditions) {
+                if (condition instanceof MessageCountAlertCondition) {
+                    ((MessageCountAlertCondition) condition).setMessageCountBatch(messageCountBatch);
+                }
             }
 
-            // Check if a threshold is reached.
-            for (AlertCondition alertCondition : streamService.getAlertConditions(stream)) {
+            if (executor == null) {
+                executor = Executors.newFixedThreadPool(configuration.getAlertCheckConcurrency(),
+                        new ThreadFactoryBuilder().setNameFormat("alert-scanner-%d").setDaemon(true).build());
+            }
+            final List<Future<?>> checks = new ArrayList<>(alertConditions.size());
+            for (StreamAlertCondition streamAlertCondition : alertConditions) {
+                checks.add(executor.submit(() -> checkAlertCondition(streamAlertCondition.stream, streamAlertCondition.alertCondition)));
+            }
+            for (Future<?> check : checks) {
                 try {
-                    final AlertCondition.CheckResult result = alertService.triggered(alertCondition);
-                    if (result.isTriggered()) {
-                        // Alert is triggered!
-                        LOG.debug("Alert condition [{}] is triggered. Sending alerts.", alertCondition);
-
-                        // Persist alert.
-                        final Alert alert = alertService.factory(result);
-                        alertService.save(alert);
-
-                        final List<AlarmCallbackConfiguration> callConfigurations = alarmCallbackConfigurationService.getForStream(stream);
-
-                        // Checking if alarm callbacks have been defined
-                        if (callConfigurations.size() > 0)
-                            for (AlarmCallbackConfiguration configuration : callConfigurations) {
-                                AlarmCallbackHistory alarmCallbackHistory;
-                                AlarmCallback alarmCallback = null;
-                                try {
-                                    alarmCallback = alarmCallbackFactory.create(configuration);
-                                    alarmCallback.call(stream, result);
-                                    alarmCallbackHistory = alarmCallbackHistoryService.success(configuration, alert, alertCondition);
-                                } catch (Exception e) {
-                                    if (alarmCallback != null) {
-                                        LOG.warn("Alarm callback <" + alarmCallback.getName() + "> failed. Skipping.", e);
-                                    } else {
-                                        LOG.warn("Alarm callback with id " + configuration.getId() + " failed. Skipping.", e);
-                                    }
-                                    alarmCallbackHistory = alarmCallbackHistoryService.error(configuration, alert, alertCondition, e.getMessage());
-                                }
-
-                                try {
-                                    alarmCallbackHistoryService.save(alarmCallbackHistory);
-                                } catch (Exception e) {
-                                    LOG.warn("Unable to save history of alarm callback run: ", e);
-                                }
+                    check.get();
+                } catch (ExecutionException e) {
+                    LOG.error("Skipping alert check that threw an exception.", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            LOG.warn("Interrupted while waiting for alert checks to finish.");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() {
+        final ExecutorService executor = this.executor;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private void checkAlertCondition(Stream stream, AlertCondition alertCondition) {
+        // Check if a threshold is reached.
+        try (Timer.Context ignored = conditionCheckTimer.time()) {
+            final AlertCondition.CheckResult result = alertService.triggered(alertCondition);
+            if (result.isTriggered()) {
+                // Alert is triggered!
+                LOG.debug("Alert condition [{}] is triggered. Sending alerts.", alertCondition);
+
+                // Persist alert.
+                final Alert alert = alertService.factory(result);
+                alertService.save(alert);
+
+                final List<AlarmCallbackConfiguration> callConfigurations = alarmCallbackConfigurationService.getForStream(stream);
+
+                // Checking if alarm callbacks have been defined
+                if (callConfigurations.size() > 0)
+                    for (AlarmCallbackConfiguration configuration : callConfigurations) {
+                        AlarmCallbackHistory alarmCallbackHistory;
+                        AlarmCallback alarmCallback = null;
+                        try {
+                            alarmCallback = alarmCallbackFactory.create(configuration);
+                            alarmCallback.call(stream, result);
+                            alarmCallbackHistory = alarmCallbackHistoryService.success(configuration, alert, alertCondition);
+                        } catch (Exception e) {
+                            if (alarmCallback != null) {
+                                LOG.warn("Alarm callback <" + alarmCallback.getName() + "> failed. Skipping.", e);
+                            } else {
+                                LOG.warn("Alarm callback with id " + configuration.getId() + " failed. Skipping.", e);
                             }
-                        else {
-                            /* Using e-mail alarm callback per default if there are no alarm callbacks configured explicitly.
-                               This way we are supporting users who have upgraded from an old version where alarm callbacks
-                               were non-existent. It also helps for users who forgot to set up alarm callbacks for newly
-                               created alert conditions. */
-                            emailAlarmCallback.call(stream, result);
+                            alarmCallbackHistory = alarmCallbackHistoryService.error(configuration, alert, alertCondition, e.getMessage());
+                        }
+
+                        try {
+                            alarmCallbackHistoryService.save(alarmCallbackHistory);
+                        } catch (Exception e) {
+                            LOG.warn("Unable to save history of alarm callback run: ", e);
                         }
-                    } else {
-                        // Alert not triggered.
-                        LOG.debug("Alert condition [{}] is not triggered.", alertCondition);
                     }
-                } catch(Exception e) {
-                    LOG.error("Skipping alert check that threw an exception.", e);
+                else {
+                    /* Using e-mail alarm callback per default if there are no alarm callbacks configured explicitly.
+                       This way we are supporting users who have upgraded from an old version where alarm callbacks
+                       were non-existent. It also helps for users who forgot to set up alarm callbacks for newly
+                       created alert conditions. */
+                    emailAlarmCallback.call(stream, result);
                 }
+            } else {
+                // Alert not triggered.
+                LOG.debug("Alert condition [{}] is not triggered.", alertCondition);
             }
+        } catch(Exception e) {
+            LOG.error("Skipping alert check that threw an exception.", e);
         }
     }
 
@@ -184,4 +253,14 @@ public class AlertScannerThread extends Periodical {
     public int getPeriodSeconds() {
         return configuration.getAlertCheckInterval();
     }
+
+    private static class StreamAlertCondition {
+        private final Stream stream;
+        private final AlertCondition alertCondition;
+
+        private StreamAlertCondition(Stream stream, AlertCondition alertCondition) {
+            this.stream = stream;
+            this.alertCondition = alertCondition;
+        }
+    }
 }
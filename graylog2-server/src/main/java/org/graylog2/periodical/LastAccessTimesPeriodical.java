@@ -0,0 +1,104 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.periodical;
+
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.primitives.Ints;
+import org.graylog2.plugin.periodical.Periodical;
+import org.graylog2.security.AccessTokenService;
+import org.graylog2.security.MongoDbSessionDAO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Periodical} which writes the last access times of sessions and access tokens which have been used on this
+ * node since its last run.
+ */
+public class LastAccessTimesPeriodical extends Periodical {
+    private static final Logger LOG = LoggerFactory.getLogger(LastAccessTimesPeriodical.class);
+
+    private final MongoDbSessionDAO sessionDAO;
+    private final AccessTokenService accessTokenService;
+    private final int periodSeconds;
+
+    @Inject
+    public LastAccessTimesPeriodical(final MongoDbSessionDAO sessionDAO,
+                                     final AccessTokenService accessTokenService,
+                                     @Named("last_access_flush_interval") final Duration interval) {
+        this.sessionDAO = requireNonNull(sessionDAO);
+        this.accessTokenService = requireNonNull(accessTokenService);
+        this.periodSeconds = Math.max(1, Ints.saturatedCast(interval.toSeconds()));
+    }
+
+    @Override
+    public void doRun() {
+        final int sessions = sessionDAO.flushLastAccessTimes();
+        final int accessTokens = accessTokenService.flushLastAccessTimes();
+        LOG.debug("Updated last access time of {} sessions and {} access tokens.", sessions, accessTokens);
+    }
+
+    @Override
+    public void stop() {
+        // don't lose the last access times of the last interval
+        doRun();
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean masterOnly() {
+        return false;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return true;
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return periodSeconds;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return periodSeconds;
+    }
+}
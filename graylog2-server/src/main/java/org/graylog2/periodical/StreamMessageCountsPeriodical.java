@@ -0,0 +1,131 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.periodical;
+
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.primitives.Ints;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.periodical.Periodical;
+import org.graylog2.plugin.system.NodeId;
+import org.graylog2.streams.StreamMessageCountService;
+import org.graylog2.streams.StreamMessageCounters;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Periodical} which stores the number of messages routed into each stream on this node since its last run.
+ */
+public class StreamMessageCountsPeriodical extends Periodical {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamMessageCountsPeriodical.class);
+
+    private final StreamMessageCounters streamMessageCounters;
+    private final StreamMessageCountService streamMessageCountService;
+    private final NodeId nodeId;
+    private final boolean enabled;
+    private final int periodSeconds;
+    private final Duration retention;
+
+    private long lastSecond = StreamMessageCounters.currentSecond();
+
+    @Inject
+    public StreamMessageCountsPeriodical(final StreamMessageCounters streamMessageCounters,
+                                         final StreamMessageCountService streamMessageCountService,
+                                         final NodeId nodeId,
+                                         @Named("stream_message_counts_enabled") final boolean enabled,
+                                         @Named("stream_message_counts_interval") final Duration interval,
+                                         @Named("stream_message_counts_retention") final Duration retention) {
+        this.streamMessageCounters = requireNonNull(streamMessageCounters);
+        this.streamMessageCountService = requireNonNull(streamMessageCountService);
+        this.nodeId = requireNonNull(nodeId);
+        this.enabled = enabled;
+        this.periodSeconds = Math.max(1, Ints.saturatedCast(interval.toSeconds()));
+        this.retention = requireNonNull(retention);
+    }
+
+    @Override
+    public void initialize() {
+        if (enabled) {
+            // counts of this node before this time are incomplete, e. g. because it has been restarted
+            streamMessageCountService.markCountingSince(nodeId.toString(), new DateTime(lastSecond * 1000L, DateTimeZone.UTC));
+        }
+    }
+
+    @Override
+    public void doRun() {
+        // only publish complete seconds
+        final long currentSecond = StreamMessageCounters.currentSecond();
+        final Map<String, Long> counts = streamMessageCounters.counts(lastSecond, currentSecond);
+        final DateTime from = new DateTime(lastSecond * 1000L, DateTimeZone.UTC);
+        final DateTime to = new DateTime(currentSecond * 1000L, DateTimeZone.UTC);
+        lastSecond = currentSecond;
+
+        if (!counts.isEmpty()) {
+            streamMessageCountService.save(nodeId.toString(), from, to, counts);
+        }
+
+        final int removed = streamMessageCountService.removeOlderThan(Tools.nowUTC().minus(retention.toMilliseconds()));
+        LOG.debug("Stored message counts of {} streams, removed {} outdated message counts.", counts.size(), removed);
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean masterOnly() {
+        return false;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return periodSeconds;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return periodSeconds;
+    }
+}
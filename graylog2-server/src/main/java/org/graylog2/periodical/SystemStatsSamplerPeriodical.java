@@ -0,0 +1,92 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.periodical;
+
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.primitives.Ints;
+import org.graylog2.plugin.periodical.Periodical;
+import org.graylog2.shared.system.stats.StatsService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Periodical} which samples the system stats of this node, so that {@link StatsService} can serve them
+ * from memory.
+ */
+public class SystemStatsSamplerPeriodical extends Periodical {
+    private static final Logger LOG = LoggerFactory.getLogger(SystemStatsSamplerPeriodical.class);
+
+    private final StatsService statsService;
+    private final int periodSeconds;
+
+    @Inject
+    public SystemStatsSamplerPeriodical(final StatsService statsService,
+                                        @Named("system_stats_sampling_interval") final Duration interval) {
+        this.statsService = requireNonNull(statsService);
+        this.periodSeconds = Math.max(1, Ints.saturatedCast(interval.toSeconds()));
+    }
+
+    @Override
+    public void doRun() {
+        statsService.sample();
+    }
+
+    @Override
+    protected Logger getLogger() {
+        return LOG;
+    }
+
+    @Override
+    public boolean runsForever() {
+        return false;
+    }
+
+    @Override
+    public boolean stopOnGracefulShutdown() {
+        return true;
+    }
+
+    @Override
+    public boolean masterOnly() {
+        return false;
+    }
+
+    @Override
+    public boolean startOnThisNode() {
+        return true;
+    }
+
+    @Override
+    public boolean isDaemon() {
+        return true;
+    }
+
+    @Override
+    public int getInitialDelaySeconds() {
+        return 0;
+    }
+
+    @Override
+    public int getPeriodSeconds() {
+        return periodSeconds;
+    }
+}
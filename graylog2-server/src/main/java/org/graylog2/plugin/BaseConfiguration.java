@@ -115,6 +115,12 @@ public abstract class BaseConfiguration {
     @Parameter("disable_sigar")
     private boolean disableSigar = false;
 
+    @Parameter(value = "system_stats_sampling_interval", validator = PositiveDurationValidator.class)
+    private Duration systemStatsSamplingInterval = Duration.seconds(5L);
+
+    @Parameter(value = "system_stats_history_size", validator = PositiveIntegerValidator.class)
+    private int systemStatsHistorySize = 60;
+
     @Parameter(value = "http_proxy_uri")
     private URI httpProxyUri;
 
@@ -344,6 +350,14 @@ public abstract class BaseConfiguration {
         return disableSigar;
     }
 
+    public Duration getSystemStatsSamplingInterval() {
+        return systemStatsSamplingInterval;
+    }
+
+    public int getSystemStatsHistorySize() {
+        return systemStatsHistorySize;
+    }
+
     public URI getHttpProxyUri() {
         return httpProxyUri;
     }
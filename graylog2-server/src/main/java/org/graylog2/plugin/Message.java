@@ -128,6 +128,13 @@ public class Message implements Messages {
 
     private ArrayList<Recording> recordings;
 
+    /**
+     * Receive time in milliseconds and the last stage checkpoint in nanoseconds of messages sampled for latency
+     * tracing. Both are 0 if the message is not being traced.
+     */
+    private long latencyReceivedAt = 0L;
+    private long latencyCheckpoint = 0L;
+
     public Message(final String message, final String source, final DateTime timestamp) {
         fields.put(FIELD_ID, new UUID().toString());
         addRequiredField(FIELD_MESSAGE, message);
@@ -498,6 +505,30 @@ public class Message implements Messages {
         return journalOffset;
     }
 
+    // latency tracing of sampled messages, the histograms are kept by org.graylog2.shared.metrics.PipelineLatencies
+    // not thread safe!
+    public void startLatencyTracing(long receivedAtMillis, long nowNanos) {
+        this.latencyReceivedAt = receivedAtMillis;
+        this.latencyCheckpoint = nowNanos;
+    }
+
+    public boolean isLatencyTraced() {
+        return latencyReceivedAt != 0L;
+    }
+
+    public long getLatencyReceivedAt() {
+        return latencyReceivedAt;
+    }
+
+    /**
+     * Sets a new latency checkpoint and returns the nanoseconds elapsed since the previous one.
+     */
+    public long latencyCheckpoint(long nowNanos) {
+        final long elapsed = nowNanos - latencyCheckpoint;
+        this.latencyCheckpoint = nowNanos;
+        return elapsed;
+    }
+
     // helper methods to optionally record timing information per message, useful for debugging or benchmarking
     // not thread safe!
     public void recordTiming(ServerStatus serverStatus, String name, long elapsedNanos) {
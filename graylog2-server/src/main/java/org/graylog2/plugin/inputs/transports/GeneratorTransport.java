@@ -61,6 +61,11 @@ public abstract class GeneratorTransport extends ThrottleableTransport {
                     }
                 }
             }
+
+            @Override
+            protected String serviceName() {
+                return "generatortransport-" + input.getId();
+            }
         };
 
         generatorService.startAsync();
@@ -0,0 +1,289 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.plugin.journal;
+
+import com.eaio.uuid.UUID;
+import org.graylog2.plugin.configuration.Configuration;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Compact binary journal format of {@link RawMessage}.
+ * <p>
+ * Entries start with a zero byte, which can never start a protobuf encoded {@link JournalMessages.JournalMessage}
+ * (field number 0 is invalid), followed by the format version. The codec configuration and the source nodes are
+ * referenced by their ids in a {@link CodecConfigTable} instead of being embedded in every entry. Messages are encoded
+ * into a reusable per-thread buffer and the payload is only copied out of the journal entry when it is accessed.
+ * <pre>
+ * marker (0x00) | format version | flags | message version (varint)
+ * uuid time (8) | uuid clock seq (8) | timestamp (8) | codec config id (8) | codec name (string)
+ * source nodes id (8)
+ * [remote address length (1), remote address, port (varint), [resolved host name (string)]]
+ * payload length (varint) | payload
+ * </pre>
+ * Strings are written as UTF-8 with a varint length prefix.
+ */
+final class BinaryRawMessageFormat {
+    static final byte MARKER = 0;
+    static final byte FORMAT_VERSION = 1;
+
+    private static final int FLAG_REMOTE_ADDRESS = 1;
+    private static final int FLAG_REMOTE_HOSTNAME = 1 << 1;
+
+    private static final int INITIAL_BUFFER_SIZE = 8 * 1024;
+    // don't keep huge buffers around after encoding an unusually large message
+    private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+    private static final ThreadLocal<Encoder> ENCODER = ThreadLocal.withInitial(Encoder::new);
+
+    private BinaryRawMessageFormat() {
+    }
+
+    static boolean isBinaryFormat(byte[] buffer) {
+        return buffer.length > 1 && buffer[0] == MARKER;
+    }
+
+    static byte[] encode(RawMessage message, long codecConfigId, long sourceNodesId) {
+        final Encoder encoder = ENCODER.get();
+        encoder.reset();
+
+        final byte[] remoteAddress = message.remoteAddressBytes();
+        final String remoteHostname = message.remoteHostname();
+        int flags = 0;
+        if (remoteAddress != null) {
+            flags |= FLAG_REMOTE_ADDRESS;
+            if (remoteHostname != null) {
+                flags |= FLAG_REMOTE_HOSTNAME;
+            }
+        }
+
+        encoder.writeByte(MARKER);
+        encoder.writeByte(FORMAT_VERSION);
+        encoder.writeByte(flags);
+        encoder.writeVarInt(message.getVersion());
+        encoder.writeLong(message.getId().getTime());
+        encoder.writeLong(message.getId().getClockSeqAndNode());
+        encoder.writeLong(message.getTimestampMillis());
+        encoder.writeLong(codecConfigId);
+        encoder.writeString(message.getCodecName());
+        encoder.writeLong(sourceNodesId);
+
+        if (remoteAddress != null) {
+            encoder.writeByte(remoteAddress.length);
+            encoder.writeBytes(remoteAddress, 0, remoteAddress.length);
+            encoder.writeVarInt(message.remotePort());
+            if (remoteHostname != null) {
+                encoder.writeString(remoteHostname);
+            }
+        }
+
+        encoder.writeVarInt(message.payloadLength());
+        encoder.writeBytes(message.payloadBuffer(), message.payloadOffset(), message.payloadLength());
+
+        return encoder.toByteArray();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the entry is malformed or references an unknown codec configuration or
+     *                                  unknown source nodes
+     */
+    static RawMessage decode(byte[] buffer, long journalOffset, CodecConfigTable codecConfigs) {
+        final Decoder decoder = new Decoder(buffer);
+        try {
+            decoder.readByte(); // marker
+            final int formatVersion = decoder.readByte();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported journal format version " + formatVersion);
+            }
+            final int flags = decoder.readByte();
+            final int version = decoder.readVarInt();
+            final UUID id = new UUID(decoder.readLong(), decoder.readLong());
+            final long timestamp = decoder.readLong();
+            final long codecConfigId = decoder.readLong();
+            final Configuration codecConfig = codecConfigs.lookup(codecConfigId);
+            if (codecConfig == null) {
+                throw new IllegalArgumentException("Unknown codec configuration " + Long.toHexString(codecConfigId));
+            }
+            final String codecName = decoder.readString();
+
+            final long sourceNodesId = decoder.readLong();
+            final List<RawMessage.SourceNode> sourceNodes = codecConfigs.lookupSourceNodes(sourceNodesId);
+            if (sourceNodes == null) {
+                throw new IllegalArgumentException("Unknown source nodes " + Long.toHexString(sourceNodesId));
+            }
+
+            byte[] remoteAddress = null;
+            int remotePort = 0;
+            String remoteHostname = null;
+            if ((flags & FLAG_REMOTE_ADDRESS) != 0) {
+                remoteAddress = decoder.readBytes(decoder.readByte() & 0xff);
+                remotePort = decoder.readVarInt();
+                if ((flags & FLAG_REMOTE_HOSTNAME) != 0) {
+                    remoteHostname = decoder.readString();
+                }
+            }
+
+            final int payloadLength = decoder.readVarInt();
+            final int payloadOffset = decoder.skip(payloadLength);
+
+            return new RawMessage(journalOffset, id, version, timestamp, codecName, codecConfig, sourceNodes,
+                    remoteAddress, remotePort, remoteHostname, buffer, payloadOffset, payloadLength);
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated journal entry", e);
+        }
+    }
+
+    private static final class Encoder {
+        private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+        private int position = 0;
+
+        void reset() {
+            if (buffer.length > MAX_RETAINED_BUFFER_SIZE) {
+                buffer = new byte[INITIAL_BUFFER_SIZE];
+            }
+            position = 0;
+        }
+
+        private void ensureCapacity(int additional) {
+            final int required = position + additional;
+            if (required > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, required));
+            }
+        }
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            buffer[position++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                buffer[position++] = (byte) (value >>> shift);
+            }
+        }
+
+        void writeVarInt(int value) {
+            ensureCapacity(5);
+            while ((value & ~0x7f) != 0) {
+                buffer[position++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeBytes(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, position, length);
+            position += length;
+        }
+
+        void writeString(@Nullable String value) {
+            if (value == null || value.isEmpty()) {
+                writeVarInt(0);
+                return;
+            }
+
+            final int length = value.length();
+            if (isAscii(value)) {
+                // codec names and host names are usually plain ASCII, so avoid the intermediate byte array
+                writeVarInt(length);
+                ensureCapacity(length);
+                for (int i = 0; i < length; i++) {
+                    buffer[position++] = (byte) value.charAt(i);
+                }
+            } else {
+                final byte[] bytes = value.getBytes(UTF_8);
+                writeVarInt(bytes.length);
+                writeBytes(bytes, 0, bytes.length);
+            }
+        }
+
+        private static boolean isAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                if (value.charAt(i) >= 0x80) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[] buffer;
+        private int position = 0;
+
+        Decoder(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        byte readByte() {
+            return buffer[position++];
+        }
+
+        long readLong() {
+            long value = 0L;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | (buffer[position++] & 0xffL);
+            }
+            return value;
+        }
+
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                final byte b = buffer[position++];
+                value |= (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in journal entry");
+        }
+
+        byte[] readBytes(int length) {
+            final int offset = skip(length);
+            return Arrays.copyOfRange(buffer, offset, offset + length);
+        }
+
+        String readString() {
+            final int length = readVarInt();
+            final int offset = skip(length);
+            return new String(buffer, offset, length, UTF_8);
+        }
+
+        /**
+         * @return the offset of the skipped bytes
+         */
+        int skip(int length) {
+            if (length < 0 || length > buffer.length - position) {
+                throw new IndexOutOfBoundsException("Length " + length + " exceeds journal entry");
+            }
+            final int offset = position;
+            position += length;
+            return offset;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.plugin.journal;
+
+import org.graylog2.plugin.configuration.Configuration;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Side table for the codec configurations and source nodes referenced by journal entries. Both are usually identical
+ * for all messages of an input, so journal entries only store their ids and the values are stored once in this table.
+ */
+public interface CodecConfigTable {
+    /**
+     * Id of the empty codec configuration, which is never stored in the table.
+     */
+    long EMPTY_CONFIGURATION_ID = 0L;
+
+    /**
+     * Id of the empty list of source nodes, which is never stored in the table.
+     */
+    long EMPTY_SOURCE_NODES_ID = 0L;
+
+    /**
+     * Returns the id for the given codec configuration, storing the configuration if it is not known yet. Once this
+     * method returns, {@link #lookup(long)} returns an equal configuration for the id, also after a restart.
+     *
+     * @param codecConfig the codec configuration, {@code null} is treated like an empty configuration
+     * @return the id of the configuration
+     * @throws IOException if the configuration could not be stored
+     */
+    long intern(@Nullable Configuration codecConfig) throws IOException;
+
+    /**
+     * @param id the id returned by {@link #intern(Configuration)}
+     * @return the codec configuration with the given id or {@code null} if the id is unknown
+     */
+    @Nullable
+    Configuration lookup(long id);
+
+    /**
+     * Returns the id for the given source nodes, storing them if they are not known yet. Once this method returns,
+     * {@link #lookupSourceNodes(long)} returns equal source nodes for the id, also after a restart.
+     *
+     * @param sourceNodes the source nodes of a message
+     * @return the id of the source nodes
+     * @throws IOException if the source nodes could not be stored
+     */
+    long internSourceNodes(List<RawMessage.SourceNode> sourceNodes) throws IOException;
+
+    /**
+     * @param id the id returned by {@link #internSourceNodes(List)}
+     * @return a new mutable list of the source nodes with the given id or {@code null} if the id is unknown
+     */
+    @Nullable
+    List<RawMessage.SourceNode> lookupSourceNodes(long id);
+}
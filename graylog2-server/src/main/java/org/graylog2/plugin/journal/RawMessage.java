@@ -18,9 +18,7 @@ package org.graylog2.plugin.journal;
 
 import com.eaio.uuid.UUID;
 import com.google.common.base.MoreObjects;
-import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
-import com.google.protobuf.UninitializedMessageException;
 import org.graylog2.plugin.ResolvableInetSocketAddress;
 import org.graylog2.plugin.Tools;
 import org.graylog2.plugin.configuration.Configuration;
@@ -39,11 +37,14 @@ import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.base.Strings.nullToEmpty;
 import static org.graylog2.plugin.journal.JournalMessages.JournalMessage;
 
 /**
@@ -58,16 +59,30 @@ import static org.graylog2.plugin.journal.JournalMessages.JournalMessage;
  * as well as an opaque meta data structure.<br>
  * The format of the meta data is not stable yet, but will likely be a JSON string.
  * </p>
+ * <p>
+ * Raw messages are written to the journal in the compact format of {@link #encode(CodecConfigTable)}. Entries in the
+ * older protobuf format of {@link #encode()} can still be decoded.
+ * </p>
  */
 public class RawMessage implements Serializable {
     public static final byte CURRENT_VERSION = 1;
 
     private static final Logger log = LoggerFactory.getLogger(RawMessage.class);
 
-    private final JournalMessage.Builder msgBuilder;
     private final UUID id;
     private final long journalOffset;
+    private final int version;
+    private final long timestamp;
+    private final List<SourceNode> sourceNodes;
+    private String codecName = "";
     private Configuration codecConfig;
+    private byte[] remoteAddress;
+    private int remotePort;
+    private String remoteHostname;
+    // the payload might be a slice of a journal entry, see getPayload()
+    private byte[] payload;
+    private int payloadOffset;
+    private int payloadLength;
 
     public RawMessage(@Nonnull byte[] payload) {
         this(payload, (ResolvableInetSocketAddress)null);
@@ -95,40 +110,111 @@ public class RawMessage implements Serializable {
                       new Throwable());
         }
 
-        msgBuilder = JournalMessage.newBuilder();
-
         this.journalOffset = journalOffset;
-        msgBuilder.setVersion(CURRENT_VERSION);
-
+        this.version = CURRENT_VERSION;
         this.id = id;
-        msgBuilder.setUuidTime(id.time);
-        msgBuilder.setUuidClockseq(id.clockSeqAndNode);
-
-        msgBuilder.setTimestamp(timestamp.getMillis());
+        this.timestamp = timestamp.getMillis();
+        this.sourceNodes = new ArrayList<>(2);
         if (null != remoteAddress) {
             setRemoteAddress(remoteAddress);
         }
 
-        msgBuilder.setPayload(ByteString.copyFrom(payload));
+        this.payload = Arrays.copyOf(payload, payload.length);
+        this.payloadOffset = 0;
+        this.payloadLength = payload.length;
+    }
+
+    RawMessage(long journalOffset,
+               UUID id,
+               int version,
+               long timestamp,
+               String codecName,
+               Configuration codecConfig,
+               List<SourceNode> sourceNodes,
+               @Nullable byte[] remoteAddress,
+               int remotePort,
+               @Nullable String remoteHostname,
+               byte[] payload,
+               int payloadOffset,
+               int payloadLength) {
+        this.journalOffset = journalOffset;
+        this.id = id;
+        this.version = version;
+        this.timestamp = timestamp;
+        this.codecName = codecName;
+        this.codecConfig = codecConfig;
+        this.sourceNodes = sourceNodes;
+        this.remoteAddress = remoteAddress;
+        this.remotePort = remotePort;
+        this.remoteHostname = remoteHostname;
+        this.payload = payload;
+        this.payloadOffset = payloadOffset;
+        this.payloadLength = payloadLength;
     }
 
     public void addSourceNode(String sourceInputId, NodeId nodeId) {
-        msgBuilder.addSourceNodesBuilder()
-                  .setInputId(sourceInputId)
-                  .setId(nodeId.toString())
-                  .setType(JournalMessages.SourceNode.Type.SERVER)
-                  .build();
+        sourceNodes.add(new SourceNode(nodeId.toString(), sourceInputId, SourceNode.Type.SERVER));
     }
 
     public RawMessage(JournalMessage journalMessage, long journalOffset) {
         this.journalOffset = journalOffset;
         id = new UUID(journalMessage.getUuidTime(), journalMessage.getUuidClockseq());
-        msgBuilder = JournalMessage.newBuilder(journalMessage);
+        version = journalMessage.getVersion();
+        timestamp = journalMessage.getTimestamp();
+        codecName = journalMessage.getCodec().getName();
         codecConfig = Configuration.deserializeFromJson(journalMessage.getCodec().getConfig());
+
+        sourceNodes = new ArrayList<>(journalMessage.getSourceNodesCount());
+        for (final JournalMessages.SourceNode node : journalMessage.getSourceNodesList()) {
+            sourceNodes.add(new SourceNode(node));
+        }
+
+        if (journalMessage.hasRemote()) {
+            final JournalMessages.RemoteAddress remote = journalMessage.getRemote();
+            remoteAddress = remote.getAddress().toByteArray();
+            remotePort = remote.hasPort() ? remote.getPort() : 0;
+            remoteHostname = remote.hasResolved() ? remote.getResolved() : null;
+        }
+
+        payload = journalMessage.getPayload().toByteArray();
+        payloadOffset = 0;
+        payloadLength = payload.length;
     }
 
+    /**
+     * Decodes a journal entry in the protobuf format.
+     *
+     * @see #decode(byte[], long, CodecConfigTable)
+     */
     @Nullable
     public static RawMessage decode(final byte[] buffer, final long journalOffset) {
+        return decode(buffer, journalOffset, null);
+    }
+
+    /**
+     * Decodes a journal entry written by {@link #encode(CodecConfigTable)} or {@link #encode()}.
+     *
+     * @param buffer        the journal entry
+     * @param journalOffset the offset of the entry in the journal
+     * @param codecConfigs  the table to resolve codec configurations from, only required for the compact format
+     * @return the decoded message or {@code null} if the entry could not be decoded
+     */
+    @Nullable
+    public static RawMessage decode(final byte[] buffer, final long journalOffset, @Nullable CodecConfigTable codecConfigs) {
+        if (BinaryRawMessageFormat.isBinaryFormat(buffer)) {
+            if (codecConfigs == null) {
+                log.error("Cannot read raw message at offset {} from journal without a codec configuration table, ignoring this message.",
+                          journalOffset);
+                return null;
+            }
+            try {
+                return BinaryRawMessageFormat.decode(buffer, journalOffset, codecConfigs);
+            } catch (IllegalArgumentException e) {
+                log.error("Cannot read raw message at offset " + journalOffset + " from journal, ignoring this message.", e);
+                return null;
+            }
+        }
+
         try {
             final JournalMessage journalMessage = JournalMessage.parseFrom(buffer);
 
@@ -141,37 +227,96 @@ public class RawMessage implements Serializable {
         }
     }
 
-    public byte[] encode() {
+    /**
+     * Encodes the message in the compact journal format. The codec configuration and the source nodes are stored in
+     * the given table and only referenced by their ids. If they cannot be stored, the message is encoded in the
+     * protobuf format.
+     *
+     * @param codecConfigs the table to store the codec configuration and source nodes in
+     * @return the encoded message
+     */
+    public byte[] encode(CodecConfigTable codecConfigs) {
+        final long codecConfigId;
+        final long sourceNodesId;
         try {
-            final JournalMessages.CodecInfo codec = msgBuilder.getCodec();
-            final JournalMessages.CodecInfo.Builder builder = JournalMessages.CodecInfo.newBuilder(codec);
+            codecConfigId = codecConfigs.intern(codecConfig);
+            sourceNodesId = codecConfigs.internSourceNodes(sourceNodes);
+        } catch (IOException e) {
+            log.error("Unable to store codec configuration, writing message " + id + " in the protobuf format.", e);
+            return encode();
+        }
+        return BinaryRawMessageFormat.encode(this, codecConfigId, sourceNodesId);
+    }
 
-            final String codecConfigJson = codecConfig.serializeToJson();
-            if (codecConfigJson != null) {
-                builder.setConfig(codecConfigJson);
+    /**
+     * Encodes the message in the protobuf format, including the full codec configuration.
+     *
+     * @return the encoded message
+     */
+    public byte[] encode() {
+        final JournalMessage.Builder msgBuilder = JournalMessage.newBuilder()
+                .setVersion(version)
+                .setUuidTime(id.getTime())
+                .setUuidClockseq(id.getClockSeqAndNode())
+                .setTimestamp(timestamp)
+                .setPayload(ByteString.copyFrom(payload, payloadOffset, payloadLength));
+
+        final JournalMessages.CodecInfo.Builder codecBuilder = msgBuilder.getCodecBuilder().setName(codecName);
+        final String codecConfigJson = codecConfig == null ? null : codecConfig.serializeToJson();
+        if (codecConfigJson != null) {
+            codecBuilder.setConfig(codecConfigJson);
+        }
+
+        for (final SourceNode node : sourceNodes) {
+            msgBuilder.addSourceNodesBuilder()
+                      .setInputId(node.inputId)
+                      .setId(node.nodeId)
+                      .setType(node.type == SourceNode.Type.RADIO ? JournalMessages.SourceNode.Type.RADIO : JournalMessages.SourceNode.Type.SERVER);
+        }
+
+        if (remoteAddress != null) {
+            final JournalMessages.RemoteAddress.Builder remoteBuilder = msgBuilder.getRemoteBuilder()
+                    .setAddress(ByteString.copyFrom(remoteAddress))
+                    .setPort(remotePort);
+            if (remoteHostname != null) {
+                remoteBuilder.setResolved(remoteHostname);
             }
-            msgBuilder.setCodec(builder.build());
-
-            final JournalMessage journalMessage = msgBuilder.build();
-            return journalMessage.toByteArray();
-        } catch (UninitializedMessageException e) {
-            log.error(
-                    "Unable to write RawMessage to journal because required fields are missing, " +
-                            "this message will be discarded. This is a bug.", e);
-            return null;
         }
+
+        return msgBuilder.build().toByteArray();
     }
 
     public int getVersion() {
-        return msgBuilder.getVersion();
+        return version;
     }
 
     public DateTime getTimestamp() {
-        return new DateTime(msgBuilder.getTimestamp(), DateTimeZone.UTC); // TODO PERFORMANCE object creation
+        return new DateTime(timestamp, DateTimeZone.UTC); // TODO PERFORMANCE object creation
+    }
+
+    public long getTimestampMillis() {
+        return timestamp;
     }
 
     public byte[] getPayload() {
-        return msgBuilder.getPayload().toByteArray(); // TODO PERFORMANCE array copy
+        if (payloadOffset != 0 || payloadLength != payload.length) {
+            // decoded from the journal, copy the payload out of the entry only once
+            payload = Arrays.copyOfRange(payload, payloadOffset, payloadOffset + payloadLength);
+            payloadOffset = 0;
+        }
+        return payload;
+    }
+
+    byte[] payloadBuffer() {
+        return payload;
+    }
+
+    int payloadOffset() {
+        return payloadOffset;
+    }
+
+    int payloadLength() {
+        return payloadLength;
     }
 
     public UUID getId() {
@@ -190,42 +335,51 @@ public class RawMessage implements Serializable {
 
     @Nullable
     public ResolvableInetSocketAddress getRemoteAddress() {
-        if (msgBuilder.hasRemote()) {
-            final JournalMessages.RemoteAddress address = msgBuilder.getRemote();
+        if (remoteAddress != null) {
             final InetAddress inetAddr;
             try {
-                inetAddr = InetAddress.getByAddress(address.getResolved(), address.getAddress().toByteArray());
+                inetAddr = InetAddress.getByAddress(nullToEmpty(remoteHostname), remoteAddress);
             } catch (UnknownHostException e) {
                 log.warn("Malformed InetAddress for message {}, expected 4 or 16 bytes, but got {} bytes",
-                         id, address.getAddress().toByteArray());
+                         id, remoteAddress);
                 return null;
             }
 
-            final int port = address.hasPort() ? address.getPort() : 0;
             // TODO PERFORMANCE object creation
-            return ResolvableInetSocketAddress.wrap(new InetSocketAddress(inetAddr, port));
+            return ResolvableInetSocketAddress.wrap(new InetSocketAddress(inetAddr, remotePort));
         }
         return null;
     }
 
     public void setRemoteAddress(ResolvableInetSocketAddress address) {
-        final JournalMessages.RemoteAddress.Builder builder = msgBuilder.getRemoteBuilder();
-        builder.setAddress(ByteString.copyFrom(address.getAddressBytes()))
-                .setPort(address.getPort());
+        remoteAddress = address.getAddressBytes();
+        remotePort = address.getPort();
 
         // do not perform any reverse lookup here
-        if (address.isReverseLookedUp()) {
-            builder.setResolved(address.getHostName());
-        }
+        remoteHostname = address.isReverseLookedUp() ? address.getHostName() : null;
+    }
+
+    @Nullable
+    byte[] remoteAddressBytes() {
+        return remoteAddress;
+    }
+
+    int remotePort() {
+        return remotePort;
+    }
+
+    @Nullable
+    String remoteHostname() {
+        return remoteHostname;
     }
 
     public String getCodecName() {
-        return msgBuilder.getCodecBuilder().getName();
+        return codecName;
     }
 
     public void setCodecName(String name) {
         checkArgument(!isNullOrEmpty(name), "The payload type must not be null or empty!");
-        msgBuilder.getCodecBuilder().setName(name);
+        codecName = name;
     }
 
     public Configuration getCodecConfig() {
@@ -237,13 +391,7 @@ public class RawMessage implements Serializable {
     }
 
     public List<SourceNode> getSourceNodes() {
-        final ArrayList<SourceNode> list = Lists.newArrayList();
-
-        for (final JournalMessages.SourceNode node : msgBuilder.getSourceNodesList()) {
-            list.add(new SourceNode(node));
-        }
-
-        return list;
+        return Collections.unmodifiableList(sourceNodes);
     }
 
     @Override
@@ -252,7 +400,7 @@ public class RawMessage implements Serializable {
         helper.add("id", getId())
                 .add("journalOffset", getJournalOffset())
                 .add("codec", getCodecName())
-                .add("payloadSize", getPayload().length)
+                .add("payloadSize", payloadLength)
                 .add("timestamp", getTimestamp());
         if (getRemoteAddress() != null) {
             helper.add("remoteAddress", getRemoteAddress().getInetSocketAddress().toString());
@@ -274,6 +422,12 @@ public class RawMessage implements Serializable {
             RADIO
         }
 
+        public SourceNode(String nodeId, String inputId, Type type) {
+            this.nodeId = nodeId;
+            this.inputId = inputId;
+            this.type = type;
+        }
+
         public SourceNode(JournalMessages.SourceNode node) {
             this.nodeId = node.getId();
             this.inputId = node.getInputId();
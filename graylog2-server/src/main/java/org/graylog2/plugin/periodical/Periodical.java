@@ -71,6 +71,13 @@ public abstract class Periodical implements Runnable {
     public void initialize() {
     }
 
+    /**
+     * Called on graceful shutdown after future executions have been cancelled, only if {@link #stopOnGracefulShutdown()}
+     * returns {@code true}. An execution which is still running is not waited for.
+     */
+    public void stop() {
+    }
+
     @Override
     public void run() {
         try {
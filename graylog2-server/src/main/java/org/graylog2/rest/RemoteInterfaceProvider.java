@@ -17,6 +17,10 @@
 package org.graylog2.rest;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.MediaType;
 import okhttp3.OkHttpClient;
@@ -26,20 +30,44 @@ import org.graylog2.security.realm.SessionAuthenticator;
 import retrofit2.Retrofit;
 import retrofit2.converter.jackson.JacksonConverterFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Creates clients for the REST API of other nodes. The underlying {@link Retrofit} instances are cached per node and
+ * authorization token, so the parsed service methods are reused between requests.
+ */
+@Singleton
 public class RemoteInterfaceProvider {
     private final ObjectMapper objectMapper;
     private final OkHttpClient okHttpClient;
+    private final LoadingCache<RetrofitKey, Retrofit> retrofitCache;
 
     @Inject
     public RemoteInterfaceProvider(ObjectMapper objectMapper,
                                    OkHttpClient okHttpClient) {
         this.objectMapper = objectMapper;
         this.okHttpClient = okHttpClient;
+        this.retrofitCache = CacheBuilder.newBuilder()
+                .maximumSize(1000)
+                .expireAfterAccess(10, TimeUnit.MINUTES)
+                .build(CacheLoader.from(this::createRetrofit));
     }
 
     public <T> T get(Node node, final String authorizationToken, Class<T> interfaceClass) {
+        return retrofitCache.getUnchecked(RetrofitKey.create(node.getTransportAddress(), authorizationToken))
+                .create(interfaceClass);
+    }
+
+    public <T> T get(Node node, Class<T> interfaceClass) {
+        return get(node, null, interfaceClass);
+    }
+
+    private Retrofit createRetrofit(RetrofitKey key) {
+        final String authorizationToken = key.authorizationToken();
+        // the derived client shares the connection pool and dispatcher with the original one
         final OkHttpClient okHttpClient = this.okHttpClient.newBuilder()
                 .addInterceptor(chain -> {
                     final Request original = chain.request();
@@ -59,16 +87,23 @@ public class RemoteInterfaceProvider {
                     return chain.proceed(builder.build());
                 })
                 .build();
-        final Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(node.getTransportAddress())
+
+        return new Retrofit.Builder()
+                .baseUrl(key.baseUrl())
                 .addConverterFactory(JacksonConverterFactory.create(objectMapper))
                 .client(okHttpClient)
                 .build();
-
-        return retrofit.create(interfaceClass);
     }
 
-    public <T> T get(Node node, Class<T> interfaceClass) {
-        return get(node, null, interfaceClass);
+    @AutoValue
+    abstract static class RetrofitKey {
+        abstract String baseUrl();
+
+        @Nullable
+        abstract String authorizationToken();
+
+        static RetrofitKey create(String baseUrl, @Nullable String authorizationToken) {
+            return new AutoValue_RemoteInterfaceProvider_RetrofitKey(baseUrl, authorizationToken);
+        }
     }
 }
@@ -0,0 +1,149 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.rest;
+
+import au.com.bytecode.opencsv.CSVWriter;
+import com.google.common.collect.Maps;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHitField;
+import org.graylog2.indexer.results.ScrollResult;
+import org.graylog2.plugin.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.graylog2.plugin.Tools.ES_DATE_FORMAT_FORMATTER;
+
+/**
+ * Writes the messages of a {@link ScrollResult} as CSV directly to the response stream.
+ * <p>
+ * Rows are rendered straight from the search hits into a reused buffer, no intermediate messages are created. Every
+ * page of the scroll is flushed to the client before the next one is requested, so a slow client pauses the scroll
+ * instead of piling up pages in memory.
+ */
+public class ScrollResultCsvOutput implements StreamingOutput {
+    private static final Logger LOG = LoggerFactory.getLogger(ScrollResultCsvOutput.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ScrollResult scroll;
+    private final int limit;
+
+    public ScrollResultCsvOutput(ScrollResult scroll, int limit) {
+        this.scroll = scroll;
+        this.limit = limit;
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException, WebApplicationException {
+        final CSVWriter csvWriter = new CSVWriter(new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), BUFFER_SIZE));
+        final List<String> fields = scroll.getFields();
+        final String[] fieldValues = new String[fields.size()];
+        boolean scrollFinished = false;
+        long writtenMessages = 0;
+
+        try {
+            csvWriter.writeNext(fields.toArray(new String[fields.size()]));
+
+            SearchHit[] hits;
+            while ((hits = scroll.nextHits()) != null) {
+                for (SearchHit hit : hits) {
+                    if (limit > 0 && writtenMessages >= limit) {
+                        LOG.debug("[{}] Reached limit of {} messages.", scroll.getQueryHash(), limit);
+                        return;
+                    }
+
+                    // write result set in same order as the header row
+                    final Map<String, Object> source = source(hit);
+                    for (int i = 0; i < fieldValues.length; i++) {
+                        final String fieldName = fields.get(i);
+                        fieldValues[i] = Message.FIELD_ID.equals(fieldName) ? hit.getId() : csvValue(fieldName, source.get(fieldName));
+                    }
+                    csvWriter.writeNext(fieldValues);
+                    writtenMessages++;
+                }
+
+                // blocks until the client has accepted the page, checkError() flushes the writer
+                if (csvWriter.checkError()) {
+                    LOG.debug("[{}] Client connection is closed, client disconnected. Aborting scroll.", scroll.getQueryHash());
+                    return;
+                }
+            }
+            scrollFinished = true;
+            LOG.debug("[{}] Reached end of scroll result after {} messages.", scroll.getQueryHash(), writtenMessages);
+        } finally {
+            if (!scrollFinished) {
+                scroll.cancel();
+            }
+            csvWriter.close();
+        }
+    }
+
+    private static Map<String, Object> source(SearchHit hit) {
+        // There is no _source field if addFields is used for the request. Just use the returned fields in that case.
+        final Map<String, Object> source = hit.getSource();
+        if (source != null) {
+            return source;
+        }
+
+        final Map<String, Object> fields = Maps.newHashMapWithExpectedSize(hit.fields().size());
+        for (Map.Entry<String, SearchHitField> field : hit.fields().entrySet()) {
+            fields.put(field.getKey(), field.getValue().getValue());
+        }
+        return fields;
+    }
+
+    /**
+     * Formats a field value the same way it would be rendered from a {@link org.graylog2.indexer.results.ResultMessage}.
+     */
+    static String csvValue(String fieldName, Object value) {
+        if (value == null) {
+            return null;
+        }
+
+        String stringVal = value.toString();
+        if (Message.FIELD_TIMESTAMP.equals(fieldName)) {
+            try {
+                stringVal = ES_DATE_FORMAT_FORMATTER.parseDateTime(stringVal).toString();
+            } catch (IllegalArgumentException e) {
+                // could not parse date string, leave the original value alone
+                LOG.debug("Could not parse timestamp {}", stringVal, e);
+            }
+        } else if (value instanceof String) {
+            stringVal = stringVal.trim();
+            if (stringVal.isEmpty()) {
+                return null;
+            }
+        }
+
+        return escapeLineBreaks(stringVal);
+    }
+
+    static String escapeLineBreaks(String value) {
+        return value
+                .replace("\n", "\\n")
+                .replace("\r", "\\r");
+    }
+}
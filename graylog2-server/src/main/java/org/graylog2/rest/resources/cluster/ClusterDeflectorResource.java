@@ -17,6 +17,7 @@
 package org.graylog2.rest.resources.cluster;
 
 import com.codahale.metrics.annotation.Timed;
+import com.github.joschi.jadconfig.util.Duration;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
@@ -28,6 +29,7 @@ import org.graylog2.shared.rest.resources.ProxiedResource;
 import org.graylog2.shared.rest.resources.system.RemoteDeflectorResource;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.ws.rs.InternalServerErrorException;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
@@ -38,6 +40,7 @@ import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 
 @RequiresAuthentication
@@ -48,8 +51,10 @@ public class ClusterDeflectorResource extends ProxiedResource {
     @Inject
     public ClusterDeflectorResource(@Context HttpHeaders httpHeaders,
                                     NodeService nodeService,
-                                    RemoteInterfaceProvider remoteInterfaceProvider) {
-        super(httpHeaders, nodeService, remoteInterfaceProvider);
+                                    RemoteInterfaceProvider remoteInterfaceProvider,
+                                    @Named("proxiedRequestsExecutorService") ExecutorService executorService,
+                                    @Named("proxied_requests_default_call_timeout") Duration callTimeout) {
+        super(httpHeaders, nodeService, remoteInterfaceProvider, executorService, callTimeout);
     }
 
     @POST
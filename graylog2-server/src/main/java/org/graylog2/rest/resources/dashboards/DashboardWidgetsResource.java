@@ -35,6 +35,7 @@ import org.graylog2.dashboards.widgets.WidgetResultCache;
 import org.graylog2.dashboards.widgets.events.WidgetUpdatedEvent;
 import org.graylog2.database.NotFoundException;
 import org.graylog2.events.ClusterEventBus;
+import org.graylog2.plugin.dashboards.widgets.ComputationResult;
 import org.graylog2.plugin.database.ValidationException;
 import org.graylog2.plugin.indexer.searches.timeranges.InvalidRangeParametersException;
 import org.graylog2.rest.models.dashboards.requests.AddWidgetRequest;
@@ -62,6 +63,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URI;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RequiresAuthentication
@@ -191,6 +193,30 @@ public class DashboardWidgetsResource extends RestResource {
         activityWriter.write(new Activity(msg, DashboardsResource.class));
     }
 
+    @GET
+    @Timed
+    @ApiOperation(value = "Get the values of all widgets of a dashboard.",
+            notes = "Widgets whose value could not be computed are omitted.")
+    @Path("/values")
+    @ApiResponses(value = {
+            @ApiResponse(code = 404, message = "Dashboard not found.")
+    })
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Map<String, Object>> widgetValues(@ApiParam(name = "dashboardId", required = true)
+                                                         @PathParam("dashboardId") String dashboardId) throws NotFoundException {
+        checkPermission(RestPermissions.DASHBOARDS_READ, dashboardId);
+
+        final Dashboard dashboard = dashboardService.load(dashboardId);
+        final Map<String, ComputationResult> results = widgetResultCache.getComputationResultsForDashboardWidgets(dashboard.getWidgets().values());
+
+        final Map<String, Map<String, Object>> values = new LinkedHashMap<>(results.size());
+        for (Map.Entry<String, ComputationResult> result : results.entrySet()) {
+            values.put(result.getKey(), result.getValue().asMap());
+        }
+
+        return values;
+    }
+
     @GET
     @Timed
     @ApiOperation(value = "Get a single widget value.")
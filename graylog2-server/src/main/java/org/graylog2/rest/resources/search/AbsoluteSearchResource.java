@@ -24,7 +24,6 @@ import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
-import org.glassfish.jersey.server.ChunkedOutput;
 import org.graylog2.decorators.DecoratorProcessor;
 import org.graylog2.indexer.results.ScrollResult;
 import org.graylog2.indexer.searches.Searches;
@@ -54,6 +53,7 @@ import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
@@ -125,7 +125,7 @@ public class AbsoluteSearchResource extends SearchResource {
     @ApiResponses(value = {
             @ApiResponse(code = 400, message = "Invalid timerange parameters provided.")
     })
-    public ChunkedOutput<ScrollResult.ScrollChunk> searchAbsoluteChunked(
+    public StreamingOutput searchAbsoluteChunked(
             @ApiParam(name = "query", value = "Query (Lucene syntax)", required = true)
             @QueryParam("query") @NotEmpty String query,
             @ApiParam(name = "from", value = "Timerange start. See description for date format", required = true) @QueryParam("from") String from,
@@ -142,7 +142,7 @@ public class AbsoluteSearchResource extends SearchResource {
         try {
             final ScrollResult scroll = searches
                     .scroll(query, timeRange, limit, offset, fieldList, filter);
-            return buildChunkedOutput(scroll, limit);
+            return buildStreamingOutput(scroll, limit);
         } catch (SearchPhaseExecutionException e) {
             throw createRequestExceptionForParseFailure(query, e);
         }
@@ -25,7 +25,6 @@ import org.apache.lucene.queryparser.classic.ParseException;
 import org.apache.lucene.queryparser.classic.QueryParser;
 import org.apache.lucene.queryparser.classic.Token;
 import org.elasticsearch.action.search.SearchPhaseExecutionException;
-import org.glassfish.jersey.server.ChunkedOutput;
 import org.graylog2.decorators.DecoratorProcessor;
 import org.graylog2.indexer.InvalidRangeFormatException;
 import org.graylog2.indexer.ranges.IndexRange;
@@ -37,6 +36,7 @@ import org.graylog2.indexer.searches.SearchesClusterConfig;
 import org.graylog2.indexer.searches.Sorting;
 import org.graylog2.plugin.cluster.ClusterConfigService;
 import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.rest.ScrollResultCsvOutput;
 import org.graylog2.rest.models.messages.responses.ResultMessageSummary;
 import org.graylog2.rest.models.search.responses.FieldStatsResult;
 import org.graylog2.rest.models.search.responses.HistogramResult;
@@ -58,7 +58,7 @@ import javax.inject.Inject;
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.ForbiddenException;
 import javax.ws.rs.core.Response;
-import java.io.IOException;
+import javax.ws.rs.core.StreamingOutput;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -236,14 +236,9 @@ public abstract class SearchResource extends RestResource {
         }
     }
 
-    protected ChunkedOutput<ScrollResult.ScrollChunk> buildChunkedOutput(final ScrollResult scroll, int limit) {
-        final ChunkedOutput<ScrollResult.ScrollChunk> output = new ChunkedOutput<>(ScrollResult.ScrollChunk.class);
-
+    protected StreamingOutput buildStreamingOutput(final ScrollResult scroll, int limit) {
         LOG.debug("[{}] Scroll result contains a total of {} messages", scroll.getQueryHash(), scroll.totalHits());
-        Runnable scrollIterationAction = createScrollChunkProducer(scroll, output, limit);
-        // TODO use a shared executor for async responses here instead of a single thread that's not limited
-        new Thread(scrollIterationAction).start();
-        return output;
+        return new ScrollResultCsvOutput(scroll, limit);
     }
 
     protected BadRequestException createRequestExceptionForParseFailure(String query, SearchPhaseExecutionException e) {
@@ -334,44 +329,6 @@ public abstract class SearchResource extends RestResource {
         }
     }
 
-    protected Runnable createScrollChunkProducer(final ScrollResult scroll,
-                                                 final ChunkedOutput<ScrollResult.ScrollChunk> output,
-                                                 final int limit) {
-        return new Runnable() {
-            private int collectedHits = 0;
-
-            @Override
-            public void run() {
-                try {
-                    ScrollResult.ScrollChunk chunk = scroll.nextChunk();
-                    while (chunk != null) {
-                        LOG.debug("[{}] Writing scroll chunk with {} messages",
-                            scroll.getQueryHash(),
-                            chunk.getMessages().size());
-                        if (output.isClosed()) {
-                            LOG.debug("[{}] Client connection is closed, client disconnected. Aborting scroll.",
-                                scroll.getQueryHash());
-                            scroll.cancel();
-                            return;
-                        }
-                        output.write(chunk);
-                        collectedHits += chunk.getMessages().size();
-                        if (limit != 0 && collectedHits >= limit) {
-                            scroll.cancel();
-                            output.close();
-                            return;
-                        }
-                        chunk = scroll.nextChunk();
-                    }
-                    LOG.debug("[{}] Reached end of scroll result.", scroll.getQueryHash());
-                    output.close();
-                } catch (IOException e) {
-                    LOG.warn("[{}] Could not close chunked output stream for query scroll.", scroll.getQueryHash());
-                }
-            }
-        };
-    }
-
     protected org.graylog2.plugin.indexer.searches.timeranges.TimeRange restrictTimeRange(final org.graylog2.plugin.indexer.searches.timeranges.TimeRange timeRange) {
         final DateTime originalFrom = timeRange.getFrom();
         final DateTime to = timeRange.getTo();
@@ -23,6 +23,7 @@ import org.apache.shiro.authz.annotation.RequiresAuthentication;
 import org.graylog2.shared.rest.resources.RestResource;
 import org.graylog2.shared.system.stats.StatsService;
 import org.graylog2.shared.system.stats.SystemStats;
+import org.graylog2.shared.system.stats.SystemStatsHistory;
 import org.graylog2.shared.system.stats.fs.FsStats;
 import org.graylog2.shared.system.stats.jvm.JvmStats;
 import org.graylog2.shared.system.stats.network.NetworkStats;
@@ -99,4 +100,14 @@ public class StatsResource extends RestResource {
     public ProcessStats processStats() {
         return statsService.processStats();
     }
+
+    @GET
+    @Path("/history")
+    @Timed
+    @ApiOperation(value = "Recent history of the most important system stats of this node.",
+            notes = "This resource returns the last samples of CPU, memory and network usage, oldest first. " +
+                    "The network series contain the bytes transferred since the previous sample, unknown values are -1.")
+    public SystemStatsHistory history() {
+        return statsService.history();
+    }
 }
@@ -33,7 +33,17 @@ public interface AccessTokenService extends PersistedService {
 
     AccessToken create(String username, String name);
 
+    /**
+     * Updates the last access time of the given token. The change is written by {@link #flushLastAccessTimes()}.
+     */
     void touch(AccessToken accessToken) throws ValidationException;
 
+    /**
+     * Writes the last access times of all tokens which have been touched since the last flush.
+     *
+     * @return number of updated tokens
+     */
+    int flushLastAccessTimes();
+
     String save(AccessToken accessToken) throws ValidationException;
 }
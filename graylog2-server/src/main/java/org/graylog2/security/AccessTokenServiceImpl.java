@@ -16,38 +16,93 @@
  */
 package org.graylog2.security;
 
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import javax.inject.Inject;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBObject;
 import com.mongodb.DuplicateKeyException;
 import org.bson.types.ObjectId;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.database.PersistedServiceImpl;
-import org.graylog2.plugin.database.ValidationException;
+import org.graylog2.events.ClusterEventBus;
 import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.database.Persisted;
+import org.graylog2.plugin.database.ValidationException;
+import org.graylog2.security.events.AccessTokenDeletedEvent;
+import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
 import java.math.BigInteger;
 import java.security.SecureRandom;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Access tokens loaded by their token are cached for {@code authentication_cache_ttl}. Deleted access tokens are
+ * removed from the caches of all nodes with an {@link AccessTokenDeletedEvent}. Their last access times are
+ * collected in memory and written in bulk by {@link #flushLastAccessTimes()}.
+ */
+@Singleton
 public class AccessTokenServiceImpl extends PersistedServiceImpl implements AccessTokenService {
     private static final Logger LOG = LoggerFactory.getLogger(AccessTokenServiceImpl.class);
 
     private static final SecureRandom RANDOM = new SecureRandom();
 
+    private final Cache<String, AccessTokenImpl> tokenCache;
+    private final ConcurrentMap<String, DateTime> pendingLastAccessTimes = new ConcurrentHashMap<>();
+    private final ClusterEventBus clusterEventBus;
+    private volatile boolean indexCreated = false;
+
     @Inject
-    public AccessTokenServiceImpl(MongoConnection mongoConnection) {
+    public AccessTokenServiceImpl(MongoConnection mongoConnection,
+                                  @Named("authentication_cache_ttl") Duration cacheTtl,
+                                  EventBus serverEventBus,
+                                  ClusterEventBus clusterEventBus) {
         super(mongoConnection);
+        this.tokenCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheTtl.getQuantity(), cacheTtl.getUnit())
+                .build();
+        this.clusterEventBus = clusterEventBus;
+        serverEventBus.register(this);
+    }
+
+    @Subscribe
+    @SuppressWarnings("unused")
+    public void handleAccessTokenDeleted(AccessTokenDeletedEvent event) {
+        LOG.debug("Access token <{}> has been deleted, removing it from the cache.", event.accessTokenId());
+        invalidate(event.accessTokenId());
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public AccessToken load(String token) {
+        AccessTokenImpl accessToken = tokenCache.getIfPresent(token);
+        if (accessToken == null) {
+            accessToken = loadFromDatabase(token);
+            if (accessToken == null) {
+                return null;
+            }
+            tokenCache.put(token, accessToken);
+        }
+
+        // hand out copies, callers are allowed to modify the returned token
+        return new AccessTokenImpl(new ObjectId(accessToken.getId()), new HashMap<>(accessToken.getFields()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private AccessTokenImpl loadFromDatabase(String token) {
         DBObject query = new BasicDBObject();
         query.put(AccessTokenImpl.TOKEN, token);
         final List<DBObject> objects = query(AccessTokenImpl.class, query);
@@ -108,14 +163,53 @@ public class AccessTokenServiceImpl extends PersistedServiceImpl implements Acce
 
     @Override
     public void touch(AccessToken accessToken) throws ValidationException {
-        accessToken.getFields().put(AccessTokenImpl.LAST_ACCESS, Tools.nowUTC());
-        save(accessToken);
+        final DateTime now = Tools.nowUTC();
+        accessToken.getFields().put(AccessTokenImpl.LAST_ACCESS, now);
+        pendingLastAccessTimes.put(accessToken.getId(), now);
+    }
+
+    @Override
+    public int flushLastAccessTimes() {
+        final Map<String, DateTime> lastAccessTimes = new HashMap<>(pendingLastAccessTimes);
+        if (lastAccessTimes.isEmpty()) {
+            return 0;
+        }
+
+        final BulkWriteOperation bulk = collection(AccessTokenImpl.class).initializeUnorderedBulkOperation();
+        for (Map.Entry<String, DateTime> entry : lastAccessTimes.entrySet()) {
+            // keep newer access times which have been recorded in the meantime for the next flush
+            pendingLastAccessTimes.remove(entry.getKey(), entry.getValue());
+            bulk.find(new BasicDBObject("_id", new ObjectId(entry.getKey())))
+                    .updateOne(new BasicDBObject("$set", new BasicDBObject(AccessTokenImpl.LAST_ACCESS, entry.getValue().toDate())));
+        }
+        return bulk.execute().getMatchedCount();
     }
 
     @Override
     public String save(AccessToken accessToken) throws ValidationException {
-        // make sure we cannot overwrite an existing access token
-        collection(AccessTokenImpl.class).createIndex(new BasicDBObject(AccessTokenImpl.TOKEN, 1), new BasicDBObject("unique", true));
+        if (!indexCreated) {
+            // make sure we cannot overwrite an existing access token
+            collection(AccessTokenImpl.class).createIndex(new BasicDBObject(AccessTokenImpl.TOKEN, 1), new BasicDBObject("unique", true));
+            indexCreated = true;
+        }
+        invalidate(accessToken.getId());
         return super.save(accessToken);
     }
+
+    @Override
+    public <T extends Persisted> int destroy(T model) {
+        if (!(model instanceof AccessToken)) {
+            return super.destroy(model);
+        }
+
+        invalidate(model.getId());
+        pendingLastAccessTimes.remove(model.getId());
+        final int removed = super.destroy(model);
+        clusterEventBus.post(AccessTokenDeletedEvent.create(model.getId()));
+        return removed;
+    }
+
+    private void invalidate(String accessTokenId) {
+        tokenCache.asMap().values().removeIf(cached -> cached.getId().equals(accessTokenId));
+    }
 }
@@ -20,11 +20,14 @@ import com.google.common.base.Function;
 import com.google.common.collect.Collections2;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.authz.permission.WildcardPermission;
 import org.graylog2.shared.users.Role;
 import org.graylog2.users.RoleService;
+import org.graylog2.users.events.RoleChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,10 +38,12 @@ import javax.inject.Named;
 import javax.inject.Singleton;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 @Singleton
@@ -46,19 +51,42 @@ public class InMemoryRolePermissionResolver implements RolePermissionResolver {
     private static final Logger log = LoggerFactory.getLogger(InMemoryRolePermissionResolver.class);
 
     private final RoleService roleService;
+    private final ScheduledExecutorService daemonScheduler;
+    private final RoleUpdater updater = new RoleUpdater();
     private final AtomicReference<ImmutableMap<String, Role>> idToRoleIndex = new AtomicReference<>(ImmutableMap.<String, Role>of());
+    private final AtomicLong version = new AtomicLong();
 
     @Inject
     public InMemoryRolePermissionResolver(RoleService roleService,
-                                          @Named("daemonScheduler") ScheduledExecutorService daemonScheduler) {
+                                          @Named("daemonScheduler") ScheduledExecutorService daemonScheduler,
+                                          EventBus serverEventBus) {
         this.roleService = roleService;
-        final RoleUpdater updater = new RoleUpdater();
+        this.daemonScheduler = daemonScheduler;
 
         // eagerly load rules
         updater.run();
 
         // update rules every second in the background
         daemonScheduler.scheduleAtFixedRate(updater, 1, 1, TimeUnit.SECONDS);
+
+        serverEventBus.register(this);
+    }
+
+    @Subscribe
+    @SuppressWarnings("unused")
+    public void handleRoleChanged(RoleChangedEvent event) {
+        log.debug("Role {} has been changed, reloading roles.", event.roleName());
+        daemonScheduler.submit(updater);
+    }
+
+    /**
+     * Returns a number which changes whenever the permissions of any role change. Permissions derived from the
+     * roles can be cached as long as this version does not change.
+     *
+     * @return the current version of the role permissions
+     */
+    public long getVersion() {
+        return version.get();
     }
 
     @Override
@@ -96,13 +124,24 @@ public class InMemoryRolePermissionResolver implements RolePermissionResolver {
 
     private class RoleUpdater implements Runnable {
         @Override
-        public void run() {
+        public synchronized void run() {
             try {
                 final Map<String, Role> index = roleService.loadAllIdMap();
-                InMemoryRolePermissionResolver.this.idToRoleIndex.set(ImmutableMap.copyOf(index));
+                final ImmutableMap<String, Role> previousIndex = idToRoleIndex.getAndSet(ImmutableMap.copyOf(index));
+                if (!permissionsById(index).equals(permissionsById(previousIndex))) {
+                    version.incrementAndGet();
+                }
             } catch (Exception e) {
                 log.error("Could not find roles collection, no user roles updated.", e);
             }
         }
+
+        private Map<String, Set<String>> permissionsById(Map<String, Role> index) {
+            final Map<String, Set<String>> permissions = new HashMap<>(index.size());
+            for (Map.Entry<String, Role> entry : index.entrySet()) {
+                permissions.put(entry.getKey(), entry.getValue().getPermissions());
+            }
+            return permissions;
+        }
     }
 }
@@ -19,6 +19,8 @@ package org.graylog2.security;
 import org.graylog2.plugin.database.PersistedService;
 
 import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
 
 /**
  * @author Dennis Oelkers <dennis@torch.sh>
@@ -27,4 +29,12 @@ public interface MongoDBSessionService extends PersistedService {
     MongoDbSession load(String sessionId);
 
     Collection<MongoDbSession> loadAll();
+
+    /**
+     * Sets the last access time of the given sessions in a single bulk write.
+     *
+     * @param lastAccessTimes last access time by session ID
+     * @return number of updated sessions
+     */
+    int updateLastAccessTimes(Map<String, Date> lastAccessTimes);
 }
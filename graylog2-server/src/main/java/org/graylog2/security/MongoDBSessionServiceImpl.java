@@ -18,6 +18,7 @@ package org.graylog2.security;
 
 import com.google.common.collect.Lists;
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DBObject;
 import org.bson.types.ObjectId;
 import org.graylog2.database.MongoConnection;
@@ -25,7 +26,9 @@ import org.graylog2.database.PersistedServiceImpl;
 
 import javax.inject.Inject;
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 public class MongoDBSessionServiceImpl extends PersistedServiceImpl implements MongoDBSessionService {
     @Inject
@@ -57,4 +60,18 @@ public class MongoDBSessionServiceImpl extends PersistedServiceImpl implements M
 
         return dbSessions;
     }
-}
\ No newline at end of file
+
+    @Override
+    public int updateLastAccessTimes(Map<String, Date> lastAccessTimes) {
+        if (lastAccessTimes.isEmpty()) {
+            return 0;
+        }
+
+        final BulkWriteOperation bulk = collection(MongoDbSession.class).initializeUnorderedBulkOperation();
+        for (Map.Entry<String, Date> entry : lastAccessTimes.entrySet()) {
+            bulk.find(new BasicDBObject("session_id", entry.getKey()))
+                    .updateOne(new BasicDBObject("$set", new BasicDBObject("last_access_time", entry.getValue())));
+        }
+        return bulk.execute().getMatchedCount();
+    }
+}
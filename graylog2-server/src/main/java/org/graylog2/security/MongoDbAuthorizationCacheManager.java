@@ -17,6 +17,7 @@
 package org.graylog2.security;
 
 import com.codahale.metrics.MetricRegistry;
+import com.github.joschi.jadconfig.util.Duration;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.primitives.Ints;
 import com.google.inject.Singleton;
@@ -29,32 +30,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import java.util.Collection;
 import java.util.Set;
-import java.util.concurrent.TimeUnit;
 
 @Singleton
 public class MongoDbAuthorizationCacheManager implements CacheManager {
     private static final Logger log = LoggerFactory.getLogger(MongoDbAuthorizationCacheManager.class);
     private final MetricRegistry registry;
+    private final Duration cacheTtl;
 
     @Inject
-    public MongoDbAuthorizationCacheManager(MetricRegistry registry) {
+    public MongoDbAuthorizationCacheManager(MetricRegistry registry,
+                                            @Named("authorization_cache_ttl") Duration cacheTtl) {
         this.registry = registry;
+        this.cacheTtl = cacheTtl;
     }
 
     @Override
     public <K, V> Cache<K, V> getCache(String name) throws CacheException {
-        return new GuavaCacheWrapper<>(registry);
+        return new GuavaCacheWrapper<>(registry, cacheTtl);
     }
 
     private static class GuavaCacheWrapper<K, V> implements Cache<K, V> {
 
         private com.google.common.cache.Cache<K, V> cache;
 
-        public GuavaCacheWrapper(MetricRegistry registry) {
+        public GuavaCacheWrapper(MetricRegistry registry, Duration cacheTtl) {
             cache = CacheBuilder.newBuilder()
-                    .expireAfterWrite(1, TimeUnit.SECONDS)
+                    .expireAfterWrite(cacheTtl.getQuantity(), cacheTtl.getUnit())
                     .maximumSize(1000)
                     .concurrencyLevel(8)
                     .recordStats()
@@ -16,6 +16,9 @@
  */
 package org.graylog2.security;
 
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.shiro.session.Session;
@@ -24,20 +27,42 @@ import org.apache.shiro.session.mgt.eis.CachingSessionDAO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Stores sessions in MongoDB.
+ *
+ * Updates which only change the last access time of a session are not written immediately but collected and written
+ * in bulk by {@link #flushLastAccessTimes()}. To detect them, the last persisted state of each session is kept for
+ * {@code authentication_cache_ttl}, after which the next update is written to MongoDB again.
+ */
+@Singleton
 public class MongoDbSessionDAO extends CachingSessionDAO {
     private static final Logger LOG = LoggerFactory.getLogger(MongoDbSessionDAO.class);
 
     private final MongoDBSessionService mongoDBSessionService;
+    private final Cache<String, PersistedSessionState> persistedSessions;
+    private final ConcurrentMap<String, Date> pendingLastAccessTimes = new ConcurrentHashMap<>();
 
     @Inject
-    public MongoDbSessionDAO(MongoDBSessionService mongoDBSessionService) {
+    public MongoDbSessionDAO(MongoDBSessionService mongoDBSessionService,
+                             @Named("authentication_cache_ttl") Duration cacheTtl) {
         this.mongoDBSessionService = mongoDBSessionService;
+        this.persistedSessions = CacheBuilder.newBuilder()
+                .expireAfterWrite(cacheTtl.getQuantity(), cacheTtl.getUnit())
+                .build();
     }
 
     @Override
@@ -59,6 +84,9 @@ public class MongoDbSessionDAO extends CachingSessionDAO {
         final MongoDbSession dbSession = new MongoDbSession(fields);
         LOG.debug("Created session {}", id);
         final String objectId = mongoDBSessionService.saveWithoutValidation(dbSession);
+        if (session instanceof SimpleSession) {
+            persistedSessions.put(id.toString(), new PersistedSessionState((SimpleSession) session));
+        }
 
         return id;
     }
@@ -71,7 +99,9 @@ public class MongoDbSessionDAO extends CachingSessionDAO {
             // expired session or it was never there to begin with
             return null;
         }
-        return getSimpleSession(sessionId, dbSession);
+        final SimpleSession session = getSimpleSession(sessionId, dbSession);
+        persistedSessions.put(sessionId.toString(), new PersistedSessionState(session));
+        return session;
     }
 
     private SimpleSession getSimpleSession(Serializable sessionId, MongoDbSession dbSession) {
@@ -88,7 +118,15 @@ public class MongoDbSessionDAO extends CachingSessionDAO {
 
     @Override
     protected void doUpdate(Session session) {
-        final MongoDbSession dbSession = mongoDBSessionService.load(session.getId().toString());
+        final String sessionId = session.getId().toString();
+        final PersistedSessionState persistedState = persistedSessions.getIfPresent(sessionId);
+        if (persistedState != null && persistedState.differsOnlyInLastAccessTime(session)) {
+            LOG.trace("Deferring last access time update of session {}", sessionId);
+            pendingLastAccessTimes.put(sessionId, session.getLastAccessTime());
+            return;
+        }
+
+        final MongoDbSession dbSession = mongoDBSessionService.load(sessionId);
 
         if(null == dbSession) {
             throw new RuntimeException("Couldn't load session <" + session.getId() + ">");
@@ -109,12 +147,16 @@ public class MongoDbSessionDAO extends CachingSessionDAO {
         }
 
         mongoDBSessionService.saveWithoutValidation(dbSession);
+        persistedSessions.put(sessionId, new PersistedSessionState((SimpleSession) session));
+        pendingLastAccessTimes.remove(sessionId);
     }
 
     @Override
     protected void doDelete(Session session) {
         LOG.debug("Deleting session {}", session);
         final Serializable id = session.getId();
+        persistedSessions.invalidate(id.toString());
+        pendingLastAccessTimes.remove(id.toString());
         final MongoDbSession dbSession = mongoDBSessionService.load(id.toString());
         mongoDBSessionService.destroy(dbSession);
     }
@@ -131,4 +173,54 @@ public class MongoDbSessionDAO extends CachingSessionDAO {
 
         return sessions;
     }
+
+    /**
+     * Writes the deferred last access times of all sessions to MongoDB.
+     *
+     * @return number of updated sessions
+     */
+    public int flushLastAccessTimes() {
+        final Map<String, Date> lastAccessTimes = new HashMap<>(pendingLastAccessTimes);
+        for (Map.Entry<String, Date> entry : lastAccessTimes.entrySet()) {
+            // keep newer access times which have been recorded in the meantime for the next flush
+            pendingLastAccessTimes.remove(entry.getKey(), entry.getValue());
+        }
+        return mongoDBSessionService.updateLastAccessTimes(lastAccessTimes);
+    }
+
+    /**
+     * The persisted state of a session apart from its last access time.
+     */
+    private static class PersistedSessionState {
+        private final String host;
+        private final long timeout;
+        private final Date startTimestamp;
+        private final boolean expired;
+        private final Map<Object, Object> attributes;
+
+        PersistedSessionState(SimpleSession session) {
+            this.host = session.getHost();
+            this.timeout = session.getTimeout();
+            this.startTimestamp = session.getStartTimestamp();
+            this.expired = session.isExpired();
+            this.attributes = copyOf(session.getAttributes());
+        }
+
+        @Nullable
+        private static Map<Object, Object> copyOf(@Nullable Map<Object, Object> attributes) {
+            return attributes == null ? null : new HashMap<>(attributes);
+        }
+
+        boolean differsOnlyInLastAccessTime(Session session) {
+            if (!(session instanceof SimpleSession)) {
+                return false;
+            }
+            final SimpleSession simpleSession = (SimpleSession) session;
+            return Objects.equals(host, simpleSession.getHost())
+                    && timeout == simpleSession.getTimeout()
+                    && Objects.equals(startTimestamp, simpleSession.getStartTimestamp())
+                    && expired == simpleSession.isExpired()
+                    && Objects.equals(attributes, simpleSession.getAttributes());
+        }
+    }
 }
@@ -0,0 +1,168 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.security;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of {@link WildcardPermission wildcard permissions} which checks if any of them implies a given permission
+ * string without resolving and comparing every single permission.
+ *
+ * The permissions are stored in a trie with one level per permission part. Checking a permission only follows the
+ * branches of its own parts and of wildcards, so its cost depends on the length of the permission and not on the
+ * number of indexed permissions. Like {@link WildcardPermission}, the index is case-insensitive.
+ */
+public class WildcardPermissionIndex {
+    private static final Logger LOG = LoggerFactory.getLogger(WildcardPermissionIndex.class);
+
+    // same as the protected constants in WildcardPermission
+    private static final String WILDCARD_TOKEN = "*";
+    private static final String PART_DIVIDER_TOKEN = ":";
+    private static final String SUBPART_DIVIDER_TOKEN = ",";
+
+    private final Node root = new Node();
+    private final List<WildcardPermission> permissions;
+
+    public WildcardPermissionIndex(Collection<String> permissions) {
+        final ImmutableList.Builder<WildcardPermission> wildcardPermissions = ImmutableList.builder();
+        for (String permission : permissions) {
+            try {
+                insert(root, parse(permission), 0);
+                wildcardPermissions.add(new WildcardPermission(permission));
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Ignoring invalid permission <{}>: {}", permission, e.getMessage());
+            }
+        }
+        this.permissions = wildcardPermissions.build();
+    }
+
+    /**
+     * Checks if any of the indexed permissions implies the given permission, using the same rules as
+     * {@link WildcardPermission#implies(org.apache.shiro.authz.Permission)}.
+     *
+     * @param permission the wildcard permission string to check
+     * @return {@code true} if the permission is implied by at least one indexed permission
+     * @throws IllegalArgumentException if the permission string is not a valid wildcard permission
+     */
+    public boolean implies(String permission) {
+        final List<Set<String>> parts = parse(permission);
+        for (Set<String> part : parts) {
+            if (part.size() > 1) {
+                // a single indexed permission has to contain all subparts, which the trie cannot answer
+                return impliedByAny(permission);
+            }
+        }
+        return implies(root, parts, 0);
+    }
+
+    private boolean impliedByAny(String permission) {
+        final WildcardPermission wildcardPermission = new WildcardPermission(permission);
+        for (WildcardPermission indexed : permissions) {
+            if (indexed.implies(wildcardPermission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean implies(Node node, List<Set<String>> parts, int index) {
+        if (node.terminal) {
+            // a permission ends here and implies everything below it
+            return true;
+        }
+        if (index == parts.size()) {
+            return node.wildcardTail;
+        }
+
+        final String token = parts.get(index).iterator().next();
+        final Node child = node.children.get(token);
+        if (child != null && implies(child, parts, index + 1)) {
+            return true;
+        }
+        final Node wildcard = node.children.get(WILDCARD_TOKEN);
+        return wildcard != null && wildcard != child && implies(wildcard, parts, index + 1);
+    }
+
+    private static void insert(Node node, List<Set<String>> parts, int index) {
+        if (index == parts.size()) {
+            node.terminal = true;
+            return;
+        }
+        if (onlyWildcards(parts, index)) {
+            node.wildcardTail = true;
+        }
+        for (String token : parts.get(index)) {
+            insert(node.children.computeIfAbsent(token, t -> new Node()), parts, index + 1);
+        }
+    }
+
+    private static boolean onlyWildcards(List<Set<String>> parts, int fromIndex) {
+        for (int i = fromIndex; i < parts.size(); i++) {
+            if (!parts.get(i).contains(WILDCARD_TOKEN)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Splits a permission string into its parts the same way as {@link WildcardPermission} does.
+     */
+    private static List<Set<String>> parse(String permission) {
+        if (permission == null || permission.trim().isEmpty()) {
+            throw new IllegalArgumentException("Wildcard string cannot be null or empty. Make sure permission strings are properly formatted.");
+        }
+
+        final ImmutableList.Builder<Set<String>> parts = ImmutableList.builder();
+        for (String part : permission.trim().split(PART_DIVIDER_TOKEN)) {
+            final ImmutableSet.Builder<String> subparts = ImmutableSet.builder();
+            for (String subpart : part.split(SUBPART_DIVIDER_TOKEN)) {
+                subparts.add(subpart.toLowerCase(Locale.ENGLISH));
+            }
+            final Set<String> subpartSet = subparts.build();
+            if (subpartSet.isEmpty()) {
+                throw new IllegalArgumentException("Wildcard string cannot contain parts with only dividers. Make sure permission strings are properly formatted.");
+            }
+            parts.add(subpartSet);
+        }
+
+        final List<Set<String>> result = parts.build();
+        if (result.isEmpty()) {
+            throw new IllegalArgumentException("Wildcard string cannot contain only dividers. Make sure permission strings are properly formatted.");
+        }
+        return result;
+    }
+
+    private static class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        // a permission ends at this node
+        private boolean terminal = false;
+        // a permission continues from this node with wildcard parts only
+        private boolean wildcardTail = false;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.security.events;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+
+@JsonAutoDetect
+@AutoValue
+public abstract class AccessTokenDeletedEvent {
+    private static final String FIELD_ACCESS_TOKEN_ID = "access_token_id";
+
+    @JsonProperty(FIELD_ACCESS_TOKEN_ID)
+    public abstract String accessTokenId();
+
+    @JsonCreator
+    public static AccessTokenDeletedEvent create(@JsonProperty(FIELD_ACCESS_TOKEN_ID) String accessTokenId) {
+        return new AutoValue_AccessTokenDeletedEvent(accessTokenId);
+    }
+}
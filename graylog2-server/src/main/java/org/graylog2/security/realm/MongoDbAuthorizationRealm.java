@@ -17,32 +17,116 @@
 package org.graylog2.security.realm;
 
 import com.google.common.collect.Sets;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
 import org.apache.shiro.authc.AuthenticationException;
 import org.apache.shiro.authc.AuthenticationInfo;
 import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.cache.Cache;
 import org.apache.shiro.realm.AuthorizingRealm;
 import org.apache.shiro.subject.PrincipalCollection;
 import org.graylog2.plugin.database.users.User;
+import org.graylog2.security.InMemoryRolePermissionResolver;
 import org.graylog2.security.MongoDbAuthorizationCacheManager;
+import org.graylog2.security.WildcardPermissionIndex;
 import org.graylog2.shared.users.UserService;
+import org.graylog2.users.events.UserChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class MongoDbAuthorizationRealm extends AuthorizingRealm {
 
     private static final Logger LOG = LoggerFactory.getLogger(MongoDbAuthorizationRealm.class);
     private final UserService userService;
+    private final InMemoryRolePermissionResolver rolePermissionResolver;
 
     @Inject
-    MongoDbAuthorizationRealm(UserService userService, MongoDbAuthorizationCacheManager mongoDbAuthorizationCacheManager) {
+    MongoDbAuthorizationRealm(UserService userService,
+                              MongoDbAuthorizationCacheManager mongoDbAuthorizationCacheManager,
+                              InMemoryRolePermissionResolver rolePermissionResolver,
+                              EventBus serverEventBus) {
         this.userService = userService;
+        this.rolePermissionResolver = rolePermissionResolver;
         setCachingEnabled(true);
         setCacheManager(mongoDbAuthorizationCacheManager);
+        setPermissionResolver(IndexedWildcardPermission::new);
+
+        serverEventBus.register(this);
+    }
+
+    @Subscribe
+    @SuppressWarnings("unused")
+    public void handleUserChanged(UserChangedEvent event) {
+        final Cache<Object, AuthorizationInfo> cache = getAuthorizationCache();
+        if (cache == null) {
+            return;
+        }
+        for (Object key : cache.keys()) {
+            if (key instanceof PrincipalCollection
+                    && event.userName().equalsIgnoreCase(String.valueOf(((PrincipalCollection) key).getPrimaryPrincipal()))) {
+                LOG.debug("User {} has been changed, removing cached authorization information.", event.userName());
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the cached authorization information if the role permissions have changed since its permission index
+     * has been built.
+     */
+    @Override
+    protected AuthorizationInfo getAuthorizationInfo(PrincipalCollection principals) {
+        final AuthorizationInfo info = super.getAuthorizationInfo(principals);
+        if (info instanceof UserAuthorizationInfo
+                && ((UserAuthorizationInfo) info).getRolesVersion() != rolePermissionResolver.getVersion()) {
+            clearCachedAuthorizationInfo(principals);
+            return super.getAuthorizationInfo(principals);
+        }
+        return info;
+    }
+
+    /**
+     * Checks the permission against the compiled permission index of the user, which contains the permissions of
+     * the user itself and all of its roles, instead of resolving and comparing all permissions one by one.
+     */
+    @Override
+    public boolean isPermitted(PrincipalCollection principals, String permission) {
+        final WildcardPermissionIndex permissionIndex = getPermissionIndex(getAuthorizationInfo(principals));
+        if (permissionIndex != null) {
+            return permissionIndex.implies(permission);
+        }
+        return super.isPermitted(principals, permission);
+    }
+
+    /**
+     * All other {@code isPermitted*} and {@code checkPermission*} variants end up here. Permissions which have been
+     * resolved by this realm still know their permission string and are checked against the permission index, too.
+     */
+    @Override
+    protected boolean isPermitted(Permission permission, AuthorizationInfo info) {
+        final WildcardPermissionIndex permissionIndex = getPermissionIndex(info);
+        if (permissionIndex != null && permission instanceof IndexedWildcardPermission) {
+            return permissionIndex.implies(((IndexedWildcardPermission) permission).getPermissionString());
+        }
+        return super.isPermitted(permission, info);
+    }
+
+    @Nullable
+    private static WildcardPermissionIndex getPermissionIndex(@Nullable AuthorizationInfo info) {
+        if (info instanceof UserAuthorizationInfo) {
+            return ((UserAuthorizationInfo) info).getPermissionIndex();
+        }
+        return null;
     }
 
     @Override
@@ -53,9 +137,18 @@ public class MongoDbAuthorizationRealm extends AuthorizingRealm {
         if (user == null) {
             return new SimpleAuthorizationInfo();
         } else {
-            final SimpleAuthorizationInfo info = new UserAuthorizationInfo(user);
+            // read the version first, a concurrent role update then only leads to rebuilding the index again
+            final long rolesVersion = rolePermissionResolver.getVersion();
             final List<String> permissions = user.getPermissions();
+            final Set<String> allPermissions = new HashSet<>();
+            if (permissions != null) {
+                allPermissions.addAll(permissions);
+            }
+            for (String roleId : user.getRoleIds()) {
+                allPermissions.addAll(rolePermissionResolver.resolveStringPermission(roleId));
+            }
 
+            final SimpleAuthorizationInfo info = new UserAuthorizationInfo(user, new WildcardPermissionIndex(allPermissions), rolesVersion);
             if (permissions != null) {
                 info.setStringPermissions(Sets.newHashSet(permissions));
             }
@@ -72,4 +165,21 @@ public class MongoDbAuthorizationRealm extends AuthorizingRealm {
         // this class does not authenticate at all
         return null;
     }
+
+    /**
+     * A {@link WildcardPermission} which keeps the string it has been created from, so that it can be checked against
+     * a {@link WildcardPermissionIndex}.
+     */
+    private static class IndexedWildcardPermission extends WildcardPermission {
+        private final String permissionString;
+
+        IndexedWildcardPermission(String permissionString) {
+            super(permissionString);
+            this.permissionString = permissionString;
+        }
+
+        String getPermissionString() {
+            return permissionString;
+        }
+    }
 }
@@ -18,23 +18,49 @@ package org.graylog2.security.realm;
 
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
 import org.graylog2.plugin.database.users.User;
+import org.graylog2.security.WildcardPermissionIndex;
 
+import javax.annotation.Nullable;
 import java.util.Set;
 
 public class UserAuthorizationInfo extends SimpleAuthorizationInfo {
     private final User user;
+    private final WildcardPermissionIndex permissionIndex;
+    private final long rolesVersion;
 
     public UserAuthorizationInfo(User user) {
-        super();
-        this.user = user;
+        this(user, null, -1L);
     }
 
     public UserAuthorizationInfo(Set<String> roles, User user) {
         super(roles);
         this.user = user;
+        this.permissionIndex = null;
+        this.rolesVersion = -1L;
+    }
+
+    /**
+     * @param user            the user
+     * @param permissionIndex index of the permissions of the user and all of its roles
+     * @param rolesVersion    version of the role permissions the index has been built from
+     */
+    public UserAuthorizationInfo(User user, @Nullable WildcardPermissionIndex permissionIndex, long rolesVersion) {
+        super();
+        this.user = user;
+        this.permissionIndex = permissionIndex;
+        this.rolesVersion = rolesVersion;
     }
 
     public User getUser() {
         return user;
     }
+
+    @Nullable
+    public WildcardPermissionIndex getPermissionIndex() {
+        return permissionIndex;
+    }
+
+    public long getRolesVersion() {
+        return rolesVersion;
+    }
 }
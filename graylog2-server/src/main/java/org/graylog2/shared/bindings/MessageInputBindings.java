@@ -17,6 +17,7 @@
 package org.graylog2.shared.bindings;
 
 import com.google.inject.multibindings.MapBinder;
+import org.graylog2.inputs.benchmark.BenchmarkGELFInput;
 import org.graylog2.inputs.codecs.CodecsModule;
 import org.graylog2.inputs.gelf.amqp.GELFAMQPInput;
 import org.graylog2.inputs.gelf.http.GELFHttpInput;
@@ -54,6 +55,7 @@ public class MessageInputBindings extends Graylog2Module {
         installInput(inputMapBinder, SyslogAMQPInput.class, SyslogAMQPInput.Factory.class);
         installInput(inputMapBinder, SyslogKafkaInput.class, SyslogKafkaInput.Factory.class);
         installInput(inputMapBinder, FakeHttpMessageInput.class, FakeHttpMessageInput.Factory.class);
+        installInput(inputMapBinder, BenchmarkGELFInput.class, BenchmarkGELFInput.Factory.class);
         installInput(inputMapBinder, GELFTCPInput.class, GELFTCPInput.Factory.class);
         installInput(inputMapBinder, GELFHttpInput.class, GELFHttpInput.Factory.class);
         installInput(inputMapBinder, GELFUDPInput.class, GELFUDPInput.Factory.class);
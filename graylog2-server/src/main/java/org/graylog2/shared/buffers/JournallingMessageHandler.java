@@ -27,6 +27,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Lists;
 import com.lmax.disruptor.EventHandler;
 import org.graylog2.shared.journal.Journal;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,11 +63,16 @@ public class JournallingMessageHandler implements EventHandler<RawMessageEvent>
     private final Counter byteCounter;
     private final Journal journal;
     private final Semaphore journalFilled;
+    private final PipelineLatencies pipelineLatencies;
 
     @Inject
-    public JournallingMessageHandler(MetricRegistry metrics, Journal journal, @Named("JournalSignal") Semaphore journalFilled) {
+    public JournallingMessageHandler(MetricRegistry metrics,
+                                     Journal journal,
+                                     @Named("JournalSignal") Semaphore journalFilled,
+                                     PipelineLatencies pipelineLatencies) {
         this.journal = journal;
         this.journalFilled = journalFilled;
+        this.pipelineLatencies = pipelineLatencies;
         byteCounter = metrics.counter(MetricRegistry.name(JournallingMessageHandler.class, "written_bytes"));
     }
 
@@ -115,15 +121,23 @@ public class JournallingMessageHandler implements EventHandler<RawMessageEvent>
                 converter.getBytesWritten(),
                 lastOffset);
         journalFilled.release();
+        for (Long receivedAt : converter.getSampledTimestamps()) {
+            pipelineLatencies.journalWritten(receivedAt);
+        }
     }
 
     private class Converter implements Function<RawMessageEvent, Journal.Entry> {
         private long bytesWritten = 0;
+        private final List<Long> sampledTimestamps = Lists.newArrayList();
 
         public long getBytesWritten() {
             return bytesWritten;
         }
 
+        public List<Long> getSampledTimestamps() {
+            return sampledTimestamps;
+        }
+
         @Nullable
         @Override
         public Journal.Entry apply(RawMessageEvent input) {
@@ -139,6 +153,10 @@ public class JournallingMessageHandler implements EventHandler<RawMessageEvent>
                 bytesWritten += size;
                 byteCounter.inc(size);
 
+                if (pipelineLatencies.sample()) {
+                    sampledTimestamps.add(input.getMessageTimestamp());
+                }
+
                 // clear for gc and to avoid promotion to tenured space
                 input.setMessageIdBytes(null);
                 input.setEncodedRawMessage(null);
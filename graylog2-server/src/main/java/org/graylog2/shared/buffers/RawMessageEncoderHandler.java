@@ -19,6 +19,7 @@ package org.graylog2.shared.buffers;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.lmax.disruptor.WorkHandler;
+import org.graylog2.plugin.journal.CodecConfigTable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,17 +30,20 @@ import static com.codahale.metrics.MetricRegistry.name;
 public class RawMessageEncoderHandler implements WorkHandler<RawMessageEvent> {
     private static final Logger log = LoggerFactory.getLogger(RawMessageEncoderHandler.class);
     private final Meter incomingMessages;
+    private final CodecConfigTable codecConfigTable;
 
     @Inject
-    public RawMessageEncoderHandler(MetricRegistry metricRegistry) {
+    public RawMessageEncoderHandler(MetricRegistry metricRegistry, CodecConfigTable codecConfigTable) {
+        this.codecConfigTable = codecConfigTable;
         incomingMessages = metricRegistry.meter(name(RawMessageEncoderHandler.class, "incomingMessages"));
     }
 
     @Override
     public void onEvent(RawMessageEvent event) throws Exception {
         incomingMessages.mark();
-        event.setEncodedRawMessage(event.getRawMessage().encode());
+        event.setEncodedRawMessage(event.getRawMessage().encode(codecConfigTable));
         event.setMessageIdBytes(event.getRawMessage().getIdBytes());
+        event.setMessageTimestamp(event.getRawMessage().getTimestampMillis());
         
         if (log.isTraceEnabled()) {
             log.trace("Serialized message {} for journal, size {} bytes",
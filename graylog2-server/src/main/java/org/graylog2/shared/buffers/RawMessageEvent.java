@@ -32,6 +32,8 @@ public class RawMessageEvent {
     // once these fields are set, do NOT rely on rawMessage still being non-null!
     private byte[] messageIdBytes;
     private byte[] encodedRawMessage;
+    // receive time of the raw message in milliseconds, kept for latency tracing after the raw message has been nulled
+    private long messageTimestamp;
 
     public static final EventFactory<RawMessageEvent> FACTORY = new EventFactory<RawMessageEvent>() {
         @Override
@@ -79,6 +81,14 @@ public class RawMessageEvent {
         return messageIdBytes;
     }
 
+    public long getMessageTimestamp() {
+        return messageTimestamp;
+    }
+
+    public void setMessageTimestamp(long messageTimestamp) {
+        this.messageTimestamp = messageTimestamp;
+    }
+
     // performance doesn't matter, it's only being called during tracing
     public UUID getMessageId() {
         final ByteBuffer wrap = ByteBuffer.wrap(messageIdBytes);
@@ -17,7 +17,6 @@
 
 package org.graylog2.shared.buffers.processors;
 
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.google.common.base.Strings;
 import com.google.common.collect.Iterables;
@@ -34,6 +33,10 @@ import org.graylog2.plugin.inputs.codecs.Codec;
 import org.graylog2.plugin.inputs.codecs.MultiMessageCodec;
 import org.graylog2.plugin.journal.RawMessage;
 import org.graylog2.shared.journal.Journal;
+import org.graylog2.shared.metrics.EntityMetricGroups;
+import org.graylog2.shared.metrics.EntityMetricGroups.MetricGroup;
+import org.graylog2.shared.metrics.EntityMetrics;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.graylog2.shared.utilities.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,10 +49,16 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.MoreObjects.firstNonNull;
 
 public class DecodingProcessor implements EventHandler<MessageEvent> {
     private static final Logger LOG = LoggerFactory.getLogger(DecodingProcessor.class);
 
+    /**
+     * Entity type of the per-input decoding metrics, see {@link EntityMetrics#groups(String)}.
+     */
+    public static final String INPUT_METRICS = "inputs";
+
     private final Timer decodeTime;
 
     public interface Factory {
@@ -58,21 +67,24 @@ public class DecodingProcessor implements EventHandler<MessageEvent> {
 
     private final Map<String, Codec.Factory<? extends Codec>> codecFactory;
     private final ServerStatus serverStatus;
-    private final MetricRegistry metricRegistry;
+    private final EntityMetricGroups inputMetricGroups;
     private final Journal journal;
+    private final PipelineLatencies pipelineLatencies;
     private final Timer parseTime;
 
     @AssistedInject
     public DecodingProcessor(Map<String, Codec.Factory<? extends Codec>> codecFactory,
                              final ServerStatus serverStatus,
-                             final MetricRegistry metricRegistry,
+                             final EntityMetrics entityMetrics,
                              final Journal journal,
+                             final PipelineLatencies pipelineLatencies,
                              @Assisted("decodeTime") Timer decodeTime,
                              @Assisted("parseTime") Timer parseTime) {
         this.codecFactory = codecFactory;
         this.serverStatus = serverStatus;
-        this.metricRegistry = metricRegistry;
+        this.inputMetricGroups = entityMetrics.groups(INPUT_METRICS);
         this.journal = journal;
+        this.pipelineLatencies = pipelineLatencies;
 
         // these metrics are global to all processors, thus they are passed in directly to avoid relying on the class name
         this.parseTime = parseTime;
@@ -128,6 +140,7 @@ public class DecodingProcessor implements EventHandler<MessageEvent> {
             inputIdOnCurrentNode = null;
         }
         final String baseMetricName = name(codec.getClass(), inputIdOnCurrentNode);
+        final MetricGroup inputMetrics = inputMetricGroups.group(firstNonNull(inputIdOnCurrentNode, baseMetricName), id -> baseMetricName);
 
         Message message = null;
         Collection<Message> messages = null;
@@ -150,19 +163,19 @@ public class DecodingProcessor implements EventHandler<MessageEvent> {
             }
             LOG.error("Unable to decode raw message {} (journal offset {}) encoded as {} received from {}.",
                       raw.getId(), raw.getJournalOffset(), raw.getCodecName(), remote);
-            metricRegistry.meter(name(baseMetricName, "failures")).mark();
+            inputMetrics.meter("failures").mark();
             throw e;
         } finally {
             decodeTime = decodeTimeCtx.stop();
         }
 
         if (message != null) {
-            event.setMessage(postProcessMessage(raw, codec, inputIdOnCurrentNode, baseMetricName, message, decodeTime));
+            event.setMessage(postProcessMessage(raw, codec, inputIdOnCurrentNode, inputMetrics, message, decodeTime));
         } else if (messages != null && !messages.isEmpty()) {
             final List<Message> processedMessages = Lists.newArrayListWithCapacity(messages.size());
 
             for (final Message msg : messages) {
-                final Message processedMessage = postProcessMessage(raw, codec, inputIdOnCurrentNode, baseMetricName, msg, decodeTime);
+                final Message processedMessage = postProcessMessage(raw, codec, inputIdOnCurrentNode, inputMetrics, msg, decodeTime);
 
                 if (processedMessage != null) {
                     processedMessages.add(processedMessage);
@@ -173,13 +186,13 @@ public class DecodingProcessor implements EventHandler<MessageEvent> {
         }
     }
 
-    private Message postProcessMessage(RawMessage raw, Codec codec, String inputIdOnCurrentNode, String baseMetricName, Message message, long decodeTime) {
+    private Message postProcessMessage(RawMessage raw, Codec codec, String inputIdOnCurrentNode, MetricGroup inputMetrics, Message message, long decodeTime) {
         if (message == null) {
-            metricRegistry.meter(name(baseMetricName, "failures")).mark();
+            inputMetrics.meter("failures").mark();
             return null;
         }
         if (!message.isComplete()) {
-            metricRegistry.meter(name(baseMetricName, "incomplete")).mark();
+            inputMetrics.meter("incomplete").mark();
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Dropping incomplete message. Parsed fields: [{}]", message.getFields());
             }
@@ -188,7 +201,8 @@ public class DecodingProcessor implements EventHandler<MessageEvent> {
 
         message.setJournalOffset(raw.getJournalOffset());
         message.recordTiming(serverStatus, "parse", decodeTime);
-        metricRegistry.timer(name(baseMetricName, "parseTime")).update(decodeTime, TimeUnit.NANOSECONDS);
+        inputMetrics.timer("parseTime").update(decodeTime, TimeUnit.NANOSECONDS);
+        pipelineLatencies.decoded(raw, message, decodeTime);
 
         for (final RawMessage.SourceNode node : raw.getSourceNodes()) {
             switch (node.type) {
@@ -246,7 +260,7 @@ public class DecodingProcessor implements EventHandler<MessageEvent> {
             message.setSource("unknown");
         }
 
-        metricRegistry.meter(name(baseMetricName, "processedMessages")).mark();
+        inputMetrics.meter("processedMessages").mark();
         return message;
     }
 }
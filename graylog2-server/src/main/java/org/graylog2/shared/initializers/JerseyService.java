@@ -28,7 +28,6 @@ import org.glassfish.grizzly.http.server.NetworkListener;
 import org.glassfish.grizzly.ssl.SSLContextConfigurator;
 import org.glassfish.grizzly.ssl.SSLEngineConfigurator;
 import org.glassfish.jersey.grizzly2.httpserver.GrizzlyHttpServerFactory;
-import org.glassfish.jersey.message.GZipEncoder;
 import org.glassfish.jersey.server.ResourceConfig;
 import org.glassfish.jersey.server.ServerProperties;
 import org.glassfish.jersey.server.filter.EncodingFilter;
@@ -42,6 +41,7 @@ import org.graylog2.rest.filter.WebAppNotFoundResponseFilter;
 import org.graylog2.shared.rest.CORSFilter;
 import org.graylog2.shared.rest.NodeIdResponseFilter;
 import org.graylog2.shared.rest.NotAuthorizedResponseFilter;
+import org.graylog2.shared.rest.PrecompressedAwareGZipEncoder;
 import org.graylog2.shared.rest.PrintModelProcessor;
 import org.graylog2.shared.rest.RestAccessLogFilter;
 import org.graylog2.shared.rest.XHRFilter;
@@ -301,7 +301,7 @@ public class JerseyService extends AbstractIdleService {
         additionalComponents.forEach(rc::registerClasses);
 
         if (enableGzip) {
-            EncodingFilter.enableFor(rc, GZipEncoder.class);
+            EncodingFilter.enableFor(rc, PrecompressedAwareGZipEncoder.class);
         }
 
         if (enableCors) {
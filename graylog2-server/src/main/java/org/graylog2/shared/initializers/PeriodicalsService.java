@@ -88,6 +88,11 @@ public class PeriodicalsService extends AbstractIdleService {
             Map<Periodical,ScheduledFuture> futures = periodicals.getFutures();
             if (futures.containsKey(periodical)) {
                 futures.get(periodical).cancel(false);
+                try {
+                    periodical.stop();
+                } catch (Exception e) {
+                    LOG.error("Could not stop periodical [{}].", periodical.getClass().getCanonicalName(), e);
+                }
 
                 s.stop();
                 LOG.info("Shutdown of periodical [{}] complete, took <{}ms>.",
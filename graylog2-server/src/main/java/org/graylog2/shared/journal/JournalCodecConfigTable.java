@@ -0,0 +1,256 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.journal;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.journal.CodecConfigTable;
+import org.graylog2.plugin.journal.RawMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Stores the codec configurations and source nodes referenced by journal entries in an append-only file next to the
+ * journal segments. The id of a value is a hash of its JSON serialization, so the same value always gets the same id
+ * and is only stored once. Codec configurations are stored as JSON objects, source nodes as JSON arrays of
+ * {@code [type, node id, input id]} triples.
+ * <p>
+ * A configuration is written and synced to disk before its id is handed out, so every journal entry can be decoded
+ * after a crash.
+ */
+@Singleton
+public class JournalCodecConfigTable implements CodecConfigTable {
+    private static final Logger LOG = LoggerFactory.getLogger(JournalCodecConfigTable.class);
+
+    @VisibleForTesting
+    static final String FILE_NAME = "codec-configs";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<List<String>>> SOURCE_NODES_TYPE = new TypeReference<List<List<String>>>() {
+    };
+
+    private final Path file;
+    private final ConcurrentMap<Long, Configuration> configsById = new ConcurrentHashMap<>();
+    // Configuration does not implement equals(), so this is an identity cache of the configuration instances in use.
+    private final Cache<Configuration, Long> idsByInstance = CacheBuilder.newBuilder().weakKeys().build();
+    // Messages of an input share the input id instance, so this is an identity cache of the single source node of
+    // the messages of each input. Lists of several source nodes are looked up by value.
+    private final Cache<String, SingleSourceNode> singleSourceNodesByInputId = CacheBuilder.newBuilder().weakKeys().build();
+    private final ConcurrentMap<List<List<String>>, Long> sourceNodeIdsByValue = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, List<List<String>>> sourceNodesById = new ConcurrentHashMap<>();
+
+    @Inject
+    public JournalCodecConfigTable(@Named("message_journal_dir") File journalDirectory) {
+        this.file = journalDirectory.toPath().resolve(FILE_NAME);
+        load();
+    }
+
+    private void load() {
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try {
+            final List<String> lines = Files.readAllLines(file, UTF_8);
+            for (String line : lines) {
+                final int separator = line.indexOf('\t');
+                if (separator <= 0) {
+                    LOG.warn("Skipping malformed line in codec configuration table {}", file);
+                    continue;
+                }
+                try {
+                    final long id = Long.parseUnsignedLong(line.substring(0, separator), 16);
+                    final String json = line.substring(separator + 1);
+                    if (json.startsWith("[")) {
+                        final List<List<String>> sourceNodes = OBJECT_MAPPER.readValue(json, SOURCE_NODES_TYPE);
+                        sourceNodesById.put(id, sourceNodes);
+                        sourceNodeIdsByValue.put(sourceNodes, id);
+                    } else {
+                        configsById.put(id, Configuration.deserializeFromJson(json));
+                    }
+                } catch (NumberFormatException | IOException e) {
+                    LOG.warn("Skipping malformed line in codec configuration table {}", file);
+                }
+            }
+            LOG.debug("Loaded {} codec configurations from {}", configsById.size(), file);
+        } catch (IOException e) {
+            LOG.error("Unable to read codec configuration table " + file, e);
+        }
+    }
+
+    @Override
+    public long intern(@Nullable Configuration codecConfig) throws IOException {
+        if (codecConfig == null) {
+            return EMPTY_CONFIGURATION_ID;
+        }
+
+        final Long cachedId = idsByInstance.getIfPresent(codecConfig);
+        if (cachedId != null) {
+            return cachedId;
+        }
+
+        final String json = codecConfig.serializeToJson();
+        final long id = json == null ? EMPTY_CONFIGURATION_ID : idOf(json);
+        if (id != EMPTY_CONFIGURATION_ID && !configsById.containsKey(id)) {
+            storeConfiguration(id, json);
+        }
+        idsByInstance.put(codecConfig, id);
+
+        return id;
+    }
+
+    private synchronized void storeConfiguration(long id, String json) throws IOException {
+        if (configsById.containsKey(id)) {
+            return;
+        }
+        append(id, json);
+        configsById.put(id, Configuration.deserializeFromJson(json));
+    }
+
+    @Override
+    public long internSourceNodes(List<RawMessage.SourceNode> sourceNodes) throws IOException {
+        if (sourceNodes.isEmpty()) {
+            return EMPTY_SOURCE_NODES_ID;
+        }
+
+        final RawMessage.SourceNode singleSourceNode = sourceNodes.size() == 1 ? sourceNodes.get(0) : null;
+        if (singleSourceNode != null) {
+            final SingleSourceNode cached = singleSourceNodesByInputId.getIfPresent(singleSourceNode.inputId);
+            if (cached != null && cached.matches(singleSourceNode)) {
+                return cached.id;
+            }
+        }
+
+        final List<List<String>> value = new ArrayList<>(sourceNodes.size());
+        for (RawMessage.SourceNode sourceNode : sourceNodes) {
+            final List<String> triple = new ArrayList<>(3);
+            triple.add(sourceNode.type.name());
+            triple.add(sourceNode.nodeId);
+            triple.add(sourceNode.inputId);
+            value.add(triple);
+        }
+
+        final Long cachedId = sourceNodeIdsByValue.get(value);
+        final long id;
+        if (cachedId != null) {
+            id = cachedId;
+        } else {
+            final String json = OBJECT_MAPPER.writeValueAsString(value);
+            id = idOf(json);
+            storeSourceNodes(id, json, value);
+        }
+
+        if (singleSourceNode != null) {
+            singleSourceNodesByInputId.put(singleSourceNode.inputId, new SingleSourceNode(singleSourceNode, id));
+        }
+        return id;
+    }
+
+    private synchronized void storeSourceNodes(long id, String json, List<List<String>> value) throws IOException {
+        if (!sourceNodesById.containsKey(id)) {
+            append(id, json);
+            sourceNodesById.put(id, value);
+        }
+        sourceNodeIdsByValue.put(value, id);
+    }
+
+    private void append(long id, String json) throws IOException {
+        Files.createDirectories(file.getParent());
+        final byte[] line = (Long.toHexString(id) + '\t' + json + '\n').getBytes(UTF_8);
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, APPEND)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+    }
+
+    private static long idOf(String json) {
+        final long hash = Hashing.murmur3_128().hashString(json, UTF_8).asLong();
+        return hash == EMPTY_CONFIGURATION_ID ? 1L : hash;
+    }
+
+    @Nullable
+    @Override
+    public Configuration lookup(long id) {
+        if (id == EMPTY_CONFIGURATION_ID) {
+            return Configuration.EMPTY_CONFIGURATION;
+        }
+        return configsById.get(id);
+    }
+
+    @Nullable
+    @Override
+    public List<RawMessage.SourceNode> lookupSourceNodes(long id) {
+        if (id == EMPTY_SOURCE_NODES_ID) {
+            return new ArrayList<>(2);
+        }
+
+        final List<List<String>> value = sourceNodesById.get(id);
+        if (value == null) {
+            return null;
+        }
+
+        final List<RawMessage.SourceNode> sourceNodes = new ArrayList<>(value.size() + 1);
+        for (List<String> triple : value) {
+            sourceNodes.add(new RawMessage.SourceNode(triple.get(1), triple.get(2), RawMessage.SourceNode.Type.valueOf(triple.get(0))));
+        }
+        return sourceNodes;
+    }
+
+    private static class SingleSourceNode {
+        private final String nodeId;
+        private final RawMessage.SourceNode.Type type;
+        private final long id;
+
+        private SingleSourceNode(RawMessage.SourceNode sourceNode, long id) {
+            this.nodeId = sourceNode.nodeId;
+            this.type = sourceNode.type;
+            this.id = id;
+        }
+
+        private boolean matches(RawMessage.SourceNode sourceNode) {
+            return type == sourceNode.type && nodeId.equals(sourceNode.nodeId);
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
 import com.google.common.util.concurrent.AbstractExecutionThreadService;
 import com.google.common.util.concurrent.Uninterruptibles;
+import org.graylog2.plugin.journal.CodecConfigTable;
 import org.graylog2.plugin.journal.RawMessage;
 import org.graylog2.plugin.lifecycles.Lifecycle;
 import org.graylog2.shared.buffers.ProcessBuffer;
@@ -42,6 +43,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 public class JournalReader extends AbstractExecutionThreadService {
     private static final Logger log = LoggerFactory.getLogger(JournalReader.class);
     private final Journal journal;
+    private final CodecConfigTable codecConfigTable;
     private final ProcessBuffer processBuffer;
     private final Semaphore journalFilled;
     private final MetricRegistry metricRegistry;
@@ -57,8 +59,10 @@ public class JournalReader extends AbstractExecutionThreadService {
                          ProcessBuffer processBuffer,
                          @Named("JournalSignal") Semaphore journalFilled,
                          MetricRegistry metricRegistry,
-                         EventBus eventBus) {
+                         EventBus eventBus,
+                         CodecConfigTable codecConfigTable) {
         this.journal = journal;
+        this.codecConfigTable = codecConfigTable;
         this.processBuffer = processBuffer;
         this.journalFilled = journalFilled;
         this.metricRegistry = metricRegistry;
@@ -155,7 +159,8 @@ public class JournalReader extends AbstractExecutionThreadService {
                 log.debug("Processing {} messages from journal.", encodedRawMessages.size());
                 for (final Journal.JournalReadEntry encodedRawMessage : encodedRawMessages) {
                     final RawMessage rawMessage = RawMessage.decode(encodedRawMessage.getPayload(),
-                                                                    encodedRawMessage.getOffset());
+                                                                    encodedRawMessage.getOffset(),
+                                                                    codecConfigTable);
                     if (rawMessage == null) {
                         // never insert null objects into the ringbuffer, as that is useless
                         log.error("Found null raw message!");
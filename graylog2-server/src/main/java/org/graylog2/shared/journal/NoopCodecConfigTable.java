@@ -0,0 +1,50 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.journal;
+
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.journal.CodecConfigTable;
+import org.graylog2.plugin.journal.RawMessage;
+
+import java.util.List;
+
+/**
+ * NoopCodecConfigTable is used together with the {@link NoopJournal} when disk journalling is turned off. Messages are
+ * never encoded for the journal in that case, but the components which do so still need to be constructible.
+ * <p><strong>Any use</strong> of this table will throw an IllegalStateException.</p>
+ */
+public class NoopCodecConfigTable implements CodecConfigTable {
+    @Override
+    public long intern(Configuration codecConfig) {
+        throw new IllegalStateException("Invalid use of NoopCodecConfigTable. Encoding journal entries without a journal is always a programming error.");
+    }
+
+    @Override
+    public Configuration lookup(long id) {
+        throw new IllegalStateException("Invalid use of NoopCodecConfigTable. Decoding journal entries without a journal is always a programming error.");
+    }
+
+    @Override
+    public long internSourceNodes(List<RawMessage.SourceNode> sourceNodes) {
+        throw new IllegalStateException("Invalid use of NoopCodecConfigTable. Encoding journal entries without a journal is always a programming error.");
+    }
+
+    @Override
+    public List<RawMessage.SourceNode> lookupSourceNodes(long id) {
+        throw new IllegalStateException("Invalid use of NoopCodecConfigTable. Decoding journal entries without a journal is always a programming error.");
+    }
+}
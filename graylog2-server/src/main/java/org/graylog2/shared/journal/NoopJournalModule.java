@@ -18,12 +18,13 @@ package org.graylog2.shared.journal;
 
 import com.google.inject.Scopes;
 import org.graylog2.plugin.inject.Graylog2Module;
+import org.graylog2.plugin.journal.CodecConfigTable;
 
 public class NoopJournalModule extends Graylog2Module {
     @Override
     protected void configure() {
         serviceBinder().addBinding().to(NoopJournal.class).in(Scopes.SINGLETON);
         binder().bind(Journal.class).to(NoopJournal.class).in(Scopes.SINGLETON);
-
+        binder().bind(CodecConfigTable.class).to(NoopCodecConfigTable.class).in(Scopes.SINGLETON);
     }
 }
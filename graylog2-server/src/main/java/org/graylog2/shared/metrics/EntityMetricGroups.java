@@ -0,0 +1,221 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Metrics of one entity type, grouped by entity ID. All metrics of a group are registered in the
+ * {@link MetricRegistry} and removed from it again when the group is removed, e.g. because the entity got deleted.
+ * The IDs of removed entities are remembered for {@link #REMOVED_ENTITY_RETENTION_MINUTES} minutes, so late callers,
+ * e.g. decoding journaled messages of a deleted input, only get metrics which are not registered.
+ */
+public class EntityMetricGroups {
+    static final long REMOVED_ENTITY_RETENTION_MINUTES = 60L;
+
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentMap<String, MetricGroup> groups = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> removedEntityIds;
+
+    EntityMetricGroups(MetricRegistry metricRegistry) {
+        this(metricRegistry, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    EntityMetricGroups(MetricRegistry metricRegistry, Ticker ticker) {
+        this.metricRegistry = metricRegistry;
+        this.removedEntityIds = CacheBuilder.newBuilder()
+                .expireAfterWrite(REMOVED_ENTITY_RETENTION_MINUTES, TimeUnit.MINUTES)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the metric group of the given entity, creating it if necessary.
+     *
+     * @param entityId the ID of the entity
+     * @param baseName computes the prefix of all metric names in the group from the entity ID, only called when the
+     *                 group gets created
+     */
+    public MetricGroup group(String entityId, Function<String, String> baseName) {
+        return group(entityId, null, baseName);
+    }
+
+    /**
+     * Returns the metric group of the given entity, creating it if necessary.
+     *
+     * @param entityId the ID of the entity
+     * @param parentId the ID of the entity owning this entity, e.g. the stream of a stream rule
+     * @param baseName computes the prefix of all metric names in the group from the entity ID, only called when the
+     *                 group gets created
+     */
+    public MetricGroup group(String entityId, @Nullable String parentId, Function<String, String> baseName) {
+        final MetricGroup group = groups.get(entityId);
+        if (group != null) {
+            return group;
+        }
+        if (isRemoved(entityId)) {
+            return new MetricGroup(entityId, parentId, baseName.apply(entityId), true);
+        }
+
+        final MetricGroup newGroup = groups.computeIfAbsent(entityId, id -> new MetricGroup(id, parentId, baseName.apply(id), false));
+        // the entity might have been removed concurrently, after it has been checked above
+        if (isRemoved(entityId) && groups.remove(entityId, newGroup)) {
+            newGroup.unregister();
+        }
+        return newGroup;
+    }
+
+    /**
+     * Removes the metric group of the given entity and unregisters all of its metrics. The entity must not be used
+     * anymore, its metrics will not be registered again.
+     */
+    public void remove(String entityId) {
+        removedEntityIds.put(entityId, Boolean.TRUE);
+        final MetricGroup group = groups.remove(entityId);
+        if (group != null) {
+            group.unregister();
+        }
+    }
+
+    /**
+     * Removes all metric groups matching the given predicate and unregisters their metrics.
+     */
+    public void removeIf(Predicate<MetricGroup> predicate) {
+        for (MetricGroup group : groups.values()) {
+            if (predicate.test(group) && groups.remove(group.entityId(), group)) {
+                removedEntityIds.put(group.entityId(), Boolean.TRUE);
+                group.unregister();
+            }
+        }
+    }
+
+    private boolean isRemoved(String entityId) {
+        return removedEntityIds.getIfPresent(entityId) != null;
+    }
+
+    public int groupCount() {
+        return groups.size();
+    }
+
+    public int metricCount() {
+        int count = 0;
+        for (MetricGroup group : groups.values()) {
+            count += group.size();
+        }
+        return count;
+    }
+
+    Gauge<Integer> groupCountGauge() {
+        return this::groupCount;
+    }
+
+    Gauge<Integer> metricCountGauge() {
+        return this::metricCount;
+    }
+
+    public class MetricGroup {
+        private final String entityId;
+        private final String parentId;
+        private final String baseName;
+        private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<>();
+        private boolean removed;
+
+        private MetricGroup(String entityId, @Nullable String parentId, String baseName, boolean removed) {
+            this.entityId = entityId;
+            this.parentId = parentId;
+            this.baseName = baseName;
+            this.removed = removed;
+        }
+
+        public String entityId() {
+            return entityId;
+        }
+
+        @Nullable
+        public String parentId() {
+            return parentId;
+        }
+
+        /**
+         * Returns the meter named {@code <base name>.<name>}, registering it if necessary.
+         */
+        public Meter meter(String name) {
+            final Metric metric = metrics.get(name);
+            if (metric != null) {
+                return (Meter) metric;
+            }
+            return (Meter) register(name, metricRegistry::meter, Meter::new);
+        }
+
+        /**
+         * Returns the timer named {@code <base name>.<name>}, registering it if necessary.
+         */
+        public Timer timer(String name) {
+            final Metric metric = metrics.get(name);
+            if (metric != null) {
+                return (Timer) metric;
+            }
+            return (Timer) register(name, metricRegistry::timer, Timer::new);
+        }
+
+        public int size() {
+            return metrics.size();
+        }
+
+        /**
+         * Synchronized with {@link #unregister()}, so a metric is either unregistered again or not registered at all.
+         */
+        private synchronized Metric register(String name, Function<String, Metric> registerMetric, Supplier<Metric> unregisteredMetric) {
+            final Metric metric = metrics.get(name);
+            if (metric != null) {
+                return metric;
+            }
+            final Metric newMetric = removed ? unregisteredMetric.get() : registerMetric.apply(name(baseName, name));
+            metrics.put(name, newMetric);
+            return newMetric;
+        }
+
+        /**
+         * Callers which still hold a reference to a removed group get metrics which are not registered anymore.
+         */
+        private synchronized void unregister() {
+            removed = true;
+            for (String name : metrics.keySet()) {
+                metricRegistry.remove(name(baseName, name));
+            }
+        }
+    }
+}
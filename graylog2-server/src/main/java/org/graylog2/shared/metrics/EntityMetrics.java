@@ -0,0 +1,57 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * Holds the {@link EntityMetricGroups} of all entity types, e.g. streams or inputs, so the owners of the metrics and
+ * the listeners which remove them on entity changes share the same groups.
+ */
+@Singleton
+public class EntityMetrics {
+    private final MetricRegistry metricRegistry;
+    private final ConcurrentMap<String, EntityMetricGroups> groups = new ConcurrentHashMap<>();
+
+    @Inject
+    public EntityMetrics(MetricRegistry metricRegistry) {
+        this.metricRegistry = metricRegistry;
+    }
+
+    /**
+     * Returns the metric groups of the given entity type. The number of live groups and metrics of the type are
+     * reported as gauges named {@code org.graylog2.shared.metrics.EntityMetrics.<type>.groups} and
+     * {@code org.graylog2.shared.metrics.EntityMetrics.<type>.metrics}.
+     */
+    public EntityMetricGroups groups(String type) {
+        return groups.computeIfAbsent(type, this::createGroups);
+    }
+
+    private EntityMetricGroups createGroups(String type) {
+        final EntityMetricGroups entityMetricGroups = new EntityMetricGroups(metricRegistry);
+        MetricUtils.safelyRegister(metricRegistry, name(EntityMetrics.class, type, "groups"), entityMetricGroups.groupCountGauge());
+        MetricUtils.safelyRegister(metricRegistry, name(EntityMetrics.class, type, "metrics"), entityMetricGroups.metricCountGauge());
+        return entityMetricGroups;
+    }
+}
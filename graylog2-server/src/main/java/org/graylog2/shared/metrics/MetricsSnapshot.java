@@ -0,0 +1,51 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.Metric;
+import com.google.auto.value.AutoValue;
+
+import java.util.Collection;
+import java.util.SortedMap;
+
+/**
+ * Metrics of one namespace as returned by {@link MetricsSnapshotService#snapshot(String, long)}.
+ */
+@AutoValue
+public abstract class MetricsSnapshot {
+    /**
+     * The version to pass as {@code since} to receive the changes after this snapshot.
+     */
+    public abstract long version();
+
+    /**
+     * {@code true} if {@link #metrics()} contains all metrics of the namespace, {@code false} if it only contains
+     * the metrics which were added or changed since the requested version.
+     */
+    public abstract boolean full();
+
+    public abstract SortedMap<String, Metric> metrics();
+
+    /**
+     * Names of the metrics which have been removed since the requested version. Always empty for full snapshots.
+     */
+    public abstract Collection<String> removed();
+
+    public static MetricsSnapshot create(long version, boolean full, SortedMap<String, Metric> metrics, Collection<String> removed) {
+        return new AutoValue_MetricsSnapshot(version, full, metrics, removed);
+    }
+}
@@ -0,0 +1,226 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Counting;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Metered;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricRegistryListener;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Keeps a sorted index of all metrics in the {@link MetricRegistry} which is updated through registry listener
+ * events, so namespace lookups do not need to copy and scan the whole registry.
+ * <p>
+ * Every snapshot gets a new version. Pollers can pass the version of their last snapshot to only receive the
+ * metrics which have been added or whose count changed since then, plus the names of removed metrics. Gauges cannot
+ * be compared cheaply and are always included. Meters and timers are always included as well, because their rates
+ * decay without any change of their count. A change may be reported twice if it was observed concurrently to the
+ * previous snapshot.
+ */
+@Singleton
+public class MetricsSnapshotService {
+    @VisibleForTesting
+    static final int MAX_REMOVALS = 10_000;
+
+    private final ConcurrentSkipListMap<String, Entry> index = new ConcurrentSkipListMap<>();
+    private final ConcurrentSkipListMap<Long, String> removals = new ConcurrentSkipListMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long removalsFloor = 0L;
+    private int removalsCount = 0;
+
+    @Inject
+    public MetricsSnapshotService(MetricRegistry metricRegistry) {
+        // Adding the listener replays the add events of all existing metrics.
+        metricRegistry.addListener(new IndexUpdater());
+    }
+
+    @Nullable
+    public Metric get(String name) {
+        final Entry entry = index.get(name);
+        return entry == null ? null : entry.metric;
+    }
+
+    public long currentVersion() {
+        return version.get();
+    }
+
+    /**
+     * Returns a full snapshot of all metrics whose name starts with the given prefix.
+     */
+    public MetricsSnapshot snapshot(String prefix) {
+        return snapshot(prefix, 0L, name -> true);
+    }
+
+    public MetricsSnapshot snapshot(String prefix, long since) {
+        return snapshot(prefix, since, name -> true);
+    }
+
+    /**
+     * Returns the metrics whose name starts with the given prefix and matches the filter. If {@code since} is a
+     * version returned by an earlier snapshot, only the changes after that version are included. Otherwise, or if
+     * the removals since that version are no longer known, a full snapshot is returned.
+     */
+    public MetricsSnapshot snapshot(String prefix, long since, Predicate<String> filter) {
+        final long snapshotVersion = version.incrementAndGet();
+        final boolean full = since <= 0L || since >= snapshotVersion || since < removalsFloor;
+
+        final SortedMap<String, Metric> metrics = new TreeMap<>();
+        for (Map.Entry<String, Entry> e : byPrefix(index, prefix).entrySet()) {
+            final String name = e.getKey();
+            final Entry entry = e.getValue();
+            if ((full || entry.changedSince(since, version)) && filter.test(name)) {
+                metrics.put(name, entry.metric);
+            }
+        }
+
+        final List<String> removed;
+        if (full) {
+            removed = Collections.emptyList();
+        } else {
+            removed = new ArrayList<>();
+            for (String name : removals.subMap(since, false, snapshotVersion, false).values()) {
+                if (name.startsWith(prefix) && !index.containsKey(name) && filter.test(name)) {
+                    removed.add(name);
+                }
+            }
+        }
+
+        return MetricsSnapshot.create(snapshotVersion, full, metrics, removed);
+    }
+
+    private static <V> NavigableMap<String, V> byPrefix(ConcurrentNavigableMap<String, V> map, String prefix) {
+        if (prefix.isEmpty()) {
+            return map;
+        }
+        return map.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    private void add(String name, Metric metric) {
+        index.put(name, new Entry(metric, version.incrementAndGet()));
+    }
+
+    private synchronized void remove(String name) {
+        if (index.remove(name) == null) {
+            return;
+        }
+        removals.put(version.incrementAndGet(), name);
+        if (++removalsCount > MAX_REMOVALS) {
+            final Map.Entry<Long, String> oldest = removals.pollFirstEntry();
+            removalsCount--;
+            // Removals up to this version are forgotten, older versions can only get full snapshots.
+            removalsFloor = oldest.getKey();
+        }
+    }
+
+    private static class Entry {
+        private final Metric metric;
+        private long lastCount;
+        private long changedVersion;
+
+        private Entry(Metric metric, long addedVersion) {
+            this.metric = metric;
+            this.lastCount = metric instanceof Counting ? ((Counting) metric).getCount() : 0L;
+            this.changedVersion = addedVersion;
+        }
+
+        private synchronized boolean changedSince(long since, AtomicLong version) {
+            if (!(metric instanceof Counting) || metric instanceof Metered) {
+                return true;
+            }
+            final long count = ((Counting) metric).getCount();
+            if (count != lastCount) {
+                lastCount = count;
+                changedVersion = version.get();
+            }
+            return changedVersion >= since;
+        }
+    }
+
+    private class IndexUpdater implements MetricRegistryListener {
+        @Override
+        public void onGaugeAdded(String name, Gauge<?> gauge) {
+            add(name, gauge);
+        }
+
+        @Override
+        public void onGaugeRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onCounterAdded(String name, Counter counter) {
+            add(name, counter);
+        }
+
+        @Override
+        public void onCounterRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onHistogramAdded(String name, Histogram histogram) {
+            add(name, histogram);
+        }
+
+        @Override
+        public void onHistogramRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onMeterAdded(String name, Meter meter) {
+            add(name, meter);
+        }
+
+        @Override
+        public void onMeterRemoved(String name) {
+            remove(name);
+        }
+
+        @Override
+        public void onTimerAdded(String name, Timer timer) {
+            add(name, timer);
+        }
+
+        @Override
+        public void onTimerRemoved(String name) {
+            remove(name);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.annotations.VisibleForTesting;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.journal.RawMessage;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+/**
+ * HDR histograms of the time messages spend in each stage of the processing pipeline. Only a sample of the messages
+ * is traced, every {@code message_latency_sample_rate}th message on average.
+ * <p>
+ * Stages which span threads are measured with checkpoints carried on the {@link Message}. Stages starting at the
+ * receive time of the {@link RawMessage} use wall clock milliseconds because that timestamp went through the journal.
+ */
+@Singleton
+public class PipelineLatencies {
+    // long enough for messages which waited in the journal during an extended outage of Elasticsearch
+    private static final long HIGHEST_TRACKABLE_DAYS = 7L;
+    @VisibleForTesting
+    static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.DAYS.toNanos(HIGHEST_TRACKABLE_DAYS);
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    public enum Stage {
+        /** From receiving a message in an input until it has been written to the journal. */
+        JOURNAL_WRITE,
+        /** From receiving a message in an input until it has been read from the journal and gets decoded. */
+        JOURNAL_READ,
+        DECODE,
+        /** All message processors, including the filter chain and stream routing. */
+        PROCESSING,
+        STREAM_ROUTING,
+        /** From leaving the message processors until Elasticsearch acknowledged the write. */
+        OUTPUT,
+        /** From receiving a message in an input until Elasticsearch acknowledged the write. */
+        END_TO_END;
+
+        public String metricName() {
+            return name(PipelineLatencies.class, name().toLowerCase(Locale.ENGLISH));
+        }
+    }
+
+    private final int sampleRate;
+    private final Map<Stage, Timer> timers;
+
+    @Inject
+    public PipelineLatencies(MetricRegistry metricRegistry,
+                             @Named("message_latency_sample_rate") int sampleRate) {
+        this.sampleRate = sampleRate;
+
+        final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+        for (Stage stage : Stage.values()) {
+            final Timer timer = new HdrTimer(HIGHEST_TRACKABLE_DAYS, TimeUnit.DAYS, SIGNIFICANT_DIGITS);
+            timers.put(stage, MetricUtils.safelyRegister(metricRegistry, stage.metricName(), timer));
+        }
+        this.timers = Collections.unmodifiableMap(timers);
+    }
+
+    public Map<Stage, Timer> getTimers() {
+        return timers;
+    }
+
+    /**
+     * Returns {@code true} if the current message should be traced.
+     */
+    public boolean sample() {
+        return sampleRate <= 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
+    }
+
+    /**
+     * Records the journal write latency of a sampled raw message.
+     */
+    public void journalWritten(long receivedAtMillis) {
+        recordSince(Stage.JOURNAL_WRITE, receivedAtMillis);
+    }
+
+    /**
+     * Decides whether the decoded message is traced and records its journal read and decode latency.
+     */
+    public void decoded(RawMessage rawMessage, Message message, long decodeTimeNanos) {
+        if (!sample()) {
+            return;
+        }
+        final long receivedAt = rawMessage.getTimestampMillis();
+        recordSince(Stage.JOURNAL_READ, receivedAt);
+        record(Stage.DECODE, decodeTimeNanos);
+        message.startLatencyTracing(receivedAt, System.nanoTime());
+    }
+
+    public void streamsRouted(Message message, long routingTimeNanos) {
+        if (message.isLatencyTraced()) {
+            record(Stage.STREAM_ROUTING, routingTimeNanos);
+        }
+    }
+
+    public void processed(Message message) {
+        if (message.isLatencyTraced()) {
+            record(Stage.PROCESSING, message.latencyCheckpoint(System.nanoTime()));
+        }
+    }
+
+    public void written(Iterable<Message> messages) {
+        long now = 0L;
+        for (Message message : messages) {
+            if (message.isLatencyTraced()) {
+                if (now == 0L) {
+                    now = System.nanoTime();
+                }
+                record(Stage.OUTPUT, message.latencyCheckpoint(now));
+                recordSince(Stage.END_TO_END, message.getLatencyReceivedAt());
+            }
+        }
+    }
+
+    private void recordSince(Stage stage, long timestampMillis) {
+        record(stage, TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis() - timestampMillis));
+    }
+
+    private void record(Stage stage, long nanos) {
+        // HdrHistogram drops values outside of its trackable range, which would hide the worst latencies.
+        // Wall clock based latencies can also be negative if the clocks of the nodes differ.
+        final long trackableNanos = Math.max(0L, Math.min(nanos, HIGHEST_TRACKABLE_NANOS));
+        timers.get(stage).update(trackableNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.rest;
+
+import org.glassfish.jersey.message.GZipEncoder;
+import org.glassfish.jersey.server.ContainerRequest;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.inject.Provider;
+import javax.ws.rs.Priorities;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link GZipEncoder} which leaves entities alone that a resource already compressed itself. Resources mark such
+ * responses by setting the {@link #PRECOMPRESSED_PROPERTY} request property to {@code true}.
+ */
+@Priority(Priorities.ENTITY_CODER)
+public class PrecompressedAwareGZipEncoder extends GZipEncoder {
+    public static final String PRECOMPRESSED_PROPERTY = "org.graylog2.rest.precompressed";
+
+    private final Provider<ContainerRequest> requestProvider;
+
+    @Inject
+    public PrecompressedAwareGZipEncoder(Provider<ContainerRequest> requestProvider) {
+        this.requestProvider = checkNotNull(requestProvider);
+    }
+
+    @Override
+    public OutputStream encode(String contentEncoding, OutputStream entityStream) throws IOException {
+        if (Boolean.TRUE.equals(requestProvider.get().getProperty(PRECOMPRESSED_PROPERTY))) {
+            return entityStream;
+        }
+
+        return super.encode(contentEncoding, entityStream);
+    }
+}
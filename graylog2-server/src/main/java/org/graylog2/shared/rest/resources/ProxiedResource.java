@@ -17,6 +17,7 @@
 
 package org.graylog2.shared.rest.resources;
 
+import com.github.joschi.jadconfig.util.Duration;
 import org.graylog2.cluster.Node;
 import org.graylog2.cluster.NodeNotFoundException;
 import org.graylog2.cluster.NodeService;
@@ -26,14 +27,22 @@ import org.slf4j.LoggerFactory;
 import retrofit2.Call;
 import retrofit2.Response;
 
+import javax.inject.Inject;
+import javax.inject.Named;
 import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public abstract class ProxiedResource extends RestResource {
     private static final Logger LOG = LoggerFactory.getLogger(ProxiedResource.class);
@@ -43,9 +52,28 @@ public abstract class ProxiedResource extends RestResource {
 
     protected final RemoteInterfaceProvider remoteInterfaceProvider;
 
+    private ExecutorService executor;
+    private Duration callTimeout;
+
+    /**
+     * @deprecated Use {@link #ProxiedResource(HttpHeaders, NodeService, RemoteInterfaceProvider, ExecutorService, Duration)}
+     * instead. Resources using this constructor get the shared proxied requests executor and the default call timeout
+     * injected after construction.
+     */
+    @Deprecated
     protected ProxiedResource(@Context HttpHeaders httpHeaders, NodeService nodeService, RemoteInterfaceProvider remoteInterfaceProvider) {
+        this(httpHeaders, nodeService, remoteInterfaceProvider, null, null);
+    }
+
+    protected ProxiedResource(@Context HttpHeaders httpHeaders,
+                              NodeService nodeService,
+                              RemoteInterfaceProvider remoteInterfaceProvider,
+                              ExecutorService executorService,
+                              Duration callTimeout) {
         this.nodeService = nodeService;
         this.remoteInterfaceProvider = remoteInterfaceProvider;
+        this.executor = executorService;
+        this.callTimeout = callTimeout;
         final List<String> authenticationTokens = httpHeaders.getRequestHeader("Authorization");
         if (authenticationTokens != null && authenticationTokens.size() >= 1) {
             this.authenticationToken = authenticationTokens.get(0);
@@ -54,33 +82,54 @@ public abstract class ProxiedResource extends RestResource {
         }
     }
 
+    @Inject
+    private void injectProxiedRequestDefaults(@Named("proxiedRequestsExecutorService") ExecutorService executorService,
+                                              @Named("proxied_requests_default_call_timeout") Duration callTimeout) {
+        if (this.executor == null) {
+            this.executor = executorService;
+        }
+        if (this.callTimeout == null) {
+            this.callTimeout = callTimeout;
+        }
+    }
+
     protected <RemoteInterfaceType, RemoteCallResponseType> Map<String, Optional<RemoteCallResponseType>> getForAllNodes(Function<RemoteInterfaceType,Call<RemoteCallResponseType>> fn, Function<String, Optional<RemoteInterfaceType>> interfaceProvider) {
         return getForAllNodes(fn, interfaceProvider, Function.identity());
     }
 
+    /**
+     * Calls all active nodes in parallel. Nodes which fail or do not answer within the configured call timeout are
+     * included with an empty result.
+     */
     protected <RemoteInterfaceType, FinalResponseType, RemoteCallResponseType> Map<String, Optional<FinalResponseType>> getForAllNodes(Function<RemoteInterfaceType, Call<RemoteCallResponseType>> fn, Function<String, Optional<RemoteInterfaceType>> interfaceProvider, Function<RemoteCallResponseType, FinalResponseType> transformer) {
-        return this.nodeService.allActive()
-            .entrySet()
-            .stream()
-            .collect(Collectors.toMap(Map.Entry::getKey, entry -> {
-                final Optional<RemoteInterfaceType> remoteInterface = interfaceProvider.apply(entry.getKey());
-                if (!remoteInterface.isPresent()) {
-                    return Optional.empty();
-                }
-                final Call<RemoteCallResponseType> call = fn.apply(remoteInterface.get());
-                try {
-                    final Response<RemoteCallResponseType> response = call.execute();
-                    if (response.isSuccessful()) {
-                        return Optional.of(transformer.apply(response.body()));
-                    } else {
-                        LOG.warn("Unable to call " + call.request().url().toString() + " on node <" + entry.getKey() + ">, result: " + response.message());
-                        return Optional.empty();
-                    }
-                } catch (IOException e) {
-                    LOG.warn("Unable to call " + call.request().url().toString() + " on node <" + entry.getKey() + ">, caught exception: {} ({})", e.getMessage(), e.getClass());
-                    return Optional.empty();
-                }
-            }));
+        final Map<String, NodeCall<RemoteInterfaceType, RemoteCallResponseType, FinalResponseType>> calls = new HashMap<>();
+        for (String nodeId : this.nodeService.allActive().keySet()) {
+            final NodeCall<RemoteInterfaceType, RemoteCallResponseType, FinalResponseType> nodeCall = new NodeCall<>(nodeId, fn, interfaceProvider, transformer);
+            nodeCall.future = executor.submit(nodeCall);
+            calls.put(nodeId, nodeCall);
+        }
+
+        final long deadline = System.nanoTime() + callTimeout.toNanoseconds();
+        final Map<String, Optional<FinalResponseType>> results = new HashMap<>(calls.size());
+        for (Map.Entry<String, NodeCall<RemoteInterfaceType, RemoteCallResponseType, FinalResponseType>> entry : calls.entrySet()) {
+            final NodeCall<RemoteInterfaceType, RemoteCallResponseType, FinalResponseType> nodeCall = entry.getValue();
+            try {
+                results.put(entry.getKey(), nodeCall.future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                LOG.warn("Node <{}> did not answer within {}, skipping it.", entry.getKey(), callTimeout);
+                nodeCall.cancel();
+                results.put(entry.getKey(), Optional.empty());
+            } catch (ExecutionException e) {
+                LOG.warn("Unable to call node <" + entry.getKey() + ">", e.getCause());
+                results.put(entry.getKey(), Optional.empty());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                nodeCall.cancel();
+                results.put(entry.getKey(), Optional.empty());
+            }
+        }
+
+        return results;
     }
 
     protected <RemoteInterfaceType> Function<String, Optional<RemoteInterfaceType>> createRemoteInterfaceProvider(Class<RemoteInterfaceType> interfaceClass) {
@@ -94,4 +143,55 @@ public abstract class ProxiedResource extends RestResource {
             }
         };
     }
+
+    private static class NodeCall<RemoteInterfaceType, RemoteCallResponseType, FinalResponseType> implements Callable<Optional<FinalResponseType>> {
+        private final String nodeId;
+        private final Function<RemoteInterfaceType, Call<RemoteCallResponseType>> fn;
+        private final Function<String, Optional<RemoteInterfaceType>> interfaceProvider;
+        private final Function<RemoteCallResponseType, FinalResponseType> transformer;
+        private volatile Call<RemoteCallResponseType> call;
+        private Future<Optional<FinalResponseType>> future;
+
+        NodeCall(String nodeId,
+                 Function<RemoteInterfaceType, Call<RemoteCallResponseType>> fn,
+                 Function<String, Optional<RemoteInterfaceType>> interfaceProvider,
+                 Function<RemoteCallResponseType, FinalResponseType> transformer) {
+            this.nodeId = nodeId;
+            this.fn = fn;
+            this.interfaceProvider = interfaceProvider;
+            this.transformer = transformer;
+        }
+
+        @Override
+        public Optional<FinalResponseType> call() {
+            final Optional<RemoteInterfaceType> remoteInterface = interfaceProvider.apply(nodeId);
+            if (!remoteInterface.isPresent()) {
+                return Optional.empty();
+            }
+            final Call<RemoteCallResponseType> call = fn.apply(remoteInterface.get());
+            this.call = call;
+            try {
+                final Response<RemoteCallResponseType> response = call.execute();
+                if (response.isSuccessful()) {
+                    return Optional.of(transformer.apply(response.body()));
+                } else {
+                    LOG.warn("Unable to call " + call.request().url().toString() + " on node <" + nodeId + ">, result: " + response.message());
+                    return Optional.empty();
+                }
+            } catch (IOException e) {
+                if (!call.isCanceled()) {
+                    LOG.warn("Unable to call " + call.request().url().toString() + " on node <" + nodeId + ">, caught exception: {} ({})", e.getMessage(), e.getClass());
+                }
+                return Optional.empty();
+            }
+        }
+
+        void cancel() {
+            future.cancel(false);
+            final Call<RemoteCallResponseType> call = this.call;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+    }
 }
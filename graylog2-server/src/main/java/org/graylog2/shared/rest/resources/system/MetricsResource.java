@@ -18,7 +18,11 @@ package org.graylog2.shared.rest.resources.system;
 
 import com.codahale.metrics.Metric;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.collect.Lists;
 import io.swagger.annotations.Api;
 import io.swagger.annotations.ApiOperation;
@@ -32,6 +36,9 @@ import org.graylog2.rest.models.system.metrics.requests.MetricsReadRequest;
 import org.graylog2.rest.models.system.metrics.responses.MetricNamesResponse;
 import org.graylog2.rest.models.system.metrics.responses.MetricsSummaryResponse;
 import org.graylog2.shared.metrics.MetricUtils;
+import org.graylog2.shared.metrics.MetricsSnapshot;
+import org.graylog2.shared.metrics.MetricsSnapshotService;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.graylog2.shared.rest.resources.RestResource;
 import org.graylog2.shared.security.RestPermissions;
 import org.slf4j.Logger;
@@ -46,9 +53,14 @@ import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.function.Predicate;
 
 @RequiresAuthentication
 @Api(value = "System/Metrics", description = "Internal Graylog metrics")
@@ -57,10 +69,16 @@ public class MetricsResource extends RestResource {
 
     private static final Logger LOG = LoggerFactory.getLogger(MetricsResource.class);
     private final MetricRegistry metricRegistry;
+    private final MetricsSnapshotService metricsSnapshotService;
+    private final PipelineLatencies pipelineLatencies;
 
     @Inject
-    public MetricsResource(MetricRegistry metricRegistry) {
+    public MetricsResource(MetricRegistry metricRegistry,
+                           MetricsSnapshotService metricsSnapshotService,
+                           PipelineLatencies pipelineLatencies) {
         this.metricRegistry = metricRegistry;
+        this.metricsSnapshotService = metricsSnapshotService;
+        this.pipelineLatencies = pipelineLatencies;
     }
 
     @GET
@@ -83,6 +101,21 @@ public class MetricsResource extends RestResource {
         return MetricNamesResponse.create(metricRegistry.getNames());
     }
 
+    @GET
+    @Timed
+    @Path("/latencies")
+    @ApiOperation(value = "Get the latency histograms of the message processing stages",
+            notes = "Only a sample of the messages is traced, see the message_latency_sample_rate setting.")
+    @RequiresPermissions(RestPermissions.METRICS_READALL)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Map<String, Object> latencies() {
+        final Map<String, Object> latencies = new LinkedHashMap<>();
+        for (Map.Entry<PipelineLatencies.Stage, Timer> entry : pipelineLatencies.getTimers().entrySet()) {
+            latencies.put(entry.getKey().name().toLowerCase(Locale.ENGLISH), MetricUtils.buildTimerMap(entry.getValue()));
+        }
+        return latencies;
+    }
+
     @GET
     @Timed
     @Path("/{metricName}")
@@ -95,7 +128,7 @@ public class MetricsResource extends RestResource {
                                @PathParam("metricName") String metricName) {
         checkPermission(RestPermissions.METRICS_READ, metricName);
 
-        final Metric metric = metricRegistry.getMetrics().get(metricName);
+        final Metric metric = metricsSnapshotService.get(metricName);
         if (metric == null) {
             final String msg = "I do not have a metric called [" + metricName + "].";
             LOG.debug(msg);
@@ -115,16 +148,15 @@ public class MetricsResource extends RestResource {
     @NoAuditEvent("only used to retrieve multiple metrics")
     public MetricsSummaryResponse multipleMetrics(@ApiParam(name = "Requested metrics", required = true)
                                   @Valid @NotNull MetricsReadRequest request) {
-        final Map<String, Metric> metrics = metricRegistry.getMetrics();
-
         final List<Map<String, Object>> metricsList = Lists.newArrayList();
+        final Predicate<String> permitted = metricReadPermission();
 
         for (String name : request.metrics()) {
-            if (!isPermitted(RestPermissions.METRICS_READ, name)) {
+            if (!permitted.test(name)) {
                 continue;
             }
 
-            final Metric metric = metrics.get(name);
+            final Metric metric = metricsSnapshotService.get(name);
             if (metric != null) {
                 metricsList.add(MetricUtils.map(name, metric));
             }
@@ -143,16 +175,13 @@ public class MetricsResource extends RestResource {
     @Produces(MediaType.APPLICATION_JSON)
     public MetricsSummaryResponse byNamespace(@ApiParam(name = "namespace", required = true)
                               @PathParam("namespace") String namespace) {
-        final List<Map<String, Object>> metrics = Lists.newArrayList();
-        for (Map.Entry<String, Metric> e : metricRegistry.getMetrics().entrySet()) {
-            final String metricName = e.getKey();
-            if (metricName.startsWith(namespace) && isPermitted(RestPermissions.METRICS_READ, metricName)) {
-                try {
-                    final Metric metric = e.getValue();
-                    metrics.add(MetricUtils.map(metricName, metric));
-                } catch (Exception ex) {
-                    LOG.warn("Could not read metric in namespace list.", ex);
-                }
+        final MetricsSnapshot snapshot = metricsSnapshotService.snapshot(namespace, 0L, metricReadPermission());
+        final List<Map<String, Object>> metrics = Lists.newArrayListWithCapacity(snapshot.metrics().size());
+        for (Map.Entry<String, Metric> e : snapshot.metrics().entrySet()) {
+            try {
+                metrics.add(MetricUtils.map(e.getKey(), e.getValue()));
+            } catch (Exception ex) {
+                LOG.warn("Could not read metric in namespace list.", ex);
             }
         }
 
@@ -164,4 +193,56 @@ public class MetricsResource extends RestResource {
 
         return MetricsSummaryResponse.create(metrics);
     }
+
+    @GET
+    @Timed
+    @Path("/namespace/{namespace}/snapshot")
+    @ApiOperation(value = "Get all metrics of a namespace, or only the ones which changed since an earlier snapshot",
+            notes = "Pass the version of the previous response as \"since\" to only receive added or changed metrics " +
+                    "and the names of removed metrics. Gauges, meters and timers are always included.")
+    @Produces(MediaType.APPLICATION_JSON)
+    public StreamingOutput snapshotByNamespace(@ApiParam(name = "namespace", required = true)
+                                               @PathParam("namespace") String namespace,
+                                               @ApiParam(name = "since", value = "Version of an earlier snapshot", required = false)
+                                               @QueryParam("since") long since) {
+        final MetricsSnapshot snapshot = metricsSnapshotService.snapshot(namespace, since, metricReadPermission());
+        final ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        return output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartObject();
+                generator.writeNumberField("version", snapshot.version());
+                generator.writeBooleanField("full", snapshot.full());
+                generator.writeNumberField("total", snapshot.metrics().size());
+                generator.writeArrayFieldStart("metrics");
+                for (Map.Entry<String, Metric> e : snapshot.metrics().entrySet()) {
+                    final Map<String, Object> metric;
+                    try {
+                        metric = MetricUtils.map(e.getKey(), e.getValue());
+                    } catch (Exception ex) {
+                        LOG.warn("Could not read metric in namespace snapshot.", ex);
+                        continue;
+                    }
+                    writer.writeValue(generator, metric);
+                }
+                generator.writeEndArray();
+                generator.writeArrayFieldStart("removed");
+                for (String name : snapshot.removed()) {
+                    generator.writeString(name);
+                }
+                generator.writeEndArray();
+                generator.writeEndObject();
+            }
+        };
+    }
+
+    /**
+     * Checks the instance permissions for every metric name only if the subject may not read all metrics anyway.
+     */
+    private Predicate<String> metricReadPermission() {
+        if (isPermitted(RestPermissions.METRICS_READ, "*")) {
+            return name -> true;
+        }
+        return name -> isPermitted(RestPermissions.METRICS_READ, name);
+    }
 }
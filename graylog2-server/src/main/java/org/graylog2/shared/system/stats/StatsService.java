@@ -16,6 +16,7 @@
  */
 package org.graylog2.shared.system.stats;
 
+import org.graylog2.plugin.Tools;
 import org.graylog2.shared.system.stats.fs.FsProbe;
 import org.graylog2.shared.system.stats.fs.FsStats;
 import org.graylog2.shared.system.stats.jvm.JvmProbe;
@@ -28,8 +29,14 @@ import org.graylog2.shared.system.stats.process.ProcessProbe;
 import org.graylog2.shared.system.stats.process.ProcessStats;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
+/**
+ * Serves system stats from memory. The probes (especially the SIGAR based ones) are slow and partly synchronized,
+ * so they are only called by {@link #sample()}, which runs periodically in the background. Until the first sample
+ * has been taken, the stats are probed on demand.
+ */
 @Singleton
 public class StatsService {
     private final FsProbe fsProbe;
@@ -37,41 +44,66 @@ public class StatsService {
     private final NetworkProbe networkProbe;
     private final OsProbe osProbe;
     private final ProcessProbe processProbe;
+    private final SystemStatsHistoryBuffer history;
+
+    private volatile SystemStats latest;
 
     @Inject
     public StatsService(FsProbe fsProbe,
                         JvmProbe jvmProbe,
                         NetworkProbe networkProbe,
                         OsProbe osProbe,
-                        ProcessProbe processProbe) {
+                        ProcessProbe processProbe,
+                        @Named("system_stats_history_size") int historySize) {
         this.fsProbe = fsProbe;
         this.jvmProbe = jvmProbe;
         this.networkProbe = networkProbe;
         this.osProbe = osProbe;
         this.processProbe = processProbe;
+        this.history = new SystemStatsHistoryBuffer(historySize);
+    }
+
+    /**
+     * Probes all subsystems, records the result in the history and makes it the current stats.
+     */
+    public synchronized SystemStats sample() {
+        final SystemStats stats = SystemStats.create(
+                fsProbe.fsStats(),
+                jvmProbe.jvmStats(),
+                networkProbe.networkStats(),
+                osProbe.osStats(),
+                processProbe.processStats());
+        history.add(Tools.nowUTC(), stats);
+        latest = stats;
+        return stats;
     }
 
     public FsStats fsStats() {
-        return fsProbe.fsStats();
+        return systemStats().fsStats();
     }
 
     public JvmStats jvmStats() {
-        return jvmProbe.jvmStats();
+        return systemStats().jvmStats();
     }
 
     public NetworkStats networkStats() {
-        return networkProbe.networkStats();
+        return systemStats().networkStats();
     }
 
     public OsStats osStats() {
-        return osProbe.osStats();
+        return systemStats().osStats();
     }
 
     public ProcessStats processStats() {
-        return processProbe.processStats();
+        return systemStats().processStats();
     }
 
     public SystemStats systemStats() {
-        return SystemStats.create(fsStats(), jvmStats(), networkStats(), osStats(), processStats());
+        final SystemStats stats = latest;
+        return stats == null ? sample() : stats;
+    }
+
+    public SystemStatsHistory history() {
+        return history.snapshot();
     }
 }
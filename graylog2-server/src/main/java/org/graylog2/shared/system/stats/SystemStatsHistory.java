@@ -0,0 +1,43 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.system.stats;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.auto.value.AutoValue;
+import org.joda.time.DateTime;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Short history of the most important system stats, oldest sample first. Every series has one value per timestamp,
+ * unknown values are reported as {@code -1}.
+ */
+@JsonAutoDetect
+@AutoValue
+public abstract class SystemStatsHistory {
+    @JsonProperty("timestamps")
+    public abstract List<DateTime> timestamps();
+
+    @JsonProperty("series")
+    public abstract Map<String, List<Long>> series();
+
+    public static SystemStatsHistory create(List<DateTime> timestamps, Map<String, List<Long>> series) {
+        return new AutoValue_SystemStatsHistory(timestamps, series);
+    }
+}
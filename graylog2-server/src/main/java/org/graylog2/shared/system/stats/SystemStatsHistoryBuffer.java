@@ -0,0 +1,135 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.system.stats;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Longs;
+import org.graylog2.shared.system.stats.network.NetworkStats;
+import org.graylog2.shared.system.stats.os.Processor;
+import org.graylog2.shared.system.stats.process.ProcessStats;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.List;
+
+/**
+ * Fixed-size ring buffer keeping the last samples of a few scalar values extracted from {@link SystemStats}.
+ * The network series hold the bytes transferred on the primary interface since the previous sample.
+ */
+class SystemStatsHistoryBuffer {
+    // Order must match the values written in add()
+    private static final String[] SERIES_NAMES = {
+            "process_cpu_percent",
+            "process_memory_resident",
+            "os_cpu_percent",
+            "os_memory_used_percent",
+            "network_rx_bytes",
+            "network_tx_bytes"
+    };
+
+    private final long[] timestamps;
+    private final long[][] values;
+    private int next = 0;
+    private int size = 0;
+    private long lastRxBytes = -1L;
+    private long lastTxBytes = -1L;
+
+    SystemStatsHistoryBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("History capacity must be positive but was " + capacity);
+        }
+        this.timestamps = new long[capacity];
+        this.values = new long[SERIES_NAMES.length][capacity];
+    }
+
+    synchronized void add(DateTime timestamp, SystemStats stats) {
+        timestamps[next] = timestamp.getMillis();
+        values[0][next] = processCpuPercent(stats);
+        values[1][next] = processMemoryResident(stats);
+        values[2][next] = osCpuPercent(stats);
+        values[3][next] = stats.osStats().memory().usedPercent();
+        final long rxBytes = primaryInterfaceBytes(stats, true);
+        final long txBytes = primaryInterfaceBytes(stats, false);
+        values[4][next] = delta(lastRxBytes, rxBytes);
+        values[5][next] = delta(lastTxBytes, txBytes);
+        lastRxBytes = rxBytes;
+        lastTxBytes = txBytes;
+        next = (next + 1) % timestamps.length;
+        size = Math.min(size + 1, timestamps.length);
+    }
+
+    synchronized SystemStatsHistory snapshot() {
+        final ImmutableList.Builder<DateTime> timestampList = ImmutableList.builder();
+        for (long timestamp : ordered(timestamps)) {
+            timestampList.add(new DateTime(timestamp, DateTimeZone.UTC));
+        }
+
+        final ImmutableMap.Builder<String, List<Long>> series = ImmutableMap.builder();
+        for (int i = 0; i < SERIES_NAMES.length; i++) {
+            series.put(SERIES_NAMES[i], Longs.asList(ordered(values[i])));
+        }
+
+        return SystemStatsHistory.create(timestampList.build(), series.build());
+    }
+
+    private long[] ordered(long[] ring) {
+        final int start = (next - size + ring.length) % ring.length;
+        final long[] result = new long[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = ring[(start + i) % ring.length];
+        }
+        return result;
+    }
+
+    // The interface counters are cumulative, a counter going backwards has been reset (e. g. interface restart).
+    private static long delta(long previous, long current) {
+        if (previous < 0 || current < previous) {
+            return -1L;
+        }
+        return current - previous;
+    }
+
+    private static long processCpuPercent(SystemStats stats) {
+        final ProcessStats.Cpu cpu = stats.processStats().cpu();
+        return cpu == null ? -1L : cpu.percent();
+    }
+
+    private static long processMemoryResident(SystemStats stats) {
+        final ProcessStats.Memory memory = stats.processStats().memory();
+        return memory == null ? -1L : memory.resident();
+    }
+
+    private static long osCpuPercent(SystemStats stats) {
+        final Processor processor = stats.osStats().processor();
+        if (processor.sys() < 0 || processor.user() < 0) {
+            return -1L;
+        }
+        return processor.sys() + processor.user();
+    }
+
+    private static long primaryInterfaceBytes(SystemStats stats, boolean received) {
+        final NetworkStats networkStats = stats.networkStats();
+        final String primaryInterface = networkStats.primaryInterface();
+        final NetworkStats.Interface networkInterface = primaryInterface == null ? null : networkStats.interfaces().get(primaryInterface);
+        final NetworkStats.InterfaceStats interfaceStats = networkInterface == null ? null : networkInterface.interfaceStats();
+        if (interfaceStats == null) {
+            return -1L;
+        }
+        return received ? interfaceStats.rxBytes() : interfaceStats.txBytes();
+    }
+}
@@ -22,6 +22,7 @@ import org.graylog2.plugin.database.ValidationException;
 import org.graylog2.plugin.streams.Output;
 import org.graylog2.rest.models.streams.outputs.requests.CreateOutputRequest;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 
@@ -31,6 +32,11 @@ public interface OutputService {
 
     Set<Output> loadAll();
 
+    /**
+     * @return the outputs with the given IDs, loaded with a single query. Unknown IDs are skipped.
+     */
+    Set<Output> loadByIds(Collection<String> ids);
+
     Output create(Output request) throws ValidationException;
 
     Output create(CreateOutputRequest request, String userId) throws ValidationException;
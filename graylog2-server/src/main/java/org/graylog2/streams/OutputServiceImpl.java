@@ -37,6 +37,8 @@ import org.mongojack.JacksonDBCollection;
 import org.mongojack.WriteResult;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -75,6 +77,16 @@ public class OutputServiceImpl implements OutputService {
         return toAbstractSetType(coll.find().toArray());
     }
 
+    @Override
+    public Set<Output> loadByIds(Collection<String> ids) {
+        final List<ObjectId> objectIds = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            objectIds.add(new ObjectId(id));
+        }
+
+        return toAbstractSetType(coll.find(DBQuery.in(OutputImpl.FIELD_ID, objectIds)).toArray());
+    }
+
     private Set<Output> toAbstractSetType(List<OutputImpl> outputs) {
         final Set<Output> result = Sets.newHashSet();
         result.addAll(outputs);
@@ -0,0 +1,89 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.streams;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Counts events in a ring of per-second buckets without locking.
+ * <p>
+ * Every bucket stores the second it belongs to in the upper and the number of events in the lower 32 bits of a
+ * single {@code long}, so a bucket can be claimed for a new second and incremented with one compare-and-set.
+ */
+class SlidingWindowCounter {
+    private static final long COUNT_MASK = 0xFFFFFFFFL;
+
+    private final AtomicLongArray buckets;
+
+    SlidingWindowCounter(int seconds) {
+        checkArgument(seconds > 0, "Number of buckets must be positive");
+        this.buckets = new AtomicLongArray(seconds);
+    }
+
+    /**
+     * Counts an event in the given second. Events older than the window of this counter are dropped.
+     */
+    void increment(long second) {
+        final int index = index(second);
+        while (true) {
+            final long bucket = buckets.get(index);
+            final long bucketSecond = second(bucket);
+            final long updated;
+            if (bucketSecond == second) {
+                updated = bucket + 1L;
+            } else if (bucketSecond < second) {
+                updated = bucket(second, 1L);
+            } else {
+                return;
+            }
+
+            if (buckets.compareAndSet(index, bucket, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of events counted from {@code fromSecond} (inclusive) to {@code toSecond} (exclusive),
+     * only seconds which are still within the window of this counter are taken into account
+     */
+    long sum(long fromSecond, long toSecond) {
+        long sum = 0L;
+        for (int i = 0; i < buckets.length(); i++) {
+            final long bucket = buckets.get(i);
+            final long bucketSecond = second(bucket);
+            if (bucketSecond >= fromSecond && bucketSecond < toSecond) {
+                sum += bucket & COUNT_MASK;
+            }
+        }
+        return sum;
+    }
+
+    private int index(long second) {
+        return (int) (second % buckets.length());
+    }
+
+    private static long bucket(long second, long count) {
+        return (second << 32) | count;
+    }
+
+    private static long second(long bucket) {
+        return bucket >>> 32;
+    }
+}
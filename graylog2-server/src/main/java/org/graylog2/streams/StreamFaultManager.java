@@ -91,8 +91,8 @@ public class StreamFaultManager {
     }
 
     private AtomicInteger getFaultCount(final Stream stream) {
-        faultCounter.putIfAbsent(stream.getId(), new AtomicInteger());
-        return faultCounter.get(stream.getId());
+        final AtomicInteger faultCount = faultCounter.get(stream.getId());
+        return faultCount != null ? faultCount : faultCounter.computeIfAbsent(stream.getId(), id -> new AtomicInteger());
     }
 
 }
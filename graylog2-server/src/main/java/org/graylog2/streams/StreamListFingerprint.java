@@ -18,6 +18,7 @@
 package org.graylog2.streams;
 
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.codec.digest.DigestUtils;
@@ -31,6 +32,8 @@ import java.util.Comparator;
 import java.util.List;
 
 public class StreamListFingerprint {
+    static final Comparator<String> ID_ORDER = StreamListFingerprint::comparisonResult;
+
     private final String fingerprint;
 
     public StreamListFingerprint(List<Stream> streams) {
@@ -42,50 +45,67 @@ public class StreamListFingerprint {
     }
 
     private String buildFingerprint(List<Stream> streams) {
+        final List<String> streamFingerprints = Lists.newArrayListWithCapacity(streams.size());
+        for (Stream stream : Ordering.from(getStreamComparator()).sortedCopy(streams)) {
+            streamFingerprints.add(streamFingerprint(stream));
+        }
+        return fromStreamFingerprints(streamFingerprints);
+    }
+
+    /**
+     * Builds the fingerprint of a stream list from the fingerprints of its streams ordered by {@link #ID_ORDER}.
+     */
+    static String fromStreamFingerprints(Iterable<String> streamFingerprints) {
         final MessageDigest sha1Digest = DigestUtils.getSha1Digest();
 
         final StringBuilder sb = new StringBuilder();
-        for (Stream stream : Ordering.from(getStreamComparator()).sortedCopy(streams)) {
-            sb.append(stream.hashCode());
-
-            for (StreamRule rule : Ordering.from(getStreamRuleComparator()).sortedCopy(stream.getStreamRules())) {
-                sb.append(rule.hashCode());
-            }
-            for (Output output : Ordering.from(getOutputComparator()).sortedCopy(stream.getOutputs())) {
-                sb.append(output.hashCode());
-            }
+        for (String streamFingerprint : streamFingerprints) {
+            sb.append(streamFingerprint);
         }
         return String.valueOf(Hex.encodeHex(sha1Digest.digest(sb.toString().getBytes(StandardCharsets.US_ASCII))));
     }
 
-    private Comparator<Output> getOutputComparator() {
+    static String streamFingerprint(Stream stream) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(stream.hashCode());
+
+        for (StreamRule rule : Ordering.from(getStreamRuleComparator()).sortedCopy(stream.getStreamRules())) {
+            sb.append(rule.hashCode());
+        }
+        for (Output output : Ordering.from(getOutputComparator()).sortedCopy(stream.getOutputs())) {
+            sb.append(output.hashCode());
+        }
+        return sb.toString();
+    }
+
+    private static Comparator<Output> getOutputComparator() {
         return new Comparator<Output>() {
             @Override
             public int compare(Output output1, Output stream2) {
-                return comparisonResult(output1.getId(), stream2.getId());
+                return ID_ORDER.compare(output1.getId(), stream2.getId());
             }
         };
     }
 
-    private Comparator<Stream> getStreamComparator() {
+    private static Comparator<Stream> getStreamComparator() {
         return new Comparator<Stream>() {
             @Override
             public int compare(Stream stream1, Stream stream2) {
-                return comparisonResult(stream1.getId(), stream2.getId());
+                return ID_ORDER.compare(stream1.getId(), stream2.getId());
             }
         };
     }
 
-    private Comparator<StreamRule> getStreamRuleComparator() {
+    private static Comparator<StreamRule> getStreamRuleComparator() {
         return new Comparator<StreamRule>() {
                 @Override
                 public int compare(StreamRule rule1, StreamRule rule2) {
-                    return comparisonResult(rule1.getId(), rule2.getId());
+                    return ID_ORDER.compare(rule1.getId(), rule2.getId());
                 }
             };
     }
 
-    private int comparisonResult(String id1, String id2) {
+    private static int comparisonResult(String id1, String id2) {
         return ComparisonChain.start()
                 .compare(id1, id2, String.CASE_INSENSITIVE_ORDER)
                 .compare(id1, id2)
@@ -0,0 +1,131 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.streams;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.BasicDBObjectBuilder;
+import com.mongodb.DBCollection;
+import com.mongodb.DBCursor;
+import com.mongodb.DBObject;
+import org.graylog2.database.MongoConnection;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stores the stream message counts of all nodes, one document per node and publishing interval, and the time since
+ * which each node has been counting.
+ */
+@Singleton
+public class StreamMessageCountService {
+    static final String COLLECTION_NAME = "stream_message_counts";
+    static final String NODES_COLLECTION_NAME = "stream_message_counts_nodes";
+    private static final String FIELD_NODE_ID = "node_id";
+    private static final String FIELD_FROM = "from";
+    private static final String FIELD_TO = "to";
+    private static final String FIELD_COUNTS = "counts";
+    private static final String FIELD_ID = "_id";
+    private static final String FIELD_COUNTING_SINCE = "counting_since";
+
+    private final DBCollection collection;
+    private final DBCollection nodesCollection;
+
+    @Inject
+    public StreamMessageCountService(MongoConnection mongoConnection,
+                                     @Named("stream_message_counts_enabled") boolean enabled) {
+        this.collection = mongoConnection.getDatabase().getCollection(COLLECTION_NAME);
+        this.nodesCollection = mongoConnection.getDatabase().getCollection(NODES_COLLECTION_NAME);
+        if (enabled) {
+            this.collection.createIndex(new BasicDBObject(FIELD_FROM, 1));
+        }
+    }
+
+    /**
+     * Records that the given node counts all messages since the given time. Messages the node has processed before,
+     * e. g. before a restart, may be missing from the stored counts.
+     */
+    public void markCountingSince(String nodeId, DateTime since) {
+        nodesCollection.update(new BasicDBObject(FIELD_ID, nodeId),
+                new BasicDBObject("$set", new BasicDBObject(FIELD_COUNTING_SINCE, since.toDate())),
+                true, false);
+    }
+
+    /**
+     * @return the time since which the stored counts of all nodes are complete, or {@code null} if no node has been
+     * counting yet
+     */
+    @Nullable
+    public DateTime countingSince() {
+        try (DBCursor cursor = nodesCollection.find().sort(new BasicDBObject(FIELD_COUNTING_SINCE, -1)).limit(1)) {
+            if (!cursor.hasNext()) {
+                return null;
+            }
+            final Date since = (Date) cursor.next().get(FIELD_COUNTING_SINCE);
+            return since == null ? null : new DateTime(since, DateTimeZone.UTC);
+        }
+    }
+
+    public void save(String nodeId, DateTime from, DateTime to, Map<String, Long> counts) {
+        final DBObject document = BasicDBObjectBuilder.start()
+                .add(FIELD_NODE_ID, nodeId)
+                .add(FIELD_FROM, from.toDate())
+                .add(FIELD_TO, to.toDate())
+                .add(FIELD_COUNTS, new BasicDBObject(counts))
+                .get();
+        collection.insert(document);
+    }
+
+    /**
+     * Sums up the counts of all nodes for the given streams in the intervals which started at or after {@code since}.
+     *
+     * @return the number of messages by stream ID, streams without any messages are included with a count of 0
+     */
+    public Map<String, Long> sum(Set<String> streamIds, DateTime since) {
+        final BasicDBObject fields = new BasicDBObject();
+        final Map<String, Long> sums = new HashMap<>(streamIds.size());
+        for (String streamId : streamIds) {
+            fields.append(FIELD_COUNTS + "." + streamId, 1);
+            sums.put(streamId, 0L);
+        }
+
+        final DBObject query = new BasicDBObject(FIELD_FROM, new BasicDBObject("$gte", since.toDate()));
+        try (DBCursor cursor = collection.find(query, fields)) {
+            for (DBObject document : cursor) {
+                final DBObject counts = (DBObject) document.get(FIELD_COUNTS);
+                if (counts == null) {
+                    continue;
+                }
+                for (String streamId : counts.keySet()) {
+                    sums.merge(streamId, ((Number) counts.get(streamId)).longValue(), Long::sum);
+                }
+            }
+        }
+        return sums;
+    }
+
+    public int removeOlderThan(DateTime time) {
+        return collection.remove(new BasicDBObject(FIELD_TO, new BasicDBObject("$lt", time.toDate()))).getN();
+    }
+}
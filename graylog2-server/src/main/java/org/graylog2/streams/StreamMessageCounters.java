@@ -0,0 +1,90 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.streams;
+
+import org.joda.time.DateTimeUtils;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Counts the messages routed into each stream on this node per second.
+ */
+@Singleton
+public class StreamMessageCounters {
+    // Has to cover a couple of publishing intervals of StreamMessageCountsPeriodical.
+    static final int WINDOW_SECONDS = 300;
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, SlidingWindowCounter> counters = new ConcurrentHashMap<>();
+
+    @Inject
+    public StreamMessageCounters(@Named("stream_message_counts_enabled") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public void increment(String streamId) {
+        if (!enabled) {
+            return;
+        }
+        counter(streamId).increment(currentSecond());
+    }
+
+    /**
+     * @return the counter of the given stream to be incremented directly, or {@code null} if counting is disabled
+     */
+    @Nullable
+    SlidingWindowCounter counter(String streamId) {
+        if (!enabled) {
+            return null;
+        }
+        final SlidingWindowCounter counter = counters.get(streamId);
+        return counter != null ? counter : counters.computeIfAbsent(streamId, id -> new SlidingWindowCounter(WINDOW_SECONDS));
+    }
+
+    /**
+     * Removes the counter of a deleted stream.
+     */
+    public void remove(String streamId) {
+        counters.remove(streamId);
+    }
+
+    /**
+     * @return the number of messages by stream ID counted from {@code fromSecond} (inclusive) to {@code toSecond}
+     * (exclusive), streams without messages in that time are omitted
+     */
+    public Map<String, Long> counts(long fromSecond, long toSecond) {
+        final Map<String, Long> counts = new HashMap<>();
+        for (Map.Entry<String, SlidingWindowCounter> entry : counters.entrySet()) {
+            final long count = entry.getValue().sum(fromSecond, toSecond);
+            if (count > 0L) {
+                counts.put(entry.getKey(), count);
+            }
+        }
+        return counts;
+    }
+
+    public static long currentSecond() {
+        return DateTimeUtils.currentTimeMillis() / 1000L;
+    }
+}
@@ -18,94 +18,65 @@
 package org.graylog2.streams;
 
 import com.codahale.metrics.Meter;
-import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
-import com.google.common.collect.Maps;
-import javax.inject.Inject;
 import org.graylog2.plugin.streams.Stream;
 import org.graylog2.plugin.streams.StreamRule;
+import org.graylog2.shared.metrics.EntityMetricGroups;
+import org.graylog2.shared.metrics.EntityMetrics;
 
-import java.util.Map;
+import javax.inject.Inject;
 
-public class StreamMetrics {
-    private final MetricRegistry metricRegistry;
+import static com.codahale.metrics.MetricRegistry.name;
 
-    private final Map<String, Meter> streamIncomingMeters = Maps.newHashMap();
-    private final Map<String, Timer> streamExecutionTimers = Maps.newHashMap();
-    private final Map<String, Meter> streamExceptionMeters = Maps.newHashMap();
-    private final Map<String, Meter> streamRuleTimeoutMeters = Maps.newHashMap();
-    private final Map<String, Meter> streamFaultsExceededMeters = Maps.newHashMap();
+/**
+ * Per-stream and per-stream rule metrics. The metrics are grouped by entity so they can be removed when streams or
+ * stream rules are deleted, see {@link StreamMetricsCleanupListener}.
+ * <p>
+ * Looking up a metric involves map lookups, so code on the message path should resolve the metrics it needs once
+ * and keep the returned objects, like {@link StreamRouterEngine} does when it compiles the stream rules.
+ */
+public class StreamMetrics {
+    static final String STREAMS = "streams";
+    static final String STREAM_RULES = "stream_rules";
 
+    private final EntityMetricGroups streamMetrics;
+    private final EntityMetricGroups streamRuleMetrics;
 
     @Inject
-    public StreamMetrics(final MetricRegistry metricRegistry) {
-        this.metricRegistry = metricRegistry;
+    public StreamMetrics(final EntityMetrics entityMetrics) {
+        this.streamMetrics = entityMetrics.groups(STREAMS);
+        this.streamRuleMetrics = entityMetrics.groups(STREAM_RULES);
+    }
+
+    public Meter getIncomingMeter(String streamId) {
+        return getStreamMeter(streamId, "incomingMessages");
     }
 
     public void markIncomingMeter(String streamId) {
         getIncomingMeter(streamId).mark();
     }
 
-    public Timer getExecutionTimer(String streamRuleId) {
-        Timer timer = this.streamExecutionTimers.get(streamRuleId);
-        if (timer == null) {
-            timer = metricRegistry.timer(MetricRegistry.name(StreamRule.class, streamRuleId, "executionTime"));
-            this.streamExecutionTimers.put(streamRuleId, timer);
-        }
-
-        return timer;
+    public Timer getExecutionTimer(String streamId, String streamRuleId) {
+        return streamRuleMetrics.group(streamRuleId, streamId, id -> name(StreamRule.class, id)).timer("executionTime");
     }
 
+    public Meter getExceptionMeter(String streamId) {
+        return getStreamMeter(streamId, "matchingExceptions");
+    }
 
     public void markExceptionMeter(String streamId) {
         getExceptionMeter(streamId).mark();
     }
 
     public void markStreamRuleTimeout(String streamId) {
-        getStreamRuleTimeoutMeter(streamId).mark();
+        getStreamMeter(streamId, "ruleTimeouts").mark();
     }
 
     public void markStreamFaultsExceeded(String streamId) {
-        getStreamFaultsExceededMeter(streamId).mark();
+        getStreamMeter(streamId, "faultsExceeded").mark();
     }
 
-    private Meter getIncomingMeter(String streamId) {
-        Meter meter = this.streamIncomingMeters.get(streamId);
-        if (meter == null) {
-            meter = metricRegistry.meter(MetricRegistry.name(Stream.class, streamId, "incomingMessages"));
-            this.streamIncomingMeters.put(streamId, meter);
-        }
-
-        return meter;
-    }
-
-    private Meter getExceptionMeter(String streamId) {
-        Meter meter = this.streamExceptionMeters.get(streamId);
-        if (meter == null) {
-            meter = metricRegistry.meter(MetricRegistry.name(Stream.class, streamId, "matchingExceptions"));
-            this.streamExceptionMeters.put(streamId, meter);
-        }
-
-        return meter;
-    }
-
-    private Meter getStreamRuleTimeoutMeter(final String streamId) {
-        Meter meter = this.streamRuleTimeoutMeters.get(streamId);
-        if (meter == null) {
-            meter = metricRegistry.meter(MetricRegistry.name(Stream.class, streamId, "ruleTimeouts"));
-            this.streamRuleTimeoutMeters.put(streamId, meter);
-        }
-
-        return meter;
-    }
-
-    private Meter getStreamFaultsExceededMeter(final String streamId) {
-        Meter meter = this.streamFaultsExceededMeters.get(streamId);
-        if (meter == null) {
-            meter = metricRegistry.meter(MetricRegistry.name(Stream.class, streamId, "faultsExceeded"));
-            this.streamFaultsExceededMeters.put(streamId, meter);
-        }
-
-        return meter;
+    private Meter getStreamMeter(String streamId, String metricName) {
+        return streamMetrics.group(streamId, id -> name(Stream.class, id)).meter(metricName);
     }
 }
@@ -0,0 +1,82 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.streams;
+
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import org.graylog2.plugin.streams.StreamRule;
+import org.graylog2.shared.metrics.EntityMetricGroups;
+import org.graylog2.shared.metrics.EntityMetrics;
+import org.graylog2.streams.events.StreamDeletedEvent;
+import org.graylog2.streams.events.StreamsChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Removes the metrics of deleted streams and stream rules, see {@link StreamMetrics}, and the message counters of
+ * deleted streams, see {@link StreamMessageCounters}.
+ */
+public class StreamMetricsCleanupListener {
+    private static final Logger LOG = LoggerFactory.getLogger(StreamMetricsCleanupListener.class);
+
+    private final EntityMetricGroups streamMetrics;
+    private final EntityMetricGroups streamRuleMetrics;
+    private final StreamRuleService streamRuleService;
+    private final StreamMessageCounters streamMessageCounters;
+
+    @Inject
+    public StreamMetricsCleanupListener(EventBus serverEventBus,
+                                        EntityMetrics entityMetrics,
+                                        StreamRuleService streamRuleService,
+                                        StreamMessageCounters streamMessageCounters) {
+        this.streamMetrics = entityMetrics.groups(StreamMetrics.STREAMS);
+        this.streamRuleMetrics = entityMetrics.groups(StreamMetrics.STREAM_RULES);
+        this.streamRuleService = streamRuleService;
+        this.streamMessageCounters = streamMessageCounters;
+        serverEventBus.register(this);
+    }
+
+    @Subscribe
+    @SuppressWarnings("unused")
+    public void removeMetricsOfDeletedStream(StreamDeletedEvent event) {
+        final String streamId = event.streamId();
+        LOG.debug("Removing metrics of deleted stream <{}>", streamId);
+        streamMetrics.remove(streamId);
+        streamRuleMetrics.removeIf(group -> streamId.equals(group.parentId()));
+        streamMessageCounters.remove(streamId);
+    }
+
+    @Subscribe
+    @SuppressWarnings("unused")
+    public void removeMetricsOfDeletedStreamRules(StreamsChangedEvent event) {
+        final Collection<String> streamIds = event.streamIds();
+        final Map<String, List<StreamRule>> rules = streamRuleService.loadForStreamIds(streamIds);
+        final Set<String> ruleIds = rules.values().stream()
+                .flatMap(List::stream)
+                .map(StreamRule::getId)
+                .collect(Collectors.toSet());
+
+        streamRuleMetrics.removeIf(group -> streamIds.contains(group.parentId()) && !ruleIds.contains(group.entityId()));
+    }
+}
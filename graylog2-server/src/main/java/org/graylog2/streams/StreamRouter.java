@@ -28,11 +28,16 @@ import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -40,6 +45,8 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public class StreamRouter {
     private static final Logger LOG = LoggerFactory.getLogger(StreamRouter.class);
+    // safety net in case a StreamsChangedEvent has been lost
+    private static final long FULL_RELOAD_INTERVAL_MINUTES = 5L;
 
     protected final StreamService streamService;
     private final ServerStatus serverStatus;
@@ -60,6 +67,7 @@ public class StreamRouter {
 
         this.engineUpdater = new StreamRouterEngineUpdater(routerEngine, routerEngineFactory, streamService, executorService());
         this.routerEngine.set(engineUpdater.getNewEngine());
+        scheduler.scheduleWithFixedDelay(engineUpdater::reloadAll, FULL_RELOAD_INTERVAL_MINUTES, FULL_RELOAD_INTERVAL_MINUTES, TimeUnit.MINUTES);
 
         // TODO: This class needs lifecycle management to avoid leaking objects in the EventBus
         serverEventBus.register(this);
@@ -68,6 +76,7 @@ public class StreamRouter {
     @Subscribe
     @SuppressWarnings("unused")
     public void handleStreamsUpdate(StreamsChangedEvent event) {
+        engineUpdater.streamsChanged(event.streamIds());
         scheduler.submit(engineUpdater);
     }
 
@@ -87,11 +96,17 @@ public class StreamRouter {
         return engine.match(msg);
     }
 
+    /**
+     * Only reloads the streams which have been changed and hands them to the current engine, which reuses the
+     * compiled rules of all other streams. {@link #reloadAll()} periodically compares the fingerprint of all enabled
+     * streams with the current engine and replaces the engine if they differ.
+     */
     private static class StreamRouterEngineUpdater implements Runnable {
         private final AtomicReference<StreamRouterEngine> routerEngine;
         private final StreamRouterEngine.Factory engineFactory;
         private final StreamService streamService;
         private final ExecutorService executorService;
+        private final Set<String> changedStreamIds = ConcurrentHashMap.newKeySet();
 
         public StreamRouterEngineUpdater(AtomicReference<StreamRouterEngine> routerEngine,
                                          StreamRouterEngine.Factory engineFactory,
@@ -103,10 +118,21 @@ public class StreamRouter {
             this.executorService = executorService;
         }
 
+        public void streamsChanged(Set<String> streamIds) {
+            changedStreamIds.addAll(streamIds);
+        }
+
         @Override
-        public void run() {
+        public synchronized void run() {
+            final Set<String> changed = new HashSet<>(changedStreamIds);
+            if (changed.isEmpty()) {
+                LOG.debug("Not updating router engine, changes have already been applied.");
+                return;
+            }
+            changedStreamIds.removeAll(changed);
+
             try {
-                final StreamRouterEngine engine = getNewEngine();
+                final StreamRouterEngine engine = routerEngine.get().withChangedStreams(changed, reloadStreams(changed));
 
                 if (engine.getFingerprint().equals(routerEngine.get().getFingerprint())) {
                     LOG.debug("Not updating router engine, streams did not change (fingerprint={})", engine.getFingerprint());
@@ -116,11 +142,41 @@ public class StreamRouter {
                     routerEngine.set(engine);
                 }
             } catch (Exception e) {
+                // try again with the next update
+                changedStreamIds.addAll(changed);
                 LOG.error("Stream router engine update failed!", e);
             }
         }
 
-        private StreamRouterEngine getNewEngine() {
+        public synchronized void reloadAll() {
+            try {
+                final List<Stream> streams = streamService.loadAllEnabled();
+                final String fingerprint = new StreamListFingerprint(streams).getFingerprint();
+                if (fingerprint.equals(routerEngine.get().getFingerprint())) {
+                    LOG.debug("Stream router engine is up to date (fingerprint={})", fingerprint);
+                    return;
+                }
+
+                LOG.info("Streams have changed without notification, replacing stream router engine. (old-fingerprint={} new-fingerprint={})",
+                        routerEngine.get().getFingerprint(), fingerprint);
+                routerEngine.set(engineFactory.create(streams, executorService));
+            } catch (Exception e) {
+                LOG.error("Stream router engine reload failed!", e);
+            }
+        }
+
+        private List<Stream> reloadStreams(Set<String> changed) {
+            final List<Stream> reloaded = new ArrayList<>(changed.size());
+            for (Stream stream : streamService.loadByIds(changed)) {
+                if (!Boolean.TRUE.equals(stream.getDisabled())) {
+                    reloaded.add(stream);
+                }
+            }
+            LOG.debug("Reloaded {} of {} changed streams.", reloaded.size(), changed.size());
+            return reloaded;
+        }
+
+        private synchronized StreamRouterEngine getNewEngine() {
             return engineFactory.create(streamService.loadAllEnabled(), executorService);
         }
     }
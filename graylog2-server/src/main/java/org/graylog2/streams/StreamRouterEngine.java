@@ -17,11 +17,13 @@
 
 package org.graylog2.streams;
 
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.TimeLimiter;
 import com.google.common.util.concurrent.UncheckedTimeoutException;
@@ -36,7 +38,10 @@ import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.util.Collection;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -52,15 +57,22 @@ import java.util.concurrent.TimeUnit;
 public class StreamRouterEngine {
     private static final Logger LOG = LoggerFactory.getLogger(StreamRouterEngine.class);
 
+    // Matching state flags of a stream, see match()
+    private static final byte MATCHED = 1;
+    private static final byte BLACKLISTED = 1 << 1;
+
     private final EnumSet<StreamRuleType> ruleTypesNotNeedingFieldPresence = EnumSet.of(StreamRuleType.PRESENCE, StreamRuleType.EXACT, StreamRuleType.REGEX);
     private final List<Stream> streams;
     private final StreamFaultManager streamFaultManager;
     private final StreamMetrics streamMetrics;
+    private final StreamMessageCounters streamMessageCounters;
     private final TimeLimiter timeLimiter;
     private final long streamProcessingTimeout;
     private final String fingerprint;
 
-    private final List<Rule> rulesList;
+    private final ImmutableMap<String, List<Rule>> rulesByStream;
+    private final ImmutableSortedMap<String, String> streamFingerprints;
+    private final CompiledStreams compiledStreams;
 
     public interface Factory {
         StreamRouterEngine create(List<Stream> streams, ExecutorService executorService);
@@ -70,30 +82,95 @@ public class StreamRouterEngine {
     public StreamRouterEngine(@Assisted List<Stream> streams,
                               @Assisted ExecutorService executorService,
                               StreamFaultManager streamFaultManager,
-                              StreamMetrics streamMetrics) {
+                              StreamMetrics streamMetrics,
+                              StreamMessageCounters streamMessageCounters) {
         this.streams = streams;
         this.streamFaultManager = streamFaultManager;
         this.streamMetrics = streamMetrics;
+        this.streamMessageCounters = streamMessageCounters;
         this.timeLimiter = new SimpleTimeLimiter(executorService);
         this.streamProcessingTimeout = streamFaultManager.getStreamProcessingTimeout();
-        this.fingerprint = new StreamListFingerprint(streams).getFingerprint();
 
+        final ImmutableMap.Builder<String, List<Rule>> rules = ImmutableMap.builder();
+        final ImmutableSortedMap.Builder<String, String> fingerprints = ImmutableSortedMap.orderedBy(StreamListFingerprint.ID_ORDER);
+        for (Stream stream : streams) {
+            rules.put(stream.getId(), compileRules(stream));
+            fingerprints.put(stream.getId(), StreamListFingerprint.streamFingerprint(stream));
+        }
+        this.rulesByStream = rules.build();
+        this.streamFingerprints = fingerprints.build();
+        this.fingerprint = StreamListFingerprint.fromStreamFingerprints(streamFingerprints.values());
+        this.compiledStreams = new CompiledStreams(streams, sortedRules(rulesByStream.values()), streamMetrics, streamMessageCounters);
+    }
+
+    /**
+     * Creates a copy of the given engine in which only the changed streams are replaced.
+     */
+    private StreamRouterEngine(StreamRouterEngine engine, Set<String> changedStreamIds, Collection<Stream> changedStreams) {
+        this.streamFaultManager = engine.streamFaultManager;
+        this.streamMetrics = engine.streamMetrics;
+        this.streamMessageCounters = engine.streamMessageCounters;
+        this.timeLimiter = engine.timeLimiter;
+        this.streamProcessingTimeout = streamFaultManager.getStreamProcessingTimeout();
+
+        final Map<String, Stream> updatedStreams = new LinkedHashMap<>();
+        final Map<String, List<Rule>> updatedRules = new LinkedHashMap<>();
+        for (Stream stream : engine.streams) {
+            if (!changedStreamIds.contains(stream.getId())) {
+                updatedStreams.put(stream.getId(), stream);
+                updatedRules.put(stream.getId(), engine.rulesByStream.get(stream.getId()));
+            }
+        }
+        final Map<String, String> updatedFingerprints = new HashMap<>(engine.streamFingerprints);
+        updatedFingerprints.keySet().removeAll(changedStreamIds);
+
+        for (Stream stream : changedStreams) {
+            updatedStreams.put(stream.getId(), stream);
+            updatedRules.put(stream.getId(), compileRules(stream));
+            updatedFingerprints.put(stream.getId(), StreamListFingerprint.streamFingerprint(stream));
+        }
+
+        this.streams = ImmutableList.copyOf(updatedStreams.values());
+        this.rulesByStream = ImmutableMap.copyOf(updatedRules);
+        this.streamFingerprints = ImmutableSortedMap.copyOf(updatedFingerprints, StreamListFingerprint.ID_ORDER);
+        this.fingerprint = StreamListFingerprint.fromStreamFingerprints(streamFingerprints.values());
+        this.compiledStreams = new CompiledStreams(streams, sortedRules(rulesByStream.values()), streamMetrics, streamMessageCounters);
+    }
+
+    /**
+     * Returns a new engine in which the streams with the given IDs are replaced by the given streams. The rules of
+     * all other streams are taken over from this engine without compiling them again.
+     *
+     * @param changedStreamIds IDs of all added, changed and removed streams
+     * @param changedStreams   the current state of all added and changed streams
+     * @return the updated engine
+     */
+    public StreamRouterEngine withChangedStreams(Set<String> changedStreamIds, Collection<Stream> changedStreams) {
+        return new StreamRouterEngine(this, changedStreamIds, changedStreams);
+    }
+
+    private List<Rule> compileRules(Stream stream) {
+        final List<Rule> rules = Lists.newArrayListWithCapacity(stream.getStreamRules().size());
+        for (StreamRule streamRule : stream.getStreamRules()) {
+            try {
+                rules.add(new Rule(stream, streamRule, stream.getMatchingType(), streamMetrics, timeLimiter, streamFaultManager));
+            } catch (InvalidStreamRuleTypeException e) {
+                LOG.warn("Invalid stream rule type. Skipping matching for this rule. " + e.getMessage(), e);
+            }
+        }
+        return ImmutableList.copyOf(rules);
+    }
+
+    private static List<Rule> sortedRules(Collection<List<Rule>> rulesOfStreams) {
         final List<Rule> presenceRules = Lists.newArrayList();
         final List<Rule> exactRules = Lists.newArrayList();
         final List<Rule> greaterRules = Lists.newArrayList();
         final List<Rule> smallerRules = Lists.newArrayList();
         final List<Rule> regexRules = Lists.newArrayList();
 
-        for (Stream stream : streams) {
-            for (StreamRule streamRule : stream.getStreamRules()) {
-                final Rule rule;
-                try {
-                    rule = new Rule(stream, streamRule, stream.getMatchingType());
-                } catch (InvalidStreamRuleTypeException e) {
-                    LOG.warn("Invalid stream rule type. Skipping matching for this rule. " + e.getMessage(), e);
-                    continue;
-                }
-                switch (streamRule.getType()) {
+        for (List<Rule> rules : rulesOfStreams) {
+            for (Rule rule : rules) {
+                switch (rule.getStreamRule().getType()) {
                     case PRESENCE:
                         presenceRules.add(rule);
                         break;
@@ -114,12 +191,13 @@ public class StreamRouterEngine {
         }
 
         final int size = presenceRules.size() + exactRules.size() + greaterRules.size() + smallerRules.size() + regexRules.size();
-        this.rulesList = Lists.newArrayListWithCapacity(size);
-        this.rulesList.addAll(presenceRules);
-        this.rulesList.addAll(exactRules);
-        this.rulesList.addAll(greaterRules);
-        this.rulesList.addAll(smallerRules);
-        this.rulesList.addAll(regexRules);
+        final List<Rule> rulesList = Lists.newArrayListWithCapacity(size);
+        rulesList.addAll(presenceRules);
+        rulesList.addAll(exactRules);
+        rulesList.addAll(greaterRules);
+        rulesList.addAll(smallerRules);
+        rulesList.addAll(regexRules);
+        return rulesList;
     }
 
     /**
@@ -147,23 +225,25 @@ public class StreamRouterEngine {
      * @return the list of matching streams
      */
     public List<Stream> match(Message message) {
-        final Set<Stream> result = Sets.newHashSet();
-        final Set<Stream> blackList = Sets.newHashSet();
+        final CompiledStreams compiled = compiledStreams;
+        // matching state of each stream, indexed like compiled.streams
+        final byte[] states = new byte[compiled.streams.length];
 
-        for (final Rule rule : rulesList) {
-            if (blackList.contains(rule.getStream())) {
+        for (int i = 0; i < compiled.rules.length; i++) {
+            final int streamIndex = compiled.ruleStreamIndexes[i];
+            if ((states[streamIndex] & BLACKLISTED) != 0) {
                 continue;
             }
 
+            final Rule rule = compiled.rules[i];
             final StreamRule streamRule = rule.getStreamRule();
             final StreamRuleType streamRuleType = streamRule.getType();
             final Stream.MatchingType matchingType = rule.getMatchingType();
             if (!ruleTypesNotNeedingFieldPresence.contains(streamRuleType)
                 && !message.hasField(streamRule.getField())) {
                 if (matchingType == Stream.MatchingType.AND) {
-                    result.remove(rule.getStream());
                     // blacklist stream because it can't match anymore
-                    blackList.add(rule.getStream());
+                    states[streamIndex] = BLACKLISTED;
                 }
 
                 continue;
@@ -178,24 +258,36 @@ public class StreamRouterEngine {
 
             if (stream == null) {
                 if (matchingType == Stream.MatchingType.AND) {
-                    result.remove(rule.getStream());
                     // blacklist stream because it can't match anymore
-                    blackList.add(rule.getStream());
+                    states[streamIndex] = BLACKLISTED;
                 }
             } else {
-                result.add(stream);
+                states[streamIndex] |= MATCHED;
                 if (matchingType == Stream.MatchingType.OR) {
                     // blacklist stream because it is already matched
-                    blackList.add(rule.getStream());
+                    states[streamIndex] |= BLACKLISTED;
                 }
             }
         }
 
-        for (Stream stream : result) {
-            streamMetrics.markIncomingMeter(stream.getId());
+        final ImmutableList.Builder<Stream> result = ImmutableList.builder();
+        long currentSecond = -1L;
+        for (int streamIndex = 0; streamIndex < states.length; streamIndex++) {
+            if ((states[streamIndex] & MATCHED) == 0) {
+                continue;
+            }
+            result.add(compiled.streams[streamIndex]);
+            compiled.incomingMeters[streamIndex].mark();
+            final SlidingWindowCounter messageCounter = compiled.messageCounters[streamIndex];
+            if (messageCounter != null) {
+                if (currentSecond < 0L) {
+                    currentSecond = StreamMessageCounters.currentSecond();
+                }
+                messageCounter.increment(currentSecond);
+            }
         }
 
-        return ImmutableList.copyOf(result);
+        return result.build();
     }
 
     /**
@@ -212,7 +304,7 @@ public class StreamRouterEngine {
 
             for (final StreamRule streamRule : stream.getStreamRules()) {
                 try {
-                    final Rule rule = new Rule(stream, streamRule, stream.getMatchingType());
+                    final Rule rule = new Rule(stream, streamRule, stream.getMatchingType(), streamMetrics, timeLimiter, streamFaultManager);
                     match.addRule(rule);
                 } catch (InvalidStreamRuleTypeException e) {
                     LOG.warn("Invalid stream rule type. Skipping matching for this rule. " + e.getMessage(), e);
@@ -227,17 +319,34 @@ public class StreamRouterEngine {
         return matches;
     }
 
-    private class Rule {
+    /**
+     * A compiled stream rule. Rules are taken over into updated engines, so they must not reference the engine which
+     * created them.
+     */
+    private static class Rule {
         private final Stream stream;
         private final StreamRule rule;
         private final StreamRuleMatcher matcher;
         private final Stream.MatchingType matchingType;
-
-        public Rule(Stream stream, StreamRule rule, Stream.MatchingType matchingType) throws InvalidStreamRuleTypeException {
+        private final TimeLimiter timeLimiter;
+        private final StreamFaultManager streamFaultManager;
+        private final Timer executionTimer;
+        private final Meter exceptionMeter;
+
+        public Rule(Stream stream,
+                    StreamRule rule,
+                    Stream.MatchingType matchingType,
+                    StreamMetrics streamMetrics,
+                    TimeLimiter timeLimiter,
+                    StreamFaultManager streamFaultManager) throws InvalidStreamRuleTypeException {
             this.stream = stream;
             this.rule = rule;
             this.matchingType = matchingType;
+            this.timeLimiter = timeLimiter;
+            this.streamFaultManager = streamFaultManager;
             this.matcher = StreamRuleMatcherFactory.build(rule.getType());
+            this.executionTimer = streamMetrics.getExecutionTimer(rule.getStreamId(), rule.getId());
+            this.exceptionMeter = streamMetrics.getExceptionMeter(rule.getStreamId());
         }
 
         public Stream.MatchingType getMatchingType() {
@@ -247,7 +356,7 @@ public class StreamRouterEngine {
         @Nullable
         public Stream match(Message message) {
             // TODO Add missing message recordings!
-            try (final Timer.Context ignored = streamMetrics.getExecutionTimer(rule.getId()).time()) {
+            try (final Timer.Context ignored = executionTimer.time()) {
                 if (matcher.match(message, rule)) {
                     return stream;
                 } else {
@@ -257,7 +366,7 @@ public class StreamRouterEngine {
                 if (LOG.isDebugEnabled()) {
                     LOG.debug("Error matching stream rule <" + rule.getType() + "/" + rule.getValue() + ">: " + e.getMessage(), e);
                 }
-                streamMetrics.markExceptionMeter(rule.getStreamId());
+                exceptionMeter.mark();
                 return null;
             }
         }
@@ -265,7 +374,7 @@ public class StreamRouterEngine {
         @Nullable
         private Stream matchWithTimeOut(final Message message, long timeout, TimeUnit unit) {
             Stream matchedStream = null;
-            try (final Timer.Context ignored = streamMetrics.getExecutionTimer(rule.getId()).time()) {
+            try (final Timer.Context ignored = executionTimer.time()) {
                 matchedStream = timeLimiter.callWithTimeout(new Callable<Stream>() {
                     @Override
                     @Nullable
@@ -277,7 +386,7 @@ public class StreamRouterEngine {
                 streamFaultManager.registerFailure(stream);
             } catch (Exception e) {
                 LOG.warn("Unexpected error during stream matching", e);
-                streamMetrics.markExceptionMeter(rule.getStreamId());
+                exceptionMeter.mark();
             }
 
             return matchedStream;
@@ -292,6 +401,42 @@ public class StreamRouterEngine {
         }
     }
 
+    /**
+     * The streams and rules of an engine in array form. Each stream gets an index when the engine is built and its
+     * metrics and counters are resolved once, so matching a message only needs array accesses.
+     */
+    private static class CompiledStreams {
+        private final Stream[] streams;
+        private final Meter[] incomingMeters;
+        private final SlidingWindowCounter[] messageCounters;
+        private final Rule[] rules;
+        private final int[] ruleStreamIndexes;
+
+        private CompiledStreams(List<Stream> streamList,
+                                List<Rule> sortedRules,
+                                StreamMetrics streamMetrics,
+                                StreamMessageCounters streamMessageCounters) {
+            final int streamCount = streamList.size();
+            final Map<String, Integer> streamIndexes = Maps.newHashMapWithExpectedSize(streamCount);
+            streams = new Stream[streamCount];
+            incomingMeters = new Meter[streamCount];
+            messageCounters = new SlidingWindowCounter[streamCount];
+            for (int i = 0; i < streamCount; i++) {
+                final Stream stream = streamList.get(i);
+                streams[i] = stream;
+                incomingMeters[i] = streamMetrics.getIncomingMeter(stream.getId());
+                messageCounters[i] = streamMessageCounters.counter(stream.getId());
+                streamIndexes.put(stream.getId(), i);
+            }
+
+            rules = sortedRules.toArray(new Rule[sortedRules.size()]);
+            ruleStreamIndexes = new int[rules.length];
+            for (int i = 0; i < rules.length; i++) {
+                ruleStreamIndexes[i] = streamIndexes.get(rules[i].getStream().getId());
+            }
+        }
+    }
+
     /**
      * Contains matching results for a stream. This is useful for testing to see if a stream matches and which
      * rules matched.
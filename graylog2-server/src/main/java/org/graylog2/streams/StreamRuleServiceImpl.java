@@ -30,6 +30,7 @@ import org.graylog2.rest.resources.streams.rules.requests.CreateStreamRuleReques
 
 import javax.inject.Inject;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -83,7 +84,28 @@ public class StreamRuleServiceImpl extends PersistedServiceImpl implements Strea
         );
 
         for (DBObject streamRule : respStreamRules) {
-            streamRules.add(load(streamRule.get("_id").toString()));
+            streamRules.add(new StreamRuleImpl((ObjectId) streamRule.get("_id"), streamRule.toMap()));
+        }
+
+        return streamRules;
+    }
+
+    @Override
+    public Map<String, List<StreamRule>> loadForStreamIds(Collection<String> streamIds) {
+        final List<ObjectId> objectIds = new ArrayList<>(streamIds.size());
+        for (String streamId : streamIds) {
+            objectIds.add(new ObjectId(streamId));
+        }
+
+        final List<DBObject> respStreamRules = query(StreamRuleImpl.class,
+                new BasicDBObject(StreamRuleImpl.FIELD_STREAM_ID, new BasicDBObject("$in", objectIds))
+        );
+
+        final Map<String, List<StreamRule>> streamRules = new HashMap<>(streamIds.size());
+        for (DBObject streamRule : respStreamRules) {
+            final String streamId = streamRule.get(StreamRuleImpl.FIELD_STREAM_ID).toString();
+            streamRules.computeIfAbsent(streamId, k -> new ArrayList<>())
+                    .add(new StreamRuleImpl((ObjectId) streamRule.get("_id"), streamRule.toMap()));
         }
 
         return streamRules;
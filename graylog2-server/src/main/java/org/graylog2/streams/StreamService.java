@@ -25,6 +25,7 @@ import org.graylog2.plugin.streams.Stream;
 import org.graylog2.plugin.streams.StreamRule;
 import org.graylog2.rest.resources.streams.requests.CreateStreamRequest;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -37,10 +38,22 @@ public interface StreamService extends PersistedService {
 
     void destroy(Stream stream) throws NotFoundException;
 
+    /**
+     * Loads all streams from the database. The stream rules and outputs of all streams are loaded with one query each.
+     * Only {@link StreamRouter} keeps a snapshot of the enabled streams, all other callers read the current state.
+     */
     List<Stream> loadAll();
 
+    /**
+     * Loads all enabled streams from the database, see {@link #loadAll()}.
+     */
     List<Stream> loadAllEnabled();
 
+    /**
+     * @return the streams with the given IDs, unknown IDs are skipped
+     */
+    List<Stream> loadByIds(Collection<String> streamIds);
+
     /**
      * @return the total number of streams
      */
@@ -52,6 +65,9 @@ public interface StreamService extends PersistedService {
 
     List<StreamRule> getStreamRules(Stream stream) throws NotFoundException;
 
+    /**
+     * Loads all streams with alert conditions from the database, see {@link #loadAll()}.
+     */
     List<Stream> loadAllWithConfiguredAlertConditions();
 
     List<AlertCondition> getAlertConditions(Stream stream);
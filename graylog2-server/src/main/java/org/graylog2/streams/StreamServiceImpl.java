@@ -40,6 +40,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -128,8 +130,6 @@ public class StreamServiceImpl extends PersistedServiceImpl implements StreamSer
 
     @SuppressWarnings("unchecked")
     public List<Stream> loadAll(Map<String, Object> additionalQueryOpts) {
-        List<Stream> streams = Lists.newArrayList();
-
         DBObject query = new BasicDBObject();
 
         // putAll() is not working with BasicDBObject.
@@ -137,19 +137,48 @@ public class StreamServiceImpl extends PersistedServiceImpl implements StreamSer
             query.put(o.getKey(), o.getValue());
         }
 
-        List<DBObject> results = query(StreamImpl.class, query);
+        return loadStreams(query(StreamImpl.class, query));
+    }
+
+    @Override
+    public List<Stream> loadByIds(Collection<String> streamIds) {
+        final List<ObjectId> objectIds = new ArrayList<>(streamIds.size());
+        for (String streamId : streamIds) {
+            objectIds.add(new ObjectId(streamId));
+        }
+
+        return loadStreams(query(StreamImpl.class, new BasicDBObject("_id", new BasicDBObject("$in", objectIds))));
+    }
+
+    /**
+     * Loads the stream rules and outputs of all given streams with one query each instead of one query per stream.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Stream> loadStreams(List<DBObject> results) {
+        if (results.isEmpty()) {
+            return Lists.newArrayList();
+        }
+
+        final List<String> streamIds = new ArrayList<>(results.size());
+        final Set<String> outputIds = new HashSet<>();
         for (DBObject o : results) {
-            String id = o.get("_id").toString();
-            List<StreamRule> streamRules = null;
-            try {
-                streamRules = streamRuleService.loadForStreamId(id);
-            } catch (NotFoundException e) {
-                LOG.info("Exception while loading stream rules: " + e);
-            }
+            streamIds.add(o.get("_id").toString());
+            outputIds.addAll(outputIdsOfRawStream(o));
+        }
 
-            final Set<Output> outputs = loadOutputsForRawStream(o);
+        final Map<String, List<StreamRule>> streamRules = streamRuleService.loadForStreamIds(streamIds);
+        final Map<String, Output> outputs = new HashMap<>(outputIds.size());
+        if (!outputIds.isEmpty()) {
+            for (Output output : outputService.loadByIds(outputIds)) {
+                outputs.put(output.getId(), output);
+            }
+        }
 
-            streams.add(new StreamImpl((ObjectId) o.get("_id"), o.toMap(), streamRules, outputs));
+        final List<Stream> streams = new ArrayList<>(results.size());
+        for (DBObject o : results) {
+            final String id = o.get("_id").toString();
+            final List<StreamRule> rules = streamRules.getOrDefault(id, new ArrayList<>());
+            streams.add(new StreamImpl((ObjectId) o.get("_id"), o.toMap(), rules, outputsForRawStream(o, outputs)));
         }
 
         return streams;
@@ -165,16 +194,44 @@ public class StreamServiceImpl extends PersistedServiceImpl implements StreamSer
     }
 
     protected Set<Output> loadOutputsForRawStream(DBObject stream) {
-        List<ObjectId> outputIds = (List<ObjectId>) stream.get(StreamImpl.FIELD_OUTPUTS);
+        final List<String> outputIds = outputIdsOfRawStream(stream);
+        if (outputIds.isEmpty()) {
+            return new HashSet<>();
+        }
 
-        Set<Output> result = new HashSet<>();
-        if (outputIds != null)
-            for (ObjectId outputId : outputIds)
-                try {
-                    result.add(outputService.load(outputId.toHexString()));
-                } catch (NotFoundException e) {
-                    LOG.warn("Non-existing output <{}> referenced from stream <{}>!", outputId.toHexString(), stream.get("_id"));
-                }
+        final Map<String, Output> outputs = new HashMap<>(outputIds.size());
+        for (Output output : outputService.loadByIds(outputIds)) {
+            outputs.put(output.getId(), output);
+        }
+
+        return outputsForRawStream(stream, outputs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> outputIdsOfRawStream(DBObject stream) {
+        final List<ObjectId> outputIds = (List<ObjectId>) stream.get(StreamImpl.FIELD_OUTPUTS);
+        if (outputIds == null) {
+            return Collections.emptyList();
+        }
+
+        final List<String> result = new ArrayList<>(outputIds.size());
+        for (ObjectId outputId : outputIds) {
+            result.add(outputId.toHexString());
+        }
+
+        return result;
+    }
+
+    private Set<Output> outputsForRawStream(DBObject stream, Map<String, Output> outputs) {
+        final Set<Output> result = new HashSet<>();
+        for (String outputId : outputIdsOfRawStream(stream)) {
+            final Output output = outputs.get(outputId);
+            if (output == null) {
+                LOG.warn("Non-existing output <{}> referenced from stream <{}>!", outputId, stream.get("_id"));
+            } else {
+                result.add(output);
+            }
+        }
 
         return result;
     }
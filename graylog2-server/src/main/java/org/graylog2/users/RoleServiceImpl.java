@@ -25,10 +25,12 @@ import org.bson.types.ObjectId;
 import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.database.NotFoundException;
+import org.graylog2.events.ClusterEventBus;
 import org.graylog2.plugin.database.ValidationException;
 import org.graylog2.shared.security.Permissions;
 import org.graylog2.shared.users.Role;
 import org.graylog2.shared.users.Roles;
+import org.graylog2.users.events.RoleChangedEvent;
 import org.mongojack.DBCursor;
 import org.mongojack.DBQuery;
 import org.mongojack.JacksonDBCollection;
@@ -61,6 +63,7 @@ public class RoleServiceImpl implements RoleService {
 
     private final JacksonDBCollection<RoleImpl, ObjectId> dbCollection;
     private final Validator validator;
+    private final ClusterEventBus clusterEventBus;
     private final String adminRoleObjectId;
     private final String readerRoleObjectId;
 
@@ -68,8 +71,10 @@ public class RoleServiceImpl implements RoleService {
     protected RoleServiceImpl(MongoConnection mongoConnection,
                               MongoJackObjectMapperProvider mapper,
                               Permissions permissions,
-                              Validator validator) {
+                              Validator validator,
+                              ClusterEventBus clusterEventBus) {
         this.validator = validator;
+        this.clusterEventBus = clusterEventBus;
 
         dbCollection = JacksonDBCollection.wrap(
                 mongoConnection.getDatabase().getCollection(ROLES),
@@ -187,6 +192,7 @@ public class RoleServiceImpl implements RoleService {
             throw new ValidationException("Validation failed.", violations.toString());
         }
         final WriteResult<RoleImpl, ObjectId> writeResult = dbCollection.save(role);
+        clusterEventBus.post(RoleChangedEvent.create(role.getName()));
         return writeResult.getSavedObject();
     }
 
@@ -198,7 +204,11 @@ public class RoleServiceImpl implements RoleService {
     @Override
     public int delete(String roleName) {
         final DBQuery.Query nameMatchesAndNotReadonly = and(is(READ_ONLY, false), is(NAME_LOWER, roleName.toLowerCase(Locale.ENGLISH)));
-        return dbCollection.remove(nameMatchesAndNotReadonly).getN();
+        final int deleted = dbCollection.remove(nameMatchesAndNotReadonly).getN();
+        if (deleted > 0) {
+            clusterEventBus.post(RoleChangedEvent.create(roleName));
+        }
+        return deleted;
     }
 
     @Override
@@ -31,6 +31,7 @@ import org.graylog2.Configuration;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.database.NotFoundException;
 import org.graylog2.database.PersistedServiceImpl;
+import org.graylog2.events.ClusterEventBus;
 import org.graylog2.plugin.database.Persisted;
 import org.graylog2.plugin.database.ValidationException;
 import org.graylog2.plugin.database.users.User;
@@ -38,6 +39,7 @@ import org.graylog2.security.InMemoryRolePermissionResolver;
 import org.graylog2.shared.users.Role;
 import org.graylog2.shared.users.Roles;
 import org.graylog2.shared.users.UserService;
+import org.graylog2.users.events.UserChangedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -58,18 +60,21 @@ public class UserServiceImpl extends PersistedServiceImpl implements UserService
     private final RoleService roleService;
     private final UserImpl.Factory userFactory;
     private final InMemoryRolePermissionResolver inMemoryRolePermissionResolver;
+    private final ClusterEventBus clusterEventBus;
 
     @Inject
     public UserServiceImpl(final MongoConnection mongoConnection,
                            final Configuration configuration,
                            final RoleService roleService,
                            final UserImpl.Factory userFactory,
-                           final InMemoryRolePermissionResolver inMemoryRolePermissionResolver) {
+                           final InMemoryRolePermissionResolver inMemoryRolePermissionResolver,
+                           final ClusterEventBus clusterEventBus) {
         super(mongoConnection);
         this.configuration = configuration;
         this.roleService = roleService;
         this.userFactory = userFactory;
         this.inMemoryRolePermissionResolver = inMemoryRolePermissionResolver;
+        this.clusterEventBus = clusterEventBus;
 
         // ensure that the users' roles array is indexed
         collection(UserImpl.class).createIndex(UserImpl.ROLES);
@@ -117,6 +122,9 @@ public class UserServiceImpl extends PersistedServiceImpl implements UserService
         if (result > 1) {
             LOG.warn("Removed {} users matching username \"{}\".", result, username);
         }
+        if (result > 0) {
+            clusterEventBus.post(UserChangedEvent.create(username));
+        }
 
         return result;
     }
@@ -145,7 +153,11 @@ public class UserServiceImpl extends PersistedServiceImpl implements UserService
             throw new IllegalStateException("Cannot modify local root user, this is a bug.");
         }
 
-        return super.save(model);
+        final String id = super.save(model);
+        if (model instanceof User) {
+            clusterEventBus.post(UserChangedEvent.create(((User) model).getName()));
+        }
+        return id;
     }
 
     @Override
@@ -0,0 +1,102 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.web.resources;
+
+import com.google.common.hash.Hashing;
+
+import javax.annotation.Nullable;
+import javax.ws.rs.core.EntityTag;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The content of a web interface asset together with everything needed to serve it, so assets are only read, hashed
+ * and compressed once.
+ */
+final class WebAsset {
+    // the compressed variant is only kept if it saves at least 10% of the size
+    private static final double MAX_COMPRESSION_RATIO = 0.9;
+
+    private final byte[] content;
+    private final byte[] gzippedContent;
+    private final EntityTag entityTag;
+    private final EntityTag gzippedEntityTag;
+    private final Date lastModified;
+    private final String contentType;
+
+    private WebAsset(byte[] content, @Nullable byte[] gzippedContent, String hash, Date lastModified, String contentType) {
+        this.content = content;
+        this.gzippedContent = gzippedContent;
+        this.entityTag = new EntityTag(hash);
+        this.gzippedEntityTag = new EntityTag(hash + "-gzip");
+        this.lastModified = lastModified;
+        this.contentType = contentType;
+    }
+
+    static WebAsset create(byte[] content, Date lastModified, String contentType) {
+        final String hash = Hashing.sha256().hashBytes(content).toString();
+        final byte[] gzippedContent = gzip(content);
+        return new WebAsset(content,
+                gzippedContent.length < content.length * MAX_COMPRESSION_RATIO ? gzippedContent : null,
+                hash, lastModified, contentType);
+    }
+
+    private static byte[] gzip(byte[] content) {
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream(content.length / 2);
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+            gzipOutputStream.write(content);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return outputStream.toByteArray();
+    }
+
+    byte[] content() {
+        return content;
+    }
+
+    /**
+     * @return the gzip compressed content or {@code null} if the content does not compress well
+     */
+    @Nullable
+    byte[] gzippedContent() {
+        return gzippedContent;
+    }
+
+    EntityTag entityTag() {
+        return entityTag;
+    }
+
+    EntityTag gzippedEntityTag() {
+        return gzippedEntityTag;
+    }
+
+    Date lastModified() {
+        return lastModified;
+    }
+
+    String contentType() {
+        return contentType;
+    }
+
+    int size() {
+        return content.length + (gzippedContent == null ? 0 : gzippedContent.length);
+    }
+}
@@ -16,20 +16,22 @@
  */
 package org.graylog2.web.resources;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.hash.HashCode;
-import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
 import org.glassfish.jersey.server.ContainerRequest;
 import org.graylog2.plugin.Plugin;
+import org.graylog2.shared.rest.PrecompressedAwareGZipEncoder;
 import org.graylog2.web.IndexHtmlGenerator;
 import org.graylog2.web.PluginAssets;
 
 import javax.activation.MimetypesFileTypeMap;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Singleton;
 import javax.ws.rs.GET;
@@ -41,14 +43,11 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
-import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriBuilder;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -64,15 +63,19 @@ import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 import static com.google.common.base.MoreObjects.firstNonNull;
+import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.Objects.requireNonNull;
 
 @Singleton
 @Path("")
 public class WebInterfaceAssetsResource {
+    private static final long MAX_CACHED_ASSET_BYTES = 256L * 1024L * 1024L;
+
     private final MimetypesFileTypeMap mimeTypes;
     private final IndexHtmlGenerator indexHtmlGenerator;
     private final Set<Plugin> plugins;
     private final LoadingCache<URI, FileSystem> fileSystemCache;
+    private final Cache<String, WebAsset> assetCache;
 
     @Inject
     public WebInterfaceAssetsResource(IndexHtmlGenerator indexHtmlGenerator, Set<Plugin> plugins, MimetypesFileTypeMap mimeTypes) {
@@ -95,11 +98,15 @@ public class WebInterfaceAssetsResource {
                         }
                     }
                 });
+        assetCache = CacheBuilder.newBuilder()
+                .maximumWeight(MAX_CACHED_ASSET_BYTES)
+                .weigher((String key, WebAsset asset) -> asset.size())
+                .build();
     }
 
     @Path("assets/plugin/{plugin}/{filename}")
     @GET
-    public Response get(@Context Request request,
+    public Response get(@Context ContainerRequest request,
                         @PathParam("plugin") String pluginName,
                         @PathParam("filename") String filename) {
         final Plugin plugin = getPluginForName(pluginName)
@@ -119,7 +126,7 @@ public class WebInterfaceAssetsResource {
 
     @Path("assets/{filename: .*}")
     @GET
-    public Response get(@Context Request request,
+    public Response get(@Context ContainerRequest request,
                         @PathParam("filename") String filename) {
         if (filename == null || filename.isEmpty() || filename.equals("/") || filename.equals("index.html")) {
             return getDefaultResponse();
@@ -148,18 +155,66 @@ public class WebInterfaceAssetsResource {
         return Response.temporaryRedirect(redirect).build();
     }
 
-    private Response getResponse(Request request, String filename,
+    private Response getResponse(ContainerRequest request, String filename,
                                  URL resourceUrl, boolean fromPlugin) throws IOException, URISyntaxException {
+        final WebAsset asset = getAsset(filename, resourceUrl, fromPlugin);
+        final boolean gzipped = asset.gzippedContent() != null && acceptsGzip(request.getHeaderString(HttpHeaders.ACCEPT_ENCODING));
+        final EntityTag entityTag = gzipped ? asset.gzippedEntityTag() : asset.entityTag();
+
+        final Response.ResponseBuilder response = request.evaluatePreconditions(asset.lastModified(), entityTag);
+        if (response != null) {
+            return response.build();
+        }
+
+        final CacheControl cacheControl = new CacheControl();
+        cacheControl.setMaxAge((int) TimeUnit.DAYS.toSeconds(365));
+        cacheControl.setNoCache(false);
+        cacheControl.setPrivate(false);
+        final Response.ResponseBuilder builder = Response
+                .ok(gzipped ? asset.gzippedContent() : asset.content())
+                .header(HttpHeaders.CONTENT_TYPE, asset.contentType())
+                .tag(entityTag)
+                .cacheControl(cacheControl)
+                .lastModified(asset.lastModified());
+
+        if (asset.gzippedContent() != null) {
+            builder.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (gzipped) {
+            request.setProperty(PrecompressedAwareGZipEncoder.PRECOMPRESSED_PROPERTY, true);
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return builder.build();
+    }
+
+    private WebAsset getAsset(String filename, URL resourceUrl, boolean fromPlugin) throws IOException, URISyntaxException {
+        final String cacheKey = resourceUrl.toString();
+        final WebAsset cachedAsset = assetCache.getIfPresent(cacheKey);
+        if (cachedAsset != null && !isModified(cachedAsset, resourceUrl)) {
+            return cachedAsset;
+        }
+
+        final WebAsset asset = loadAsset(filename, resourceUrl, fromPlugin);
+        assetCache.put(cacheKey, asset);
+        return asset;
+    }
+
+    private boolean isModified(WebAsset asset, URL resourceUrl) throws URISyntaxException {
+        // assets in JAR files cannot change, local files can change during development
+        return "file".equals(resourceUrl.getProtocol())
+                && new File(resourceUrl.toURI()).lastModified() != asset.lastModified().getTime();
+    }
+
+    private WebAsset loadAsset(String filename, URL resourceUrl, boolean fromPlugin) throws IOException, URISyntaxException {
         final Date lastModified;
-        final InputStream stream;
-        final HashCode hashCode;
+        final byte[] content;
 
         switch (resourceUrl.getProtocol()) {
             case "file":
                 final File file = new File(resourceUrl.toURI());
                 lastModified = new Date(file.lastModified());
-                stream = new FileInputStream(file);
-                hashCode = Files.hash(file, Hashing.sha256());
+                content = Files.toByteArray(file);
                 break;
             case "jar":
                 final URI uri = resourceUrl.toURI();
@@ -167,32 +222,41 @@ public class WebInterfaceAssetsResource {
                 final java.nio.file.Path path = fileSystem.getPath(pluginPrefixFilename(fromPlugin, filename));
                 final FileTime lastModifiedTime = java.nio.file.Files.getLastModifiedTime(path);
                 lastModified = new Date(lastModifiedTime.toMillis());
-                stream = resourceUrl.openStream();
-                hashCode = Resources.asByteSource(resourceUrl).hash(Hashing.sha256());
+                content = Resources.toByteArray(resourceUrl);
                 break;
             default:
                 throw new IllegalArgumentException("Not a JAR or local file: " + resourceUrl);
         }
 
-        final EntityTag entityTag = new EntityTag(hashCode.toString());
+        final String contentType = firstNonNull(mimeTypes.getContentType(filename), MediaType.APPLICATION_OCTET_STREAM);
+        return WebAsset.create(content, lastModified, contentType);
+    }
 
-        final Response.ResponseBuilder response = request.evaluatePreconditions(lastModified, entityTag);
-        if (response != null) {
-            return response.build();
+    @VisibleForTesting
+    static boolean acceptsGzip(@Nullable String acceptEncoding) {
+        if (isNullOrEmpty(acceptEncoding)) {
+            return false;
         }
 
-        final String contentType = firstNonNull(mimeTypes.getContentType(filename), MediaType.APPLICATION_OCTET_STREAM);
-        final CacheControl cacheControl = new CacheControl();
-        cacheControl.setMaxAge((int) TimeUnit.DAYS.toSeconds(365));
-        cacheControl.setNoCache(false);
-        cacheControl.setPrivate(false);
-        return Response
-                .ok(stream)
-                .header(HttpHeaders.CONTENT_TYPE, contentType)
-                .tag(entityTag)
-                .cacheControl(cacheControl)
-                .lastModified(lastModified)
-                .build();
+        for (String coding : acceptEncoding.split(",")) {
+            final String[] parameters = coding.split(";");
+            final String name = parameters[0].trim();
+            if ("gzip".equalsIgnoreCase(name) || "*".equals(name)) {
+                for (int i = 1; i < parameters.length; i++) {
+                    final String parameter = parameters[i].trim();
+                    if (parameter.startsWith("q=")) {
+                        try {
+                            return Double.parseDouble(parameter.substring(2)) > 0.0d;
+                        } catch (NumberFormatException e) {
+                            return false;
+                        }
+                    }
+                }
+                return true;
+            }
+        }
+
+        return false;
     }
 
     private URL getResourceUri(boolean fromPlugin, String filename,
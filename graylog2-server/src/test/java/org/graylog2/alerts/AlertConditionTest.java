@@ -16,6 +16,7 @@
  */
 package org.graylog2.alerts;
 
+import com.github.joschi.jadconfig.util.Duration;
 import com.google.common.collect.Maps;
 import com.google.inject.assistedinject.Assisted;
 import org.graylog2.alerts.types.FieldContentValueAlertCondition;
@@ -26,6 +27,7 @@ import org.graylog2.indexer.searches.Searches;
 import org.graylog2.plugin.Tools;
 import org.graylog2.plugin.alarms.AlertCondition;
 import org.graylog2.plugin.streams.Stream;
+import org.graylog2.streams.StreamMessageCountService;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.mockito.ArgumentMatchers;
@@ -52,6 +54,7 @@ public abstract class AlertConditionTest {
     protected Searches searches;
     protected MongoConnection mongoConnection;
     protected AlertService alertService;
+    protected StreamMessageCountService streamMessageCountService;
 
     protected final String STREAM_ID = "STREAMMOCKID";
     protected final String STREAM_CREATOR = "MOCKUSER";
@@ -63,6 +66,7 @@ public abstract class AlertConditionTest {
         when(stream.getId()).thenReturn(STREAM_ID);
 
         searches = mock(Searches.class);
+        streamMessageCountService = mock(StreamMessageCountService.class);
         mongoConnection = mock(MongoConnection.class);
         // TODO use injection please. this sucks so bad
         alertService = spy(new AlertServiceImpl(mongoConnection,
@@ -125,6 +129,10 @@ public abstract class AlertConditionTest {
         return parameters;
     }
 
+    protected MessageCountBatch messageCountBatch(boolean streamMessageCountsEnabled) {
+        return new MessageCountBatch(searches, streamMessageCountService, streamMessageCountsEnabled, Duration.hours(1L));
+    }
+
     protected void alertLastTriggered(int seconds) {
         // turn it around to avoid actually accessing the database
         doReturn(seconds).when(alertService).triggeredSecondsAgo(STREAM_ID, CONDITION_ID);
@@ -17,13 +17,16 @@
 package org.graylog2.alerts.types;
 
 import org.graylog2.alerts.AlertConditionTest;
+import org.graylog2.alerts.MessageCountBatch;
 import org.graylog2.indexer.InvalidRangeFormatException;
 import org.graylog2.indexer.results.CountResult;
 import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
 import org.graylog2.plugin.Tools;
 import org.graylog2.plugin.alarms.AlertCondition;
+import org.joda.time.DateTime;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.Map;
 
 import static org.junit.Assert.assertFalse;
@@ -31,7 +34,9 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anySet;
 import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -65,6 +70,63 @@ public class MessageCountAlertConditionTest extends AlertConditionTest {
         assertTriggered(messageCountAlertCondition, result);
     }
 
+    @Test
+    public void testRunCheckUsesPrefetchedCount() throws Exception {
+        final Map<String, Object> parameters = getParametersMap(0, 10, MessageCountAlertCondition.ThresholdType.MORE, threshold);
+        final MessageCountBatch messageCountBatch = messageCountBatch(false);
+        final MessageCountAlertCondition messageCountAlertCondition = getMessageCountAlertCondition(parameters, alertConditionTitle, messageCountBatch);
+
+        when(searches.streamCounts(eq(Collections.singleton(STREAM_ID)), any(TimeRange.class)))
+                .thenReturn(Collections.singletonMap(STREAM_ID, (long) threshold + 1));
+        messageCountBatch.prefetch(Collections.singletonList(messageCountAlertCondition));
+        alertLastTriggered(-1);
+
+        final AlertCondition.CheckResult result = alertService.triggered(messageCountAlertCondition);
+
+        assertTriggered(messageCountAlertCondition, result);
+        verify(searches, never()).count(anyString(), any(TimeRange.class), anyString());
+    }
+
+    @Test
+    public void testRunCheckUsesStreamMessageCounts() throws Exception {
+        final Map<String, Object> parameters = getParametersMap(0, 10, MessageCountAlertCondition.ThresholdType.MORE, threshold);
+        final MessageCountBatch messageCountBatch = messageCountBatch(true);
+        final MessageCountAlertCondition messageCountAlertCondition = getMessageCountAlertCondition(parameters, alertConditionTitle, messageCountBatch);
+
+        when(streamMessageCountService.countingSince()).thenReturn(Tools.nowUTC().minusHours(1));
+        when(streamMessageCountService.sum(eq(Collections.singleton(STREAM_ID)), any(DateTime.class)))
+                .thenReturn(Collections.singletonMap(STREAM_ID, (long) threshold + 1));
+        messageCountBatch.prefetch(Collections.singletonList(messageCountAlertCondition));
+        alertLastTriggered(-1);
+
+        final AlertCondition.CheckResult result = alertService.triggered(messageCountAlertCondition);
+
+        assertTriggered(messageCountAlertCondition, result);
+        verify(searches, never()).count(anyString(), any(TimeRange.class), anyString());
+        verify(searches, never()).streamCounts(anySet(), any(TimeRange.class));
+    }
+
+    @Test
+    public void testRunCheckIgnoresIncompleteStreamMessageCounts() throws Exception {
+        final Map<String, Object> parameters = getParametersMap(0, 10, MessageCountAlertCondition.ThresholdType.LESS, threshold);
+        final MessageCountBatch messageCountBatch = messageCountBatch(true);
+        final MessageCountAlertCondition messageCountAlertCondition = getMessageCountAlertCondition(parameters, alertConditionTitle, messageCountBatch);
+
+        // a node has been restarted within the time range of the condition
+        when(streamMessageCountService.countingSince()).thenReturn(Tools.nowUTC().minusMinutes(2));
+        when(streamMessageCountService.sum(eq(Collections.singleton(STREAM_ID)), any(DateTime.class)))
+                .thenReturn(Collections.singletonMap(STREAM_ID, (long) threshold - 1));
+        when(searches.streamCounts(eq(Collections.singleton(STREAM_ID)), any(TimeRange.class)))
+                .thenReturn(Collections.singletonMap(STREAM_ID, (long) threshold + 1));
+        messageCountBatch.prefetch(Collections.singletonList(messageCountAlertCondition));
+        alertLastTriggered(-1);
+
+        final AlertCondition.CheckResult result = alertService.triggered(messageCountAlertCondition);
+
+        assertNotTriggered(result);
+        verify(streamMessageCountService, never()).sum(anySet(), any(DateTime.class));
+    }
+
     @Test
     public void testRunCheckLessPositive() throws Exception {
         final MessageCountAlertCondition.ThresholdType type = MessageCountAlertCondition.ThresholdType.LESS;
@@ -159,7 +221,11 @@ public class MessageCountAlertConditionTest extends AlertConditionTest {
     }
 
     protected MessageCountAlertCondition getMessageCountAlertCondition(Map<String, Object> parameters, String title) {
-        return new MessageCountAlertCondition(
+        return getMessageCountAlertCondition(parameters, title, messageCountBatch(false));
+    }
+
+    protected MessageCountAlertCondition getMessageCountAlertCondition(Map<String, Object> parameters, String title, MessageCountBatch messageCountBatch) {
+        final MessageCountAlertCondition messageCountAlertCondition = new MessageCountAlertCondition(
             searches,
             stream,
             CONDITION_ID,
@@ -167,6 +233,8 @@ public class MessageCountAlertConditionTest extends AlertConditionTest {
             STREAM_CREATOR,
             parameters,
             title);
+        messageCountAlertCondition.setMessageCountBatch(messageCountBatch);
+        return messageCountAlertCondition;
     }
 
     protected Map<String, Object> getParametersMap(Integer grace, Integer time, MessageCountAlertCondition.ThresholdType type, Number threshold) {
@@ -16,11 +16,14 @@
  */
 package org.graylog2.cluster;
 
+import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.joschi.jadconfig.util.Duration;
 import com.google.common.eventbus.Subscribe;
 import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
 import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
 import com.lordofthejars.nosqlunit.mongodb.InMemoryMongoDb;
+import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
 import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
@@ -29,7 +32,6 @@ import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.database.MongoConnectionRule;
 import org.graylog2.events.ClusterEventBus;
-import org.graylog2.plugin.cluster.ClusterConfigService;
 import org.graylog2.plugin.system.NodeId;
 import org.graylog2.shared.bindings.providers.ObjectMapperProvider;
 import org.graylog2.shared.plugins.ChainingClassLoader;
@@ -69,7 +71,7 @@ public class ClusterConfigServiceImplTest {
     @Spy
     private ClusterEventBus clusterEventBus;
     private MongoConnection mongoConnection;
-    private ClusterConfigService clusterConfigService;
+    private ClusterConfigServiceImpl clusterConfigService;
 
     @Before
     public void setUpService() throws Exception {
@@ -86,7 +88,9 @@ public class ClusterConfigServiceImplTest {
                 nodeId,
                 objectMapper,
                 new ChainingClassLoader(getClass().getClassLoader()),
-                clusterEventBus
+                clusterEventBus,
+                new MetricRegistry(),
+                Duration.minutes(1L)
         );
     }
 
@@ -139,6 +143,43 @@ public class ClusterConfigServiceImplTest {
         assertThat(clusterConfigService.get(CustomConfig.class)).isNull();
     }
 
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    public void getReturnsCachedConfig() throws Exception {
+        final DBCollection collection = mongoConnection.getDatabase().getCollection(COLLECTION_NAME);
+        collection.save(new BasicDBObjectBuilder()
+                .add("type", CustomConfig.class.getCanonicalName())
+                .add("payload", Collections.singletonMap("text", "TEST"))
+                .add("last_updated", TIME.toString())
+                .add("last_updated_by", "ID")
+                .get());
+
+        assertThat(clusterConfigService.get(CustomConfig.class).text).isEqualTo("TEST");
+
+        collection.remove(new BasicDBObject());
+
+        assertThat(clusterConfigService.get(CustomConfig.class).text).isEqualTo("TEST");
+    }
+
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    public void writeAndInvalidateDiscardCachedConfig() throws Exception {
+        assertThat(clusterConfigService.get(CustomConfig.class)).isNull();
+
+        final CustomConfig customConfig = new CustomConfig();
+        customConfig.text = "TEST";
+        clusterConfigService.write(customConfig);
+
+        assertThat(clusterConfigService.get(CustomConfig.class).text).isEqualTo("TEST");
+
+        final DBCollection collection = mongoConnection.getDatabase().getCollection(COLLECTION_NAME);
+        collection.update(new BasicDBObject("type", CustomConfig.class.getCanonicalName()),
+                new BasicDBObject("$set", new BasicDBObject("payload", Collections.singletonMap("text", "CHANGED"))));
+        clusterConfigService.invalidate(CustomConfig.class.getCanonicalName());
+
+        assertThat(clusterConfigService.get(CustomConfig.class).text).isEqualTo("CHANGED");
+    }
+
     @Test
     @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
     public void getOrDefaultReturnsExistingConfig() throws Exception {
@@ -0,0 +1,207 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.dashboards.widgets;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.graylog2.indexer.results.CountResult;
+import org.graylog2.indexer.searches.CountQuery;
+import org.graylog2.indexer.searches.Searches;
+import org.graylog2.plugin.dashboards.widgets.ComputationResult;
+import org.graylog2.plugin.dashboards.widgets.WidgetStrategy;
+import org.graylog2.plugin.indexer.searches.timeranges.RelativeRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WidgetResultCacheTest {
+    @Rule
+    public final MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private WidgetStrategy widgetStrategy;
+    @Mock
+    private Searches searches;
+    private WidgetResultCache widgetResultCache;
+    private TimeRange timeRange;
+
+    @Before
+    public void setUp() throws Exception {
+        final WidgetStrategyFactory widgetStrategyFactory = new WidgetStrategyFactory(
+                ImmutableMap.<String, WidgetStrategy.Factory<? extends WidgetStrategy>>of(
+                        "TEST", (config, range, widgetId) -> widgetStrategy,
+                        "COUNT", (config, range, widgetId) -> new CountStrategy(searches, (String) config.get("query"), range)));
+        widgetResultCache = new WidgetResultCache(new MetricRegistry(), widgetStrategyFactory, searches, 1);
+        timeRange = RelativeRange.create(300);
+        when(widgetStrategy.compute()).thenReturn(new ComputationResult(42L, 1L));
+    }
+
+    @Test
+    public void resultIsCachedForCacheTime() throws Exception {
+        final DashboardWidget widget = widget("widget-1", ImmutableMap.of("query", "*"), 60);
+
+        assertThat(widgetResultCache.getComputationResultForDashboardWidget(widget).getResult()).isEqualTo(42L);
+        assertThat(widgetResultCache.getComputationResultForDashboardWidget(widget).getResult()).isEqualTo(42L);
+
+        verify(widgetStrategy, times(1)).compute();
+    }
+
+    @Test
+    public void identicalWidgetsShareResults() throws Exception {
+        final DashboardWidget widget1 = widget("widget-1", ImmutableMap.of("query", "*"), 60);
+        final DashboardWidget widget2 = widget("widget-2", ImmutableMap.of("query", "*"), 60);
+        final DashboardWidget widget3 = widget("widget-3", ImmutableMap.of("query", "source:example.org"), 60);
+
+        widgetResultCache.getComputationResultForDashboardWidget(widget1);
+        widgetResultCache.getComputationResultForDashboardWidget(widget2);
+        verify(widgetStrategy, times(1)).compute();
+
+        widgetResultCache.getComputationResultForDashboardWidget(widget3);
+        verify(widgetStrategy, times(2)).compute();
+        assertThat(widgetResultCache.size()).isEqualTo(2L);
+    }
+
+    @Test
+    public void invalidateRemovesResult() throws Exception {
+        final DashboardWidget widget = widget("widget-1", ImmutableMap.of("query", "*"), 60);
+
+        widgetResultCache.getComputationResultForDashboardWidget(widget);
+        widgetResultCache.invalidate("widget-1");
+        widgetResultCache.getComputationResultForDashboardWidget(widget);
+
+        verify(widgetStrategy, times(2)).compute();
+    }
+
+    @Test
+    public void expiredResultIsComputedAgain() throws Exception {
+        final DashboardWidget widget = widget("widget-1", ImmutableMap.of("query", "*"), 0);
+
+        widgetResultCache.getComputationResultForDashboardWidget(widget);
+        widgetResultCache.getComputationResultForDashboardWidget(widget);
+
+        verify(widgetStrategy, times(2)).compute();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void computationExceptionIsPropagated() throws Exception {
+        when(widgetStrategy.compute()).thenThrow(new IllegalStateException("Boom"));
+
+        widgetResultCache.getComputationResultForDashboardWidget(widget("widget-1", ImmutableMap.of("query", "*"), 60));
+    }
+
+    @Test
+    public void countsOfMultipleWidgetsAreRequestedAtOnce() throws Exception {
+        final DashboardWidget widget1 = widget("widget-1", "COUNT", ImmutableMap.of("query", "*"), 60);
+        final DashboardWidget widget2 = widget("widget-2", "COUNT", ImmutableMap.of("query", "source:example.org"), 60);
+        final DashboardWidget widget3 = widget("widget-3", ImmutableMap.of("query", "*"), 60);
+        when(searches.count(ImmutableList.of(CountQuery.create("*", timeRange), CountQuery.create("source:example.org", timeRange))))
+                .thenReturn(ImmutableList.of(CountResult.create(23L, 1L), CountResult.create(5L, 1L)));
+
+        final Map<String, ComputationResult> results = widgetResultCache.getComputationResultsForDashboardWidgets(
+                ImmutableList.of(widget1, widget2, widget3));
+
+        assertThat(results).containsOnlyKeys("widget-1", "widget-2", "widget-3");
+        assertThat(results.get("widget-1").getResult()).isEqualTo(23L);
+        assertThat(results.get("widget-2").getResult()).isEqualTo(5L);
+        assertThat(results.get("widget-3").getResult()).isEqualTo(42L);
+        verify(searches, times(1)).count(anyList());
+
+        widgetResultCache.getComputationResultsForDashboardWidgets(ImmutableList.of(widget1, widget2));
+        verify(searches, times(1)).count(anyList());
+    }
+
+    @Test
+    public void singleCountingWidgetIsComputedOnItsOwn() throws Exception {
+        final DashboardWidget widget = widget("widget-1", "COUNT", ImmutableMap.of("query", "*"), 60);
+        when(searches.count(ImmutableList.of(CountQuery.create("*", timeRange))))
+                .thenReturn(ImmutableList.of(CountResult.create(23L, 1L)));
+
+        assertThat(widgetResultCache.getComputationResultForDashboardWidget(widget).getResult()).isEqualTo(23L);
+        assertThat(widgetResultCache.getComputationResultsForDashboardWidgets(ImmutableList.of(widget)).get("widget-1").getResult())
+                .isEqualTo(23L);
+
+        verify(searches, times(1)).count(anyList());
+    }
+
+    @Test
+    public void failedWidgetsAreOmitted() throws Exception {
+        final DashboardWidget widget1 = widget("widget-1", "COUNT", ImmutableMap.of("query", "*"), 60);
+        final DashboardWidget widget2 = widget("widget-2", ImmutableMap.of("query", "*"), 60);
+        when(searches.count(anyList())).thenThrow(new IllegalStateException("Boom"));
+
+        final Map<String, ComputationResult> results = widgetResultCache.getComputationResultsForDashboardWidgets(
+                ImmutableList.of(widget1, widget2));
+
+        assertThat(results).containsOnlyKeys("widget-2");
+    }
+
+    private DashboardWidget widget(String id, Map<String, Object> config, int cacheTime) {
+        return widget(id, "TEST", config, cacheTime);
+    }
+
+    private DashboardWidget widget(String id, String type, Map<String, Object> config, int cacheTime) {
+        final DashboardWidget widget = mock(DashboardWidget.class);
+        when(widget.getId()).thenReturn(id);
+        when(widget.getType()).thenReturn(type);
+        when(widget.getConfig()).thenReturn(config);
+        when(widget.getTimeRange()).thenReturn(timeRange);
+        when(widget.getCacheTime()).thenReturn(cacheTime);
+        return widget;
+    }
+
+    private static class CountStrategy implements CountingWidgetStrategy {
+        private final Searches searches;
+        private final String query;
+        private final TimeRange timeRange;
+
+        CountStrategy(Searches searches, String query, TimeRange timeRange) {
+            this.searches = searches;
+            this.query = query;
+            this.timeRange = timeRange;
+        }
+
+        @Override
+        public List<CountQuery> countQueries() {
+            return ImmutableList.of(CountQuery.create(query, timeRange));
+        }
+
+        @Override
+        public ComputationResult compute(List<CountResult> countResults) {
+            return new ComputationResult(countResults.get(0).count(), countResults.get(0).tookMs());
+        }
+
+        @Override
+        public ComputationResult compute() {
+            return compute(searches.count(countQueries()));
+        }
+    }
+}
@@ -24,11 +24,14 @@ import com.google.common.eventbus.Subscribe;
 import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
 import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
 import com.lordofthejars.nosqlunit.mongodb.InMemoryMongoDb;
+import com.mongodb.BasicDBObject;
 import com.mongodb.BasicDBObjectBuilder;
 import com.mongodb.DBCollection;
 import com.mongodb.DBObject;
 import com.mongodb.WriteConcern;
 import org.graylog2.bindings.providers.MongoJackObjectMapperProvider;
+import org.graylog2.cluster.ClusterConfigChangedEvent;
+import org.graylog2.cluster.ClusterConfigServiceImpl;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.database.MongoConnectionRule;
 import org.graylog2.plugin.system.NodeId;
@@ -48,8 +51,6 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 
-import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 
 import static com.lordofthejars.nosqlunit.mongodb.InMemoryMongoDb.InMemoryMongoRuleBuilder.newInMemoryMongoDbRule;
@@ -77,6 +78,8 @@ public class ClusterEventPeriodicalTest {
     private EventBus serverEventBus;
     @Spy
     private ClusterEventBus clusterEventBus;
+    @Mock
+    private ClusterConfigServiceImpl clusterConfigService;
     private MongoConnection mongoConnection;
     private ClusterEventPeriodical clusterEventPeriodical;
 
@@ -96,7 +99,8 @@ public class ClusterEventPeriodicalTest {
                 objectMapper,
                 new ChainingClassLoader(getClass().getClassLoader()),
                 serverEventBus,
-                clusterEventBus
+                clusterEventBus,
+                clusterConfigService
         );
     }
 
@@ -112,11 +116,10 @@ public class ClusterEventPeriodicalTest {
 
     @Test
     @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
-    public void runHandlesInvalidPayloadsGracefully() throws Exception {
+    public void consumeEventsHandlesInvalidPayloadsGracefully() throws Exception {
         DBObject event = new BasicDBObjectBuilder()
                 .add("timestamp", TIME.getMillis())
                 .add("producer", "TEST-PRODUCER")
-                .add("consumers", Collections.emptyList())
                 .add("event_class", SimpleEvent.class.getCanonicalName())
                 .add("payload", ImmutableMap.of("HAHA", "test"))
                 .get();
@@ -125,13 +128,11 @@ public class ClusterEventPeriodicalTest {
 
         assertThat(collection.count()).isEqualTo(1L);
 
-        clusterEventPeriodical.run();
+        clusterEventPeriodical.consumeEvents();
 
         assertThat(collection.count()).isEqualTo(1L);
 
-        @SuppressWarnings("unchecked")
-        final List<String> consumers = (List<String>) collection.findOne().get("consumers");
-        assertThat(consumers).containsExactly(nodeId.toString());
+        assertOffsetIsEventId(collection.findOne().get("_id"));
 
         verify(serverEventBus, never()).post(any());
         verify(clusterEventBus, never()).post(any());
@@ -146,7 +147,6 @@ public class ClusterEventPeriodicalTest {
         DBObject event = new BasicDBObjectBuilder()
                 .add("timestamp", TIME.getMillis())
                 .add("producer", "TEST-PRODUCER")
-                .add("consumers", Collections.emptyList())
                 .add("event_class", SimpleEvent.class.getCanonicalName())
                 .add("payload", ImmutableMap.of("payload", "test"))
                 .get();
@@ -155,14 +155,12 @@ public class ClusterEventPeriodicalTest {
         assertThat(collection.count()).isEqualTo(1L);
         assertThat(handler.invocations).isEqualTo(0);
 
-        clusterEventPeriodical.run();
+        clusterEventPeriodical.consumeEvents();
 
         assertThat(handler.invocations).isEqualTo(1);
         assertThat(collection.count()).isEqualTo(1L);
 
-        @SuppressWarnings("unchecked")
-        final List<String> consumers = (List<String>) collection.findOne().get("consumers");
-        assertThat(consumers).containsExactly(nodeId.toString());
+        assertOffsetIsEventId(collection.findOne().get("_id"));
 
         verify(serverEventBus, times(1)).post(any(SimpleEvent.class));
         verify(clusterEventBus, never()).post(any());
@@ -170,12 +168,11 @@ public class ClusterEventPeriodicalTest {
 
     @Test
     @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
-    public void runHandlesAutoValueCorrectly() throws Exception {
+    public void consumeEventsHandlesAutoValueCorrectly() throws Exception {
         final DebugEvent event = DebugEvent.create("Node ID", TIME, "test");
         DBObject dbObject = new BasicDBObjectBuilder()
                 .add("timestamp", TIME.getMillis())
                 .add("producer", "TEST-PRODUCER")
-                .add("consumers", Collections.emptyList())
                 .add("event_class", DebugEvent.class.getCanonicalName())
                 .add("payload", objectMapper.convertValue(event, Map.class))
                 .get();
@@ -184,13 +181,11 @@ public class ClusterEventPeriodicalTest {
 
         assertThat(collection.count()).isEqualTo(1L);
 
-        clusterEventPeriodical.run();
+        clusterEventPeriodical.consumeEvents();
 
         assertThat(collection.count()).isEqualTo(1L);
 
-        @SuppressWarnings("unchecked")
-        final List<String> consumers = (List<String>) collection.findOne().get("consumers");
-        assertThat(consumers).containsExactly(nodeId.toString());
+        assertOffsetIsEventId(collection.findOne().get("_id"));
 
         verify(serverEventBus, times(1)).post(event);
         verify(clusterEventBus, never()).post(event);
@@ -198,11 +193,29 @@ public class ClusterEventPeriodicalTest {
 
     @Test
     @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
-    public void testRun() throws Exception {
+    public void consumeEventsInvalidatesChangedClusterConfig() throws Exception {
+        final ClusterConfigChangedEvent event = ClusterConfigChangedEvent.create(TIME, "Node ID", "com.example.Config");
+        DBObject dbObject = new BasicDBObjectBuilder()
+                .add("timestamp", TIME.getMillis())
+                .add("producer", "TEST-PRODUCER")
+                .add("event_class", ClusterConfigChangedEvent.class.getCanonicalName())
+                .add("payload", objectMapper.convertValue(event, Map.class))
+                .get();
+        final DBCollection collection = mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.COLLECTION_NAME);
+        collection.save(dbObject);
+
+        clusterEventPeriodical.consumeEvents();
+
+        verify(clusterConfigService, times(1)).invalidate("com.example.Config");
+        verify(serverEventBus, times(1)).post(event);
+    }
+
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    public void testConsumeEvents() throws Exception {
         DBObject event = new BasicDBObjectBuilder()
                 .add("timestamp", TIME.getMillis())
                 .add("producer", "TEST-PRODUCER")
-                .add("consumers", Collections.emptyList())
                 .add("event_class", SimpleEvent.class.getCanonicalName())
                 .add("payload", ImmutableMap.of("payload", "test"))
                 .get();
@@ -211,18 +224,53 @@ public class ClusterEventPeriodicalTest {
 
         assertThat(collection.count()).isEqualTo(1L);
 
-        clusterEventPeriodical.run();
+        clusterEventPeriodical.consumeEvents();
 
         assertThat(collection.count()).isEqualTo(1L);
 
-        @SuppressWarnings("unchecked")
-        final List<String> consumers = (List<String>) collection.findOne().get("consumers");
-        assertThat(consumers).containsExactly(nodeId.toString());
+        assertOffsetIsEventId(collection.findOne().get("_id"));
 
         verify(serverEventBus, times(1)).post(new SimpleEvent("test"));
         verify(clusterEventBus, never()).post(event);
     }
 
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    public void consumeEventsResumesAfterStoredOffset() throws Exception {
+        final DBCollection collection = mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.COLLECTION_NAME);
+        collection.save(new BasicDBObjectBuilder()
+                .add("timestamp", TIME.getMillis())
+                .add("producer", "TEST-PRODUCER")
+                .add("event_class", SimpleEvent.class.getCanonicalName())
+                .add("payload", ImmutableMap.of("payload", "test1"))
+                .get());
+
+        clusterEventPeriodical.consumeEvents();
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test1"));
+
+        collection.save(new BasicDBObjectBuilder()
+                .add("timestamp", TIME.getMillis())
+                .add("producer", "TEST-PRODUCER")
+                .add("event_class", SimpleEvent.class.getCanonicalName())
+                .add("payload", ImmutableMap.of("payload", "test2"))
+                .get());
+
+        final ClusterEventPeriodical restartedPeriodical = new ClusterEventPeriodical(
+                new MongoJackObjectMapperProvider(objectMapper),
+                mongoRule.getMongoConnection(),
+                nodeId,
+                objectMapper,
+                new ChainingClassLoader(getClass().getClassLoader()),
+                serverEventBus,
+                clusterEventBus,
+                clusterConfigService
+        );
+        restartedPeriodical.consumeEvents();
+
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test1"));
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test2"));
+    }
+
     @Test
     @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
     public void testPublishClusterEvent() throws Exception {
@@ -301,6 +349,69 @@ public class ClusterEventPeriodicalTest {
         assertThat(collection.getName()).isEqualTo(ClusterEventPeriodical.COLLECTION_NAME);
         assertThat(collection.getIndexInfo()).hasSize(2);
         assertThat(collection.getWriteConcern()).isEqualTo(WriteConcern.JOURNALED);
+        assertThat(collection.isCapped()).isTrue();
+    }
+
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    public void prepareCollectionConvertsRegularCollection() throws Exception {
+        mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.COLLECTION_NAME).drop();
+        mongoConnection.getDatabase().createCollection(ClusterEventPeriodical.COLLECTION_NAME, new BasicDBObject());
+        mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.COLLECTION_NAME).save(simpleEvent(TIME, "test"));
+        assertThat(mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.COLLECTION_NAME).isCapped()).isFalse();
+
+        DBCollection collection = ClusterEventPeriodical.prepareCollection(mongoConnection);
+
+        assertThat(collection.isCapped()).isTrue();
+        assertThat(collection.count()).isEqualTo(1L);
+    }
+
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
+    public void consumeEventsAfterRestartToleratesClockSkew() throws Exception {
+        final DBCollection collection = mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.COLLECTION_NAME);
+        collection.save(simpleEvent(TIME, "test1"));
+
+        clusterEventPeriodical.consumeEvents();
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test1"));
+
+        // published later by nodes whose clocks are behind
+        collection.save(simpleEvent(TIME.minusSeconds(30), "test2"));
+        collection.save(simpleEvent(TIME.minus(ClusterEventPeriodical.CLOCK_SKEW_MILLIS + 1L), "test3"));
+        collection.save(simpleEvent(TIME.plusSeconds(1), "test4"));
+
+        final ClusterEventPeriodical restartedPeriodical = new ClusterEventPeriodical(
+                new MongoJackObjectMapperProvider(objectMapper),
+                mongoRule.getMongoConnection(),
+                nodeId,
+                objectMapper,
+                new ChainingClassLoader(getClass().getClassLoader()),
+                serverEventBus,
+                clusterEventBus,
+                clusterConfigService
+        );
+        restartedPeriodical.consumeEvents();
+        restartedPeriodical.consumeEvents();
+
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test1"));
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test2"));
+        verify(serverEventBus, never()).post(new SimpleEvent("test3"));
+        verify(serverEventBus, times(1)).post(new SimpleEvent("test4"));
+    }
+
+    private static DBObject simpleEvent(DateTime timestamp, String payload) {
+        return new BasicDBObjectBuilder()
+                .add("timestamp", timestamp.getMillis())
+                .add("producer", "TEST-PRODUCER")
+                .add("event_class", SimpleEvent.class.getCanonicalName())
+                .add("payload", ImmutableMap.of("payload", payload))
+                .get();
+    }
+
+    private void assertOffsetIsEventId(Object eventId) {
+        final DBObject offset = mongoConnection.getDatabase().getCollection(ClusterEventPeriodical.OFFSETS_COLLECTION_NAME).findOne();
+        assertThat(offset.get("_id")).isEqualTo(nodeId.toString());
+        assertThat(offset.get("event_id")).isEqualTo(eventId);
     }
 
     public static class SimpleEventHandler {
@@ -19,6 +19,7 @@ package org.graylog2.indexer.indices;
 import com.codahale.metrics.MetricRegistry;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
 import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
@@ -181,6 +182,24 @@ public class IndicesTest {
         indices.timestampStatsOfIndex("does-not-exist");
     }
 
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.CLEAN_INSERT)
+    public void testTimestampStatsOfIndices() throws Exception {
+        final Map<String, TimestampStats> stats = indices.timestampStatsOfIndices(Collections.singletonList(INDEX_NAME));
+
+        assertThat(stats).containsOnlyKeys(INDEX_NAME);
+        assertThat(stats.get(INDEX_NAME).min()).isEqualTo(new DateTime(2015, 1, 1, 1, 0, DateTimeZone.UTC));
+        assertThat(stats.get(INDEX_NAME).max()).isEqualTo(new DateTime(2015, 1, 1, 5, 0, DateTimeZone.UTC));
+    }
+
+    @Test
+    @UsingDataSet(loadStrategy = LoadStrategyEnum.CLEAN_INSERT)
+    public void testTimestampStatsOfIndicesSkipsNonExistingIndex() throws Exception {
+        final Map<String, TimestampStats> stats = indices.timestampStatsOfIndices(ImmutableList.of("does-not-exist", INDEX_NAME));
+
+        assertThat(stats).containsOnlyKeys(INDEX_NAME);
+    }
+
     @Test
     public void testCreateEnsuresIndexTemplateExists() throws Exception {
         final String templateName = CONFIG.getTemplateName();
@@ -0,0 +1,140 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.indexer.ranges.MongoIndexRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.MapEntry.entry;
+
+public class HistogramBucketCacheTest {
+    private static final long MINUTE = 60_000L;
+    private static final IndexRange CLOSED_RANGE = MongoIndexRange.create("graylog_0",
+            new DateTime(0L, DateTimeZone.UTC).plusSeconds(1), new DateTime(10 * MINUTE, DateTimeZone.UTC), new DateTime(10 * MINUTE, DateTimeZone.UTC), 0);
+    private static final IndexRange WRITE_TARGET_RANGE = MongoIndexRange.create("graylog_3",
+            new DateTime(0L, DateTimeZone.UTC), new DateTime(0L, DateTimeZone.UTC), new DateTime(10 * MINUTE, DateTimeZone.UTC), 0);
+
+    private HistogramBucketCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        cache = new HistogramBucketCache(true, 1000, new MetricRegistry());
+    }
+
+    @Test
+    public void bucketStartAlignsToInterval() throws Exception {
+        final DateTime timestamp = new DateTime(2016, 8, 17, 13, 42, 23, DateTimeZone.UTC);
+
+        assertThat(HistogramBucketCache.bucketStart(timestamp, Searches.DateHistogramInterval.MINUTE))
+                .isEqualTo(new DateTime(2016, 8, 17, 13, 42, DateTimeZone.UTC));
+        assertThat(HistogramBucketCache.bucketStart(timestamp, Searches.DateHistogramInterval.HOUR))
+                .isEqualTo(new DateTime(2016, 8, 17, 13, 0, DateTimeZone.UTC));
+        assertThat(HistogramBucketCache.bucketStart(timestamp, Searches.DateHistogramInterval.WEEK))
+                .isEqualTo(new DateTime(2016, 8, 15, 0, 0, DateTimeZone.UTC));
+        assertThat(HistogramBucketCache.bucketStart(timestamp, Searches.DateHistogramInterval.QUARTER))
+                .isEqualTo(new DateTime(2016, 7, 1, 0, 0, DateTimeZone.UTC));
+    }
+
+    @Test
+    public void firstFullBucketStart() throws Exception {
+        final DateTime aligned = new DateTime(2016, 8, 17, 13, 42, DateTimeZone.UTC);
+        final DateTime unaligned = aligned.plusSeconds(10);
+
+        assertThat(HistogramBucketCache.firstFullBucketStart(aligned, Searches.DateHistogramInterval.MINUTE))
+                .isEqualTo(aligned.getMillis());
+        assertThat(HistogramBucketCache.firstFullBucketStart(unaligned, Searches.DateHistogramInterval.MINUTE))
+                .isEqualTo(aligned.plusMinutes(1).getMillis());
+    }
+
+    @Test
+    public void fillGapsAddsEmptyBuckets() throws Exception {
+        final TreeMap<Long, Long> counts = new TreeMap<>(ImmutableMap.of(0L, 1L, 3 * MINUTE, 2L));
+
+        assertThat(HistogramBucketCache.fillGaps(counts, Searches.DateHistogramInterval.MINUTE))
+                .containsExactly(
+                        entry(0L, 1L),
+                        entry(MINUTE, 0L),
+                        entry(2 * MINUTE, 0L),
+                        entry(3 * MINUTE, 2L));
+    }
+
+    @Test
+    public void isClosedDetectsUnknownRanges() throws Exception {
+        assertThat(HistogramBucketCache.isClosed(CLOSED_RANGE)).isTrue();
+        assertThat(HistogramBucketCache.isClosed(WRITE_TARGET_RANGE)).isFalse();
+    }
+
+    @Test
+    public void extendAddsNewCompletedBuckets() throws Exception {
+        final Set<IndexRange> closedIndexRanges = ImmutableSet.of(CLOSED_RANGE);
+        cache.put("*", null, Searches.DateHistogramInterval.MINUTE, HistogramBucketCache.Buckets.empty(MINUTE)
+                .extend(MINUTE, 3 * MINUTE, ImmutableMap.of(0L, 1L, MINUTE, 2L, 2 * MINUTE, 3L, 3 * MINUTE, 4L), closedIndexRanges));
+        final HistogramBucketCache.Buckets buckets = cache.get("*", null, Searches.DateHistogramInterval.MINUTE, MINUTE, closedIndexRanges);
+        assertThat(buckets).isNotNull();
+        assertThat(buckets.from()).isEqualTo(MINUTE);
+        assertThat(buckets.until()).isEqualTo(3 * MINUTE);
+        assertThat(buckets.counts()).containsExactly(entry(MINUTE, 2L), entry(2 * MINUTE, 3L));
+
+        cache.put("*", null, Searches.DateHistogramInterval.MINUTE,
+                buckets.extend(2 * MINUTE, 5 * MINUTE, ImmutableMap.of(3 * MINUTE, 4L, 4 * MINUTE, 5L, 5 * MINUTE, 6L), closedIndexRanges));
+
+        final HistogramBucketCache.Buckets extended = cache.get("*", null, Searches.DateHistogramInterval.MINUTE, 2 * MINUTE, closedIndexRanges);
+        assertThat(extended).isNotNull();
+        assertThat(extended.from()).isEqualTo(2 * MINUTE);
+        assertThat(extended.until()).isEqualTo(5 * MINUTE);
+        assertThat(extended.counts()).containsExactly(entry(2 * MINUTE, 3L), entry(3 * MINUTE, 4L), entry(4 * MINUTE, 5L));
+    }
+
+    @Test
+    public void getReturnsNullIfBucketsDoNotCoverRange() throws Exception {
+        final Set<IndexRange> closedIndexRanges = ImmutableSet.of(CLOSED_RANGE);
+        cache.put("*", null, Searches.DateHistogramInterval.MINUTE,
+                HistogramBucketCache.Buckets.empty(MINUTE).extend(MINUTE, 3 * MINUTE, ImmutableMap.of(MINUTE, 2L), closedIndexRanges));
+
+        assertThat(cache.get("*", null, Searches.DateHistogramInterval.MINUTE, 0L, closedIndexRanges)).isNull();
+        assertThat(cache.get("*", null, Searches.DateHistogramInterval.MINUTE, 3 * MINUTE, closedIndexRanges)).isNull();
+        assertThat(cache.get("*", "streams:foo", Searches.DateHistogramInterval.MINUTE, MINUTE, closedIndexRanges)).isNull();
+    }
+
+    @Test
+    public void getReturnsNullIfClosedIndicesChanged() throws Exception {
+        cache.put("*", null, Searches.DateHistogramInterval.MINUTE,
+                HistogramBucketCache.Buckets.empty(MINUTE).extend(MINUTE, 3 * MINUTE, ImmutableMap.of(MINUTE, 2L), ImmutableSet.of(CLOSED_RANGE)));
+
+        // the former write target has been rotated and its range has been calculated
+        final IndexRange rotated = MongoIndexRange.create("graylog_1", new DateTime(2 * MINUTE, DateTimeZone.UTC),
+                new DateTime(4 * MINUTE, DateTimeZone.UTC), new DateTime(4 * MINUTE, DateTimeZone.UTC), 0);
+        assertThat(cache.get("*", null, Searches.DateHistogramInterval.MINUTE, MINUTE, ImmutableSet.of(CLOSED_RANGE, rotated))).isNull();
+        // the closed index has been deleted
+        assertThat(cache.get("*", null, Searches.DateHistogramInterval.MINUTE, MINUTE, ImmutableSet.of())).isNull();
+        // closed indices which don't cover the cached buckets don't matter
+        final IndexRange later = MongoIndexRange.create("graylog_2", new DateTime(5 * MINUTE, DateTimeZone.UTC),
+                new DateTime(6 * MINUTE, DateTimeZone.UTC), new DateTime(6 * MINUTE, DateTimeZone.UTC), 0);
+        assertThat(cache.get("*", null, Searches.DateHistogramInterval.MINUTE, MINUTE, ImmutableSet.of(CLOSED_RANGE, later))).isNotNull();
+    }
+}
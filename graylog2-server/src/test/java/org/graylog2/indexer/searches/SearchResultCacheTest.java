@@ -0,0 +1,105 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.EventBus;
+import org.graylog2.indexer.esplugin.IndicesDeletedEvent;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.indexer.ranges.MongoIndexRange;
+import org.graylog2.indexer.results.CountResult;
+import org.graylog2.plugin.indexer.searches.timeranges.AbsoluteRange;
+import org.graylog2.plugin.indexer.searches.timeranges.TimeRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SearchResultCacheTest {
+    private static final DateTime BEGIN = new DateTime(2016, 1, 1, 0, 0, DateTimeZone.UTC);
+    private static final DateTime END = new DateTime(2016, 1, 2, 0, 0, DateTimeZone.UTC);
+    private static final TimeRange RANGE = AbsoluteRange.create(BEGIN, END);
+    private static final IndexRange KNOWN_RANGE = MongoIndexRange.create("graylog_0", BEGIN, END, END, 0);
+    private static final IndexRange UNKNOWN_RANGE = MongoIndexRange.create("graylog_1", new DateTime(0L, DateTimeZone.UTC), new DateTime(0L, DateTimeZone.UTC), END, 0);
+
+    private EventBus eventBus;
+    private SearchResultCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        eventBus = new EventBus();
+        cache = new SearchResultCache(true, 100, Duration.seconds(5L), eventBus, new MetricRegistry());
+    }
+
+    @Test
+    public void keyNormalizesQueryAndFilter() throws Exception {
+        final Set<IndexRange> indexRanges = ImmutableSet.of(KNOWN_RANGE);
+
+        assertThat(cache.key("count", null, null, RANGE, indexRanges))
+                .isEqualTo(cache.key("count", " * ", "*", RANGE, indexRanges));
+        assertThat(cache.key("count", "foo", null, RANGE, indexRanges))
+                .isNotEqualTo(cache.key("count", "foo", "bar", RANGE, indexRanges));
+        assertThat(cache.key("terms", "foo", null, RANGE, indexRanges, "field", 10))
+                .isNotEqualTo(cache.key("terms", "foo", null, RANGE, indexRanges, "field", 20));
+    }
+
+    @Test
+    public void keyIsLiveIfRangeReachesIntoIndexWithUnknownRange() throws Exception {
+        final TimeRange rangeAfterKnownIndex = AbsoluteRange.create(BEGIN, END.plusHours(1));
+
+        assertThat(cache.key("count", "*", null, RANGE, ImmutableSet.of(KNOWN_RANGE)).live()).isFalse();
+        assertThat(cache.key("count", "*", null, RANGE, ImmutableSet.of(KNOWN_RANGE, UNKNOWN_RANGE)).live()).isFalse();
+        assertThat(cache.key("count", "*", null, rangeAfterKnownIndex, ImmutableSet.of(KNOWN_RANGE)).live()).isFalse();
+        assertThat(cache.key("count", "*", null, rangeAfterKnownIndex, ImmutableSet.of(KNOWN_RANGE, UNKNOWN_RANGE)).live()).isTrue();
+        assertThat(cache.key("count", "*", null, RANGE, ImmutableSet.of(UNKNOWN_RANGE)).live()).isTrue();
+    }
+
+    @Test
+    public void getReturnsCachedResult() throws Exception {
+        final SearchResultCache.Key key = cache.key("count", "*", null, RANGE, ImmutableSet.of(KNOWN_RANGE));
+        final CountResult result = CountResult.create(42L, 1L);
+
+        assertThat(cache.get(key, CountResult.class)).isNull();
+        cache.put(key, result);
+        assertThat(cache.get(key, CountResult.class)).isSameAs(result);
+    }
+
+    @Test
+    public void indexDeletionInvalidatesCache() throws Exception {
+        final SearchResultCache.Key key = cache.key("count", "*", null, RANGE, ImmutableSet.of(KNOWN_RANGE));
+        cache.put(key, CountResult.create(42L, 1L));
+
+        eventBus.post(IndicesDeletedEvent.create(ImmutableSet.of("graylog_0")));
+
+        assertThat(cache.get(key, CountResult.class)).isNull();
+    }
+
+    @Test
+    public void disabledCacheDoesNotReturnResults() throws Exception {
+        final SearchResultCache disabledCache = SearchResultCache.disabled();
+        final SearchResultCache.Key key = disabledCache.key("count", "*", null, RANGE, ImmutableSet.of(KNOWN_RANGE));
+        disabledCache.put(key, CountResult.create(42L, 1L));
+
+        assertThat(disabledCache.get(key, CountResult.class)).isNull();
+    }
+}
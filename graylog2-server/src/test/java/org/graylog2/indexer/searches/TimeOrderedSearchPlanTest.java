@@ -0,0 +1,79 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.indexer.searches;
+
+import com.google.common.collect.ImmutableSet;
+import org.elasticsearch.search.sort.SortOrder;
+import org.graylog2.indexer.ranges.IndexRange;
+import org.graylog2.indexer.ranges.MongoIndexRange;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TimeOrderedSearchPlanTest {
+    private static final DateTime EPOCH = new DateTime(0L, DateTimeZone.UTC);
+    private static final IndexRange INDEX_0 = range("graylog_0", new DateTime(2016, 1, 1, 0, 0, DateTimeZone.UTC), new DateTime(2016, 1, 2, 0, 0, DateTimeZone.UTC));
+    private static final IndexRange INDEX_1 = range("graylog_1", new DateTime(2016, 1, 2, 0, 0, DateTimeZone.UTC), new DateTime(2016, 1, 3, 0, 0, DateTimeZone.UTC));
+    private static final IndexRange INDEX_2 = range("graylog_2", EPOCH, EPOCH);
+    private static final Set<IndexRange> INDEX_RANGES = ImmutableSet.of(INDEX_0, INDEX_1, INDEX_2);
+
+    @Test
+    public void descendingPlanQueriesUnknownRangesFirstAndNewestIndicesNext() throws Exception {
+        final List<TimeOrderedSearchPlan.Step> steps = TimeOrderedSearchPlan.create(INDEX_RANGES, SortOrder.DESC).steps();
+
+        assertThat(steps).containsExactly(
+                TimeOrderedSearchPlan.Step.create(ImmutableSet.of("graylog_2"), Long.MAX_VALUE),
+                TimeOrderedSearchPlan.Step.create(ImmutableSet.of("graylog_1"), INDEX_1.end().getMillis()),
+                TimeOrderedSearchPlan.Step.create(ImmutableSet.of("graylog_0"), INDEX_0.end().getMillis()));
+    }
+
+    @Test
+    public void ascendingPlanQueriesUnknownRangesFirstAndOldestIndicesNext() throws Exception {
+        final List<TimeOrderedSearchPlan.Step> steps = TimeOrderedSearchPlan.create(INDEX_RANGES, SortOrder.ASC).steps();
+
+        assertThat(steps).containsExactly(
+                TimeOrderedSearchPlan.Step.create(ImmutableSet.of("graylog_2"), Long.MIN_VALUE),
+                TimeOrderedSearchPlan.Step.create(ImmutableSet.of("graylog_0"), INDEX_0.begin().getMillis()),
+                TimeOrderedSearchPlan.Step.create(ImmutableSet.of("graylog_1"), INDEX_1.begin().getMillis()));
+    }
+
+    @Test
+    public void canSkip() throws Exception {
+        final TimeOrderedSearchPlan descending = TimeOrderedSearchPlan.create(INDEX_RANGES, SortOrder.DESC);
+        final TimeOrderedSearchPlan.Step unknown = descending.steps().get(0);
+        final TimeOrderedSearchPlan.Step index0 = descending.steps().get(2);
+
+        assertThat(descending.canSkip(unknown, INDEX_1.end().getMillis())).isFalse();
+        assertThat(descending.canSkip(index0, INDEX_0.end().getMillis() + 1L)).isTrue();
+        assertThat(descending.canSkip(index0, INDEX_0.end().getMillis())).isFalse();
+
+        final TimeOrderedSearchPlan ascending = TimeOrderedSearchPlan.create(INDEX_RANGES, SortOrder.ASC);
+        final TimeOrderedSearchPlan.Step index1 = ascending.steps().get(2);
+
+        assertThat(ascending.canSkip(index1, INDEX_1.begin().getMillis() - 1L)).isTrue();
+        assertThat(ascending.canSkip(index1, INDEX_1.begin().getMillis())).isFalse();
+    }
+
+    private static IndexRange range(String indexName, DateTime begin, DateTime end) {
+        return MongoIndexRange.create(indexName, begin, end, end, 0);
+    }
+}
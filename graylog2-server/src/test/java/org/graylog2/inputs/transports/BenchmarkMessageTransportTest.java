@@ -0,0 +1,64 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.inputs.transports;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.eventbus.EventBus;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.inputs.MessageInput;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class BenchmarkMessageTransportTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MessageInput input = mock(MessageInput.class);
+
+    private BenchmarkMessageTransport transport(int messageSize) {
+        final Configuration configuration = new Configuration(ImmutableMap.of(
+                BenchmarkMessageTransport.CK_SOURCE, "bench.example.org",
+                BenchmarkMessageTransport.CK_RATE, 0,
+                BenchmarkMessageTransport.CK_MESSAGE_SIZE, messageSize));
+        return new BenchmarkMessageTransport(configuration, new EventBus(), objectMapper);
+    }
+
+    @Test
+    public void producesGelfMessagesOfConfiguredSize() throws Exception {
+        final BenchmarkMessageTransport transport = transport(100);
+
+        final JsonNode gelf = objectMapper.readTree(transport.produceRawMessage(input).getPayload());
+
+        assertThat(gelf.path("version").asText()).isEqualTo("1.1");
+        assertThat(gelf.path("host").asText()).isEqualTo("bench.example.org");
+        assertThat(gelf.path("short_message").asText()).hasSize(100);
+        assertThat(gelf.has("_http_status")).isTrue();
+    }
+
+    @Test
+    public void producesSameMessagesOnEveryRun() throws Exception {
+        final BenchmarkMessageTransport first = transport(64);
+        final BenchmarkMessageTransport second = transport(64);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(first.produceRawMessage(input).getPayload())
+                    .isEqualTo(second.produceRawMessage(input).getPayload());
+        }
+    }
+}
@@ -24,6 +24,7 @@ import org.graylog2.indexer.messages.Messages;
 import org.graylog2.plugin.Message;
 import org.graylog2.plugin.Tools;
 import org.graylog2.shared.journal.NoopJournal;
+import org.graylog2.shared.metrics.PipelineLatencies;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -45,6 +46,7 @@ public class BlockingBatchedESOutputTest {
     private MetricRegistry metricRegistry;
     private NoopJournal journal;
     private Configuration config;
+    private PipelineLatencies pipelineLatencies;
 
     @Mock
     private Messages messages;
@@ -55,6 +57,7 @@ public class BlockingBatchedESOutputTest {
     public void setUp() throws Exception {
         this.metricRegistry = new MetricRegistry();
         this.journal = new NoopJournal();
+        this.pipelineLatencies = new PipelineLatencies(metricRegistry, 100);
         this.config = new Configuration() {
             @Override
             public int getOutputBatchSize() {
@@ -68,7 +71,7 @@ public class BlockingBatchedESOutputTest {
         when(cluster.isConnected()).thenReturn(true);
         when(cluster.isDeflectorHealthy()).thenReturn(true);
 
-        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal);
+        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal, pipelineLatencies);
 
         final List<Message> messageList = buildMessages(config.getOutputBatchSize());
 
@@ -85,7 +88,7 @@ public class BlockingBatchedESOutputTest {
 
         doThrow(RuntimeException.class).when(cluster).waitForConnectedAndDeflectorHealthy();
 
-        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal);
+        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal, pipelineLatencies);
 
         final List<Message> messageList = buildMessages(config.getOutputBatchSize());
 
@@ -106,7 +109,7 @@ public class BlockingBatchedESOutputTest {
 
         doThrow(RuntimeException.class).when(cluster).waitForConnectedAndDeflectorHealthy();
 
-        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal);
+        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal, pipelineLatencies);
 
         final List<Message> messageList = buildMessages(config.getOutputBatchSize());
 
@@ -125,7 +128,7 @@ public class BlockingBatchedESOutputTest {
         when(cluster.isConnected()).thenReturn(true);
         when(cluster.isDeflectorHealthy()).thenReturn(true);
 
-        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal);
+        final BlockingBatchedESOutput output = new BlockingBatchedESOutput(metricRegistry, messages, cluster, config, journal, pipelineLatencies);
 
         final List<Message> messageList = buildMessages(config.getOutputBatchSize() - 1);
 
@@ -16,19 +16,30 @@
  */
 package org.graylog2.plugin.journal;
 
+import com.google.common.collect.ImmutableMap;
+import org.graylog2.plugin.ResolvableInetSocketAddress;
 import org.graylog2.plugin.configuration.Configuration;
 import org.graylog2.plugin.system.NodeId;
+import org.graylog2.shared.journal.JournalCodecConfigTable;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.nio.charset.StandardCharsets;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class RawMessageTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     @Test
     public void minimalEncodeDecode() throws IOException {
         final RawMessage rawMessage = new RawMessage("testmessage".getBytes(StandardCharsets.UTF_8));
@@ -44,4 +55,72 @@ public class RawMessageTest {
         assertArrayEquals("testmessage".getBytes(StandardCharsets.UTF_8), decodedMsg.getPayload());
         assertEquals("raw", decodedMsg.getCodecName());
     }
+
+    @Test
+    public void compactEncodeDecode() throws IOException {
+        final JournalCodecConfigTable codecConfigTable = new JournalCodecConfigTable(temporaryFolder.newFolder());
+        final RawMessage rawMessage = new RawMessage("testmessage".getBytes(StandardCharsets.UTF_8),
+                new InetSocketAddress("127.0.0.1", 12201));
+        final NodeId nodeId = new NodeId(temporaryFolder.newFile().getAbsolutePath());
+        rawMessage.addSourceNode("inputid", nodeId);
+        rawMessage.setCodecName("gelf");
+        rawMessage.setCodecConfig(new Configuration(ImmutableMap.of("port", 12201, "bind_address", "0.0.0.0")));
+
+        final byte[] encoded = rawMessage.encode(codecConfigTable);
+        final RawMessage decodedMsg = RawMessage.decode(encoded, 1, codecConfigTable);
+
+        assertNotNull(decodedMsg);
+        assertEquals(rawMessage.getId(), decodedMsg.getId());
+        assertEquals(rawMessage.getTimestamp(), decodedMsg.getTimestamp());
+        assertEquals(1, decodedMsg.getJournalOffset());
+        assertArrayEquals("testmessage".getBytes(StandardCharsets.UTF_8), decodedMsg.getPayload());
+        assertEquals("gelf", decodedMsg.getCodecName());
+        assertEquals(12201, decodedMsg.getCodecConfig().getInt("port"));
+        assertEquals("0.0.0.0", decodedMsg.getCodecConfig().getString("bind_address"));
+        assertEquals(1, decodedMsg.getSourceNodes().size());
+        assertEquals("inputid", decodedMsg.getSourceNodes().get(0).inputId);
+        assertEquals(nodeId.toString(), decodedMsg.getSourceNodes().get(0).nodeId);
+        final ResolvableInetSocketAddress remoteAddress = decodedMsg.getRemoteAddress();
+        assertNotNull(remoteAddress);
+        assertEquals(12201, remoteAddress.getPort());
+        assertEquals("127.0.0.1", remoteAddress.getAddress().getHostAddress());
+    }
+
+    @Test
+    public void compactFormatIsSmallerThanProtobufFormat() throws IOException {
+        final JournalCodecConfigTable codecConfigTable = new JournalCodecConfigTable(temporaryFolder.newFolder());
+        final RawMessage rawMessage = new RawMessage("testmessage".getBytes(StandardCharsets.UTF_8));
+        rawMessage.setCodecName("raw");
+        rawMessage.setCodecConfig(new Configuration(ImmutableMap.of("bind_address", "0.0.0.0", "port", 5555,
+                "recv_buffer_size", 262144, "override_source", "example.org")));
+
+        assertThat(rawMessage.encode(codecConfigTable).length).isLessThan(rawMessage.encode().length);
+    }
+
+    @Test
+    public void decodeReadsProtobufFormatWithCodecConfigTable() throws IOException {
+        final JournalCodecConfigTable codecConfigTable = new JournalCodecConfigTable(temporaryFolder.newFolder());
+        final RawMessage rawMessage = new RawMessage("testmessage".getBytes(StandardCharsets.UTF_8));
+        rawMessage.setCodecName("raw");
+        rawMessage.setCodecConfig(new Configuration(ImmutableMap.of("port", 5555)));
+
+        final RawMessage decodedMsg = RawMessage.decode(rawMessage.encode(), 1, codecConfigTable);
+
+        assertNotNull(decodedMsg);
+        assertArrayEquals("testmessage".getBytes(StandardCharsets.UTF_8), decodedMsg.getPayload());
+        assertEquals(5555, decodedMsg.getCodecConfig().getInt("port"));
+    }
+
+    @Test
+    public void decodeRejectsCompactFormatWithUnknownCodecConfig() throws IOException {
+        final JournalCodecConfigTable codecConfigTable = new JournalCodecConfigTable(temporaryFolder.newFolder());
+        final RawMessage rawMessage = new RawMessage("testmessage".getBytes(StandardCharsets.UTF_8));
+        rawMessage.setCodecName("raw");
+        rawMessage.setCodecConfig(new Configuration(ImmutableMap.of("port", 5555)));
+        final byte[] encoded = rawMessage.encode(codecConfigTable);
+
+        final JournalCodecConfigTable otherTable = new JournalCodecConfigTable(temporaryFolder.newFolder());
+        assertNull(RawMessage.decode(encoded, 1, otherTable));
+        assertNull(RawMessage.decode(encoded, 1));
+    }
 }
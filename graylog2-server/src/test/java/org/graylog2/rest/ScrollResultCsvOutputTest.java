@@ -0,0 +1,84 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.rest;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.search.SearchHit;
+import org.graylog2.indexer.results.ScrollResult;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ScrollResultCsvOutputTest {
+    @Test
+    public void writesAllPagesOfScroll() throws Exception {
+        final ScrollResult scroll = mock(ScrollResult.class);
+        when(scroll.getFields()).thenReturn(ImmutableList.of("timestamp", "_id", "message"));
+        when(scroll.nextHits()).thenReturn(
+                new SearchHit[]{hit("id1", "2016-08-01 12:00:00.000", "first\nline")},
+                new SearchHit[]{hit("id2", "2016-08-01 12:00:01.000", "  ")},
+                null);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ScrollResultCsvOutput(scroll, 0).write(output);
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(
+                "\"timestamp\",\"_id\",\"message\"\n" +
+                        "\"2016-08-01T12:00:00.000Z\",\"id1\",\"first\\nline\"\n" +
+                        "\"2016-08-01T12:00:01.000Z\",\"id2\",\n");
+        verify(scroll, never()).cancel();
+    }
+
+    @Test
+    public void stopsAtLimitAndCancelsScroll() throws Exception {
+        final ScrollResult scroll = mock(ScrollResult.class);
+        when(scroll.getFields()).thenReturn(ImmutableList.of("message"));
+        when(scroll.nextHits()).thenReturn(
+                new SearchHit[]{hit("id1", "2016-08-01 12:00:00.000", "one"), hit("id2", "2016-08-01 12:00:01.000", "two")},
+                new SearchHit[]{hit("id3", "2016-08-01 12:00:02.000", "three")},
+                null);
+
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ScrollResultCsvOutput(scroll, 1).write(output);
+
+        assertThat(new String(output.toByteArray(), StandardCharsets.UTF_8)).isEqualTo("\"message\"\n\"one\"\n");
+        verify(scroll).cancel();
+    }
+
+    @Test
+    public void csvValueKeepsUnparseableTimestamp() {
+        assertThat(ScrollResultCsvOutput.csvValue("timestamp", "foo")).isEqualTo("foo");
+        assertThat(ScrollResultCsvOutput.csvValue("count", 42)).isEqualTo("42");
+        assertThat(ScrollResultCsvOutput.csvValue("message", null)).isNull();
+        assertThat(ScrollResultCsvOutput.csvValue("message", "a\r\nb ")).isEqualTo("a\\r\\nb");
+    }
+
+    private static SearchHit hit(String id, String timestamp, String message) {
+        final SearchHit hit = mock(SearchHit.class);
+        when(hit.getId()).thenReturn(id);
+        when(hit.getSource()).thenReturn(ImmutableMap.of("timestamp", timestamp, "message", message));
+        return hit;
+    }
+}
@@ -16,10 +16,14 @@
  */
 package org.graylog2.security;
 
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.eventbus.EventBus;
 import com.lordofthejars.nosqlunit.annotation.UsingDataSet;
 import com.lordofthejars.nosqlunit.core.LoadStrategyEnum;
 import com.lordofthejars.nosqlunit.mongodb.InMemoryMongoDb;
 import org.graylog2.database.MongoConnectionRule;
+import org.graylog2.events.ClusterEventBus;
+import org.graylog2.security.events.AccessTokenDeletedEvent;
 import org.joda.time.DateTime;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -39,11 +43,13 @@ public class AccessTokenServiceImplTest {
     @Rule
     public MongoConnectionRule mongoRule = MongoConnectionRule.build("test");
 
+    private EventBus serverEventBus;
     private AccessTokenService accessTokenService;
 
     @Before
     public void setupService () {
-        this.accessTokenService = new AccessTokenServiceImpl(mongoRule.getMongoConnection());
+        this.serverEventBus = new EventBus();
+        this.accessTokenService = new AccessTokenServiceImpl(mongoRule.getMongoConnection(), Duration.seconds(30L), serverEventBus, new ClusterEventBus());
     }
 
     @Test
@@ -100,6 +106,20 @@ public class AccessTokenServiceImplTest {
         assertThat(token.getLastAccess()).isAfter(initialLastAccess);
     }
 
+    @Test
+    @UsingDataSet(locations = "accessTokensSingleToken.json", loadStrategy = LoadStrategyEnum.CLEAN_INSERT)
+    public void testFlushLastAccessTimes() throws Exception {
+        final AccessToken token = accessTokenService.load("foobar");
+        final DateTime initialLastAccess = token.getLastAccess();
+
+        accessTokenService.touch(token);
+        assertEquals(initialLastAccess, accessTokenService.loadAll("admin").get(0).getLastAccess());
+
+        assertEquals(1, accessTokenService.flushLastAccessTimes());
+        assertEquals(token.getLastAccess(), accessTokenService.loadAll("admin").get(0).getLastAccess());
+        assertEquals(0, accessTokenService.flushLastAccessTimes());
+    }
+
     @Test
     @UsingDataSet(loadStrategy = LoadStrategyEnum.DELETE_ALL)
     public void testSave() throws Exception {
@@ -124,6 +144,22 @@ public class AccessTokenServiceImplTest {
         assertEquals(token.getToken(), newToken.getToken());
     }
 
+    @Test
+    @UsingDataSet(locations = "accessTokensSingleToken.json", loadStrategy = LoadStrategyEnum.CLEAN_INSERT)
+    public void testTokenDeletedOnOtherNode() throws Exception {
+        final AccessToken token = accessTokenService.load("foobar");
+        assertNotNull(token);
+
+        // another node deletes the token and notifies this node
+        final AccessTokenService otherNode = new AccessTokenServiceImpl(mongoRule.getMongoConnection(), Duration.seconds(30L), new EventBus(), new ClusterEventBus());
+        otherNode.destroy(token);
+        assertNotNull("Token should still be cached", accessTokenService.load("foobar"));
+
+        serverEventBus.post(AccessTokenDeletedEvent.create(token.getId()));
+
+        assertNull("Deleted token should have been removed from the cache", accessTokenService.load("foobar"));
+    }
+
     @Test(expected = IllegalStateException.class)
     @UsingDataSet(locations = "accessTokensMultipleIdenticalTokens.json", loadStrategy = LoadStrategyEnum.CLEAN_INSERT)
     public void testExceptionForMultipleTokens() throws Exception {
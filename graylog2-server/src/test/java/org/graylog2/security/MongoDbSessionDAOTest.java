@@ -0,0 +1,85 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.security;
+
+import com.github.joschi.jadconfig.util.Duration;
+import org.apache.shiro.session.mgt.SimpleSession;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MongoDbSessionDAOTest {
+    private MongoDBSessionService sessionService;
+    private MongoDbSessionDAO sessionDAO;
+
+    @Before
+    public void setUp() {
+        sessionService = mock(MongoDBSessionService.class);
+        when(sessionService.saveWithoutValidation(any(MongoDbSession.class))).thenReturn("id");
+        sessionDAO = new MongoDbSessionDAO(sessionService, Duration.seconds(30L));
+    }
+
+    @Test
+    public void lastAccessTimeUpdatesAreDeferredUntilFlush() {
+        final SimpleSession session = new SimpleSession("localhost");
+        final Serializable sessionId = sessionDAO.create(session);
+        verify(sessionService, times(1)).saveWithoutValidation(any(MongoDbSession.class));
+
+        final Date lastAccessTime = new Date(session.getLastAccessTime().getTime() + 1000L);
+        session.setLastAccessTime(lastAccessTime);
+        sessionDAO.update(session);
+
+        verify(sessionService, never()).load(anyString());
+        verify(sessionService, times(1)).saveWithoutValidation(any(MongoDbSession.class));
+        verify(sessionService, never()).updateLastAccessTimes(anyMap());
+
+        sessionDAO.flushLastAccessTimes();
+        verify(sessionService).updateLastAccessTimes(Collections.singletonMap(sessionId.toString(), lastAccessTime));
+
+        // nothing left to flush
+        sessionDAO.flushLastAccessTimes();
+        verify(sessionService).updateLastAccessTimes(Collections.emptyMap());
+    }
+
+    @Test
+    public void otherChangesAreWrittenImmediately() {
+        final SimpleSession session = new SimpleSession("localhost");
+        final Serializable sessionId = sessionDAO.create(session);
+        when(sessionService.load(sessionId.toString())).thenReturn(mock(MongoDbSession.class));
+
+        session.setAttribute("username", "admin");
+        session.setLastAccessTime(new Date(session.getLastAccessTime().getTime() + 1000L));
+        sessionDAO.update(session);
+
+        verify(sessionService, times(2)).saveWithoutValidation(any(MongoDbSession.class));
+
+        sessionDAO.flushLastAccessTimes();
+        verify(sessionService).updateLastAccessTimes(Collections.emptyMap());
+    }
+}
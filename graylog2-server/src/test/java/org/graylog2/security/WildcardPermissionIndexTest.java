@@ -0,0 +1,117 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.security;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WildcardPermissionIndexTest {
+    private static final List<String> PERMISSIONS = ImmutableList.of(
+            "streams:read:5735d6fb4f8db36d8b0c6d2a",
+            "streams:edit,changestate:5735d6fb4f8db36d8b0c6d2b",
+            "dashboards:*",
+            "users:edit:*:*",
+            "indices",
+            "Messages:Read",
+            "searches:absolute,relative");
+
+    private static final List<String> CHECKED_PERMISSIONS = ImmutableList.of(
+            "streams:read:5735d6fb4f8db36d8b0c6d2a",
+            "streams:read:5735d6fb4f8db36d8b0c6d2b",
+            "streams:edit:5735d6fb4f8db36d8b0c6d2b",
+            "streams:changestate:5735d6fb4f8db36d8b0c6d2b",
+            "streams:edit,changestate:5735d6fb4f8db36d8b0c6d2b",
+            "streams:edit,read:5735d6fb4f8db36d8b0c6d2b",
+            "streams:read",
+            "streams:read:*",
+            "streams",
+            "dashboards",
+            "dashboards:read",
+            "dashboards:read:5735d6fb4f8db36d8b0c6d2c",
+            "users:edit",
+            "users:edit:admin",
+            "users:edit:admin:foo",
+            "users:edit:admin:foo:bar",
+            "users:read:admin",
+            "indices:read:graylog_0",
+            "messages:read",
+            "messages:read:graylog_0",
+            "MESSAGES",
+            "searches:absolute",
+            "searches:absolute,relative",
+            "searches:absolute,keyword",
+            "searches:*",
+            "*");
+
+    @Test
+    public void impliesMatchesWildcardPermission() throws Exception {
+        final WildcardPermissionIndex index = new WildcardPermissionIndex(PERMISSIONS);
+
+        for (String permission : CHECKED_PERMISSIONS) {
+            assertThat(index.implies(permission))
+                    .as(permission)
+                    .isEqualTo(impliedByAny(PERMISSIONS, permission));
+        }
+    }
+
+    @Test
+    public void wildcardPermissionImpliesEverything() throws Exception {
+        final WildcardPermissionIndex index = new WildcardPermissionIndex(Collections.singleton("*"));
+
+        for (String permission : CHECKED_PERMISSIONS) {
+            assertThat(index.implies(permission)).as(permission).isTrue();
+        }
+    }
+
+    @Test
+    public void emptyIndexImpliesNothing() throws Exception {
+        final WildcardPermissionIndex index = new WildcardPermissionIndex(Collections.emptyList());
+
+        for (String permission : CHECKED_PERMISSIONS) {
+            assertThat(index.implies(permission)).as(permission).isFalse();
+        }
+    }
+
+    @Test
+    public void invalidPermissionsAreIgnored() throws Exception {
+        final WildcardPermissionIndex index = new WildcardPermissionIndex(ImmutableList.of("::", " ", "streams:read"));
+
+        assertThat(index.implies("streams:read:5735d6fb4f8db36d8b0c6d2a")).isTrue();
+        assertThat(index.implies("streams:edit:5735d6fb4f8db36d8b0c6d2a")).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void impliesThrowsOnInvalidPermission() throws Exception {
+        new WildcardPermissionIndex(PERMISSIONS).implies("streams:,:read");
+    }
+
+    private static boolean impliedByAny(List<String> permissions, String permission) {
+        final WildcardPermission wildcardPermission = new WildcardPermission(permission);
+        for (String p : permissions) {
+            if (new WildcardPermission(p).implies(wildcardPermission)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,114 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.security.realm;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.joschi.jadconfig.util.Duration;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.eventbus.EventBus;
+import org.apache.shiro.authz.UnauthorizedException;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.apache.shiro.subject.PrincipalCollection;
+import org.apache.shiro.subject.SimplePrincipalCollection;
+import org.graylog2.plugin.database.users.User;
+import org.graylog2.security.InMemoryRolePermissionResolver;
+import org.graylog2.security.MongoDbAuthorizationCacheManager;
+import org.graylog2.shared.users.UserService;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class MongoDbAuthorizationRealmTest {
+    private static final PrincipalCollection PRINCIPALS = new SimplePrincipalCollection("john", "test");
+
+    private UserService userService;
+    private InMemoryRolePermissionResolver rolePermissionResolver;
+    private MongoDbAuthorizationRealm realm;
+
+    @Before
+    public void setUp() {
+        userService = mock(UserService.class);
+        rolePermissionResolver = mock(InMemoryRolePermissionResolver.class);
+        final User user = mock(User.class);
+        when(user.getPermissions()).thenReturn(ImmutableList.of("streams:read:stream1"));
+        when(user.getRoleIds()).thenReturn(ImmutableSet.of("role1"));
+        when(userService.load("john")).thenReturn(user);
+        when(rolePermissionResolver.resolveStringPermission("role1")).thenReturn(ImmutableSet.of("dashboards:*"));
+        when(rolePermissionResolver.getVersion()).thenReturn(1L);
+
+        final MongoDbAuthorizationCacheManager cacheManager = new MongoDbAuthorizationCacheManager(new MetricRegistry(), Duration.seconds(1L));
+        realm = new MongoDbAuthorizationRealm(userService, cacheManager, rolePermissionResolver, new EventBus());
+    }
+
+    @Test
+    public void isPermittedWithString() {
+        assertThat(realm.isPermitted(PRINCIPALS, "streams:read:stream1")).isTrue();
+        assertThat(realm.isPermitted(PRINCIPALS, "dashboards:read:dashboard1")).isTrue();
+        assertThat(realm.isPermitted(PRINCIPALS, "streams:read:stream2")).isFalse();
+    }
+
+    @Test
+    public void isPermittedWithResolvedPermission() {
+        assertThat(realm.isPermitted(PRINCIPALS, realm.getPermissionResolver().resolvePermission("streams:read:stream1"))).isTrue();
+        assertThat(realm.isPermitted(PRINCIPALS, realm.getPermissionResolver().resolvePermission("streams:edit:stream1"))).isFalse();
+    }
+
+    @Test
+    public void isPermittedWithForeignPermission() {
+        assertThat(realm.isPermitted(PRINCIPALS, new WildcardPermission("streams:read:stream1"))).isTrue();
+        assertThat(realm.isPermitted(PRINCIPALS, new WildcardPermission("users:edit"))).isFalse();
+    }
+
+    @Test
+    public void isPermittedWithSeveralPermissions() {
+        assertThat(realm.isPermitted(PRINCIPALS, "streams:read:stream1", "streams:read:stream2")).containsExactly(true, false);
+        assertThat(realm.isPermittedAll(PRINCIPALS, "streams:read:stream1", "dashboards:read")).isTrue();
+        assertThat(realm.isPermittedAll(PRINCIPALS, "streams:read:stream1", "streams:read:stream2")).isFalse();
+    }
+
+    @Test
+    public void checkPermission() {
+        realm.checkPermission(PRINCIPALS, "streams:read:stream1");
+        realm.checkPermissions(PRINCIPALS, "streams:read:stream1", "dashboards:read");
+
+        assertThatThrownBy(() -> realm.checkPermission(PRINCIPALS, "streams:read:stream2"))
+                .isInstanceOf(UnauthorizedException.class);
+        assertThatThrownBy(() -> realm.checkPermissions(PRINCIPALS, Collections.singletonList(new WildcardPermission("users:edit"))))
+                .isInstanceOf(UnauthorizedException.class);
+    }
+
+    @Test
+    public void changedRolesRebuildTheIndex() {
+        assertThat(realm.isPermitted(PRINCIPALS, "users:read")).isFalse();
+
+        when(rolePermissionResolver.resolveStringPermission("role1")).thenReturn(ImmutableSet.of("users:read"));
+        when(rolePermissionResolver.getVersion()).thenReturn(2L);
+
+        assertThat(realm.isPermitted(PRINCIPALS, "users:read")).isTrue();
+        assertThat(realm.isPermitted(PRINCIPALS, "dashboards:read")).isFalse();
+        verify(userService, times(2)).load("john");
+    }
+}
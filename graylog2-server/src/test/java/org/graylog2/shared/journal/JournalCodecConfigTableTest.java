@@ -0,0 +1,106 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.journal;
+
+import com.google.common.collect.ImmutableMap;
+import org.graylog2.plugin.configuration.Configuration;
+import org.graylog2.plugin.journal.CodecConfigTable;
+import org.graylog2.plugin.journal.RawMessage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JournalCodecConfigTableTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void internReturnsSameIdForEqualConfigurations() throws Exception {
+        final JournalCodecConfigTable table = new JournalCodecConfigTable(temporaryFolder.newFolder());
+
+        final long id1 = table.intern(new Configuration(ImmutableMap.of("port", 12201, "bind_address", "0.0.0.0")));
+        final long id2 = table.intern(new Configuration(ImmutableMap.of("bind_address", "0.0.0.0", "port", 12201)));
+        final long id3 = table.intern(new Configuration(ImmutableMap.of("port", 12202, "bind_address", "0.0.0.0")));
+
+        final long id4 = table.internSourceNodes(Collections.singletonList(
+                new RawMessage.SourceNode("other-node-id", "input-id", RawMessage.SourceNode.Type.SERVER)));
+
+        assertThat(id1).isEqualTo(id2).isNotEqualTo(id3).isNotEqualTo(id4);
+        assertThat(table.internSourceNodes(Collections.singletonList(sourceNode))).isEqualTo(id1);
+        assertThat(table.lookup(id1).getInt("port")).isEqualTo(12201);
+        assertThat(table.lookup(id3).getInt("port")).isEqualTo(12202);
+    }
+
+    @Test
+    public void emptyConfigurationsAreNotStored() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final JournalCodecConfigTable table = new JournalCodecConfigTable(directory);
+
+        assertThat(table.intern(null)).isEqualTo(CodecConfigTable.EMPTY_CONFIGURATION_ID);
+        assertThat(table.intern(Configuration.EMPTY_CONFIGURATION)).isEqualTo(CodecConfigTable.EMPTY_CONFIGURATION_ID);
+        assertThat(table.lookup(CodecConfigTable.EMPTY_CONFIGURATION_ID)).isSameAs(Configuration.EMPTY_CONFIGURATION);
+        assertThat(new File(directory, JournalCodecConfigTable.FILE_NAME)).doesNotExist();
+    }
+
+    @Test
+    public void configurationsSurviveRestart() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final long id = new JournalCodecConfigTable(directory)
+                .intern(new Configuration(ImmutableMap.of("port", 12201, "override_source", "example.org")));
+
+        final JournalCodecConfigTable reloaded = new JournalCodecConfigTable(directory);
+
+        assertThat(reloaded.lookup(id)).isNotNull();
+        assertThat(reloaded.lookup(id).getInt("port")).isEqualTo(12201);
+        assertThat(reloaded.lookup(id).getString("override_source")).isEqualTo("example.org");
+        assertThat(reloaded.lookup(42L)).isNull();
+    }
+
+    @Test
+    public void sourceNodesAreInternedAndSurviveRestart() throws Exception {
+        final File directory = temporaryFolder.newFolder();
+        final JournalCodecConfigTable table = new JournalCodecConfigTable(directory);
+        final RawMessage.SourceNode sourceNode = new RawMessage.SourceNode("node-id", "input-id", RawMessage.SourceNode.Type.SERVER);
+
+        final long id1 = table.internSourceNodes(Collections.singletonList(sourceNode));
+        final long id2 = table.internSourceNodes(Collections.singletonList(
+                new RawMessage.SourceNode("node-id", "input-id", RawMessage.SourceNode.Type.SERVER)));
+        final long id3 = table.internSourceNodes(Collections.singletonList(
+                new RawMessage.SourceNode("node-id", "other-input-id", RawMessage.SourceNode.Type.SERVER)));
+
+        final long id4 = table.internSourceNodes(Collections.singletonList(
+                new RawMessage.SourceNode("other-node-id", "input-id", RawMessage.SourceNode.Type.SERVER)));
+
+        assertThat(id1).isEqualTo(id2).isNotEqualTo(id3).isNotEqualTo(id4);
+        assertThat(table.internSourceNodes(Collections.singletonList(sourceNode))).isEqualTo(id1);
+        assertThat(table.internSourceNodes(Collections.emptyList())).isEqualTo(CodecConfigTable.EMPTY_SOURCE_NODES_ID);
+
+        final List<RawMessage.SourceNode> reloaded = new JournalCodecConfigTable(directory).lookupSourceNodes(id1);
+        assertThat(reloaded).hasSize(1);
+        assertThat(reloaded.get(0).nodeId).isEqualTo("node-id");
+        assertThat(reloaded.get(0).inputId).isEqualTo("input-id");
+        assertThat(reloaded.get(0).type).isEqualTo(RawMessage.SourceNode.Type.SERVER);
+        assertThat(table.lookupSourceNodes(id1)).isNotSameAs(table.lookupSourceNodes(id1));
+        assertThat(table.lookupSourceNodes(42L)).isNull();
+    }
+}
@@ -0,0 +1,52 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.journal;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.eventbus.EventBus;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import com.google.inject.name.Names;
+import org.graylog2.plugin.journal.CodecConfigTable;
+import org.graylog2.shared.buffers.ProcessBuffer;
+import org.graylog2.shared.buffers.RawMessageEncoderHandler;
+import org.junit.Test;
+
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class NoopJournalModuleTest {
+    @Test
+    public void journalComponentsCanBeCreatedWithDisabledJournal() {
+        final Injector injector = Guice.createInjector(new NoopJournalModule(), new AbstractModule() {
+            @Override
+            protected void configure() {
+                bind(MetricRegistry.class).toInstance(new MetricRegistry());
+                bind(EventBus.class).toInstance(new EventBus());
+                bind(ProcessBuffer.class).toInstance(mock(ProcessBuffer.class));
+                bind(Semaphore.class).annotatedWith(Names.named("JournalSignal")).toInstance(new Semaphore(0));
+            }
+        });
+
+        assertThat(injector.getInstance(CodecConfigTable.class)).isInstanceOf(NoopCodecConfigTable.class);
+        assertThat(injector.getInstance(RawMessageEncoderHandler.class)).isNotNull();
+        assertThat(injector.getInstance(JournalReader.class)).isNotNull();
+    }
+}
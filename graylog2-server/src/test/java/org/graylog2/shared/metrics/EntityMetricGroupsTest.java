@@ -0,0 +1,163 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.base.Ticker;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class EntityMetricGroupsTest {
+    private MetricRegistry metricRegistry;
+    private EntityMetricGroups groups;
+
+    @Before
+    public void setUp() throws Exception {
+        metricRegistry = new MetricRegistry();
+        groups = new EntityMetrics(metricRegistry).groups("things");
+    }
+
+    @Test
+    public void registersMetricsWithBaseName() throws Exception {
+        final Meter meter = groups.group("id1", id -> "thing." + id).meter("incoming");
+        final Timer timer = groups.group("id1", id -> "ignored." + id).timer("time");
+
+        assertThat(metricRegistry.getMeters()).containsEntry("thing.id1.incoming", meter);
+        assertThat(metricRegistry.getTimers()).containsEntry("thing.id1.time", timer);
+        assertThat(groups.group("id1", id -> "thing." + id).meter("incoming")).isSameAs(meter);
+    }
+
+    @Test
+    public void removeUnregistersMetricsOfGroup() throws Exception {
+        groups.group("id1", id -> "thing." + id).meter("incoming");
+        groups.group("id2", id -> "thing." + id).meter("incoming");
+
+        groups.remove("id1");
+
+        assertThat(metricRegistry.getMeters()).containsOnlyKeys("thing.id2.incoming");
+        assertThat(groups.groupCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void removedGroupDoesNotRegisterNewMetrics() throws Exception {
+        final EntityMetricGroups.MetricGroup group = groups.group("id1", id -> "thing." + id);
+        groups.remove("id1");
+
+        assertThat(group.meter("late")).isNotNull();
+        assertThat(metricRegistry.getMeters()).isEmpty();
+    }
+
+    @Test
+    public void removedEntityDoesNotGetNewGroup() throws Exception {
+        groups.group("id1", id -> "thing." + id).meter("incoming");
+        groups.remove("id1");
+
+        assertThat(groups.group("id1", id -> "thing." + id).meter("incoming")).isNotNull();
+        assertThat(metricRegistry.getMeters()).isEmpty();
+        assertThat(groups.groupCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void removedEntityIsForgottenAfterRetention() throws Exception {
+        final AtomicLong nanos = new AtomicLong();
+        final EntityMetricGroups groups = new EntityMetricGroups(metricRegistry, new Ticker() {
+            @Override
+            public long read() {
+                return nanos.get();
+            }
+        });
+        groups.group("id1", id -> "thing." + id).meter("incoming");
+        groups.remove("id1");
+
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(EntityMetricGroups.REMOVED_ENTITY_RETENTION_MINUTES) + 1L);
+
+        groups.group("id1", id -> "thing." + id).meter("incoming");
+        assertThat(metricRegistry.getMeters()).containsOnlyKeys("thing.id1.incoming");
+        assertThat(groups.groupCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void concurrentRemoveLeavesNoMetricsBehind() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4,
+                new ThreadFactoryBuilder().setNameFormat("entity-metric-groups-test-%d").build());
+        try {
+            for (int i = 0; i < 100; i++) {
+                final String entityId = "id" + i;
+                final CountDownLatch start = new CountDownLatch(1);
+                final List<Future<?>> futures = new ArrayList<>();
+                for (int thread = 0; thread < 3; thread++) {
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        for (int metric = 0; metric < 50; metric++) {
+                            groups.group(entityId, id -> "thing." + id).meter("metric" + metric).mark();
+                        }
+                        return null;
+                    }));
+                }
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    groups.remove(entityId);
+                    return null;
+                }));
+                start.countDown();
+                for (Future<?> future : futures) {
+                    future.get(10, TimeUnit.SECONDS);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(metricRegistry.getMeters()).isEmpty();
+        assertThat(groups.groupCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void removeIfMatchesParent() throws Exception {
+        groups.group("rule1", "stream1", id -> "rule." + id).timer("executionTime");
+        groups.group("rule2", "stream1", id -> "rule." + id).timer("executionTime");
+        groups.group("rule3", "stream2", id -> "rule." + id).timer("executionTime");
+
+        groups.removeIf(group -> "stream1".equals(group.parentId()) && !"rule2".equals(group.entityId()));
+
+        assertThat(metricRegistry.getTimers()).containsOnlyKeys("rule.rule2.executionTime", "rule.rule3.executionTime");
+    }
+
+    @Test
+    public void reportsLiveCountsPerType() throws Exception {
+        groups.group("id1", id -> "thing." + id).meter("a");
+        groups.group("id1", id -> "thing." + id).meter("b");
+        groups.group("id2", id -> "thing." + id).meter("a");
+
+        assertThat(metricRegistry.getGauges().get("org.graylog2.shared.metrics.EntityMetrics.things.groups").getValue()).isEqualTo(2);
+        assertThat(metricRegistry.getGauges().get("org.graylog2.shared.metrics.EntityMetrics.things.metrics").getValue()).isEqualTo(3);
+    }
+}
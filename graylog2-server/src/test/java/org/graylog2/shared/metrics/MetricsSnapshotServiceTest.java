@@ -0,0 +1,142 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsSnapshotServiceTest {
+    private MetricRegistry metricRegistry;
+    private MetricsSnapshotService service;
+
+    @Before
+    public void setUp() throws Exception {
+        metricRegistry = new MetricRegistry();
+        metricRegistry.counter("org.graylog2.existing");
+        service = new MetricsSnapshotService(metricRegistry);
+    }
+
+    @Test
+    public void indexesExistingAndNewMetrics() throws Exception {
+        final Meter meter = metricRegistry.meter("org.graylog2.added");
+
+        assertThat(service.get("org.graylog2.existing")).isNotNull();
+        assertThat(service.get("org.graylog2.added")).isSameAs(meter);
+        assertThat(service.get("org.graylog2.missing")).isNull();
+    }
+
+    @Test
+    public void snapshotReturnsMetricsByPrefix() throws Exception {
+        metricRegistry.counter("org.graylog2.foo.a");
+        metricRegistry.counter("org.graylog2.foo.b");
+        metricRegistry.counter("org.graylog2.foobar");
+        metricRegistry.counter("org.graylog2.fo");
+
+        final MetricsSnapshot snapshot = service.snapshot("org.graylog2.foo.");
+
+        assertThat(snapshot.full()).isTrue();
+        assertThat(snapshot.metrics()).containsOnlyKeys("org.graylog2.foo.a", "org.graylog2.foo.b");
+        assertThat(snapshot.removed()).isEmpty();
+    }
+
+    @Test
+    public void snapshotAppliesFilter() throws Exception {
+        metricRegistry.counter("org.graylog2.foo.a");
+        metricRegistry.counter("org.graylog2.foo.b");
+
+        final MetricsSnapshot snapshot = service.snapshot("org.graylog2.foo", 0L, name -> name.endsWith(".b"));
+
+        assertThat(snapshot.metrics()).containsOnlyKeys("org.graylog2.foo.b");
+    }
+
+    @Test
+    public void deltaContainsOnlyChangedAddedAndRemovedMetrics() throws Exception {
+        final Counter changed = metricRegistry.counter("org.graylog2.foo.changed");
+        metricRegistry.counter("org.graylog2.foo.unchanged");
+        metricRegistry.counter("org.graylog2.foo.removed");
+
+        final MetricsSnapshot first = service.snapshot("org.graylog2.foo");
+        assertThat(first.metrics()).hasSize(3);
+
+        changed.inc();
+        metricRegistry.counter("org.graylog2.foo.added");
+        metricRegistry.remove("org.graylog2.foo.removed");
+        metricRegistry.remove("org.graylog2.existing");
+
+        final MetricsSnapshot delta = service.snapshot("org.graylog2.foo", first.version());
+
+        assertThat(delta.full()).isFalse();
+        assertThat(delta.version()).isGreaterThan(first.version());
+        assertThat(delta.metrics()).containsOnlyKeys("org.graylog2.foo.changed", "org.graylog2.foo.added");
+        assertThat(delta.removed()).containsExactly("org.graylog2.foo.removed");
+    }
+
+    @Test
+    public void deltaAlwaysContainsGauges() throws Exception {
+        metricRegistry.register("org.graylog2.foo.gauge", (Gauge<Long>) () -> 1L);
+
+        final MetricsSnapshot first = service.snapshot("org.graylog2.foo");
+        final MetricsSnapshot delta = service.snapshot("org.graylog2.foo", first.version());
+
+        assertThat(delta.metrics()).containsOnlyKeys("org.graylog2.foo.gauge");
+    }
+
+    @Test
+    public void deltaAlwaysContainsMetersAndTimers() throws Exception {
+        metricRegistry.meter("org.graylog2.foo.meter").mark();
+        metricRegistry.timer("org.graylog2.foo.timer").update(1L, TimeUnit.SECONDS);
+        metricRegistry.histogram("org.graylog2.foo.histogram").update(1L);
+
+        final MetricsSnapshot first = service.snapshot("org.graylog2.foo");
+        final MetricsSnapshot delta = service.snapshot("org.graylog2.foo", first.version());
+
+        // the rates of meters and timers decay without new events
+        assertThat(delta.metrics()).containsOnlyKeys("org.graylog2.foo.meter", "org.graylog2.foo.timer");
+    }
+
+    @Test
+    public void fullSnapshotIfRemovalsAreNoLongerKnown() throws Exception {
+        final MetricsSnapshot first = service.snapshot("org.graylog2");
+
+        for (int i = 0; i <= MetricsSnapshotService.MAX_REMOVALS; i++) {
+            metricRegistry.counter("org.graylog2.tmp");
+            metricRegistry.remove("org.graylog2.tmp");
+        }
+
+        final MetricsSnapshot snapshot = service.snapshot("org.graylog2", first.version());
+
+        assertThat(snapshot.full()).isTrue();
+        assertThat(snapshot.metrics()).containsOnlyKeys("org.graylog2.existing");
+        assertThat(snapshot.removed()).isEmpty();
+    }
+
+    @Test
+    public void fullSnapshotForUnknownVersion() throws Exception {
+        final MetricsSnapshot snapshot = service.snapshot("org.graylog2", 1_000_000L);
+
+        assertThat(snapshot.full()).isTrue();
+        assertThat(snapshot.metrics()).containsOnlyKeys("org.graylog2.existing");
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.metrics;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableList;
+import org.graylog2.plugin.Message;
+import org.graylog2.plugin.Tools;
+import org.graylog2.plugin.journal.RawMessage;
+import org.assertj.core.data.Offset;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PipelineLatenciesTest {
+    private MetricRegistry metricRegistry;
+
+    @Before
+    public void setUp() throws Exception {
+        metricRegistry = new MetricRegistry();
+    }
+
+    @Test
+    public void registersTimersForAllStages() throws Exception {
+        new PipelineLatencies(metricRegistry, 1);
+
+        for (PipelineLatencies.Stage stage : PipelineLatencies.Stage.values()) {
+            assertThat(metricRegistry.getTimers()).containsKey(stage.metricName());
+        }
+        assertThat(metricRegistry.getTimers())
+                .containsKey("org.graylog2.shared.metrics.PipelineLatencies.end_to_end");
+    }
+
+    @Test
+    public void tracesSampledMessagesThroughAllStages() throws Exception {
+        final PipelineLatencies latencies = new PipelineLatencies(metricRegistry, 1);
+        final RawMessage rawMessage = new RawMessage("payload".getBytes(StandardCharsets.UTF_8));
+        final Message message = new Message("message", "source", Tools.nowUTC());
+
+        latencies.journalWritten(rawMessage.getTimestampMillis());
+        latencies.decoded(rawMessage, message, TimeUnit.MILLISECONDS.toNanos(2));
+        assertThat(message.isLatencyTraced()).isTrue();
+        assertThat(message.getLatencyReceivedAt()).isEqualTo(rawMessage.getTimestampMillis());
+
+        latencies.streamsRouted(message, 1000L);
+        latencies.processed(message);
+        latencies.written(ImmutableList.of(message));
+
+        for (PipelineLatencies.Stage stage : PipelineLatencies.Stage.values()) {
+            assertThat(latencies.getTimers().get(stage).getCount()).as(stage.name()).isEqualTo(1L);
+        }
+        assertThat(latencies.getTimers().get(PipelineLatencies.Stage.DECODE).getSnapshot().getMax())
+                .isCloseTo(TimeUnit.MILLISECONDS.toNanos(2), Offset.offset(TimeUnit.MICROSECONDS.toNanos(100)));
+    }
+
+    @Test
+    public void ignoresMessagesWhichAreNotTraced() throws Exception {
+        final PipelineLatencies latencies = new PipelineLatencies(metricRegistry, 1);
+        final Message message = new Message("message", "source", Tools.nowUTC());
+
+        latencies.streamsRouted(message, 1000L);
+        latencies.processed(message);
+        latencies.written(ImmutableList.of(message));
+
+        assertThat(message.isLatencyTraced()).isFalse();
+        for (PipelineLatencies.Stage stage : PipelineLatencies.Stage.values()) {
+            assertThat(latencies.getTimers().get(stage).getCount()).as(stage.name()).isEqualTo(0L);
+        }
+    }
+
+    @Test
+    public void samplesAFractionOfMessages() throws Exception {
+        final PipelineLatencies latencies = new PipelineLatencies(metricRegistry, 10);
+
+        int sampled = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (latencies.sample()) {
+                sampled++;
+            }
+        }
+
+        assertThat(sampled).isBetween(8_000, 12_000);
+    }
+
+    @Test
+    public void recordsLatenciesBeyondOneHour() throws Exception {
+        final PipelineLatencies latencies = new PipelineLatencies(metricRegistry, 1);
+        final long now = System.currentTimeMillis();
+
+        latencies.journalWritten(now - TimeUnit.HOURS.toMillis(2L));
+
+        final com.codahale.metrics.Timer timer = latencies.getTimers().get(PipelineLatencies.Stage.JOURNAL_WRITE);
+        assertThat(timer.getCount()).isEqualTo(1L);
+        assertThat(timer.getSnapshot().getMax()).isGreaterThanOrEqualTo(TimeUnit.MINUTES.toNanos(119L));
+    }
+
+    @Test
+    public void clampsLatenciesAboveHighestTrackableValue() throws Exception {
+        final PipelineLatencies latencies = new PipelineLatencies(metricRegistry, 1);
+        final long now = System.currentTimeMillis();
+
+        latencies.journalWritten(now - TimeUnit.DAYS.toMillis(30L));
+        latencies.journalWritten(now + TimeUnit.MINUTES.toMillis(1L));
+
+        final com.codahale.metrics.Timer timer = latencies.getTimers().get(PipelineLatencies.Stage.JOURNAL_WRITE);
+        assertThat(timer.getCount()).isEqualTo(2L);
+        assertThat(timer.getSnapshot().getMax())
+                .isCloseTo(PipelineLatencies.HIGHEST_TRACKABLE_NANOS, Offset.offset(PipelineLatencies.HIGHEST_TRACKABLE_NANOS / 100L));
+        assertThat(timer.getSnapshot().getMin()).isEqualTo(0L);
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.shared.system.stats;
+
+import org.graylog2.shared.system.stats.fs.JmxFsProbe;
+import org.graylog2.shared.system.stats.jvm.JvmProbe;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.graylog2.shared.system.stats.network.JmxNetworkProbe;
+import org.graylog2.shared.system.stats.network.NetworkProbe;
+import org.graylog2.shared.system.stats.network.NetworkStats;
+import org.graylog2.shared.system.stats.os.JmxOsProbe;
+import org.graylog2.shared.system.stats.process.ProcessProbe;
+import org.graylog2.shared.system.stats.process.ProcessStats;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StatsServiceTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private ProcessProbe processProbe;
+    private StatsService statsService;
+
+    @Before
+    public void setUp() throws Exception {
+        processProbe = mock(ProcessProbe.class);
+        when(processProbe.processStats()).thenReturn(processStats(1), processStats(2), processStats(3), processStats(4), processStats(5));
+        statsService = new StatsService(
+                new JmxFsProbe(temporaryFolder.newFolder()),
+                new JvmProbe(),
+                new JmxNetworkProbe(),
+                new JmxOsProbe(),
+                processProbe,
+                3);
+    }
+
+    @Test
+    public void statsAreServedFromLastSample() {
+        final SystemStats first = statsService.systemStats();
+
+        assertThat(statsService.systemStats()).isSameAs(first);
+        assertThat(statsService.processStats()).isSameAs(first.processStats());
+        verify(processProbe, times(1)).processStats();
+
+        final SystemStats second = statsService.sample();
+
+        assertThat(statsService.systemStats()).isSameAs(second);
+        assertThat(statsService.processStats().cpu().percent()).isEqualTo((short) 2);
+        verify(processProbe, times(2)).processStats();
+    }
+
+    @Test
+    public void historyIsEmptyBeforeFirstSample() {
+        final SystemStatsHistory history = statsService.history();
+
+        assertThat(history.timestamps()).isEmpty();
+        assertThat(history.series().get("process_cpu_percent")).isEmpty();
+    }
+
+    @Test
+    public void historyKeepsLastSamplesOldestFirst() {
+        for (int i = 0; i < 5; i++) {
+            statsService.sample();
+        }
+
+        final SystemStatsHistory history = statsService.history();
+
+        assertThat(history.timestamps()).hasSize(3);
+        assertThat(history.timestamps().get(0).getMillis()).isLessThanOrEqualTo(history.timestamps().get(2).getMillis());
+        assertThat(history.series().get("process_cpu_percent")).containsExactly(3L, 4L, 5L);
+        assertThat(history.series().get("process_memory_resident")).containsExactly(3000L, 4000L, 5000L);
+        assertThat(history.series()).containsKeys("os_cpu_percent", "os_memory_used_percent", "network_rx_bytes", "network_tx_bytes");
+    }
+
+    @Test
+    public void networkHistoryHoldsBytesSincePreviousSample() throws Exception {
+        final NetworkProbe networkProbe = mock(NetworkProbe.class);
+        when(networkProbe.networkStats()).thenReturn(networkStats(100L, 10L), networkStats(150L, 30L), networkStats(20L, 35L));
+        final StatsService service = new StatsService(
+                new JmxFsProbe(temporaryFolder.newFolder()),
+                new JvmProbe(),
+                networkProbe,
+                new JmxOsProbe(),
+                processProbe,
+                3);
+        service.sample();
+        service.sample();
+        service.sample();
+
+        final SystemStatsHistory history = service.history();
+
+        // The first sample has no predecessor, the rx counter was reset before the third sample
+        assertThat(history.series().get("network_rx_bytes")).containsExactly(-1L, 50L, -1L);
+        assertThat(history.series().get("network_tx_bytes")).containsExactly(-1L, 20L, 5L);
+    }
+
+    private static NetworkStats networkStats(long rxBytes, long txBytes) {
+        final NetworkStats.InterfaceStats interfaceStats = NetworkStats.InterfaceStats.create(
+                0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, rxBytes, txBytes);
+        final NetworkStats.Interface networkInterface = NetworkStats.Interface.create(
+                "eth0", ImmutableSet.of("127.0.0.1"), "00:00:00:00:00:00", 1500L, interfaceStats);
+        return NetworkStats.create("eth0", ImmutableMap.of("eth0", networkInterface), null);
+    }
+
+    private static ProcessStats processStats(int value) {
+        return ProcessStats.create(1L, 10L, 100L,
+                ProcessStats.Cpu.create((short) value, 0L, 0L, 0L),
+                ProcessStats.Memory.create(0L, value * 1000L, 0L));
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.streams;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SlidingWindowCounterTest {
+    @Test
+    public void sumCountsEventsWithinRange() {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(10);
+        counter.increment(100L);
+        counter.increment(100L);
+        counter.increment(101L);
+        counter.increment(105L);
+
+        assertThat(counter.sum(100L, 106L)).isEqualTo(4L);
+        assertThat(counter.sum(101L, 105L)).isEqualTo(1L);
+        assertThat(counter.sum(106L, 110L)).isEqualTo(0L);
+    }
+
+    @Test
+    public void reusedBucketsStartFromZero() {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(10);
+        counter.increment(100L);
+        counter.increment(100L);
+        counter.increment(110L);
+
+        assertThat(counter.sum(100L, 110L)).isEqualTo(0L);
+        assertThat(counter.sum(110L, 111L)).isEqualTo(1L);
+    }
+
+    @Test
+    public void eventsOlderThanWindowAreDropped() {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(10);
+        counter.increment(110L);
+        counter.increment(100L);
+
+        assertThat(counter.sum(0L, 200L)).isEqualTo(1L);
+    }
+}
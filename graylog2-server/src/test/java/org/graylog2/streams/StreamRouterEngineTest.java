@@ -19,6 +19,7 @@ package org.graylog2.streams;
 
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import org.bson.types.ObjectId;
 import org.graylog2.plugin.Message;
@@ -26,6 +27,7 @@ import org.graylog2.plugin.streams.Stream;
 import org.graylog2.plugin.streams.StreamRule;
 import org.graylog2.plugin.streams.StreamRuleType;
 import org.graylog2.shared.SuppressForbidden;
+import org.graylog2.shared.metrics.EntityMetrics;
 import org.graylog2.streams.matchers.StreamRuleMock;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
@@ -57,13 +59,13 @@ public class StreamRouterEngineTest {
 
     @Before
     public void setUp() throws Exception {
-        streamMetrics = new StreamMetrics(new MetricRegistry());
+        streamMetrics = new StreamMetrics(new EntityMetrics(new MetricRegistry()));
         when(streamFaultManager.getStreamProcessingTimeout()).thenReturn(250L);
     }
 
     @SuppressForbidden("Executors#newSingleThreadExecutor() is okay for tests")
     private StreamRouterEngine newEngine(List<Stream> streams) {
-        return new StreamRouterEngine(streams, Executors.newSingleThreadExecutor(), streamFaultManager, streamMetrics);
+        return new StreamRouterEngine(streams, Executors.newSingleThreadExecutor(), streamFaultManager, streamMetrics, new StreamMessageCounters(false));
     }
 
     @Test
@@ -666,6 +668,82 @@ public class StreamRouterEngineTest {
                 Lists.newArrayList(stream), engine.match(message2));
     }
 
+    @Test
+    public void testWithChangedStreams() throws Exception {
+        final StreamMock stream1 = getStreamMock("test1");
+        final StreamMock stream2 = getStreamMock("test2");
+        final StreamMock stream3 = getStreamMock("test3");
+        stream1.setStreamRules(Lists.newArrayList(new StreamRuleMock(ImmutableMap.of(
+                "_id", new ObjectId(),
+                "field", "field1",
+                "type", StreamRuleType.PRESENCE.toInteger(),
+                "stream_id", stream1.getId()
+        ))));
+        stream2.setStreamRules(Lists.newArrayList(new StreamRuleMock(ImmutableMap.of(
+                "_id", new ObjectId(),
+                "field", "field2",
+                "type", StreamRuleType.PRESENCE.toInteger(),
+                "stream_id", stream2.getId()
+        ))));
+        stream3.setStreamRules(Lists.newArrayList(new StreamRuleMock(ImmutableMap.of(
+                "_id", new ObjectId(),
+                "field", "field3",
+                "type", StreamRuleType.PRESENCE.toInteger(),
+                "stream_id", stream3.getId()
+        ))));
+
+        final StreamRouterEngine engine = newEngine(Lists.newArrayList(stream1, stream2));
+        final StreamRouterEngine updatedEngine = engine.withChangedStreams(
+                ImmutableSet.of(stream2.getId(), stream3.getId()), Collections.singletonList(stream3));
+
+        final Message message = getMessage();
+        message.addField("field1", "value");
+        message.addField("field2", "value");
+        message.addField("field3", "value");
+
+        assertThat(engine.match(message)).containsOnly(stream1, stream2);
+        assertThat(updatedEngine.match(message)).containsOnly(stream1, stream3);
+        assertThat(updatedEngine.getStreams()).containsExactly(stream1, stream3);
+        assertEquals(newEngine(Lists.newArrayList(stream3, stream1)).getFingerprint(), updatedEngine.getFingerprint());
+        assertNotEquals(engine.getFingerprint(), updatedEngine.getFingerprint());
+    }
+
+    @Test
+    @SuppressForbidden("Executors#newSingleThreadExecutor() is okay for tests")
+    public void testMatchCountsMessagesOfMatchedStreams() throws Exception {
+        final StreamMetrics metrics = new StreamMetrics(new EntityMetrics(new MetricRegistry()));
+        final StreamMessageCounters counters = new StreamMessageCounters(true);
+        final StreamMock stream1 = getStreamMock("test1");
+        final StreamMock stream2 = getStreamMock("test2");
+        stream1.setStreamRules(Lists.newArrayList(new StreamRuleMock(ImmutableMap.of(
+                "_id", new ObjectId(),
+                "field", "field1",
+                "type", StreamRuleType.PRESENCE.toInteger(),
+                "stream_id", stream1.getId()
+        ))));
+        stream2.setStreamRules(Lists.newArrayList(new StreamRuleMock(ImmutableMap.of(
+                "_id", new ObjectId(),
+                "field", "field2",
+                "type", StreamRuleType.PRESENCE.toInteger(),
+                "stream_id", stream2.getId()
+        ))));
+
+        final StreamRouterEngine engine = new StreamRouterEngine(Lists.newArrayList(stream1, stream2),
+                Executors.newSingleThreadExecutor(), streamFaultManager, metrics, counters);
+        final Message message = getMessage();
+        message.addField("field1", "value");
+
+        final long second = StreamMessageCounters.currentSecond();
+        assertThat(engine.match(message)).containsExactly(stream1);
+        assertThat(engine.match(message)).containsExactly(stream1);
+
+        assertThat(metrics.getIncomingMeter(stream1.getId()).getCount()).isEqualTo(2L);
+        assertThat(metrics.getIncomingMeter(stream2.getId()).getCount()).isEqualTo(0L);
+        assertThat(counters.counts(second, StreamMessageCounters.currentSecond() + 1L))
+                .containsOnlyKeys(stream1.getId())
+                .containsEntry(stream1.getId(), 2L);
+    }
+
     private StreamMock getStreamMock(String title) {
         return getStreamMock(title, Stream.MatchingType.AND);
     }
@@ -28,6 +28,7 @@ import org.bson.types.ObjectId;
 import org.graylog2.Configuration;
 import org.graylog2.database.MongoConnection;
 import org.graylog2.database.MongoConnectionRule;
+import org.graylog2.events.ClusterEventBus;
 import org.graylog2.plugin.database.users.User;
 import org.graylog2.plugin.security.PasswordAlgorithm;
 import org.graylog2.security.InMemoryRolePermissionResolver;
@@ -37,6 +38,7 @@ import org.graylog2.shared.security.Permissions;
 import org.graylog2.shared.security.RestPermissions;
 import org.graylog2.shared.users.Role;
 import org.graylog2.shared.users.UserService;
+import org.graylog2.users.events.UserChangedEvent;
 import org.joda.time.DateTimeZone;
 import org.junit.Before;
 import org.junit.ClassRule;
@@ -53,6 +55,8 @@ import java.util.Map;
 import static com.lordofthejars.nosqlunit.mongodb.InMemoryMongoDb.InMemoryMongoRuleBuilder.newInMemoryMongoDbRule;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -71,6 +75,8 @@ public class UserServiceImplTest {
     private RoleService roleService;
     @Mock
     private InMemoryRolePermissionResolver permissionsResolver;
+    @Mock
+    private ClusterEventBus clusterEventBus;
 
     @Before
     public void setUp() throws Exception {
@@ -79,7 +85,7 @@ public class UserServiceImplTest {
         this.userFactory = new UserImplFactory(configuration);
         this.permissions = new Permissions(ImmutableSet.of(new RestPermissions()));
         this.userService = new UserServiceImpl(mongoConnection, configuration, roleService, userFactory,
-                                               permissionsResolver);
+                                               permissionsResolver, clusterEventBus);
 
         when(roleService.getAdminRoleObjectId()).thenReturn("deadbeef");
     }
@@ -105,6 +111,10 @@ public class UserServiceImplTest {
         assertThat(userService.delete("user1")).isEqualTo(1);
         assertThat(userService.delete("user-duplicate")).isEqualTo(2);
         assertThat(userService.delete("user-does-not-exist")).isEqualTo(0);
+
+        verify(clusterEventBus).post(UserChangedEvent.create("user1"));
+        verify(clusterEventBus).post(UserChangedEvent.create("user-duplicate"));
+        verify(clusterEventBus, never()).post(UserChangedEvent.create("user-does-not-exist"));
     }
 
     @Test
@@ -206,7 +216,7 @@ public class UserServiceImplTest {
     public void testGetPermissionsForUser() throws Exception {
         final InMemoryRolePermissionResolver permissionResolver = mock(InMemoryRolePermissionResolver.class);
         final UserService userService = new UserServiceImpl(mongoConnection, configuration, roleService, userFactory,
-                                                            permissionResolver);
+                                                            permissionResolver, clusterEventBus);
 
         final UserImplFactory factory = new UserImplFactory(new Configuration());
         final UserImpl user = factory.create(new HashMap<>());
@@ -0,0 +1,58 @@
+/**
+ * This file is part of Graylog.
+ *
+ * Graylog is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Graylog is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Graylog.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.graylog2.web.resources;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WebInterfaceAssetsResourceTest {
+    @Test
+    public void acceptsGzip() throws Exception {
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("gzip")).isTrue();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("gzip, deflate, br")).isTrue();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("*")).isTrue();
+    }
+
+    @Test
+    public void doesNotAcceptGzip() throws Exception {
+        assertThat(WebInterfaceAssetsResource.acceptsGzip(null)).isFalse();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("")).isFalse();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("deflate, br")).isFalse();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(WebInterfaceAssetsResource.acceptsGzip("identity")).isFalse();
+    }
+
+    @Test
+    public void webAssetKeepsGzippedContentOnlyIfSmaller() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("console.log('Hello World');\n");
+        }
+        final WebAsset compressible = WebAsset.create(sb.toString().getBytes(StandardCharsets.UTF_8), new Date(), "application/javascript");
+        assertThat(compressible.gzippedContent()).isNotNull();
+        assertThat(compressible.gzippedContent().length).isLessThan(compressible.content().length);
+        assertThat(compressible.gzippedEntityTag()).isNotEqualTo(compressible.entityTag());
+
+        final WebAsset incompressible = WebAsset.create(new byte[]{1, 2, 3}, new Date(), "image/png");
+        assertThat(incompressible.gzippedContent()).isNull();
+    }
+}
@@ -44,6 +44,7 @@ const ApiRoutes = {
     widget: (dashboardId, widgetId) => { return { url: `/dashboards/${dashboardId}/widgets/${widgetId}` }; },
     updateWidget: (dashboardId, widgetId) => { return { url: `/dashboards/${dashboardId}/widgets/${widgetId}` }; },
     widgetValue: (dashboardId, widgetId) => { return { url: `/dashboards/${dashboardId}/widgets/${widgetId}/value` }; },
+    widgetValues: (dashboardId) => { return { url: `/dashboards/${dashboardId}/widgets/values` }; },
     updatePositions: (dashboardId) => { return { url: `/dashboards/${dashboardId}/positions` }; },
   },
   DecoratorsResource: {
@@ -20,8 +20,19 @@ interface Widget {
     config: {};
 }
 
+interface WidgetValuesRequest {
+    promise: Promise<any>;
+    pending: boolean;
+    completedAt: number;
+}
+
+// Widgets of a dashboard which refresh within this time share the values of one request.
+const WIDGET_VALUES_REUSE_MS = 1000;
+
 const WidgetsStore = Reflux.createStore({
     listenables: [WidgetsActions],
+    widgetValuesRequests: {} as {[dashboardId: string]: WidgetValuesRequest},
+
     _serializeWidgetForUpdate(widget: Widget): any {
         return {
             description: widget.description,
@@ -80,14 +91,42 @@ const WidgetsStore = Reflux.createStore({
         return promise;
     },
 
-    loadValue(dashboardId: string, widgetId: string, resolution: number): Promise<string[]> {
-        var url = URLUtils.qualifyUrl(ApiRoutes.DashboardsApiController.widgetValue(dashboardId, widgetId, resolution).url);
+    loadValue(dashboardId: string, widgetId: string, resolution: number): Promise<any> {
+        return this._loadValues(dashboardId).then((values) => {
+            if (!values.hasOwnProperty(widgetId)) {
+                throw new Error("Value of widget " + widgetId + " could not be computed");
+            }
+            return values[widgetId];
+        });
+    },
 
-        return new Builder('GET', url)
+    // Loads the values of all widgets of a dashboard with one request, which is shared by all widgets asking for
+    // their value while it is pending or shortly after it completed.
+    _loadValues(dashboardId: string): Promise<any> {
+        const current = this.widgetValuesRequests[dashboardId];
+        if (current && (current.pending || Date.now() - current.completedAt < WIDGET_VALUES_REUSE_MS)) {
+            return current.promise;
+        }
+
+        const url = URLUtils.qualifyUrl(ApiRoutes.DashboardsApiController.widgetValues(dashboardId).url);
+        const promise = new Builder('GET', url)
             .authenticated()
             .setHeader('X-Graylog-No-Session-Extension', 'true')
             .json()
             .build();
+        const request: WidgetValuesRequest = {promise: promise, pending: true, completedAt: 0};
+        this.widgetValuesRequests[dashboardId] = request;
+
+        promise.then(() => {
+            request.pending = false;
+            request.completedAt = Date.now();
+        }, () => {
+            if (this.widgetValuesRequests[dashboardId] === request) {
+                delete this.widgetValuesRequests[dashboardId];
+            }
+        });
+
+        return promise;
     },
 
     removeWidget(dashboardId: string, widgetId: string): Promise<string[]> {